@@ -0,0 +1,65 @@
+package com.makeienko.laddstation.controller;
+
+import com.makeienko.laddstation.dto.HourMask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatering av optimala timmar till tidsintervall, för nattimmar, utspridda timmar och hela dygnet
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimalHoursFormatBenchmark {
+
+    @Param({"0,1,2,3,4,5,22,23", "2,9,10,11,15,19", "all"})
+    public String hours;
+
+    private HourMask optimalHours;
+    private List<Double> optimalHourList;
+
+    @Setup
+    public void setUp() {
+        HourMask.Builder builder = new HourMask.Builder(HourMask.DAY);
+        if ("all".equals(hours)) {
+            for (int hour = 0; hour < 24; hour++) {
+                builder.set(hour);
+            }
+        } else {
+            for (String hour : hours.split(",")) {
+                builder.set(Integer.parseInt(hour));
+            }
+        }
+        optimalHours = builder.build();
+        optimalHourList = optimalHours.toHourList();
+    }
+
+    @Benchmark
+    public String formatOptimalHoursRange() {
+        return LaddstationController.formatOptimalHoursRange(optimalHours);
+    }
+
+    /**
+     * Det gamla list-API:t, som går via HourMask.fromHours
+     */
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public String formatOptimalHoursRangeFromList() {
+        return LaddstationController.formatOptimalHoursRange(optimalHourList);
+    }
+}
@@ -0,0 +1,66 @@
+package com.makeienko.laddstation.service;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.simulator.EmbeddedSimulator;
+import com.makeienko.laddstation.simulator.SimulatorClockMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /info via HTTP medan den inbyggda simulatorns accelererade klocka stegar i bakgrunden.
+ * 96 000 steg per sekund är ungefär tusen simulerade dygn per sekund.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AcceleratedClockBenchmark {
+
+    @Param({"96000"})
+    public double stepsPerSecond;
+
+    private EmbeddedSimulator simulator;
+    private LaddstationApiClient apiClient;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        simulator = new EmbeddedSimulator().start("127.0.0.1", 0);
+
+        LaddstationProperties properties = new LaddstationProperties();
+        properties.getSimulator().setBaseUrl(simulator.getBaseUrl());
+        properties.getInfoCache().setStaleness(Duration.ZERO);
+        apiClient = new LaddstationApiClient(new RestTemplate(), properties);
+        simulator.setClockMode(SimulatorClockMode.ACCELERATED, stepsPerSecond);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        simulator.setClockMode(SimulatorClockMode.STEPPED);
+        System.out.println("AcceleratedClockBenchmark: " + simulator.getEngine().getSimulatedDay() + " simulated days");
+        simulator.close();
+    }
+
+    @Benchmark
+    public InfoResponse getInfo() {
+        return apiClient.getInfo();
+    }
+}
@@ -0,0 +1,90 @@
+package com.makeienko.laddstation.service;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.config.TransportPoolLimiter;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.simulator.EmbeddedSimulator;
+import com.makeienko.laddstation.simulator.SimulatorClockMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hela anropsvägen i LaddstationApiClient mot den inbyggda simulatorn med fryst klocka,
+ * via HTTP (RestTemplate, loopback, avkodning och mätvärden) eller direkt i minnet.
+ * /info-cachen är avstängd så att varje anrop går hela vägen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiClientBenchmark {
+
+    @Param({"http", "in-memory"})
+    public String adapter;
+
+    private EmbeddedSimulator simulator;
+    private LaddstationApiClient apiClient;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        simulator = new EmbeddedSimulator().start("127.0.0.1", 0);
+        simulator.setClockMode(SimulatorClockMode.FROZEN);
+
+        LaddstationProperties properties = new LaddstationProperties();
+        properties.getSimulator().setBaseUrl(simulator.getBaseUrl());
+        properties.getInfoCache().setStaleness(Duration.ZERO);
+        SimulatorMetrics metrics = SimulatorMetrics.standalone();
+        SimulatorPort port;
+        if ("in-memory".equals(adapter)) {
+            port = new InMemorySimulatorPort(simulator.getEngine());
+        } else {
+            HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            TransportPoolLimiter limiter = TransportPoolLimiter.of(properties.getTransport());
+            RestTemplate restTemplate = new RestTemplate(new JdkClientHttpRequestFactory(httpClient));
+            restTemplate.getInterceptors().add(limiter);
+            port = new HttpSimulatorPort(restTemplate, properties,
+                    new LaddstationAsyncApiClient(httpClient, limiter, properties, metrics), metrics);
+        }
+        apiClient = new LaddstationApiClient(port, properties, metrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        simulator.close();
+    }
+
+    @Benchmark
+    public InfoResponse getInfo() {
+        return apiClient.getInfo();
+    }
+
+    @Benchmark
+    public double[] getBaseload() {
+        return apiClient.getBaseload();
+    }
+
+    @Benchmark
+    public InfoResponse getInfoAsync() {
+        return apiClient.getInfoAsync().join();
+    }
+}
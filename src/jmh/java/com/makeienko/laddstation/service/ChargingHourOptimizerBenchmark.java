@@ -0,0 +1,66 @@
+package com.makeienko.laddstation.service;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.HourMask;
+import com.makeienko.laddstation.simulator.EmbeddedSimulator;
+import com.makeienko.laddstation.simulator.SimulatorClockMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timval per strategi med serierna redan cachade i SimulatorSeriesStore, som i drift.
+ * /info kommer från cachen inom staleness-fönstret och annars från den inbyggda simulatorn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChargingHourOptimizerBenchmark {
+
+    private EmbeddedSimulator simulator;
+    private ChargingHourOptimizer optimizer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        simulator = new EmbeddedSimulator().start("127.0.0.1", 0);
+        simulator.setClockMode(SimulatorClockMode.FROZEN);
+
+        LaddstationProperties properties = new LaddstationProperties();
+        properties.getSimulator().setBaseUrl(simulator.getBaseUrl());
+        LaddstationApiClient apiClient = new LaddstationApiClient(new RestTemplate(), properties);
+        SimulatorSeriesStore seriesStore = new SimulatorSeriesStore(apiClient);
+        optimizer = new ChargingHourOptimizer(apiClient, seriesStore);
+        optimizer.findOptimalHourMaskByPrice(); // Fyller serie- och /info-cachen
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        simulator.close();
+    }
+
+    @Benchmark
+    public HourMask findOptimalHourMaskByPrice() {
+        return optimizer.findOptimalHourMaskByPrice();
+    }
+
+    @Benchmark
+    public HourMask findOptimalHourMaskByConsumption() {
+        return optimizer.findOptimalHourMaskByConsumption();
+    }
+}
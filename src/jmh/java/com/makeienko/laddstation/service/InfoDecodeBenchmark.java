@@ -0,0 +1,65 @@
+package com.makeienko.laddstation.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.makeienko.laddstation.dto.InfoResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Avkodning av /info- och serie-svaren: streamande läsare mot den tidigare vägen via String och
+ * ObjectMapper. Kör med -prof gc för att jämföra allokerade bytes per anrop.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InfoDecodeBenchmark {
+
+    // Samma format som ChargingWebserver_v0.8.py skickar från /info
+    private static final String INFO_JSON = "{\"sim_time_hour\": 14, \"sim_time_min\": 30, \"household_load_kwh\": 3.3, "
+            + "\"battery_energy_kwh\": 9.26, \"ev_battery_charge_start_stopp\": false, \"ev_batt_max_capacity_kwh\": 46.3, "
+            + "\"home_batt_capacity_kwh\": 5.4, \"home_batt_max_capacity_kwh\": 13.5, \"home_batt_min_capacity_kwh\": 1.35, "
+            + "\"home_batt_capacity_percent\": 40.0, \"home_battery_mode\": \"idle\", \"solar_production_kwh\": 9.0, "
+            + "\"solar_max_capacity_kwh\": 10.0, \"net_household_load_kwh\": -5.7}";
+
+    private static final String BASELOAD_JSON = "[1.98, 1.76, 1.65, 1.65, 1.76, 2.2, 3.85, 4.95, 4.4, 2.75, 3.3, 3.85, "
+            + "5.5, 3.3, 2.75, 3.3, 3.85, 6.6, 7.7, 4.95, 3.85, 3.3, 2.75, 2.2]";
+
+    private final byte[] body = INFO_JSON.getBytes(StandardCharsets.UTF_8);
+    private final byte[] seriesBody = BASELOAD_JSON.getBytes(StandardCharsets.UTF_8);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Benchmark
+    public InfoResponse streamingReader() throws IOException {
+        return SimulatorJsonReader.readInfo(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public InfoResponse objectMapperViaString() throws IOException {
+        return objectMapper.readValue(new String(body, StandardCharsets.UTF_8), InfoResponse.class);
+    }
+
+    @Benchmark
+    public double[] seriesStreamingReader() throws IOException {
+        return SimulatorJsonReader.readDoubleArray(new ByteArrayInputStream(seriesBody));
+    }
+
+    @Benchmark
+    public double[] seriesObjectMapperViaString() throws IOException {
+        return objectMapper.readValue(new String(seriesBody, StandardCharsets.UTF_8), double[].class);
+    }
+}
@@ -0,0 +1,57 @@
+package com.makeienko.laddstation.service.fleet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ett tidssteg för depån: fördelning av effektbudgeten mellan fordon med blandade behov.
+ * Registret är detsamma mellan anropen, så varje anrop sorterar om samma fordon.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeastLaxityAllocatorBenchmark {
+
+    private static final double TICK_HOURS = 0.25;
+
+    @Param({"1000", "10000"})
+    private int vehicles;
+
+    private FleetRegistry registry;
+    private LeastLaxityAllocator allocator;
+    private double budgetKw;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new FleetRegistry(vehicles);
+        Random random = new Random(42);
+        for (int i = 0; i < vehicles; i++) {
+            double capacity = 40 + random.nextInt(60);
+            registry.register("ev-" + i, capacity, random.nextDouble() * capacity * 0.5, capacity * 0.8,
+                7.4 + random.nextInt(3) * 3.6, 4 + random.nextInt(96));
+        }
+        allocator = new LeastLaxityAllocator();
+        budgetKw = vehicles * 3.0;
+    }
+
+    @Benchmark
+    public double allocateTick() {
+        return allocator.allocate(registry, 0, budgetKw, TICK_HOURS);
+    }
+}
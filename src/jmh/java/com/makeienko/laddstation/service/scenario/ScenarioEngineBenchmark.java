@@ -0,0 +1,79 @@
+package com.makeienko.laddstation.service.scenario;
+
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.service.schedule.ChargeSchedule;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scenarier per sekund för en what-if-körning med 10 000 kombinationer: 10 priskurvor
+ * (simulatorns priser skalade), 10 säkringar, 10 laddeffekter och 10 batteristorlekar,
+ * 18:00 till 07:00. Med parallelism 1 är resultatet genomströmningen per kärna.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScenarioEngineBenchmark {
+
+    private static final int SCENARIOS = 10_000;
+
+    @Param({"1", "0"})
+    private int parallelism;
+
+    private ScenarioEngine engine;
+    private ScenarioGrid grid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimulatorEngine simulator = new SimulatorEngine();
+        double[] basePrices = simulator.getHourlyPrices();
+        String[] names = new String[10];
+        HourlySeries[] prices = new HourlySeries[10];
+        double[] fuses = new double[10];
+        double[] chargers = new double[10];
+        double[] batteries = new double[10];
+        for (int i = 0; i < 10; i++) {
+            double[] scaled = new double[basePrices.length];
+            for (int hour = 0; hour < scaled.length; hour++) {
+                scaled[hour] = basePrices[hour] * (0.5 + 0.1 * i);
+            }
+            names[i] = "x" + (0.5 + 0.1 * i);
+            prices[i] = HourlySeries.of(scaled);
+            fuses[i] = 9.0 + i;
+            chargers[i] = 3.7 + 0.8 * i;
+            batteries[i] = 30.0 + 8.0 * i;
+        }
+        grid = new ScenarioGrid(names, prices, fuses, chargers, batteries, HourlySeries.of(simulator.getBaseload()),
+            18 * ChargeSchedule.SLOTS_PER_HOUR, 13 * ChargeSchedule.SLOTS_PER_HOUR, 20, 80);
+        engine = new ScenarioEngine(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCENARIOS)
+    public ScenarioMatrix evaluateGrid() {
+        return engine.evaluate(grid);
+    }
+}
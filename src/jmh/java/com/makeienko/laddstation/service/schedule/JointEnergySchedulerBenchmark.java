@@ -0,0 +1,58 @@
+package com.makeienko.laddstation.service.schedule;
+
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * En gemensam plan för elbil och husbatteri över ett helt dygn med simulatorns serier.
+ * Varje JMH-tråd har en egen scheduler, som en tråd per anläggning i drift; kör med
+ * -t för att mäta flera anläggningar parallellt.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+@Fork(1)
+public class JointEnergySchedulerBenchmark {
+
+    @Param({"0.25", "0.5"})
+    private double levelKwh;
+
+    private JointEnergyScheduler scheduler;
+    private HourlySeries prices;
+    private HourlySeries baseload;
+    private HourlySeries solar;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimulatorEngine engine = new SimulatorEngine();
+        prices = HourlySeries.of(engine.getHourlyPrices());
+        baseload = HourlySeries.of(engine.getBaseload());
+        solar = HourlySeries.of(engine.getSolarProduction());
+        scheduler = new JointEnergyScheduler(SimulatorEngine.CHARGING_POWER, SimulatorEngine.MAX_POWER_RESIDENTIAL, 5.0, 0.95, levelKwh);
+    }
+
+    @Benchmark
+    public JointSchedule solveFullDay() {
+        // Från 07:00 till 07:00 nästa dag, elbilen från 20 % till 80 %
+        return scheduler.solve(prices, baseload, solar, 7 * ChargeSchedule.SLOTS_PER_HOUR, ChargeSchedule.SLOTS_PER_DAY,
+            27.78, 5.4, 1.35, SimulatorEngine.HOME_BATT_MAX_CAPACITY);
+    }
+}
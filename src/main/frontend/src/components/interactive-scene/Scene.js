@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import InfoPanel from './InfoPanel';
-import { timeService, priceService, chargingOptimizationService, homeBatteryService, solarPanelService, batteryService } from '../../services/api';
+import { timeService, priceService, chargingOptimizationService, homeBatteryService, solarPanelService, batteryService, dashboardService, stationStreamService } from '../../services/api';
 import './Scene.css';
 
 const Scene = () => {
@@ -124,15 +124,9 @@ const Scene = () => {
     };
   };
 
-  // Hämta tid från backend
-  const fetchTime = async () => {
-    try {
-      const timeData = await timeService.getCurrentTime();
-      const formattedTime = timeService.formatTime(timeData.hour, timeData.minute);
-      setCurrentTime(formattedTime);
-    } catch (error) {
-      console.error('Failed to fetch time:', error);
-    }
+  // Visa simulerad tid
+  const applyTime = (timeData) => {
+    setCurrentTime(timeService.formatTime(timeData.hour, timeData.minute));
   };
 
   // Hämta prisdata från backend (kommenterad)
@@ -154,101 +148,113 @@ const Scene = () => {
   const fetchHomeBatteryData = async () => {
     try {
       const batteryInfo = await homeBatteryService.getHomeBatteryStatus();
-      
-      setHomeBatteryData({
-        batteryLevel: batteryInfo.batteryLevel,
-        healthStatus: batteryInfo.healthStatus,
-        reserveHours: batteryInfo.reserveHours,
-        v2hSafe: batteryInfo.v2hSafe,
-        isCharging: batteryInfo.batteryLevel < 95 && batteryInfo.solarProduction > 0
-      });
-
-      // Uppdatera också display-data för visual indikator
-      setHomeBatteryDisplayData({
-        percentage: batteryInfo.batteryLevel || 85,
-        energyKwh: batteryInfo.capacityKwh || 11.5,
-        maxCapacityKwh: batteryInfo.maxCapacityKwh || 13.5,
-        healthStatus: batteryInfo.healthStatus || 'Optimal',
-        chargingStatus: batteryInfo.batteryLevel < 95 && batteryInfo.solarProduction > 0 
-          ? 'Laddar med solenergi' 
-          : batteryInfo.batteryLevel >= 95 
-            ? 'Fulladdat' 
-            : 'Väntar på solenergi'
-      });
+      applyHomeBatteryData(batteryInfo);
     } catch (error) {
       console.error('Failed to fetch home battery data:', error);
     }
   };
 
+  const applyHomeBatteryData = (batteryInfo) => {
+    setHomeBatteryData({
+      batteryLevel: batteryInfo.batteryLevel,
+      healthStatus: batteryInfo.healthStatus,
+      reserveHours: batteryInfo.reserveHours,
+      v2hSafe: batteryInfo.v2hSafe,
+      isCharging: batteryInfo.batteryLevel < 95 && batteryInfo.solarProduction > 0
+    });
+
+    // Uppdatera också display-data för visual indikator
+    setHomeBatteryDisplayData({
+      percentage: batteryInfo.batteryLevel || 85,
+      energyKwh: batteryInfo.capacityKwh || 11.5,
+      maxCapacityKwh: batteryInfo.maxCapacityKwh || 13.5,
+      healthStatus: batteryInfo.healthStatus || 'Optimal',
+      chargingStatus: batteryInfo.batteryLevel < 95 && batteryInfo.solarProduction > 0 
+        ? 'Laddar med solenergi' 
+        : batteryInfo.batteryLevel >= 95 
+          ? 'Fulladdat' 
+          : 'Väntar på solenergi'
+    });
+  };
+
   // Hämta EV batteri data från backend
   const fetchEvBatteryData = async () => {
     try {
       const batteryInfo = await batteryService.getBatteryStatus();
-      
-      setEvBatteryData({
-        percentage: batteryInfo.percentage || 20,
-        energyKwh: batteryInfo.currentEnergyKwh || 9.26,
-        maxCapacityKwh: batteryInfo.maxCapacityKwh || 46.3,
-        isCharging: batteryInfo.isCharging || false
-      });
-
-      // Uppdatera charging status baserat på EV batteristatus
-      setChargingStatus(batteryInfo.isCharging || false);
+      applyEvBatteryData(batteryInfo);
     } catch (error) {
       console.error('Failed to fetch EV battery data:', error);
     }
   };
 
+  const applyEvBatteryData = (batteryInfo) => {
+    setEvBatteryData({
+      percentage: batteryInfo.percentage || 20,
+      energyKwh: batteryInfo.currentEnergyKwh || 9.26,
+      maxCapacityKwh: batteryInfo.maxCapacityKwh || 46.3,
+      isCharging: batteryInfo.isCharging || false
+    });
+
+    // Uppdatera charging status baserat på EV batteristatus
+    setChargingStatus(batteryInfo.isCharging || false);
+  };
+
   // Hämta optimala laddningstider från backend
   const fetchOptimalChargingData = async () => {
     try {
       const chargingInfo = await chargingOptimizationService.getOptimalChargingHours();
       
-      setOptimalChargingData({
-        timeRange: chargingInfo.timeRange,
-        strategy: chargingInfo.strategy
-      });
+      // Oförändrat svar (304) ger samma värden och då behålls befintligt state
+      setOptimalChargingData((previous) =>
+        previous.timeRange === chargingInfo.timeRange && previous.strategy === chargingInfo.strategy
+          ? previous
+          : { timeRange: chargingInfo.timeRange, strategy: chargingInfo.strategy });
     } catch (error) {
       console.error('Failed to fetch optimal charging data:', error);
     }
   };
 
-  // Hämta solpaneldata från backend
-  const fetchSolarData = async () => {
-    try {
-      const solarStatus = await solarPanelService.getSolarPanelStatus();
-      
-      setSolarData({
-        currentProductionKwh: solarStatus.currentProductionKwh,
-        productionStatus: solarStatus.productionStatus,
-        productionPercent: solarStatus.productionPercent,
-        energySurplus: solarStatus.energySurplus,
-        optimizationTips: solarStatus.optimizationTips || []
-      });
-    } catch (error) {
-      console.error('Failed to fetch solar data:', error);
-    }
+  // Visa solpaneldata
+  const applySolarData = (solarStatus) => {
+    setSolarData({
+      currentProductionKwh: solarStatus.currentProductionKwh,
+      productionStatus: solarStatus.productionStatus,
+      productionPercent: solarStatus.productionPercent,
+      energySurplus: solarStatus.energySurplus,
+      optimizationTips: solarStatus.optimizationTips || []
+    });
   };
 
-  // Hämta alla data när komponenten laddas och sedan varje sekund
+  // Första visningen hämtas i ett anrop, därefter kommer tid, batterier och solpaneler
+  // via live-strömmen; optimala laddningstider hämtas varje sekund
   useEffect(() => {
-    fetchTime();
-    // fetchPriceData(); // Kommenterad
-    fetchHomeBatteryData();
-    fetchEvBatteryData();
+    dashboardService.getDashboard().then((dashboard) => {
+      if (!dashboard) return;
+      applyTime(dashboard.time);
+      applyEvBatteryData(dashboard.battery);
+      applyHomeBatteryData(dashboard.homeBattery);
+      applySolarData(dashboard.solarPanel);
+    });
+
+    const closeStream = stationStreamService.subscribe({
+      onTime: applyTime,
+      onBattery: applyEvBatteryData,
+      onHomeBattery: applyHomeBatteryData,
+      onSolarPanel: applySolarData
+    });
+
     fetchOptimalChargingData();
-    fetchSolarData();
+    // fetchPriceData(); // Kommenterad
     
     const interval = setInterval(() => {
-      fetchTime();
-      // fetchPriceData(); // Kommenterad
-      fetchHomeBatteryData();
-      fetchEvBatteryData();
       fetchOptimalChargingData();
-      fetchSolarData();
+      // fetchPriceData(); // Kommenterad
     }, 1000); // Uppdatera varje sekund
     
-    return () => clearInterval(interval);
+    return () => {
+      clearInterval(interval);
+      closeStream();
+    };
   }, []);
 
   return (
@@ -1,5 +1,26 @@
 const API_BASE_URL = 'http://localhost:8080/api';
 
+// Senaste svar och ETag per URL. Webbläsaren frågar om med If-None-Match och får 304
+// när inget ändrats; då återanvänds samma objekt så att komponenter inte behöver rita om.
+const etagCache = new Map();
+
+async function fetchJsonWithEtag(url) {
+  const response = await fetch(url, { cache: 'no-cache' });
+  if (!response.ok) {
+    throw new Error(`HTTP error! status: ${response.status}`);
+  }
+  const etag = response.headers.get('ETag');
+  const cached = etagCache.get(url);
+  if (etag && cached && cached.etag === etag) {
+    return cached.data;
+  }
+  const data = await response.json();
+  if (etag) {
+    etagCache.set(url, { etag, data });
+  }
+  return data;
+}
+
 export const timeService = {
   // Hämta simulerad tid från backend
   async getCurrentTime() {
@@ -33,12 +54,7 @@ export const householdService = {
   // Hämta hushållsförbrukning per timme
   async getBaseload() {
     try {
-      const response = await fetch(`${API_BASE_URL}/baseload`);
-      if (!response.ok) {
-        throw new Error(`HTTP error! status: ${response.status}`);
-      }
-      const data = await response.json();
-      return data;
+      return await fetchJsonWithEtag(`${API_BASE_URL}/baseload`);
     } catch (error) {
       console.error('Error fetching baseload from backend:', error);
       // Fallback data om backend inte är tillgängligt
@@ -87,12 +103,7 @@ export const priceService = {
   // Hämta aktuellt timpris från backend
   async getCurrentPrice() {
     try {
-      const response = await fetch(`${API_BASE_URL}/current-price`);
-      if (!response.ok) {
-        throw new Error(`HTTP error! status: ${response.status}`);
-      }
-      const data = await response.json();
-      return data;
+      return await fetchJsonWithEtag(`${API_BASE_URL}/current-price`);
     } catch (error) {
       console.error('Error fetching current price from backend:', error);
       // Fallback data om backend inte är tillgängligt
@@ -131,12 +142,7 @@ export const chargingOptimizationService = {
   // Hämta optimala laddningstider från backend
   async getOptimalChargingHours() {
     try {
-      const response = await fetch(`${API_BASE_URL}/optimal-charging-hours`);
-      if (!response.ok) {
-        throw new Error(`HTTP error! status: ${response.status}`);
-      }
-      const data = await response.json();
-      return data;
+      return await fetchJsonWithEtag(`${API_BASE_URL}/optimal-charging-hours`);
     } catch (error) {
       console.error('Error fetching optimal charging hours from backend:', error);
       // Fallback data om backend inte är tillgängligt
@@ -158,19 +164,7 @@ export const homeBatteryService = {
         throw new Error(`HTTP error! status: ${response.status}`);
       }
       const data = await response.json();
-      
-      // Mappa backend-respons till frontend-format
-      return {
-        batteryLevel: data.capacityPercent,
-        capacityKwh: data.currentCapacityKwh,
-        maxCapacityKwh: data.maxCapacityKwh,
-        mode: data.mode,
-        healthStatus: data.healthStatus,
-        reserveHours: data.reserveHours,
-        totalAvailableEnergy: data.totalAvailableEnergy,
-        safetyWarnings: data.warnings || [],
-        v2hSafe: !data.lowBatteryWarning && !data.criticalBattery
-      };
+      return this.mapHomeBatteryStatus(data);
     } catch (error) {
       console.error('Error fetching home battery status from backend:', error);
       // Fallback data om backend inte är tillgängligt
@@ -188,6 +182,21 @@ export const homeBatteryService = {
     }
   },
 
+  // Mappa backend-respons till frontend-format
+  mapHomeBatteryStatus(data) {
+    return {
+      batteryLevel: data.capacityPercent,
+      capacityKwh: data.currentCapacityKwh,
+      maxCapacityKwh: data.maxCapacityKwh,
+      mode: data.mode,
+      healthStatus: data.healthStatus,
+      reserveHours: data.reserveHours,
+      totalAvailableEnergy: data.totalAvailableEnergy,
+      safetyWarnings: data.warnings || [],
+      v2hSafe: !data.lowBatteryWarning && !data.criticalBattery
+    };
+  },
+
   // Formatera batterinivå
   formatBatteryLevel(level) {
     if (level === null || level === undefined) return '--';
@@ -282,4 +291,49 @@ export const solarPanelService = {
     if (estimate === null || estimate === undefined) return '--';
     return `${estimate.toFixed(1)} kWh`;
   }
-}; 
\ No newline at end of file
+}; 
+
+export const dashboardService = {
+  // Hämta tid, batterier, elpris och solpaneler i ett anrop
+  async getDashboard() {
+    try {
+      const response = await fetch(`${API_BASE_URL}/dashboard`);
+      if (!response.ok) {
+        throw new Error(`HTTP error! status: ${response.status}`);
+      }
+      const data = await response.json();
+      return {
+        ...data,
+        homeBattery: homeBatteryService.mapHomeBatteryStatus(data.homeBattery)
+      };
+    } catch (error) {
+      console.error('Error fetching dashboard from backend:', error);
+      return null;
+    }
+  }
+};
+
+export const stationStreamService = {
+  // Prenumerera på live-strömmen från backend (Server-Sent Events).
+  // Första händelsen innehåller alla delar, därefter bara de som ändrats.
+  // Returnerar en funktion som stänger strömmen.
+  subscribe({ onTime, onBattery, onHomeBattery, onSolarPanel, onError }) {
+    const source = new EventSource(`${API_BASE_URL}/stream`);
+
+    source.addEventListener('station', (event) => {
+      const data = JSON.parse(event.data);
+      if (data.time && onTime) onTime(data.time);
+      if (data.battery && onBattery) onBattery(data.battery);
+      if (data.homeBattery && onHomeBattery) onHomeBattery(homeBatteryService.mapHomeBatteryStatus(data.homeBattery));
+      if (data.solarPanel && onSolarPanel) onSolarPanel(data.solarPanel);
+    });
+
+    // EventSource återansluter själv; backend skickar då en ny fullständig snapshot
+    source.onerror = (error) => {
+      console.error('Station stream error:', error);
+      if (onError) onError(error);
+    };
+
+    return () => source.close();
+  }
+};
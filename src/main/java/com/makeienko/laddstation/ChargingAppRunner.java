@@ -1,5 +1,6 @@
 package com.makeienko.laddstation;
 
+import com.makeienko.laddstation.UI.BacktestCLI;
 import com.makeienko.laddstation.UI.ChargingStationCLI;
 import com.makeienko.laddstation.UI.HomeBatteryCLI;
 import org.springframework.boot.CommandLineRunner;
@@ -9,10 +10,12 @@ import org.springframework.stereotype.Component;
 public class ChargingAppRunner implements CommandLineRunner {
     private final ChargingStationCLI chargingStationCLI;
     private final HomeBatteryCLI homeBatteryCLI;
+    private final BacktestCLI backtestCLI;
 
-    public ChargingAppRunner(ChargingStationCLI chargingStationCLI, HomeBatteryCLI homeBatteryCLI) {
+    public ChargingAppRunner(ChargingStationCLI chargingStationCLI, HomeBatteryCLI homeBatteryCLI, BacktestCLI backtestCLI) {
         this.chargingStationCLI = chargingStationCLI;
         this.homeBatteryCLI = homeBatteryCLI;
+        this.backtestCLI = backtestCLI;
     }
 
     @Override
@@ -20,7 +23,8 @@ public class ChargingAppRunner implements CommandLineRunner {
         System.out.println("Välkommen till Laddstationen!");
         System.out.println("1. Hantera EV Laddning");
         System.out.println("2. Hantera Husbatteri");
-        System.out.print("Välj ett alternativ (1-2): ");
+        System.out.println("3. Backtesta laddstrategier");
+        System.out.print("Välj ett alternativ (1-3): ");
 
         java.util.Scanner scanner = new java.util.Scanner(System.in);
         String choice = scanner.nextLine().trim();
@@ -32,6 +36,9 @@ public class ChargingAppRunner implements CommandLineRunner {
             case "2":
                 homeBatteryCLI.start();
                 break;
+            case "3":
+                backtestCLI.start();
+                break;
             default:
                 System.out.println("Ogiltigt val. Avslutar...");
         }
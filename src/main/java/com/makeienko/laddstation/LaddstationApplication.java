@@ -1,5 +1,6 @@
 package com.makeienko.laddstation;
 
+import com.makeienko.laddstation.config.HttpClientKeepAliveListener;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,7 +8,10 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class LaddstationApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(LaddstationApplication.class, args);
+        SpringApplication application = new SpringApplication(LaddstationApplication.class);
+        // Måste köras innan HttpClient laddas, se HttpClientKeepAliveListener
+        application.addListeners(new HttpClientKeepAliveListener());
+        application.run(args);
     }
 
 }
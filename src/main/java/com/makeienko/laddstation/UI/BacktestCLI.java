@@ -0,0 +1,115 @@
+package com.makeienko.laddstation.UI;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.service.backtest.BacktestDay;
+import com.makeienko.laddstation.service.backtest.BacktestDays;
+import com.makeienko.laddstation.service.backtest.BacktestEngine;
+import com.makeienko.laddstation.service.backtest.BacktestReport;
+import com.makeienko.laddstation.service.backtest.BacktestResult;
+import com.makeienko.laddstation.service.backtest.BacktestStrategy;
+import com.makeienko.laddstation.service.backtest.BacktestSummary;
+import com.makeienko.laddstation.service.history.InfoHistoryStore;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Backtest av laddstrategierna över syntetiska eller inspelade dygn, utan simulatorn.
+ * Kan också köras fristående: main(antal dygn, seed).
+ */
+@Component
+public class BacktestCLI {
+
+    // Historiken stämplas med simulerad tid; två dygn bakåt från senaste snapshot rymmer alltid
+    // det senaste kompletta simulerade dygnet
+    private static final long RECORDED_RANGE_MILLIS = 2 * 24L * 3600 * 1000;
+
+    private final LaddstationProperties.Backtest config;
+    private final InfoHistoryStore historyStore;
+    private final Scanner scanner;
+
+    public BacktestCLI(LaddstationProperties properties, InfoHistoryStore historyStore) {
+        this.config = properties.getBacktest();
+        this.historyStore = historyStore;
+        this.scanner = new Scanner(System.in);
+    }
+
+    public void start() {
+        System.out.println("\n=== BACKTEST AV LADDSTRATEGIER ===");
+        System.out.println("1. Syntetiska dygn (simulatorns kurvor med variation)");
+        System.out.println("2. Simulatorns referensdygn");
+        System.out.println("3. Inspelade dygn ur historiken (kompletta dygn bland de senaste 48 simulerade timmarna)");
+        System.out.print("Välj dygn (1-3): ");
+
+        List<BacktestDay> days;
+        switch (scanner.nextLine().trim()) {
+            case "1":
+                System.out.print("Antal dygn: ");
+                int count = Integer.parseInt(scanner.nextLine().trim());
+                System.out.print("Seed: ");
+                long seed = Long.parseLong(scanner.nextLine().trim());
+                days = BacktestDays.synthetic(count, seed);
+                break;
+            case "2":
+                days = List.of(BacktestDays.simulatorDay());
+                break;
+            case "3":
+                days = recordedDays(historyStore);
+                break;
+            default:
+                System.out.println("Ogiltigt val.");
+                return;
+        }
+
+        if (days.isEmpty()) {
+            System.out.println("Inga kompletta dygn att spela upp.");
+            return;
+        }
+        try (BacktestEngine engine = new BacktestEngine(config)) {
+            print(engine.run(days, BacktestStrategy.defaults()), days.size() <= 7, engine.getParallelism());
+        }
+    }
+
+    static List<BacktestDay> recordedDays(InfoHistoryStore historyStore) {
+        long end = historyStore.getLatestTimestamp() + 1;
+        return BacktestDays.fromHistory(historyStore.range(end - RECORDED_RANGE_MILLIS, end, historyStore.getMaxRangeRows()),
+            new SimulatorEngine().getHourlyPrices());
+    }
+
+    static void print(BacktestReport report, boolean perDay, int parallelism) {
+        if (perDay) {
+            System.out.println("\n--- Per dygn ---");
+            System.out.println(String.format("%-16s %-14s %9s %10s %10s %8s %6s %6s %6s",
+                "Strategi", "Dygn", "kWh", "Elbil öre", "Nät öre", "Topp kW", "Säkr.", "80 %", "Klar"));
+            for (BacktestResult result : report.getResults()) {
+                System.out.println(String.format("%-16s %-14s %9.2f %10.0f %10.0f %8.2f %6d %6s %6s",
+                    result.getStrategy(), result.getDay(), result.getChargedKwh(), result.getEvCost(), result.getGridCost(),
+                    result.getPeakLoadKw(), result.getFuseViolations(), result.isReachedTarget() ? "ja" : "nej",
+                    result.isReadyByDeparture() ? "ja" : "nej"));
+            }
+        }
+
+        System.out.println("\n--- Summering ---");
+        System.out.println(String.format("%-16s %5s %10s %12s %10s %12s %8s %6s %6s %6s",
+            "Strategi", "Dygn", "kWh", "Elbil öre", "öre/kWh", "Nät öre", "Topp kW", "Säkr.", "80 %", "Klar"));
+        for (BacktestSummary summary : report.getSummaries()) {
+            System.out.println(String.format("%-16s %5d %10.2f %12.0f %10.2f %12.0f %8.2f %6d %6d %6d",
+                summary.getStrategy(), summary.getDays(), summary.getChargedKwh(), summary.getEvCost(),
+                summary.getAverageEvPrice(), summary.getGridCost(), summary.getPeakLoadKw(), summary.getFuseViolations(),
+                summary.getDaysReachedTarget(), summary.getDaysReadyByDeparture()));
+        }
+        System.out.println(String.format("%d uppspelningar på %.1f ms med %d trådar",
+            report.getResults().size(), report.getElapsedNanos() / 1_000_000.0, parallelism));
+    }
+
+    public static void main(String[] args) {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+        LaddstationProperties.Backtest config = new LaddstationProperties().getBacktest();
+        try (BacktestEngine engine = new BacktestEngine(config)) {
+            print(engine.run(BacktestDays.synthetic(days, seed), BacktestStrategy.defaults()), days <= 7, engine.getParallelism());
+        }
+    }
+}
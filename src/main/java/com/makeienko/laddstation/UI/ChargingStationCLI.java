@@ -4,9 +4,12 @@ import com.makeienko.laddstation.service.ChargingService;
 import com.makeienko.laddstation.service.ChargingServiceImpl;
 import com.makeienko.laddstation.service.LaddstationApiClient;
 import com.makeienko.laddstation.service.BatteryManager;
+import com.makeienko.laddstation.service.ChargePlanService;
 import com.makeienko.laddstation.service.ChargingHourOptimizer;
 import com.makeienko.laddstation.service.HomeBatteryManager;
+import com.makeienko.laddstation.service.SimulatorSeriesStore;
 import com.makeienko.laddstation.service.SolarPanelManager;
+import com.makeienko.laddstation.service.clock.SimulatedClock;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
@@ -39,6 +42,9 @@ public class ChargingStationCLI {
             System.out.println("8. Ladda ur EV batteriet till 20%");
             System.out.println("9. Visa solpanelproduktion per timme");
             System.out.println("10. Ladda ur husbatteriet till 10%");
+            System.out.println("11. Starta laddning enligt kostnadsoptimalt schema (15 min, avgång 07:00)");
+            System.out.println("12. Starta laddning enligt flerdygnsplan (48 h framåt, planeras om varje tidssteg)");
+            System.out.println("13. Starta solföljande laddning (laddar på solöverskott, styrs varje kvart)");
             System.out.print("Välj ett alternativ: ");
 
             int choice = scanner.nextInt();
@@ -75,6 +81,15 @@ public class ChargingStationCLI {
                 case 10:
                     chargingService.dischargeHomeBatteryTo10();
                     break;
+                case 11:
+                    chargingService.chargingSessionOnCostOptimalSchedule();
+                    break;
+                case 12:
+                    chargingService.chargingSessionOnRollingHorizonPlan();
+                    break;
+                case 13:
+                    chargingService.chargingSessionOnSolarSurplus();
+                    break;
                 default:
                     System.out.println("Ogiltigt val, försök igen.");
             }
@@ -86,11 +101,14 @@ public class ChargingStationCLI {
     public static void main(String[] args) {
         RestTemplate restTemplate = new RestTemplate();
         LaddstationApiClient apiClient = new LaddstationApiClient(restTemplate);
-        BatteryManager batteryManager = new BatteryManager(apiClient);
-        ChargingHourOptimizer chargingHourOptimizer = new ChargingHourOptimizer(apiClient);
+        SimulatorSeriesStore seriesStore = new SimulatorSeriesStore(apiClient);
+        SimulatedClock clock = new SimulatedClock(apiClient, seriesStore);
+        BatteryManager batteryManager = new BatteryManager(apiClient, clock);
+        ChargingHourOptimizer chargingHourOptimizer = new ChargingHourOptimizer(apiClient, seriesStore);
         HomeBatteryManager homeBatteryManager = new HomeBatteryManager(apiClient);
         SolarPanelManager solarPanelManager = new SolarPanelManager(apiClient);
-        ChargingService chargingService = new ChargingServiceImpl(apiClient, batteryManager, chargingHourOptimizer, homeBatteryManager, solarPanelManager);
+        ChargePlanService chargePlanService = new ChargePlanService(apiClient, seriesStore);
+        ChargingService chargingService = new ChargingServiceImpl(apiClient, batteryManager, chargingHourOptimizer, homeBatteryManager, solarPanelManager, chargePlanService, clock);
         ChargingStationCLI cli = new ChargingStationCLI(chargingService);
         cli.start();
     }
@@ -1,14 +1,86 @@
 package com.makeienko.laddstation.config;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Configuration
+@EnableConfigurationProperties(LaddstationProperties.class)
 public class AppConfig {
 
+    // Exekveraren ägs av konfigurationen och stängs med den; som böna skulle den ersätta Spring Boots standardexekverare
+    private ExecutorService simulatorHttpExecutor;
+
+    @Bean
+    public TransportPoolLimiter transportPoolLimiter(LaddstationProperties properties) {
+        return TransportPoolLimiter.of(properties.getTransport());
+    }
+
+    /**
+     * Delad HttpClient mot simulatorn. Med HTTP/1.1 har varje pågående anrop en egen anslutning,
+     * så TransportPoolLimiter (högst max-connections samtidiga anrop) begränsar också poolen.
+     * Klientens egna uppgifter, t.ex. avkodning av asynkrona svar, körs på en pool av samma storlek.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public HttpClient simulatorHttpClient(LaddstationProperties properties) {
+        LaddstationProperties.Transport transport = properties.getTransport();
+        simulatorHttpExecutor = httpExecutor(transport.getMaxConnections());
+        return httpClient(transport, simulatorHttpExecutor);
+    }
+
+    @Bean
+    public RestTemplate restTemplate(LaddstationProperties properties, HttpClient simulatorHttpClient, TransportPoolLimiter transportPoolLimiter) {
+        RestTemplate restTemplate = new RestTemplate(requestFactory(properties.getTransport(), simulatorHttpClient));
+        restTemplate.getInterceptors().add(transportPoolLimiter);
+        return restTemplate;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (simulatorHttpExecutor != null) {
+            simulatorHttpExecutor.shutdownNow();
+        }
+    }
+
+    static HttpClient httpClient(LaddstationProperties.Transport transport, ExecutorService executor) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1) // Flask-servern talar bara HTTP/1.1
+                .connectTimeout(transport.getConnectTimeout())
+                .executor(executor)
+                .build();
+    }
+
+    static ExecutorService httpExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "simulator-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static ClientHttpRequestFactory requestFactory(LaddstationProperties.Transport transport, HttpClient httpClient) {
+        if (transport.getType() == LaddstationProperties.TransportType.SIMPLE) {
+            // HttpURLConnection återanvänder anslutningar i JVM:ens keep-alive-cache;
+            // antalet samtidiga anslutningar begränsas av TransportPoolLimiter
+            SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+            factory.setConnectTimeout(transport.getConnectTimeout());
+            factory.setReadTimeout(transport.getReadTimeout());
+            return factory;
+        }
+
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(transport.getReadTimeout());
+        return factory;
     }
 }
@@ -0,0 +1,25 @@
+package com.makeienko.laddstation.config;
+
+import com.makeienko.laddstation.simulator.EmbeddedSimulator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Startar den inbyggda simulatorn när laddstation.simulator.embedded.enabled=true,
+ * så att applikationen kan köras utan Flask-servern
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "laddstation.simulator.embedded", name = "enabled", havingValue = "true")
+public class EmbeddedSimulatorConfig {
+
+    @Bean(destroyMethod = "close")
+    public EmbeddedSimulator embeddedSimulator(LaddstationProperties properties) throws IOException {
+        LaddstationProperties.Simulator.Embedded embedded = properties.getSimulator().getEmbedded();
+        EmbeddedSimulator simulator = new EmbeddedSimulator().start("127.0.0.1", embedded.getPort());
+        simulator.setClockMode(embedded.getClockMode(), embedded.getStepsPerSecond());
+        return simulator;
+    }
+}
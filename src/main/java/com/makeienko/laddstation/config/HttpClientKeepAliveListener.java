@@ -0,0 +1,36 @@
+package com.makeienko.laddstation.config;
+
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Sätter idle-tiden för HttpClients keep-alive-pool från laddstation.transport.idle-timeout.
+ * JDK:n läser jdk.httpclient.keepalive.timeout en gång, när HttpClient-klassen laddas, och den
+ * kan inte sättas per klient. Därför sätts den när miljön är klar men innan några bönor skapas.
+ * En uttrycklig -Djdk.httpclient.keepalive.timeout på kommandoraden går före.
+ */
+public class HttpClientKeepAliveListener implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+    static final String IDLE_TIMEOUT_PROPERTY = "laddstation.transport.idle-timeout";
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        apply(event.getEnvironment());
+    }
+
+    static void apply(Environment environment) {
+        if (System.getProperty(KEEP_ALIVE_PROPERTY) != null) {
+            return;
+        }
+        Binder.get(environment).bind(IDLE_TIMEOUT_PROPERTY, Duration.class).ifBound(idleTimeout -> {
+            // Egenskapen anges i hela sekunder; 0 skulle stänga anslutningarna direkt
+            System.setProperty(KEEP_ALIVE_PROPERTY, String.valueOf(Math.max(1, idleTimeout.toSeconds())));
+            System.out.println("HttpClientKeepAliveListener: Idle simulator connections close after " + idleTimeout.toSeconds() + " s");
+        });
+    }
+}
@@ -0,0 +1,184 @@
+package com.makeienko.laddstation.config;
+
+import com.makeienko.laddstation.simulator.SimulatorClockMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Konfigurerbara inställningar för applikationen (prefix "laddstation")
+ */
+@Data
+@ConfigurationProperties(prefix = "laddstation")
+public class LaddstationProperties {
+
+    private InfoCache infoCache = new InfoCache();
+    private Transport transport = new Transport();
+    private Stream stream = new Stream();
+    private Plan plan = new Plan();
+    private Fleet fleet = new Fleet();
+    private Session session = new Session();
+    private Clock clock = new Clock();
+    private Polling polling = new Polling();
+    private Simulator simulator = new Simulator();
+    private History history = new History();
+    private Solar solar = new Solar();
+    private JointPlan jointPlan = new JointPlan();
+    private Scenario scenario = new Scenario();
+    private Backtest backtest = new Backtest();
+
+    @Data
+    public static class InfoCache {
+        // Hur gammal en /info-snapshot får vara innan den hämtas på nytt, i simulerad tid.
+        // Räknas om till väggtid med clock.seconds-per-hour; 3 minuter blir 200 ms i Flask-serverns takt.
+        private Duration staleness = Duration.ofMinutes(3);
+    }
+
+    @Data
+    public static class Transport {
+        // "jdk" = java.net.http.HttpClient med keep-alive-pool, "simple" = HttpURLConnection (tidigare beteende)
+        private TransportType type = TransportType.JDK;
+        private int maxConnections = 16;
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(5);
+        // Hur länge en oanvänd keep-alive-anslutning ligger kvar. Sätts JVM-globalt som
+        // jdk.httpclient.keepalive.timeout vid start (HttpClientKeepAliveListener), inte per klient
+        private Duration idleTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Stream {
+        // Hur länge en SSE-anslutning hålls öppen innan klienten får återansluta
+        private Duration emitterTimeout = Duration.ofMinutes(30);
+        // Trådar som skriver till klienterna, så att en långsam klient inte blockerar pollern
+        private int dispatchThreads = 4;
+    }
+
+    @Data
+    public static class Plan {
+        // Hur långt fram flerdygnsplanen sträcker sig (48-168 timmar)
+        private int horizonHours = 48;
+        // Avvikelse i energibehov som tolereras innan planen löses om från början
+        private double replanToleranceKwh = 0.25;
+    }
+
+    @Data
+    public static class Fleet {
+        // Depåns anslutning; hushållets basförbrukning dras av innan effekten fördelas
+        private double siteLimitKw = 250.0;
+        private int initialCapacity = 64;
+        // Standardvärden för fält som utelämnas vid registrering
+        private double defaultCapacityKwh = 46.3;
+        private double defaultTargetPercent = 80.0;
+        private double defaultMaxPowerKw = 11.0;
+        private double defaultHoursUntilDeparture = 12.0;
+    }
+
+    @Data
+    public static class Session {
+        // Antal avslutade sessioner som finns kvar för statusfrågor
+        private int retainedFinished = 1000;
+        // Försök att stoppa laddningen på servern när en session avbryts eller misslyckas
+        private int stopAttempts = 3;
+    }
+
+    @Data
+    public static class Clock {
+        // Simulatorns seconds_per_hour: verkliga sekunder per simulerad timme
+        private double secondsPerHour = 4.0;
+        // Hur tätt /info läses när ett väntat kvartsbyte ännu inte syns
+        private Duration retryInterval = Duration.ofMillis(100);
+
+        /**
+         * Väggtid som en simulerad tidsrymd motsvarar
+         */
+        public Duration toWallTime(Duration simulated) {
+            return Duration.ofNanos(Math.round(simulated.toNanos() * secondsPerHour / 3600.0));
+        }
+    }
+
+    @Data
+    public static class Polling {
+        // Hur långt över gränsen ett värde får hinna innan det upptäcks (kWh för elbilsbatteriet).
+        // En simulerad kvart på 7,4 kW ger 1,85 kWh, så toleransen bör vara minst ett steg.
+        private double overshootTolerance = 2.0;
+        private Duration minInterval = Duration.ofMillis(100);
+        private Duration maxInterval = Duration.ofSeconds(30);
+        // Läsningar med fast intervall innan takten används för prognos
+        private int warmupSamples = 2;
+    }
+
+    @Data
+    public static class Simulator {
+        // Adress till simulatorn, Flask-servern eller den inbyggda Java-simulatorn
+        private String baseUrl = "http://127.0.0.1:5001";
+        private Embedded embedded = new Embedded();
+
+        @Data
+        public static class Embedded {
+            // Startar den inbyggda simulatorn i applikationen istället för att använda Flask-servern
+            private boolean enabled = false;
+            private int port = 5001;
+            private SimulatorClockMode clockMode = SimulatorClockMode.ACCELERATED;
+            // 1,0 är Flask-serverns takt (15 simulerade minuter per sekund); clock.seconds-per-hour
+            // ska då vara 4 / steps-per-second
+            private double stepsPerSecond = 1.0;
+        }
+    }
+
+    @Data
+    public static class History {
+        // Sparar varje hämtad /info-snapshot i minnesmappade segmentfiler; av som standard så att
+        // appen inte skriver filer i arbetskatalogen utan att det valts
+        private boolean enabled = false;
+        private String directory = "data/history";
+        // Rader per segmentfil; 86 400 är ett dygn med en snapshot per sekund (ca 9 MB per fil)
+        private int segmentRows = 86_400;
+        // Övre gränser per fråga
+        private int maxRangeRows = 100_000;
+        private int maxBuckets = 10_000;
+    }
+
+    @Data
+    public static class Solar {
+        // Solöverskott (solproduktion - hushållets last) som startar respektive stoppar laddningen.
+        // Laddaren tar 7,4 kW; start vid halva effekten, stopp när överskottet täcker under en fjärdedel
+        private double startSurplusKw = 3.7;
+        private double stopSurplusKw = 1.85;
+        // Minsta tid i kvartar efter ett byte innan laddaren får slås av eller på igen
+        private int minOnQuarters = 2;
+        private int minOffQuarters = 2;
+    }
+
+    @Data
+    public static class JointPlan {
+        // Husbatteriets högsta laddnings- och urladdningseffekt samt verkningsgrad per riktning
+        private double homeBatteryPowerKw = 5.0;
+        private double homeBatteryEfficiency = 0.95;
+        // Upplösning för husbatteriets nivå i planeringen; mindre steg ger fler tillstånd
+        private double levelKwh = 0.25;
+    }
+
+    @Data
+    public static class Scenario {
+        // Trådar i what-if-motorns fork-join-pool; 0 = en per processorkärna
+        private int parallelism = 0;
+        // Största antal kombinationer i en körning
+        private int maxScenarios = 1_000_000;
+    }
+
+    @Data
+    public static class Backtest {
+        // Trådar som spelar upp dygn och strategier; 0 = en per processorkärna
+        private int parallelism = 0;
+        // Hur länge varje dygn spelas upp från 00:00, och när bilen ska vara klar
+        private int replayHours = 24;
+        private int departureHour = 7;
+    }
+
+    public enum TransportType {
+        JDK,
+        SIMPLE
+    }
+}
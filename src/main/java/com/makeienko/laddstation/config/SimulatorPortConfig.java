@@ -0,0 +1,47 @@
+package com.makeienko.laddstation.config;
+
+import com.makeienko.laddstation.service.HttpSimulatorPort;
+import com.makeienko.laddstation.service.InMemorySimulatorPort;
+import com.makeienko.laddstation.service.LaddstationAsyncApiClient;
+import com.makeienko.laddstation.service.SimulatorMetrics;
+import com.makeienko.laddstation.service.SimulatorPort;
+import com.makeienko.laddstation.simulator.EmbeddedSimulator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Väljer hur applikationen når simulatorn. Standard är HTTP mot laddstation.simulator.base-url;
+ * med profilen "in-memory" körs simulatorn i samma JVM och läses direkt utan HTTP eller JSON.
+ */
+@Configuration
+public class SimulatorPortConfig {
+
+    public static final String IN_MEMORY_PROFILE = "in-memory";
+
+    @Bean
+    @Profile("!" + IN_MEMORY_PROFILE)
+    public SimulatorPort httpSimulatorPort(RestTemplate restTemplate, LaddstationProperties properties,
+                                           LaddstationAsyncApiClient asyncClient, SimulatorMetrics metrics) {
+        return new HttpSimulatorPort(restTemplate, properties, asyncClient, metrics);
+    }
+
+    /**
+     * Simulatorn utan HTTP-server; klockan styrs av laddstation.simulator.embedded.*
+     */
+    @Bean(destroyMethod = "close")
+    @Profile(IN_MEMORY_PROFILE)
+    public EmbeddedSimulator inMemorySimulator(LaddstationProperties properties) {
+        LaddstationProperties.Simulator.Embedded embedded = properties.getSimulator().getEmbedded();
+        EmbeddedSimulator simulator = new EmbeddedSimulator();
+        simulator.setClockMode(embedded.getClockMode(), embedded.getStepsPerSecond());
+        return simulator;
+    }
+
+    @Bean
+    @Profile(IN_MEMORY_PROFILE)
+    public SimulatorPort inMemorySimulatorPort(EmbeddedSimulator inMemorySimulator) {
+        return new InMemorySimulatorPort(inMemorySimulator.getEngine());
+    }
+}
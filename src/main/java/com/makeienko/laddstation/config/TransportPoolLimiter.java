@@ -0,0 +1,204 @@
+package com.makeienko.laddstation.config;
+
+import com.makeienko.laddstation.dto.TransportStatsResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Begränsar antalet samtidiga anslutningar mot simulatorn till poolens storlek.
+ * En anslutning räknas som upptagen från att anropet skickas tills svaret stängts,
+ * vilket motsvarar hur länge den är utlånad från keep-alive-poolen. Asynkrona anrop
+ * delar samma gräns men blockerar aldrig: de köas och startas när en anslutning lämnas tillbaka.
+ */
+public class TransportPoolLimiter implements ClientHttpRequestInterceptor {
+
+    private final String transportType;
+    private final int maxConnections;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<PendingCall> pendingAsync = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder waitedRequests = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public TransportPoolLimiter(String transportType, int maxConnections) {
+        this.transportType = transportType;
+        this.maxConnections = maxConnections;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    public static TransportPoolLimiter of(LaddstationProperties.Transport transport) {
+        return new TransportPoolLimiter(transport.getType().name().toLowerCase(), transport.getMaxConnections());
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        acquire();
+        try {
+            return new ReleasingResponse(execution.execute(request, body));
+        } catch (IOException | RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * Kör ett asynkront anrop när en anslutning är ledig. Anslutningen räknas som upptagen
+     * tills anropets future är klar. Anropande tråd blockeras aldrig.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        requests.increment();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        PendingCall pending = new PendingCall(() -> start(call, result), System.nanoTime());
+        if (permits.tryAcquire()) {
+            pending.task.run();
+        } else {
+            pendingAsync.add(pending);
+            // En anslutning kan ha lämnats tillbaka mellan tryAcquire och add
+            drainPending();
+        }
+        return result;
+    }
+
+    public TransportStatsResponse getStats() {
+        long total = requests.sum();
+        long waited = waitedRequests.sum();
+        double avgWaitMs = waited == 0 ? 0.0 : waitNanos.sum() / 1_000_000.0 / waited;
+        int busy = inUse.get();
+        return new TransportStatsResponse(
+            transportType,
+            maxConnections,
+            busy,
+            peakInUse.get(),
+            permits.getQueueLength() + pendingAsync.size(),
+            Math.round((double) busy / maxConnections * 1000.0) / 1000.0,
+            total,
+            waited,
+            Math.round(avgWaitMs * 100.0) / 100.0
+        );
+    }
+
+    private void acquire() throws IOException {
+        requests.increment();
+        if (!permits.tryAcquire()) {
+            long start = System.nanoTime();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a simulator connection");
+            }
+            waitedRequests.increment();
+            waitNanos.add(System.nanoTime() - start);
+        }
+        int busy = inUse.incrementAndGet();
+        peakInUse.accumulateAndGet(busy, Math::max);
+    }
+
+    private <T> void start(Supplier<CompletableFuture<T>> call, CompletableFuture<T> result) {
+        int busy = inUse.incrementAndGet();
+        peakInUse.accumulateAndGet(busy, Math::max);
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            release();
+            result.completeExceptionally(e);
+            return;
+        }
+        future.whenComplete((value, error) -> {
+            release();
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    private void release() {
+        inUse.decrementAndGet();
+        permits.release();
+        drainPending();
+    }
+
+    /**
+     * Startar köade asynkrona anrop så länge det finns lediga anslutningar
+     */
+    private void drainPending() {
+        while (!pendingAsync.isEmpty() && permits.tryAcquire()) {
+            PendingCall next = pendingAsync.poll();
+            if (next == null) {
+                // Någon annan hann före; lämna tillbaka och titta i kön igen
+                permits.release();
+                continue;
+            }
+            waitedRequests.increment();
+            waitNanos.add(System.nanoTime() - next.queuedAt);
+            next.task.run();
+        }
+    }
+
+    private record PendingCall(Runnable task, long queuedAt) {
+    }
+
+    /**
+     * Lämnar tillbaka anslutningen till poolen när svaret stängs
+     */
+    private final class ReleasingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReleasingResponse(ClientHttpResponse delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    release();
+                }
+            }
+        }
+    }
+}
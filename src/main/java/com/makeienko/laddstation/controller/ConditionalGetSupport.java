@@ -0,0 +1,108 @@
+package com.makeienko.laddstation.controller;
+
+import com.makeienko.laddstation.dto.ConditionalGetStatsResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Starka ETags för läs-endpoints vars svar bara ändras när en serie laddas om
+ * eller den simulerade timmen byter. Taggen byggs av seriens version (och timme)
+ * och kan därför jämföras innan något hämtas från simulatorn.
+ */
+@Component
+public class ConditionalGetSupport {
+
+    // Versionerna börjar om vid omstart; prefixet hindrar att en gammal tagg råkar matcha
+    private final String instanceTag = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Bygger en ETag av endpointens namn och de värden svaret beror på
+     */
+    public String etag(String endpoint, long... parts) {
+        StringBuilder tag = new StringBuilder(32).append('"').append(endpoint).append('-').append(instanceTag);
+        for (long part : parts) {
+            tag.append('-').append(part);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * Sant om klientens If-None-Match redan innehåller taggen. Räknar anropet.
+     */
+    public boolean isNotModified(String endpoint, String ifNoneMatch, String etag) {
+        Counters endpointCounters = counters.computeIfAbsent(endpoint, key -> new Counters());
+        endpointCounters.requests.increment();
+        if (matches(ifNoneMatch, etag)) {
+            endpointCounters.notModified.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Räknar ett anrop som inte kunde jämföras eftersom serien ännu inte finns i cachen.
+     * Det ger alltid ett fullt svar och ska ingå i nämnaren för andelen 304.
+     */
+    public void recordColdRequest(String endpoint) {
+        counters.computeIfAbsent(endpoint, key -> new Counters()).requests.increment();
+    }
+
+    public <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .build();
+    }
+
+    public <T> ResponseEntity<T> ok(String etag, T body) {
+        return ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .body(body);
+    }
+
+    public List<ConditionalGetStatsResponse> getStats() {
+        List<ConditionalGetStatsResponse> stats = new ArrayList<>();
+        counters.forEach((endpoint, endpointCounters) -> {
+            long requests = endpointCounters.requests.sum();
+            long notModified = endpointCounters.notModified.sum();
+            double ratio = requests == 0 ? 0.0 : Math.round((double) notModified / requests * 1000.0) / 1000.0;
+            stats.add(new ConditionalGetStatsResponse(endpoint, requests, notModified, ratio));
+        });
+        stats.sort((a, b) -> a.getEndpoint().compareTo(b.getEndpoint()));
+        return stats;
+    }
+
+    /**
+     * If-None-Match kan vara "*" eller en kommaseparerad lista, eventuellt med W/-prefix
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Counters {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder notModified = new LongAdder();
+    }
+}
@@ -0,0 +1,61 @@
+package com.makeienko.laddstation.controller;
+
+import com.makeienko.laddstation.dto.FleetStatusResponse;
+import com.makeienko.laddstation.dto.FleetVehicleRequest;
+import com.makeienko.laddstation.dto.FleetVehicleResponse;
+import com.makeienko.laddstation.service.fleet.FleetService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Registrering av fordon och status för depåns gemensamma effektbudget
+ */
+@RestController
+@RequestMapping("/api/fleet")
+@CrossOrigin(origins = "http://localhost:3000")
+public class FleetController {
+
+    private final FleetService fleetService;
+
+    public FleetController(FleetService fleetService) {
+        this.fleetService = fleetService;
+    }
+
+    @GetMapping
+    public ResponseEntity<FleetStatusResponse> getStatus() {
+        return ResponseEntity.ok(fleetService.getStatus());
+    }
+
+    @GetMapping("/vehicles")
+    public ResponseEntity<List<FleetVehicleResponse>> getVehicles() {
+        return ResponseEntity.ok(fleetService.getVehicles());
+    }
+
+    @GetMapping("/vehicles/{id}")
+    public ResponseEntity<FleetVehicleResponse> getVehicle(@PathVariable String id) {
+        FleetVehicleResponse vehicle = fleetService.getVehicle(id);
+        return vehicle != null ? ResponseEntity.ok(vehicle) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Registrerar ett fordon, eller uppdaterar det om id redan finns
+     */
+    @PostMapping("/vehicles")
+    public ResponseEntity<FleetVehicleResponse> registerVehicle(@RequestBody FleetVehicleRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(fleetService.register(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @DeleteMapping("/vehicles/{id}")
+    public ResponseEntity<Void> deregisterVehicle(@PathVariable String id) {
+        return fleetService.deregister(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.makeienko.laddstation.controller;
+
+import com.makeienko.laddstation.dto.HistoryBucketResponse;
+import com.makeienko.laddstation.dto.HistorySampleResponse;
+import com.makeienko.laddstation.dto.RollupSeriesResponse;
+import com.makeienko.laddstation.service.history.InfoHistoryStore;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Historik över /info-snapshots; tider anges i simulerade millisekunder från dygn 0 och
+ * standard är den senaste simulerade timmen
+ */
+@RestController
+@RequestMapping("/api/history")
+@CrossOrigin(origins = "http://localhost:3000")
+public class HistoryController {
+
+    private static final long DEFAULT_RANGE_MILLIS = Duration.ofHours(1).toMillis();
+
+    private final InfoHistoryStore historyStore;
+
+    public HistoryController(InfoHistoryStore historyStore) {
+        this.historyStore = historyStore;
+    }
+
+    /**
+     * Alla snapshots i intervallet, t.ex. GET /api/history?from=...&to=...&limit=1000
+     */
+    @GetMapping
+    public ResponseEntity<List<HistorySampleResponse>> getRange(@RequestParam(required = false) Long from,
+                                                                @RequestParam(required = false) Long to,
+                                                                @RequestParam(defaultValue = "10000") int limit) {
+        long end = to != null ? to : historyStore.getLatestTimestamp() + 1;
+        long start = from != null ? from : end - DEFAULT_RANGE_MILLIS;
+        try {
+            return ResponseEntity.ok(historyStore.range(start, end, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Medelvärden per intervall, t.ex. GET /api/history/downsampled?bucket=5m
+     */
+    @GetMapping("/downsampled")
+    public ResponseEntity<List<HistoryBucketResponse>> getDownsampled(@RequestParam(required = false) Long from,
+                                                                      @RequestParam(required = false) Long to,
+                                                                      @RequestParam(defaultValue = "1m") String bucket) {
+        long end = to != null ? to : historyStore.getLatestTimestamp() + 1;
+        long start = from != null ? from : end - DEFAULT_RANGE_MILLIS;
+        try {
+            return ResponseEntity.ok(historyStore.downsample(start, end, DurationStyle.detectAndParse(bucket).toMillis()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Högst points punkter med min/max/medel/senaste, t.ex. GET /api/history/rollup?from=...&points=500.
+     * Servern väljer själv den grövsta rollup-nivå som räcker till.
+     */
+    @GetMapping("/rollup")
+    public ResponseEntity<RollupSeriesResponse> getRollup(@RequestParam(required = false) Long from,
+                                                          @RequestParam(required = false) Long to,
+                                                          @RequestParam(defaultValue = "500") int points) {
+        long end = to != null ? to : historyStore.getLatestTimestamp() + 1;
+        long start = from != null ? from : end - DEFAULT_RANGE_MILLIS;
+        try {
+            return ResponseEntity.ok(historyStore.rollup(start, end, points));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -2,30 +2,55 @@ package com.makeienko.laddstation.controller;
 
 import com.makeienko.laddstation.dto.*;
 import com.makeienko.laddstation.service.LaddstationApiClient;
+import com.makeienko.laddstation.service.ChargePlanService;
 import com.makeienko.laddstation.service.ChargingHourOptimizer;
 import com.makeienko.laddstation.service.HomeBatteryManager;
+import com.makeienko.laddstation.service.JointPlanService;
+import com.makeienko.laddstation.service.SimulatorSeriesStore;
 import com.makeienko.laddstation.service.SolarPanelManager;
+import com.makeienko.laddstation.service.StationStreamService;
+import com.makeienko.laddstation.service.StationViewAssembler;
+import com.makeienko.laddstation.service.schedule.ChargeSchedule;
+import com.makeienko.laddstation.service.schedule.JointSchedule;
+import com.makeienko.laddstation.service.schedule.RollingHorizonPlanner;
+import com.makeienko.laddstation.service.schedule.RollingPlan;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
-@CrossOrigin(origins = "http://localhost:3000")
+@CrossOrigin(origins = "http://localhost:3000", exposedHeaders = HttpHeaders.ETAG)
 public class LaddstationController {
 
     private final LaddstationApiClient apiClient;
     private final ChargingHourOptimizer chargingHourOptimizer;
     private final HomeBatteryManager homeBatteryManager;
     private final SolarPanelManager solarPanelManager;
+    private final SimulatorSeriesStore seriesStore;
+    private final StationViewAssembler viewAssembler;
+    private final StationStreamService streamService;
+    private final ConditionalGetSupport conditionalGet;
+    private final ChargePlanService chargePlanService;
+    private final JointPlanService jointPlanService;
 
-    public LaddstationController(LaddstationApiClient apiClient, ChargingHourOptimizer chargingHourOptimizer, HomeBatteryManager homeBatteryManager, SolarPanelManager solarPanelManager) {
+    public LaddstationController(LaddstationApiClient apiClient, ChargingHourOptimizer chargingHourOptimizer, HomeBatteryManager homeBatteryManager, SolarPanelManager solarPanelManager, SimulatorSeriesStore seriesStore, StationViewAssembler viewAssembler, StationStreamService streamService, ConditionalGetSupport conditionalGet, ChargePlanService chargePlanService, JointPlanService jointPlanService) {
         this.apiClient = apiClient;
         this.chargingHourOptimizer = chargingHourOptimizer;
         this.homeBatteryManager = homeBatteryManager;
         this.solarPanelManager = solarPanelManager;
+        this.seriesStore = seriesStore;
+        this.viewAssembler = viewAssembler;
+        this.streamService = streamService;
+        this.conditionalGet = conditionalGet;
+        this.chargePlanService = chargePlanService;
+        this.jointPlanService = jointPlanService;
     }
 
     /**
@@ -48,11 +73,7 @@ public class LaddstationController {
     public ResponseEntity<TimeResponse> getCurrentTime() {
         try {
             InfoResponse info = apiClient.getInfo();
-            TimeResponse timeResponse = new TimeResponse(
-                info.getSimTimeHour(), 
-                info.getSimTimeMin()
-            );
-            return ResponseEntity.ok(timeResponse);
+            return ResponseEntity.ok(viewAssembler.toTime(info));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -65,68 +86,95 @@ public class LaddstationController {
     public ResponseEntity<BatteryStatusResponse> getBatteryStatus() {
         try {
             InfoResponse info = apiClient.getInfo();
-            
-            double maxCapacityKwh = info.getEvBattMaxCapacityKwh();
-            double currentPercentage = (info.getBatteryEnergyKwh() / maxCapacityKwh) * 100;
-            currentPercentage = Math.round(currentPercentage * 10.0) / 10.0; // Avrunda till 1 decimal
-            
-            BatteryStatusResponse batteryStatus = new BatteryStatusResponse(
-                currentPercentage,
-                info.getBatteryEnergyKwh(),
-                maxCapacityKwh,
-                info.isEvBatteryChargeStartStopp()
-            );
-            
-            return ResponseEntity.ok(batteryStatus);
+            return ResponseEntity.ok(viewAssembler.toBattery(info));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
     /**
-     * Hämtar hushållets basförbrukning per timme
+     * Hämtar hushållets basförbrukning per timme.
+     * Svarar 304 utan att hämta något om klienten redan har aktuell version av serien.
      */
     @GetMapping("/baseload")
-    public ResponseEntity<double[]> getBaseload() {
+    public ResponseEntity<HourlySeries> getBaseload(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            double[] baseload = apiClient.getBaseload();
-            return ResponseEntity.ok(baseload);
+            long cachedVersion = seriesStore.currentVersion(SimulatorSeriesStore.Series.BASELOAD);
+            if (cachedVersion >= 0) {
+                String etag = conditionalGet.etag("baseload", cachedVersion);
+                if (conditionalGet.isNotModified("baseload", ifNoneMatch, etag)) {
+                    return conditionalGet.notModified(etag);
+                }
+            } else {
+                conditionalGet.recordColdRequest("baseload");
+            }
+
+            HourlySeries baseload = seriesStore.baseload();
+            return conditionalGet.ok(conditionalGet.etag("baseload", baseload.getVersion()), baseload);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
     /**
-     * Hämtar aktuellt timpris baserat på simulerad tid
+     * Hämtar aktuellt timpris baserat på simulerad tid.
+     * Svaret ändras bara när timmen byter eller priserna laddas om, så ETag byggs av
+     * prisseriens version och timmen och prisserien hämtas inte om klienten redan har den.
      */
     @GetMapping("/current-price")
-    public ResponseEntity<CurrentPriceResponse> getCurrentPrice() {
-        try {
-            InfoResponse info = apiClient.getInfo();
-            double[] hourlyPrices = apiClient.getHourlyPrices();
-            
-            int currentHour = (int) Math.floor(info.getSimTimeHour()) % 24;
-            double currentPrice = hourlyPrices[currentHour];
-            
-            CurrentPriceResponse priceResponse = new CurrentPriceResponse(
-                currentPrice,
-                currentHour,
-                hourlyPrices
-            );
-            
-            return ResponseEntity.ok(priceResponse);
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
-        }
+    public CompletableFuture<ResponseEntity<CurrentPriceResponse>> getCurrentPrice(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return apiClient.getInfoAsync()
+            .thenCompose(info -> {
+                int currentHour = (int) Math.floor(info.getSimTimeHour()) % 24;
+                long cachedVersion = seriesStore.currentVersion(SimulatorSeriesStore.Series.HOURLY_PRICES);
+                if (cachedVersion >= 0) {
+                    String etag = conditionalGet.etag("current-price", cachedVersion, currentHour);
+                    if (conditionalGet.isNotModified("current-price", ifNoneMatch, etag)) {
+                        return CompletableFuture.completedFuture(conditionalGet.<CurrentPriceResponse>notModified(etag));
+                    }
+                } else {
+                    conditionalGet.recordColdRequest("current-price");
+                }
+
+                return seriesStore.getAsync(SimulatorSeriesStore.Series.HOURLY_PRICES)
+                    .thenApply(hourlyPrices -> conditionalGet.ok(
+                        conditionalGet.etag("current-price", hourlyPrices.getVersion(), currentHour),
+                        viewAssembler.toCurrentPrice(info, hourlyPrices)));
+            })
+            .exceptionally(e -> ResponseEntity.internalServerError().build());
+    }
+
+    /**
+     * Samlad vy för startsidan: tid, elbilsbatteri, elpris, husbatteri och solpaneler
+     * i ett anrop, byggt från en enda /info-snapshot plus cachade timpriser.
+     */
+    @GetMapping("/dashboard")
+    public CompletableFuture<ResponseEntity<DashboardResponse>> getDashboard() {
+        return apiClient.getInfoAsync()
+            .thenCombine(seriesStore.getAsync(SimulatorSeriesStore.Series.HOURLY_PRICES),
+                (info, hourlyPrices) -> ResponseEntity.ok(viewAssembler.toDashboard(info, hourlyPrices)))
+            .exceptionally(e -> ResponseEntity.internalServerError().build());
     }
 
     /**
      * Hämtar optimala laddningstider baserat på förbrukning
      */
     @GetMapping("/optimal-charging-hours")
-    public ResponseEntity<OptimalChargingResponse> getOptimalChargingHours() {
+    public ResponseEntity<OptimalChargingResponse> getOptimalChargingHours(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<Double> optimalHours = chargingHourOptimizer.findOptimalHoursByConsumption();
+            // Timmarna beror bara på basförbrukningen, så basförbrukningens version räcker som ETag
+            long cachedVersion = seriesStore.currentVersion(SimulatorSeriesStore.Series.BASELOAD);
+            if (cachedVersion >= 0) {
+                String etag = conditionalGet.etag("optimal-charging-hours", cachedVersion);
+                if (conditionalGet.isNotModified("optimal-charging-hours", ifNoneMatch, etag)) {
+                    return conditionalGet.notModified(etag);
+                }
+            } else {
+                conditionalGet.recordColdRequest("optimal-charging-hours");
+            }
+
+            HourMask optimalHours = chargingHourOptimizer.findOptimalHourMaskByConsumption();
+            long version = seriesStore.baseload().getVersion();
             
             OptimalChargingResponse response = new OptimalChargingResponse(
                 optimalHours,
@@ -134,6 +182,117 @@ public class LaddstationController {
                 formatOptimalHoursRange(optimalHours)
             );
             
+            return conditionalGet.ok(conditionalGet.etag("optimal-charging-hours", version), response);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Kostnadsoptimalt laddschema med 15 minuters upplösning fram till avgång
+     */
+    @GetMapping("/charge-schedule")
+    public ResponseEntity<ChargeScheduleResponse> getChargeSchedule(@RequestParam(defaultValue = "" + ChargingHourOptimizer.DEFAULT_DEPARTURE_HOUR) int departureHour) {
+        if (departureHour < 0 || departureHour > 23) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            ChargeSchedule schedule = chargingHourOptimizer.findCostOptimalSchedule(departureHour);
+
+            List<String> slots = schedule.getChargingSlotsOfDay().stream()
+                .map(this::formatSlot)
+                .toList();
+
+            ChargeScheduleResponse response = new ChargeScheduleResponse(
+                formatSlot(schedule.getStartSlotOfDay()),
+                String.format("%02d:00", departureHour),
+                Math.round(schedule.getEnergyNeededKwh() * 100.0) / 100.0,
+                Math.round(schedule.getPlannedEnergyKwh() * 100.0) / 100.0,
+                Math.round(schedule.getTotalCost() * 100.0) / 100.0,
+                schedule.isFeasible(),
+                slots,
+                schedule.getChargingHourMask()
+            );
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Gemensam plan för elbilen och husbatteriet fram till avgång: per kvart om elbilen laddar,
+     * om husbatteriet laddas eller laddas ur och vart solproduktionen går
+     */
+    @GetMapping("/joint-schedule")
+    public ResponseEntity<JointScheduleResponse> getJointSchedule(@RequestParam(defaultValue = "" + ChargingHourOptimizer.DEFAULT_DEPARTURE_HOUR) int departureHour) {
+        if (departureHour < 0 || departureHour > 23) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            JointSchedule schedule = jointPlanService.plan(departureHour);
+
+            List<JointScheduleResponse.Slot> slots = new ArrayList<>(schedule.getHorizonSlots());
+            for (int t = 0; t < schedule.getHorizonSlots(); t++) {
+                slots.add(new JointScheduleResponse.Slot(
+                    formatSlot(schedule.slotOfDayAt(t)),
+                    schedule.isEvChargingAt(t),
+                    round2(schedule.getGridImportKwh(t)),
+                    round2(schedule.getHomeBattChargeKwh(t)),
+                    round2(schedule.getHomeBattDischargeKwh(t)),
+                    round2(schedule.getHomeBattLevelKwh(t)),
+                    round2(schedule.getSolarToEvKwh(t)),
+                    round2(schedule.getSolarToHomeBattKwh(t)),
+                    round2(schedule.getSolarToGridKwh(t))));
+            }
+
+            JointScheduleResponse response = new JointScheduleResponse(
+                formatSlot(schedule.getStartSlotOfDay()),
+                String.format("%02d:00", departureHour),
+                round2(schedule.getEvEnergyNeededKwh()),
+                round2(schedule.getPlannedEvEnergyKwh()),
+                round2(schedule.getHomeBattStartKwh()),
+                round2(schedule.getHomeBattEndKwh()),
+                round2(schedule.getTotalCost()),
+                schedule.isFeasible(),
+                slots
+            );
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Flerdygnsplan (48-168 timmar) med pris, hushållslast och solproduktion.
+     * Planen återanvänds mellan anrop så länge batterinivån följer den.
+     */
+    @GetMapping("/plan")
+    public ResponseEntity<ChargePlanResponse> getPlan(@RequestParam(required = false) Integer horizonHours) {
+        int horizon = horizonHours != null ? horizonHours : chargePlanService.getDefaultHorizonHours();
+        if (horizon < RollingHorizonPlanner.MIN_HORIZON_HOURS || horizon > RollingHorizonPlanner.MAX_HORIZON_HOURS) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            RollingPlan plan = chargePlanService.plan(horizon);
+
+            long startDay = Math.floorDiv(plan.getStartSlot(), ChargeSchedule.SLOTS_PER_DAY);
+            List<ChargePlanResponse.PlannedSlot> slots = new ArrayList<>();
+            for (long slot : plan.getChargingSlots()) {
+                slots.add(new ChargePlanResponse.PlannedSlot(
+                    (int) (Math.floorDiv(slot, ChargeSchedule.SLOTS_PER_DAY) - startDay),
+                    formatSlot((int) Math.floorMod(slot, (long) ChargeSchedule.SLOTS_PER_DAY))));
+            }
+
+            ChargePlanResponse response = new ChargePlanResponse(
+                formatSlot((int) Math.floorMod(plan.getStartSlot(), (long) ChargeSchedule.SLOTS_PER_DAY)),
+                horizon,
+                Math.round(plan.getEnergyNeededKwh() * 100.0) / 100.0,
+                Math.round(plan.getPlannedEnergyKwh() * 100.0) / 100.0,
+                Math.round(plan.getTotalCost() * 100.0) / 100.0,
+                plan.isFeasible(),
+                plan.isReused(),
+                slots
+            );
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
@@ -164,85 +323,86 @@ public class LaddstationController {
     }
 
     /**
-     * Formatera optimala timmar till ett läsbart tidsintervall
+     * Live-ström (Server-Sent Events) med tid, elbilsbatteri, husbatteri och solpaneler.
+     * Första händelsen är en fullständig snapshot, därefter skickas bara ändrade delar.
      */
-    private String formatOptimalHoursRange(List<Double> optimalHours) {
-        if (optimalHours.isEmpty()) {
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStationState() {
+        return streamService.subscribe();
+    }
+
+    /**
+     * Formatera optimala timmar till ett läsbart tidsintervall. Minst tre nattimmar (22-06)
+     * visas som natten från första timmen efter 22 till sista före 07, annars det första av
+     * de längsta sammanhängande intervallen. Går direkt på maskens bitar utan listor.
+     */
+    static String formatOptimalHoursRange(HourMask optimalHours) {
+        int count = optimalHours.count();
+        if (count == 0) {
             return "Ingen optimal tid";
         }
         
-        // Konvertera till integers och sortera
-        List<Integer> hours = optimalHours.stream()
-            .mapToInt(Double::intValue)
-            .sorted()
-            .boxed()
-            .toList();
-        
-        if (hours.size() == 1) {
-            return String.format("%02d:00", hours.get(0));
+        if (count == 1) {
+            return formatHour(optimalHours.first());
         }
         
-        // Hitta det längsta sammanhängande intervallet som inkluderar nattetid
-        List<Integer> nightHours = new ArrayList<>();
-        List<Integer> dayHours = new ArrayList<>();
-        
-        for (int hour : hours) {
-            if (hour >= 22 || hour <= 6) {
-                nightHours.add(hour);
-            } else {
-                dayHours.add(hour);
-            }
+        // Prioritera nattetid om det finns minst 3 nattetimmar
+        int nightHours = 0;
+        int startHour = -1;
+        int endHour = -1;
+        for (int hour = optimalHours.first(); hour >= 0 && hour <= 6; hour = optimalHours.next(hour + 1)) {
+            nightHours++;
+            endHour = hour;
         }
-        
-        // Prioritera nattetid om det finns fler än 3 nattetimmar
-        if (nightHours.size() >= 3) {
-            int startHour = nightHours.stream().filter(h -> h >= 22).min(Integer::compareTo).orElse(22);
-            int endHour = nightHours.stream().filter(h -> h <= 6).max(Integer::compareTo).orElse(6);
-            
-            if (startHour >= 22 && endHour <= 6) {
-                return String.format("%02d:00 - %02d:00", startHour, endHour + 1);
+        // Bara första dygnets kväll; i en mask på 48 eller 168 timmar är timme 46 inte 22-23
+        for (int hour = optimalHours.next(22); hour >= 0 && hour < HourMask.DAY; hour = optimalHours.next(hour + 1)) {
+            nightHours++;
+            if (startHour < 0) {
+                startHour = hour;
             }
         }
+        if (nightHours >= 3) {
+            return formatHour(startHour >= 0 ? startHour : 22) + " - " + formatHour((endHour >= 0 ? endHour : 6) + 1);
+        }
         
         // Annars visa bästa sammanhängande intervall
-        List<List<Integer>> intervals = findContiguousIntervals(hours);
-        List<Integer> longestInterval = intervals.stream()
-            .max((a, b) -> Integer.compare(a.size(), b.size()))
-            .orElse(hours);
+        int longestStart = -1;
+        int longestEnd = -1;
+        for (int start = optimalHours.first(); start >= 0; ) {
+            int end = optimalHours.runEnd(start);
+            if (end - start > longestEnd - longestStart) {
+                longestStart = start;
+                longestEnd = end;
+            }
+            start = optimalHours.next(end);
+        }
         
-        if (longestInterval.size() >= 2) {
-            int start = longestInterval.get(0);
-            int end = longestInterval.get(longestInterval.size() - 1);
-            return String.format("%02d:00 - %02d:00", start, end + 1);
+        if (longestEnd - longestStart >= 2) {
+            return formatHour(longestStart) + " - " + formatHour(longestEnd);
         }
         
         // Fallback: visa antal timmar
-        return hours.size() + " optimala timmar";
+        return count + " optimala timmar";
     }
-    
+
+    private static String formatHour(int hour) {
+        return (hour < 10 ? "0" : "") + hour + ":00";
+    }
+
     /**
-     * Hitta sammanhängande tidsintervall
+     * @deprecated använd {@link #formatOptimalHoursRange(HourMask)}
      */
-    private List<List<Integer>> findContiguousIntervals(List<Integer> hours) {
-        List<List<Integer>> intervals = new ArrayList<>();
-        List<Integer> currentInterval = new ArrayList<>();
-        
-        for (int i = 0; i < hours.size(); i++) {
-            if (currentInterval.isEmpty()) {
-                currentInterval.add(hours.get(i));
-            } else if (hours.get(i) == currentInterval.get(currentInterval.size() - 1) + 1) {
-                currentInterval.add(hours.get(i));
-            } else {
-                intervals.add(new ArrayList<>(currentInterval));
-                currentInterval.clear();
-                currentInterval.add(hours.get(i));
-            }
-        }
-        
-        if (!currentInterval.isEmpty()) {
-            intervals.add(currentInterval);
-        }
-        
-        return intervals;
+    @Deprecated
+    static String formatOptimalHoursRange(List<Double> optimalHours) {
+        return formatOptimalHoursRange(HourMask.fromHours(optimalHours));
+    }
+    
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private String formatSlot(int slotOfDay) {
+        int minutes = slotOfDay * ChargeSchedule.SLOT_MINUTES;
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
     }
 } 
\ No newline at end of file
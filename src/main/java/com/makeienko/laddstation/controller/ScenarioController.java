@@ -0,0 +1,36 @@
+package com.makeienko.laddstation.controller;
+
+import com.makeienko.laddstation.dto.ScenarioMatrixResponse;
+import com.makeienko.laddstation.dto.ScenarioRequest;
+import com.makeienko.laddstation.service.scenario.ScenarioService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * What-if-körningar för säkring, laddeffekt, batteristorlek och priskurva
+ */
+@RestController
+@RequestMapping("/api/scenarios")
+@CrossOrigin(origins = "http://localhost:3000")
+public class ScenarioController {
+
+    private final ScenarioService scenarioService;
+
+    public ScenarioController(ScenarioService scenarioService) {
+        this.scenarioService = scenarioService;
+    }
+
+    /**
+     * Löser alla kombinationer i förfrågan; en tom förfrågan ger dagens anläggning
+     */
+    @PostMapping
+    public ResponseEntity<ScenarioMatrixResponse> evaluate(@RequestBody(required = false) ScenarioRequest request) {
+        try {
+            return ResponseEntity.ok(scenarioService.evaluate(request != null ? request : new ScenarioRequest()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.makeienko.laddstation.controller;
+
+import com.makeienko.laddstation.dto.SessionStatusResponse;
+import com.makeienko.laddstation.service.session.ChargingSessionManager;
+import com.makeienko.laddstation.service.session.SessionMode;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Start, stopp och status för laddningssessioner
+ */
+@RestController
+@RequestMapping("/api/sessions")
+@CrossOrigin(origins = "http://localhost:3000")
+public class SessionController {
+
+    private final ChargingSessionManager sessionManager;
+
+    public SessionController(ChargingSessionManager sessionManager) {
+        this.sessionManager = sessionManager;
+    }
+
+    /**
+     * Startar en session, t.ex. POST /api/sessions?mode=price
+     */
+    @PostMapping
+    public ResponseEntity<SessionStatusResponse> startSession(@RequestParam(defaultValue = "cost_optimal") String mode) {
+        SessionMode sessionMode;
+        try {
+            sessionMode = SessionMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(sessionManager.start(sessionMode));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<SessionStatusResponse>> getSessions() {
+        return ResponseEntity.ok(sessionManager.getSessions());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<SessionStatusResponse> getSession(@PathVariable String id) {
+        SessionStatusResponse status = sessionManager.getStatus(id);
+        return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Avbryter en session; laddningen stoppas på servern innan sessionen räknas som avslutad
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<SessionStatusResponse> stopSession(@PathVariable String id) {
+        SessionStatusResponse status = sessionManager.stop(id);
+        return status != null ? ResponseEntity.status(HttpStatus.ACCEPTED).body(status) : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.makeienko.laddstation.controller;
+
+import com.makeienko.laddstation.config.TransportPoolLimiter;
+import com.makeienko.laddstation.dto.AdaptivePollingStatsResponse;
+import com.makeienko.laddstation.dto.ClockStatsResponse;
+import com.makeienko.laddstation.dto.ConditionalGetStatsResponse;
+import com.makeienko.laddstation.dto.HistoryStatsResponse;
+import com.makeienko.laddstation.dto.InfoCacheStatsResponse;
+import com.makeienko.laddstation.dto.SessionStatsResponse;
+import com.makeienko.laddstation.dto.StreamStatsResponse;
+import com.makeienko.laddstation.dto.TransportStatsResponse;
+import com.makeienko.laddstation.service.LaddstationApiClient;
+import com.makeienko.laddstation.service.StationStreamService;
+import com.makeienko.laddstation.service.clock.SimulatedClock;
+import com.makeienko.laddstation.service.history.InfoHistoryStore;
+import com.makeienko.laddstation.service.session.ChargingSessionManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Interna räknare för cache och upstream-anrop
+ */
+@RestController
+@RequestMapping("/api/stats")
+@CrossOrigin(origins = "http://localhost:3000")
+public class StatsController {
+
+    private final LaddstationApiClient apiClient;
+    private final TransportPoolLimiter transportPoolLimiter;
+    private final StationStreamService streamService;
+    private final ConditionalGetSupport conditionalGet;
+    private final ChargingSessionManager sessionManager;
+    private final SimulatedClock clock;
+    private final InfoHistoryStore historyStore;
+
+    public StatsController(LaddstationApiClient apiClient, TransportPoolLimiter transportPoolLimiter, StationStreamService streamService,
+                           ConditionalGetSupport conditionalGet, ChargingSessionManager sessionManager, SimulatedClock clock,
+                           InfoHistoryStore historyStore) {
+        this.apiClient = apiClient;
+        this.transportPoolLimiter = transportPoolLimiter;
+        this.streamService = streamService;
+        this.conditionalGet = conditionalGet;
+        this.sessionManager = sessionManager;
+        this.clock = clock;
+        this.historyStore = historyStore;
+    }
+
+    /**
+     * Träffar, missar och sammanslagna anrop för /info-cachen
+     */
+    @GetMapping("/info-cache")
+    public ResponseEntity<InfoCacheStatsResponse> getInfoCacheStats() {
+        return ResponseEntity.ok(apiClient.getInfoCacheStats());
+    }
+
+    /**
+     * Nyttjande av anslutningspoolen mot simulatorn
+     */
+    @GetMapping("/transport")
+    public ResponseEntity<TransportStatsResponse> getTransportStats() {
+        return ResponseEntity.ok(transportPoolLimiter.getStats());
+    }
+
+    /**
+     * Antal anslutna klienter och skickade/tappade händelser för /api/stream
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamStatsResponse> getStreamStats() {
+        return ResponseEntity.ok(streamService.getStats());
+    }
+
+    /**
+     * Andel 304 Not Modified per endpoint med ETag
+     */
+    @GetMapping("/conditional-get")
+    public ResponseEntity<List<ConditionalGetStatsResponse>> getConditionalGetStats() {
+        return ResponseEntity.ok(conditionalGet.getStats());
+    }
+
+    /**
+     * Pågående och avslutade laddningssessioner
+     */
+    @GetMapping("/sessions")
+    public ResponseEntity<SessionStatsResponse> getSessionStats() {
+        return ResponseEntity.ok(sessionManager.getStats());
+    }
+
+    /**
+     * Lyssnare och /info-läsningar för den gemensamma simulerade klockan
+     */
+    @GetMapping("/clock")
+    public ResponseEntity<ClockStatsResponse> getClockStats() {
+        return ResponseEntity.ok(clock.getStats());
+    }
+
+    /**
+     * Läsningar per väntan och överskjutning för adaptiv läsning mot en gräns
+     */
+    @GetMapping("/adaptive-polling")
+    public ResponseEntity<AdaptivePollingStatsResponse> getAdaptivePollingStats() {
+        return ResponseEntity.ok(clock.getAdaptivePollingStats());
+    }
+
+    /**
+     * Segment, rader och diskutrymme för /info-historiken
+     */
+    @GetMapping("/history")
+    public ResponseEntity<HistoryStatsResponse> getHistoryStats() {
+        return ResponseEntity.ok(historyStore.getStats());
+    }
+}
@@ -0,0 +1,24 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Räknare för adaptiv läsning i väntan på att ett värde når en gräns
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdaptivePollingStatsResponse {
+    private int activeWaits;
+    private long completedWaits;
+    private long polls;
+    private long fallbackPolls; // Läsningar med fast intervall (uppvärmning eller efter avvikelse)
+    private long anomalies;
+    private double averagePollsPerWait;
+    private double averageOvershoot;
+    private double maxOvershoot;
+    private double overshootTolerance;
+    private long overshootExceeded; // Väntor där gränsen passerades med mer än toleransen
+}
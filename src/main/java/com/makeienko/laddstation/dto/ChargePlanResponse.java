@@ -0,0 +1,32 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Flerdygnsplan för elbilsladdning
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChargePlanResponse {
+    private String startTime;
+    private int horizonHours;
+    private double energyNeededKwh;
+    private double plannedEnergyKwh;
+    private double totalCost; // öre, efter avdrag för solöverskott
+    private boolean feasible;
+    private boolean reused; // Planen återanvändes från föregående tidssteg
+    private List<PlannedSlot> chargingSlots;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class PlannedSlot {
+        private int dayOffset; // 0 = idag, 1 = imorgon, ...
+        private String time;
+    }
+}
@@ -0,0 +1,24 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Kostnadsoptimalt laddschema med 15 minuters upplösning
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChargeScheduleResponse {
+    private String startTime;
+    private String departureTime;
+    private double energyNeededKwh;
+    private double plannedEnergyKwh;
+    private double totalCost; // öre
+    private boolean feasible; // Falskt om behovet inte hinner täckas före avgång
+    private List<String> chargingSlots; // Starttid för varje laddlucka, t.ex. "02:15"
+    private HourMask chargingHours; // Timmar med minst en laddlucka, räknade från startTime (0 = första timmen)
+}
@@ -0,0 +1,19 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Räknare för den gemensamma simulerade klockan
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClockStatsResponse {
+    private int listeners;
+    private long polls; // /info-läsningar, oavsett antal lyssnare
+    private long quarterEvents;
+    private long hourEvents;
+    private long callbacks;
+}
@@ -0,0 +1,18 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Andel villkorliga GET-anrop som besvarades med 304 Not Modified för en endpoint
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConditionalGetStatsResponse {
+    private String endpoint;
+    private long requests;
+    private long notModified;
+    private double notModifiedRatio;
+}
@@ -10,5 +10,5 @@ import lombok.NoArgsConstructor;
 public class CurrentPriceResponse {
     private double currentPrice;
     private int currentHour;
-    private double[] hourlyPrices;
+    private HourlySeries hourlyPrices;
 } 
\ No newline at end of file
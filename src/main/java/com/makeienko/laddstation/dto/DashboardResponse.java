@@ -0,0 +1,19 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Allt som startsidan visar, byggt från en och samma /info-snapshot
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DashboardResponse {
+    private TimeResponse time;
+    private BatteryStatusResponse battery;
+    private CurrentPriceResponse currentPrice;
+    private HomeBatteryResponse homeBattery;
+    private SolarPanelStatus solarPanel;
+}
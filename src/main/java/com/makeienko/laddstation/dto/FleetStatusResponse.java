@@ -0,0 +1,22 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sammanfattning av depåns effektfördelning
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FleetStatusResponse {
+    private int vehicles;
+    private int charging;
+    private double siteLimitKw;
+    private double baseloadKw;
+    private double budgetKw;
+    private double allocatedKw;
+    private long ticks;
+    private double lastAllocationMicros;
+}
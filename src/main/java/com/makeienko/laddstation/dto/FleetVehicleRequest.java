@@ -0,0 +1,20 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Registrering av ett fordon på depån. Fält som utelämnas får standardvärden.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FleetVehicleRequest {
+    private String id;
+    private Double capacityKwh;
+    private Double energyKwh;
+    private Double targetPercent;
+    private Double maxPowerKw;
+    private Double hoursUntilDeparture;
+}
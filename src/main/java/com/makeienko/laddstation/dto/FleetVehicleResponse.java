@@ -0,0 +1,22 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Status för ett fordon på depån
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FleetVehicleResponse {
+    private String id;
+    private double capacityKwh;
+    private double energyKwh;
+    private double targetKwh;
+    private double maxPowerKw;
+    private double allocatedKw; // Tilldelad effekt under pågående tidssteg
+    private double hoursUntilDeparture;
+    private double laxityHours; // Negativ = hinner inte nå målet före avgång
+}
@@ -0,0 +1,27 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Medelvärden för ett tidsintervall i historiken. chargingShare är andelen snapshots
+ * där elbilen laddade; homeBatteryMode är läget i intervallets sista snapshot.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HistoryBucketResponse {
+    private long bucketStart;
+    private int samples;
+    private double householdLoadKwh;
+    private double batteryEnergyKwh;
+    private double minBatteryEnergyKwh;
+    private double maxBatteryEnergyKwh;
+    private double homeBattCapacityKwh;
+    private double homeBattCapacityPercent;
+    private double solarProductionKwh;
+    private double netHouseholdLoadKwh;
+    private double chargingShare;
+    private String homeBatteryMode;
+}
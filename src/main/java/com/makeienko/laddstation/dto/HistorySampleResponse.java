@@ -0,0 +1,18 @@
+package com.makeienko.laddstation.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * En lagrad /info-snapshot med tidpunkten (epoch-millisekunder) då den hämtades
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HistorySampleResponse {
+    private long timestamp;
+    @JsonUnwrapped
+    private InfoResponse info;
+}
@@ -0,0 +1,25 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Storlek och skrivningar för historiklagret
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HistoryStatsResponse {
+    private boolean enabled;
+    private String directory;
+    private int segments;
+    private long rows;
+    private long bytesOnDisk;
+    private int bytesPerRow;
+    private long appended;
+    private long failedAppends;
+    private long rollupBuckets;
+    private Long firstTimestamp;
+    private Long lastTimestamp;
+}
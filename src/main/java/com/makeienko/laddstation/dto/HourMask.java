@@ -0,0 +1,328 @@
+package com.makeienko.laddstation.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Skrivskyddad mängd timmar för ett dygn, två dygn eller en vecka (24, 48 eller 168 timmar),
+ * lagrad som bitar i tre long. Ersätter listorna med boxade Double-timmar: medlemskap är en
+ * bitoperation, iteration och sammanhängande intervall går utan allokering och masken kan
+ * delas mellan trådar. Serialiseras som en JSON-array med timmarna i stigande ordning.
+ */
+@JsonSerialize(using = HourMask.Serializer.class)
+public final class HourMask {
+
+    public static final int DAY = 24;
+    public static final int TWO_DAYS = 48;
+    public static final int WEEK = 168;
+
+    private static final HourMask EMPTY_DAY = new HourMask(DAY, 0L, 0L, 0L);
+
+    private final int length;
+    private final long w0;
+    private final long w1;
+    private final long w2;
+
+    private HourMask(int length, long w0, long w1, long w2) {
+        this.length = length;
+        this.w0 = w0;
+        this.w1 = w1;
+        this.w2 = w2;
+    }
+
+    public static HourMask empty(int length) {
+        requireLength(length);
+        return length == DAY ? EMPTY_DAY : new HourMask(length, 0L, 0L, 0L);
+    }
+
+    /**
+     * Mask för ett dygn med angivna timmar (0-23)
+     */
+    public static HourMask of(int... hours) {
+        Builder builder = new Builder(DAY);
+        for (int hour : hours) {
+            builder.set(hour);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Adapter från den gamla listan med timmar. Värden som inte är hela timmar mellan 0 och 167
+     * hoppas över, eftersom de aldrig kunde matcha simulatorns timme. Längden blir den minsta
+     * av 24, 48 och 168 som rymmer den största timmen.
+     */
+    public static HourMask fromHours(Collection<Double> hours) {
+        int max = -1;
+        for (Double hour : hours) {
+            if (isWholeHour(hour) && hour > max) {
+                max = hour.intValue();
+            }
+        }
+        Builder builder = new Builder(lengthFor(max + 1));
+        for (Double hour : hours) {
+            if (isWholeHour(hour)) {
+                builder.set(hour.intValue());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Minsta masklängd som rymmer så många timmar
+     */
+    public static int lengthFor(int hours) {
+        if (hours <= DAY) {
+            return DAY;
+        }
+        if (hours <= TWO_DAYS) {
+            return TWO_DAYS;
+        }
+        if (hours <= WEEK) {
+            return WEEK;
+        }
+        throw new IllegalArgumentException("An hour mask holds at most " + WEEK + " hours: " + hours);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int count() {
+        return Long.bitCount(w0) + Long.bitCount(w1) + Long.bitCount(w2);
+    }
+
+    public boolean isEmpty() {
+        return (w0 | w1 | w2) == 0L;
+    }
+
+    public boolean contains(int hour) {
+        return hour >= 0 && hour < length && (word(hour >>> 6) & (1L << hour)) != 0;
+    }
+
+    /**
+     * För simulatorns timme, som är en double; bara hela timmar kan finnas i masken
+     */
+    public boolean contains(double hour) {
+        int whole = (int) hour;
+        return whole == hour && contains(whole);
+    }
+
+    /**
+     * Första timmen i masken från och med from, eller -1 om det inte finns någon
+     */
+    public int next(int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        if (from >= length) {
+            return -1;
+        }
+        int index = from >>> 6;
+        long bits = word(index) & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (index << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++index > 2) {
+                return -1;
+            }
+            bits = word(index);
+        }
+    }
+
+    /**
+     * Första timmen efter start som inte finns i masken, dvs. slutet (exklusivt) på det
+     * sammanhängande intervall som börjar vid start. Högst length().
+     */
+    public int runEnd(int start) {
+        if (start < 0 || start >= length) {
+            return start;
+        }
+        int index = start >>> 6;
+        long bits = ~word(index) & (-1L << start);
+        while (true) {
+            if (bits != 0) {
+                return Math.min(length, (index << 6) + Long.numberOfTrailingZeros(bits));
+            }
+            if (++index > 2) {
+                return length;
+            }
+            bits = ~word(index);
+        }
+    }
+
+    public int first() {
+        return next(0);
+    }
+
+    public int last() {
+        if (w2 != 0) {
+            return 128 + 63 - Long.numberOfLeadingZeros(w2);
+        }
+        if (w1 != 0) {
+            return 64 + 63 - Long.numberOfLeadingZeros(w1);
+        }
+        return w0 != 0 ? 63 - Long.numberOfLeadingZeros(w0) : -1;
+    }
+
+    /**
+     * Anropar action för varje timme i stigande ordning
+     */
+    public void forEach(IntConsumer action) {
+        for (int hour = next(0); hour >= 0; hour = next(hour + 1)) {
+            action.accept(hour);
+        }
+    }
+
+    public int[] toArray() {
+        int[] hours = new int[count()];
+        int i = 0;
+        for (int hour = next(0); hour >= 0; hour = next(hour + 1)) {
+            hours[i++] = hour;
+        }
+        return hours;
+    }
+
+    /**
+     * Timmarna som boxade Double i stigande ordning, för anropare av det gamla list-API:t
+     */
+    public List<Double> toHourList() {
+        List<Double> hours = new ArrayList<>(count());
+        for (int hour = next(0); hour >= 0; hour = next(hour + 1)) {
+            hours.add((double) hour);
+        }
+        return hours;
+    }
+
+    /**
+     * Alla sammanhängande intervall, t.ex. "01:00 - 04:00, 22:00 - 24:00". Timmar efter
+     * första dygnet får dygnet som prefix, t.ex. "dag 2 03:00 - 05:00".
+     */
+    public String toRangeString() {
+        if (isEmpty()) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder();
+        for (int start = next(0); start >= 0; ) {
+            int end = runEnd(start);
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            appendHour(text, start / DAY, start % DAY);
+            text.append(" - ");
+            // Slutet skrivs som 24:00 samma dygn istället för 00:00 nästa
+            appendHour(text, (end - 1) / DAY, end - (end - 1) / DAY * DAY);
+            start = next(end);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HourMask other)) {
+            return false;
+        }
+        return length == other.length && w0 == other.w0 && w1 == other.w1 && w2 == other.w2;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = length;
+        result = 31 * result + Long.hashCode(w0);
+        result = 31 * result + Long.hashCode(w1);
+        result = 31 * result + Long.hashCode(w2);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("[");
+        for (int hour = next(0); hour >= 0; hour = next(hour + 1)) {
+            if (text.length() > 1) {
+                text.append(", ");
+            }
+            text.append(hour);
+        }
+        return text.append(']').toString();
+    }
+
+    private long word(int index) {
+        return switch (index) {
+            case 0 -> w0;
+            case 1 -> w1;
+            default -> w2;
+        };
+    }
+
+    private static void appendHour(StringBuilder text, int day, int hour) {
+        if (day > 0) {
+            text.append("dag ").append(day + 1).append(' ');
+        }
+        if (hour < 10) {
+            text.append('0');
+        }
+        text.append(hour).append(":00");
+    }
+
+    private static boolean isWholeHour(Double hour) {
+        return hour != null && hour >= 0 && hour < WEEK && hour == Math.floor(hour);
+    }
+
+    private static void requireLength(int length) {
+        if (length != DAY && length != TWO_DAYS && length != WEEK) {
+            throw new IllegalArgumentException("Hour mask length must be " + DAY + ", " + TWO_DAYS + " or " + WEEK + ": " + length);
+        }
+    }
+
+    /**
+     * Bygger en mask timme för timme. Inte trådsäker; build() kan anropas flera gånger.
+     */
+    public static final class Builder {
+
+        private final int length;
+        private long w0;
+        private long w1;
+        private long w2;
+
+        public Builder(int length) {
+            requireLength(length);
+            this.length = length;
+        }
+
+        public Builder set(int hour) {
+            if (hour < 0 || hour >= length) {
+                throw new IllegalArgumentException("Hour out of range 0-" + (length - 1) + ": " + hour);
+            }
+            long bit = 1L << hour;
+            switch (hour >>> 6) {
+                case 0 -> w0 |= bit;
+                case 1 -> w1 |= bit;
+                default -> w2 |= bit;
+            }
+            return this;
+        }
+
+        public HourMask build() {
+            return (w0 | w1 | w2) == 0L ? empty(length) : new HourMask(length, w0, w1, w2);
+        }
+    }
+
+    static class Serializer extends JsonSerializer<HourMask> {
+        @Override
+        public void serialize(HourMask mask, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            int[] hours = mask.toArray();
+            gen.writeArray(hours, 0, hours.length);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.makeienko.laddstation.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Skrivskyddad vy över en timserie från simulatorn (baseload, priser eller solproduktion).
+ * Den underliggande arrayen lämnar aldrig klassen, så vyn kan delas mellan trådar utan kopior.
+ * Serialiseras som en vanlig JSON-array.
+ */
+@JsonSerialize(using = HourlySeries.Serializer.class)
+public final class HourlySeries {
+
+    private final double[] values;
+    private final long version;
+    private final long simulatedDay;
+
+    /**
+     * Tar över arrayen utan kopia; anroparen får inte ändra den efteråt
+     */
+    public HourlySeries(double[] values, long version, long simulatedDay) {
+        this.values = values;
+        this.version = version;
+        this.simulatedDay = simulatedDay;
+    }
+
+    /**
+     * Skapar en fristående serie från en kopia av arrayen, t.ex. för syntetiska data
+     */
+    public static HourlySeries of(double... values) {
+        return new HourlySeries(values.clone(), 0, 0);
+    }
+
+    public double get(int hour) {
+        return values[hour];
+    }
+
+    public int length() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public double sum() {
+        double total = 0;
+        for (double value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * Monotont ökande version, ny för varje laddning av serien
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Det simulerade dygn som serien laddades för
+     */
+    public long getSimulatedDay() {
+        return simulatedDay;
+    }
+
+    /**
+     * Kopia av värdena för anropare som behöver en egen array
+     */
+    public double[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+
+    static class Serializer extends JsonSerializer<HourlySeries> {
+        @Override
+        public void serialize(HourlySeries series, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeArray(series.values, 0, series.values.length);
+        }
+    }
+}
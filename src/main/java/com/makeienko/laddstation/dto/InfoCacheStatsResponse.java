@@ -0,0 +1,21 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Statistik för den delade /info-cachen
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InfoCacheStatsResponse {
+    private long hits;
+    private long misses;
+    private long coalesced; // Anrop som väntade på en redan pågående hämtning
+    private double hitRatio;
+    private int simMinuteOfDay; // Simulerad tidshink för senaste snapshot, -1 om tom
+    private long ageMs;
+    private long stalenessMs;
+}
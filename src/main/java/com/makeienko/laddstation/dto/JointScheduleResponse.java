@@ -0,0 +1,40 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Gemensam plan för elbil och husbatteri med 15 minuters upplösning fram till avgång
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class JointScheduleResponse {
+    private String startTime;
+    private String departureTime;
+    private double evEnergyNeededKwh;
+    private double plannedEvEnergyKwh;
+    private double homeBattStartKwh;
+    private double homeBattEndKwh;
+    private double totalCost; // öre för all el som köps från nätet, hushållet inräknat
+    private boolean feasible;
+    private List<Slot> slots;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Slot {
+        private String time;
+        private boolean evCharging;
+        private double gridImportKwh;
+        private double homeBattChargeKwh;
+        private double homeBattDischargeKwh;
+        private double homeBattLevelKwh;
+        private double solarToEvKwh;
+        private double solarToHomeBattKwh;
+        private double solarToGridKwh;
+    }
+}
@@ -3,13 +3,12 @@ package com.makeienko.laddstation.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import java.util.List;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class OptimalChargingResponse {
-    private List<Double> optimalHours;
+    private HourMask optimalHours;
     private String strategy;
     private String timeRange;
 } 
\ No newline at end of file
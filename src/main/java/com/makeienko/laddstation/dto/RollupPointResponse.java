@@ -0,0 +1,20 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * En punkt i en rollup-serie; samples är antalet snapshots bakom punkten
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RollupPointResponse {
+    private long bucketStart;
+    private long samples;
+    private RollupStatsResponse batteryEnergyKwh;
+    private RollupStatsResponse householdLoadKwh;
+    private RollupStatsResponse netHouseholdLoadKwh;
+    private RollupStatsResponse solarProductionKwh;
+}
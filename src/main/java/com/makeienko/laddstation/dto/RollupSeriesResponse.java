@@ -0,0 +1,22 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Svar från /api/history/rollup. source är nivån som lästes (raw, 1m, 15m eller 1h) och
+ * stepMillis punkternas intervall, en multipel av källans upplösning.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RollupSeriesResponse {
+    private String source;
+    private long stepMillis;
+    private long from;
+    private long to;
+    private List<RollupPointResponse> points;
+}
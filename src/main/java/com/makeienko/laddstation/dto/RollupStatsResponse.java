@@ -0,0 +1,18 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Min, max, medel och senaste värde för en mätserie inom ett intervall
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RollupStatsResponse {
+    private double min;
+    private double max;
+    private double avg;
+    private double last;
+}
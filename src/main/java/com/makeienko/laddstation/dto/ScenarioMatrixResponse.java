@@ -0,0 +1,30 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Kostnad och genomförbarhet för varje scenario. Arrayerna är platta med priskurvan ytterst
+ * och batteristorleken innerst: index = ((pris * säkringar + säkring) * laddeffekter + laddeffekt)
+ * * batteristorlekar + batteristorlek.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScenarioMatrixResponse {
+    private List<String> priceProfiles;
+    private List<Double> fuseKw;
+    private List<Double> chargerKw;
+    private List<Double> batteryKwh;
+    private String startTime;
+    private String departureTime;
+    private int scenarios;
+    private int feasibleScenarios;
+    private double elapsedMillis;
+    private double[] cost; // öre
+    private boolean[] feasible; // Falskt om behovet inte hinner täckas före avgång
+    private double[] plannedEnergyKwh;
+}
@@ -0,0 +1,28 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What-if-körning över alla kombinationer av priskurvor, säkringar, laddeffekter och
+ * batteristorlekar. Fält som utelämnas får dagens värden; priser och baseload tas då
+ * från simulatorn och starttiden från simulatorns klocka.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScenarioRequest {
+    private Map<String, List<Double>> prices; // Namn -> pris per timme (öre/kWh)
+    private List<Double> fuseKw;
+    private List<Double> chargerKw;
+    private List<Double> batteryKwh;
+    private List<Double> baseload; // kW per timme
+    private Integer startHour;
+    private Integer departureHour;
+    private Double startPercent;
+    private Double targetPercent;
+}
@@ -0,0 +1,20 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Räknare för laddningssessioner
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SessionStatsResponse {
+    private int active;
+    private long started;
+    private long completed;
+    private long cancelled;
+    private long failed;
+    private long stopFailures; // Sessioner där laddningen inte gick att stoppa på servern
+}
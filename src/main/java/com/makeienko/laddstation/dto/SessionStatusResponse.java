@@ -0,0 +1,22 @@
+package com.makeienko.laddstation.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Status för en laddningssession som körs av ChargingSessionManager
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SessionStatusResponse {
+    private String id;
+    private String mode;
+    private String state;
+    private String startedAt;
+    private String finishedAt;
+    private String error;
+}
@@ -0,0 +1,26 @@
+package com.makeienko.laddstation.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Händelse på /api/stream. En "snapshot" innehåller alla delar, en "delta"
+ * bara de delar som ändrats sedan förra händelsen till samma prenumerant.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StationStreamEvent {
+    public static final String SNAPSHOT = "snapshot";
+    public static final String DELTA = "delta";
+
+    private String type;
+    private long sequence;
+    private TimeResponse time;
+    private BatteryStatusResponse battery;
+    private HomeBatteryResponse homeBattery;
+    private SolarPanelStatus solarPanel;
+}
@@ -0,0 +1,20 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Statistik för live-strömmen /api/stream
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StreamStatsResponse {
+    private int subscribers;
+    private long ticks; // Pollningar mot /info
+    private long eventsSent;
+    private long dropped; // Händelser som hoppades över för att prenumeranten fortfarande skickade förra
+    private long resyncs; // Fullständiga snapshots som skickades efter ett tapp
+    private long sequence;
+}
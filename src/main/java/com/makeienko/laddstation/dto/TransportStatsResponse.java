@@ -0,0 +1,23 @@
+package com.makeienko.laddstation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nyttjande av anslutningspoolen mot simulatorn
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransportStatsResponse {
+    private String transportType;
+    private int maxConnections;
+    private int inUse;
+    private int peakInUse;
+    private int waiting; // Anrop som just nu väntar på en ledig anslutning
+    private double utilisation;
+    private long totalRequests;
+    private long waitedRequests;
+    private double avgWaitMs;
+}
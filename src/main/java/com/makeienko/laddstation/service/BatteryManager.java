@@ -3,17 +3,30 @@ package com.makeienko.laddstation.service;
 import com.makeienko.laddstation.dto.ChargingSession;
 import com.makeienko.laddstation.dto.InfoResponse;
 import com.makeienko.laddstation.exception.ChargingServiceException;
+import com.makeienko.laddstation.service.clock.SimulatedClock;
 import org.springframework.stereotype.Component;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
 @Component
 public class BatteryManager {
     
     private final LaddstationApiClient apiClient;
-    private static final long POLLING_INTERVAL_MS = 1000; // Kolla servern varje sekund
+    private final SimulatedClock clock;
     private static final double TARGET_BATTERY_PERCENTAGE = 80.0;
 
-    public BatteryManager(LaddstationApiClient apiClient) {
+    // Simulatorn har en laddare som flera sessioner kan dela. Varje session kör på en egen tråd,
+    // så tråden som startade laddningen räknas som en innehavare; laddaren stängs av först när
+    // sista innehavaren stoppar. ReentrantLock istället för synchronized så att virtuella trådar
+    // inte låser sin bärartråd under HTTP-anropet.
+    private final Set<Thread> chargerHolders = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock chargerLock = new ReentrantLock();
+
+    public BatteryManager(LaddstationApiClient apiClient, SimulatedClock clock) {
         this.apiClient = apiClient;
+        this.clock = clock;
     }
     
     /**
@@ -25,14 +38,14 @@ public class BatteryManager {
      */
     public boolean chargeBatteryUntilTarget() {
         System.out.println("BatteryManager: Initiating charge cycle to " + TARGET_BATTERY_PERCENTAGE + "%");
-        apiClient.startCharging(); 
+        startChargingApi();
 
         try {
             while (true) {
                 InfoResponse currentInfo = apiClient.getInfo();
                 if (currentInfo == null) {
                     System.err.println("BatteryManager: Failed to get info from server during charge. Stopping.");
-                    apiClient.stopCharging();
+                    stopChargingApi();
                     return false; // Indikerar problem
                 }
 
@@ -63,16 +76,18 @@ public class BatteryManager {
                     return false; // Laddningen avbröts på servern
                 }
 
-                Thread.sleep(POLLING_INTERVAL_MS);
+                // Klockan läser glest långt från målet och tätt nära det, utifrån observerad laddtakt
+                clock.awaitReaching(InfoResponse::getBatteryEnergyKwh, maxCapacityKwh * TARGET_BATTERY_PERCENTAGE / 100.0,
+                    info -> !info.isEvBatteryChargeStartStopp());
             }
         } catch (InterruptedException e) {
             System.err.println("BatteryManager: Charging interrupted. Stopping charge on server.");
-            apiClient.stopCharging();
+            stopChargingApi();
             Thread.currentThread().interrupt();
             return false; // Indikerar avbrott
         } catch (Exception e) {
             System.err.println("BatteryManager: Error during charge cycle. Stopping charge on server: " + e.getMessage());
-            apiClient.stopCharging();
+            stopChargingApi();
             e.printStackTrace();
             return false; // Indikerar problem
         }
@@ -85,15 +100,13 @@ public class BatteryManager {
      * @param simulatedMinutesToWait Antal simulerade minuter att vänta.
      */
     public void simulateChargingPeriod(int simulatedMinutesToWait) {
-        // Servern har seconds_per_hour = 4. Det betyder 15 simulerade minuter = 1 verklig sekund.
-        long realMillisecondsToWait = (long) (simulatedMinutesToWait / 15.0 * 1000.0);
-        if (realMillisecondsToWait <= 0) realMillisecondsToWait = 100; // Vänta åtminstone lite för att undvika tight loop
+        // Simulatorn flyttar klockan en kvart i taget; vänta minst ett kvartsbyte
+        int quarters = Math.max(1, (int) Math.ceil(simulatedMinutesToWait / (double) SimulatedClock.MINUTES_PER_QUARTER));
 
-        System.out.println("BatteryManager: Simulating charging for " + simulatedMinutesToWait 
-            + " simulated minutes (waiting " + realMillisecondsToWait + " ms real time).");
+        System.out.println("BatteryManager: Simulating charging for " + simulatedMinutesToWait
+            + " simulated minutes (about " + clock.toWallTime(simulatedMinutesToWait).toMillis() + " ms real time).");
         try {
-            Thread.sleep(realMillisecondsToWait);
-            InfoResponse currentInfo = apiClient.getInfo();
+            InfoResponse currentInfo = clock.awaitQuarterHours(quarters);
             if (currentInfo != null) {
                 // Use ev_batt_max_capacity_kwh from InfoResponse
                 double maxCapacityKwh = currentInfo.getEvBattMaxCapacityKwh();
@@ -142,17 +155,7 @@ public class BatteryManager {
      */
     public boolean isBatterySufficient() {
         try {
-            InfoResponse infoResponse = apiClient.getInfo();
-            if (infoResponse != null) {
-                // Use ev_batt_max_capacity_kwh from InfoResponse
-                double maxCapacityKwh = infoResponse.getEvBattMaxCapacityKwh();
-                if (maxCapacityKwh <= 0) { 
-                    System.err.println("BatteryManager: Invalid maxCapacityKwh in isBatterySufficient: " + maxCapacityKwh + ". Using default 46.3");
-                    maxCapacityKwh = 46.3;
-                }
-                double batteryPercentage = (infoResponse.getBatteryEnergyKwh() / maxCapacityKwh) * 100;
-                return batteryPercentage >= TARGET_BATTERY_PERCENTAGE;
-            }
+            return isBatterySufficient(apiClient.getInfo());
         } catch (Exception e) {
             System.err.println("BatteryManager: Error checking if battery is sufficient: " + e.getMessage());
             // e.printStackTrace(); // Kan vara för mycket loggar i normal drift
@@ -161,29 +164,77 @@ public class BatteryManager {
     }
 
     /**
-     * Anropar API för att starta laddning.
+     * Samma kontroll mot en redan hämtad snapshot; null räknas som att laddning behövs
+     */
+    public boolean isBatterySufficient(InfoResponse infoResponse) {
+        if (infoResponse == null) {
+            return false;
+        }
+        // Use ev_batt_max_capacity_kwh from InfoResponse
+        double maxCapacityKwh = infoResponse.getEvBattMaxCapacityKwh();
+        if (maxCapacityKwh <= 0) {
+            System.err.println("BatteryManager: Invalid maxCapacityKwh in isBatterySufficient: " + maxCapacityKwh + ". Using default 46.3");
+            maxCapacityKwh = 46.3;
+        }
+        double batteryPercentage = (infoResponse.getBatteryEnergyKwh() / maxCapacityKwh) * 100;
+        return batteryPercentage >= TARGET_BATTERY_PERCENTAGE;
+    }
+
+    /**
+     * Anropar API för att starta laddning. Anropande tråd blir innehavare av laddaren.
      */
     public void startChargingApi() {
+        chargerLock.lock();
         try {
             String response = apiClient.startCharging();
+            chargerHolders.add(Thread.currentThread());
             System.out.println("BatteryManager: Called API to start charging. Response: " + response);
         } catch (Exception e) {
             // Kasta vidare eller logga felet mer utförligt
             throw new ChargingServiceException("BatteryManager: Failed to call API to start charging: " + e.getMessage(), e);
+        } finally {
+            chargerLock.unlock();
         }
     }
 
     /**
-     * Anropar API för att stoppa laddning.
+     * Anropar API för att stoppa laddning. Laddar en annan session fortfarande släpps bara
+     * anropande tråds del av laddaren och servern fortsätter ladda.
      */
     public void stopChargingApi() {
+        chargerLock.lock();
         try {
+            chargerHolders.remove(Thread.currentThread());
+            // En tråd som tagit slut utan att stoppa laddar inte längre
+            chargerHolders.removeIf(holder -> !holder.isAlive());
+            if (!chargerHolders.isEmpty()) {
+                System.out.println("BatteryManager: " + chargerHolders.size() + " other session(s) still charging. Leaving charger on.");
+                return;
+            }
             String response = apiClient.stopCharging();
             System.out.println("BatteryManager: Called API to stop charging. Response: " + response);
         } catch (Exception e) {
+            // Stoppet misslyckades; tråden räknas fortfarande som innehavare så att ett nytt försök stoppar
+            chargerHolders.add(Thread.currentThread());
             throw new ChargingServiceException("BatteryManager: Failed to call API to stop charging: " + e.getMessage(), e);
+        } finally {
+            chargerLock.unlock();
         }
     }
+
+    /**
+     * Sant om anropande tråd har startat laddningen och ännu inte stoppat den
+     */
+    public boolean holdsCharger() {
+        return chargerHolders.contains(Thread.currentThread());
+    }
+
+    /**
+     * Släpper anropande tråds del av laddaren utan att anropa servern, t.ex. när alla stoppförsök misslyckats
+     */
+    public void releaseCharger() {
+        chargerHolders.remove(Thread.currentThread());
+    }
     
     /**
      * Urladdning av EV batteriet till 20% via API
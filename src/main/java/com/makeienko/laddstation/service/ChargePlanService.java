@@ -0,0 +1,134 @@
+package com.makeienko.laddstation.service;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.service.schedule.RollingHorizonPlanner;
+import com.makeienko.laddstation.service.schedule.RollingPlan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+import static com.makeienko.laddstation.service.ChargingHourOptimizer.CHARGING_POWER;
+import static com.makeienko.laddstation.service.ChargingHourOptimizer.DEFAULT_MAX_CAPACITY_KWH;
+import static com.makeienko.laddstation.service.ChargingHourOptimizer.MAX_TOTAL_LOAD;
+import static com.makeienko.laddstation.service.ChargingHourOptimizer.TARGET_BATTERY_PERCENTAGE;
+
+/**
+ * Stationens flerdygnsplan för elbilsladdning. Planen som /api/plan visar planeras om
+ * inkrementellt varje gång den efterfrågas. Laddningssessioner får en egen Session med
+ * egen planerare, så att en ny session inte nollställer planen andra läser.
+ */
+@Component
+public class ChargePlanService {
+
+    private final LaddstationApiClient apiClient;
+    private final SimulatorSeriesStore seriesStore;
+    private final double replanToleranceKwh;
+    private final RollingHorizonPlanner planner;
+    private final int defaultHorizonHours;
+
+    @Autowired
+    public ChargePlanService(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore, LaddstationProperties properties) {
+        this.apiClient = apiClient;
+        this.seriesStore = seriesStore;
+        this.replanToleranceKwh = properties.getPlan().getReplanToleranceKwh();
+        this.planner = newPlanner();
+        this.defaultHorizonHours = properties.getPlan().getHorizonHours();
+    }
+
+    public ChargePlanService(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore) {
+        this(apiClient, seriesStore, new LaddstationProperties());
+    }
+
+    public int getDefaultHorizonHours() {
+        return defaultHorizonHours;
+    }
+
+    public RollingPlan plan() {
+        return plan(defaultHorizonHours);
+    }
+
+    /**
+     * Hämtar aktuell status och serier parallellt och planerar från nuvarande lucka
+     */
+    public RollingPlan plan(int horizonHours) {
+        return fetchAndPlan(planner, horizonHours);
+    }
+
+    public long getSolveCount() {
+        return planner.getSolveCount();
+    }
+
+    public long getReuseCount() {
+        return planner.getReuseCount();
+    }
+
+    /**
+     * Ny plan för en laddningssession. Sessionen delar klient och serier med tjänsten men har egen planerare.
+     */
+    public Session newSession() {
+        return new Session(newPlanner());
+    }
+
+    private RollingHorizonPlanner newPlanner() {
+        return new RollingHorizonPlanner(CHARGING_POWER, MAX_TOTAL_LOAD, replanToleranceKwh);
+    }
+
+    private RollingPlan fetchAndPlan(RollingHorizonPlanner sessionPlanner, int horizonHours) {
+        CompletableFuture<InfoResponse> infoFuture = apiClient.getInfoAsync();
+        CompletableFuture<HourlySeries> baseloadFuture = seriesStore.getAsync(SimulatorSeriesStore.Series.BASELOAD);
+        CompletableFuture<HourlySeries> pricesFuture = seriesStore.getAsync(SimulatorSeriesStore.Series.HOURLY_PRICES);
+        CompletableFuture<HourlySeries> solarFuture = seriesStore.getAsync(SimulatorSeriesStore.Series.SOLAR_PRODUCTION);
+
+        return plan(sessionPlanner, LaddstationAsyncApiClient.await(infoFuture), horizonHours,
+            LaddstationAsyncApiClient.await(pricesFuture),
+            LaddstationAsyncApiClient.await(baseloadFuture),
+            LaddstationAsyncApiClient.await(solarFuture));
+    }
+
+    private RollingPlan plan(RollingHorizonPlanner sessionPlanner, InfoResponse info, int horizonHours,
+                             HourlySeries prices, HourlySeries baseload, HourlySeries solar) {
+        long nowSlot = RollingPlan.absoluteSlot(seriesStore.getSimulatedDay(), info.getSimTimeHour(), info.getSimTimeMin());
+        double maxCapacityKwh = info.getEvBattMaxCapacityKwh();
+        if (maxCapacityKwh <= 0) {
+            System.err.println("ChargePlanService: Invalid maxCapacityKwh from server: " + maxCapacityKwh + ". Using default " + DEFAULT_MAX_CAPACITY_KWH);
+            maxCapacityKwh = DEFAULT_MAX_CAPACITY_KWH;
+        }
+        double energyNeeded = Math.max(0.0, maxCapacityKwh * TARGET_BATTERY_PERCENTAGE / 100.0 - info.getBatteryEnergyKwh());
+        return sessionPlanner.plan(nowSlot, horizonHours, energyNeeded, prices, baseload, solar);
+    }
+
+    /**
+     * En laddningssessions plan. Planeras om från varje ny snapshot med horisonten räknad från nuvarande lucka.
+     */
+    public final class Session {
+
+        private final RollingHorizonPlanner sessionPlanner;
+
+        private Session(RollingHorizonPlanner sessionPlanner) {
+            this.sessionPlanner = sessionPlanner;
+        }
+
+        public RollingPlan plan() {
+            return fetchAndPlan(sessionPlanner, defaultHorizonHours);
+        }
+
+        /**
+         * Planerar från en redan hämtad snapshot; serierna tas från cachen
+         */
+        public RollingPlan plan(InfoResponse info) {
+            return ChargePlanService.this.plan(sessionPlanner, info, defaultHorizonHours,
+                seriesStore.hourlyPrices(), seriesStore.baseload(), seriesStore.solarProduction());
+        }
+
+        public long getSolveCount() {
+            return sessionPlanner.getSolveCount();
+        }
+
+        public long getReuseCount() {
+            return sessionPlanner.getReuseCount();
+        }
+    }
+}
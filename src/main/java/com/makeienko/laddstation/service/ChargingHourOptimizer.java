@@ -1,9 +1,14 @@
 package com.makeienko.laddstation.service;
 
+import com.makeienko.laddstation.dto.HourMask;
+import com.makeienko.laddstation.dto.HourlySeries;
 import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.service.schedule.ChargeSchedule;
+import com.makeienko.laddstation.service.schedule.CostMinimizingScheduler;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Klass för att beräkna optimala timmar för batteriladdning
@@ -12,13 +17,19 @@ import java.util.*;
 @Component
 public class ChargingHourOptimizer {
     
-    private static final double MAX_TOTAL_LOAD = 11.0; // kW
-    private static final double CHARGING_POWER = 7.4;  // kW
+    public static final double MAX_TOTAL_LOAD = 11.0; // kW
+    public static final double CHARGING_POWER = 7.4;  // kW
+    public static final double TARGET_BATTERY_PERCENTAGE = 80.0;
+    public static final double DEFAULT_MAX_CAPACITY_KWH = 46.3; // Om servern skickar en ogiltig kapacitet
+    public static final int DEFAULT_DEPARTURE_HOUR = 7;
     
     private final LaddstationApiClient apiClient;
+    private final SimulatorSeriesStore seriesStore;
+    private final CostMinimizingScheduler scheduler = new CostMinimizingScheduler(CHARGING_POWER, MAX_TOTAL_LOAD);
 
-    public ChargingHourOptimizer(LaddstationApiClient apiClient) {
+    public ChargingHourOptimizer(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore) {
         this.apiClient = apiClient;
+        this.seriesStore = seriesStore;
     }
     
     /**
@@ -43,57 +54,133 @@ public class ChargingHourOptimizer {
     
     /**
      * Hitta optimala timmar baserat på förbrukning.
-     * ÄNDRAD: Returnerar nu en lista med ALLA timmar under dygnet där
+     * ÄNDRAD: Returnerar nu ALLA timmar under dygnet där
      * den totala lasten (hushåll + billaddning) är <= MAX_TOTAL_LOAD.
      * Priset ignoreras helt.
      */
-    public List<Double> findOptimalHoursByConsumption() {
-        double[] hourlyBaseload = apiClient.getBaseload();
-        List<Double> safeHours = new ArrayList<>();
+    public HourMask findOptimalHourMaskByConsumption() {
+        HourlySeries hourlyBaseload = seriesStore.baseload();
+        HourMask.Builder safeHours = new HourMask.Builder(HourMask.lengthFor(hourlyBaseload.length()));
 
-        for (int hour = 0; hour < hourlyBaseload.length; hour++) {
-            double totalLoad = hourlyBaseload[hour] + CHARGING_POWER;
+        for (int hour = 0; hour < hourlyBaseload.length(); hour++) {
+            double totalLoad = hourlyBaseload.get(hour) + CHARGING_POWER;
             if (totalLoad <= MAX_TOTAL_LOAD) {
-                safeHours.add((double) hour);
+                safeHours.set(hour);
             }
         }
 
-        if (safeHours.isEmpty()) {
+        HourMask mask = safeHours.build();
+        if (mask.isEmpty()) {
             System.out.println("No safe hours found for consumption-based strategy.");
-        } else {
-            // Sortera listan för konsekvent loggning och om ChargingServiceImpl skulle förvänta sig det någon gång.
-            // För `contains`-anropet i ChargingServiceImpl spelar ordningen ingen roll.
-            safeHours.sort(Comparator.naturalOrder());
         }
-        return safeHours;
+        return mask;
+    }
+
+    /**
+     * @deprecated använd {@link #findOptimalHourMaskByConsumption()}
+     */
+    @Deprecated
+    public List<Double> findOptimalHoursByConsumption() {
+        return findOptimalHourMaskByConsumption().toHourList();
     }
     
     /**
      * Hitta optimala timmar baserat på pris (lägsta kostnad först)
      */
-    public List<Double> findOptimalHoursByPrice() {
-        double[] hourlyBaseload = apiClient.getBaseload();
-        double[] hourlyPrices = apiClient.getHourlyPrices();
-        int hoursNeeded = calculateHoursNeededToChargeFrom20To80();
+    public HourMask findOptimalHourMaskByPrice() {
+        // Hämta batteristatus och serierna parallellt istället för efter varandra
+        CompletableFuture<InfoResponse> infoFuture = apiClient.getInfoAsync();
+        CompletableFuture<HourlySeries> baseloadFuture = seriesStore.getAsync(SimulatorSeriesStore.Series.BASELOAD);
+        CompletableFuture<HourlySeries> pricesFuture = seriesStore.getAsync(SimulatorSeriesStore.Series.HOURLY_PRICES);
+
+        HourlySeries hourlyBaseload = LaddstationAsyncApiClient.await(baseloadFuture);
+        HourlySeries hourlyPrices = LaddstationAsyncApiClient.await(pricesFuture);
+        int hoursNeeded = calculateHoursNeededToChargeFrom20To80(LaddstationAsyncApiClient.await(infoFuture));
         List<HourPrice> safeHours = getSafeHours(hourlyBaseload, hourlyPrices);
         
         // Sortera efter total kostnad (lägst först)
         safeHours.sort(Comparator.comparing(HourPrice::getCost));
         
-        return selectBestHours(safeHours, hoursNeeded);
+        return selectBestHours(safeHours, hoursNeeded, hourlyBaseload.length());
+    }
+
+    /**
+     * @deprecated använd {@link #findOptimalHourMaskByPrice()}
+     */
+    @Deprecated
+    public List<Double> findOptimalHoursByPrice() {
+        return findOptimalHourMaskByPrice().toHourList();
+    }
+    
+    /**
+     * Kostnadsoptimalt laddschema med 15 minuters upplösning fram till avgång kl 07:00
+     */
+    public ChargeSchedule findCostOptimalSchedule() {
+        return findCostOptimalSchedule(DEFAULT_DEPARTURE_HOUR);
+    }
+
+    /**
+     * Kostnadsoptimalt laddschema med 15 minuters upplösning fram till angiven avgångstimme.
+     * Tar hänsyn till aktuell batterinivå, säkringen och att horisonten kan gå över midnatt.
+     */
+    public ChargeSchedule findCostOptimalSchedule(int departureHour) {
+        CompletableFuture<InfoResponse> infoFuture = apiClient.getInfoAsync();
+        CompletableFuture<HourlySeries> baseloadFuture = seriesStore.getAsync(SimulatorSeriesStore.Series.BASELOAD);
+        CompletableFuture<HourlySeries> pricesFuture = seriesStore.getAsync(SimulatorSeriesStore.Series.HOURLY_PRICES);
+
+        return planCostOptimalSchedule(
+            LaddstationAsyncApiClient.await(infoFuture),
+            LaddstationAsyncApiClient.await(baseloadFuture),
+            LaddstationAsyncApiClient.await(pricesFuture),
+            departureHour);
+    }
+
+    /**
+     * Timmar som innehåller minst en lucka i det kostnadsoptimala schemat
+     */
+    public HourMask findOptimalHourMaskByCostSchedule() {
+        return findCostOptimalSchedule().getChargingHourMask();
+    }
+
+    /**
+     * @deprecated använd {@link #findOptimalHourMaskByCostSchedule()}
+     */
+    @Deprecated
+    public List<Double> findOptimalHoursByCostSchedule() {
+        return findOptimalHourMaskByCostSchedule().toHourList();
+    }
+
+    ChargeSchedule planCostOptimalSchedule(InfoResponse info, HourlySeries hourlyBaseload, HourlySeries hourlyPrices, int departureHour) {
+        int startSlot = ChargeSchedule.slotOfDay(info.getSimTimeHour(), info.getSimTimeMin());
+        int departureSlot = Math.floorMod(departureHour, 24) * ChargeSchedule.SLOTS_PER_HOUR;
+        int horizonSlots = Math.floorMod(departureSlot - startSlot, ChargeSchedule.SLOTS_PER_DAY);
+        if (horizonSlots == 0) {
+            horizonSlots = ChargeSchedule.SLOTS_PER_DAY; // Avgång just nu betyder samma tid imorgon
+        }
+
+        double energyNeeded = Math.max(0.0, validMaxCapacity(info) * TARGET_BATTERY_PERCENTAGE / 100.0 - info.getBatteryEnergyKwh());
+        return scheduler.solve(hourlyPrices, hourlyBaseload, startSlot, horizonSlots, energyNeeded);
+    }
+
+    private static double validMaxCapacity(InfoResponse info) {
+        double maxCapacityKwh = info.getEvBattMaxCapacityKwh();
+        if (maxCapacityKwh <= 0) {
+            System.err.println("ChargingHourOptimizer: Invalid maxCapacityKwh from server: " + maxCapacityKwh + ". Using default " + DEFAULT_MAX_CAPACITY_KWH);
+            maxCapacityKwh = DEFAULT_MAX_CAPACITY_KWH;
+        }
+        return maxCapacityKwh;
     }
     
     /**
      * Beräkna hur många timmar som behövs för laddning från 20% till 80%
      */
-    private int calculateHoursNeededToChargeFrom20To80() {
-        InfoResponse info = apiClient.getInfo(); // Hämta aktuell batteriinfo
+    private int calculateHoursNeededToChargeFrom20To80(InfoResponse info) {
         // Förutsätter att vi alltid vill ladda till 80%
         // Use ev_batt_max_capacity_kwh from InfoResponse
         double maxCapacityKwh = info.getEvBattMaxCapacityKwh();
         if (maxCapacityKwh <= 0) { // Basic sanity check
-            System.err.println("ChargingHourOptimizer: Invalid maxCapacityKwh from server: " + maxCapacityKwh + ". Using default 46.3");
-            maxCapacityKwh = 46.3; // Fallback
+            System.err.println("ChargingHourOptimizer: Invalid maxCapacityKwh from server: " + maxCapacityKwh + ". Using default " + DEFAULT_MAX_CAPACITY_KWH);
+            maxCapacityKwh = DEFAULT_MAX_CAPACITY_KWH; // Fallback
         }
         double targetChargeKWh = maxCapacityKwh * 0.8;
         double energyNeeded = targetChargeKWh - info.getBatteryEnergyKwh();
@@ -103,14 +190,14 @@ public class ChargingHourOptimizer {
     /**
      * Hitta alla säkra timmar (under 11 kW total förbrukning)
      */
-    private List<HourPrice> getSafeHours(double[] hourlyBaseload, double[] hourlyPrices) {
+    private List<HourPrice> getSafeHours(HourlySeries hourlyBaseload, HourlySeries hourlyPrices) {
         List<HourPrice> safeHours = new ArrayList<>();
         
-        for (int hour = 0; hour < hourlyBaseload.length; hour++) {
-            double totalLoad = hourlyBaseload[hour] + CHARGING_POWER;
+        for (int hour = 0; hour < hourlyBaseload.length(); hour++) {
+            double totalLoad = hourlyBaseload.get(hour) + CHARGING_POWER;
             
             if (totalLoad <= MAX_TOTAL_LOAD) {
-                double price = (hourlyPrices != null) ? hourlyPrices[hour] : 0.0;
+                double price = (hourlyPrices != null) ? hourlyPrices.get(hour) : 0.0;
                 safeHours.add(new HourPrice(hour, price, totalLoad));
             }
         }
@@ -122,16 +209,15 @@ public class ChargingHourOptimizer {
      * Väljer de X timmar som behövs för laddning från en lista av HourPrice-objekt.
      * Listan förväntas vara sorterad enligt en specifik strategi (t.ex. lägst total förbrukning eller lägst kostnad).
      */
-    private List<Double> selectBestHours(List<HourPrice> sortedHours, int hoursNeeded) {
-        List<Double> optimalHours = new ArrayList<>();
+    private HourMask selectBestHours(List<HourPrice> sortedHours, int hoursNeeded, int hoursInSeries) {
+        HourMask.Builder optimalHours = new HourMask.Builder(HourMask.lengthFor(hoursInSeries));
         
         int hoursToSelect = Math.min(hoursNeeded, sortedHours.size());
         
         for (int i = 0; i < hoursToSelect; i++) {
-            HourPrice hourPrice = sortedHours.get(i);
-            optimalHours.add((double) hourPrice.getHour());
+            optimalHours.set(sortedHours.get(i).getHour());
         }
         
-        return optimalHours;
+        return optimalHours.build();
     }
 }
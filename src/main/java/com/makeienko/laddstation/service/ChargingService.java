@@ -17,6 +17,9 @@ public interface ChargingService {
     void chargeBatteryDirect();
     void chargingSessionOnOptimalChargingHoursPrice();
     void chargingSessionOnOptimalChargingHours();
+    void chargingSessionOnCostOptimalSchedule();
+    void chargingSessionOnRollingHorizonPlan();
+    void chargingSessionOnSolarSurplus();
     void performChargingSessionWithStrategy(OptimalHoursStrategy strategy);
     void dischargeEVBatteryTo20();
     void dischargeHomeBatteryTo10();
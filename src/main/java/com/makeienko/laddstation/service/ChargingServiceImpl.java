@@ -1,11 +1,15 @@
 package com.makeienko.laddstation.service;
 
+import com.makeienko.laddstation.dto.HourMask;
 import com.makeienko.laddstation.dto.InfoResponse;
 import com.makeienko.laddstation.dto.SolarPanelStatus;
 import com.makeienko.laddstation.exception.ChargingServiceException;
+import com.makeienko.laddstation.service.clock.SimulatedClock;
 import com.makeienko.laddstation.service.strategy.OptimalHoursStrategy;
 import com.makeienko.laddstation.service.strategy.PriceBasedStrategy;
 import com.makeienko.laddstation.service.strategy.ConsumptionBasedStrategy;
+import com.makeienko.laddstation.service.strategy.CostOptimalStrategy;
+import com.makeienko.laddstation.service.strategy.RollingHorizonStrategy;
 
 import org.springframework.stereotype.Service;
 
@@ -19,13 +23,17 @@ public class ChargingServiceImpl implements ChargingService {
     private final ChargingHourOptimizer chargingHourOptimizer;
     private final HomeBatteryManager homeBatteryManager;
     private final SolarPanelManager solarPanelManager;
+    private final ChargePlanService chargePlanService;
+    private final SimulatedClock clock;
 
-    public ChargingServiceImpl(LaddstationApiClient apiClient, BatteryManager batteryManager, ChargingHourOptimizer chargingHourOptimizer, HomeBatteryManager homeBatteryManager, SolarPanelManager solarPanelManager) {
+    public ChargingServiceImpl(LaddstationApiClient apiClient, BatteryManager batteryManager, ChargingHourOptimizer chargingHourOptimizer, HomeBatteryManager homeBatteryManager, SolarPanelManager solarPanelManager, ChargePlanService chargePlanService, SimulatedClock clock) {
         this.apiClient = apiClient;
         this.batteryManager = batteryManager;
         this.chargingHourOptimizer = chargingHourOptimizer;
         this.homeBatteryManager = homeBatteryManager;
         this.solarPanelManager = solarPanelManager;
+        this.chargePlanService = chargePlanService;
+        this.clock = clock;
     }
 
     @Override
@@ -193,31 +201,33 @@ public class ChargingServiceImpl implements ChargingService {
         batteryManager.stopChargingApi(); 
     }
 
-    boolean isOptimalHour(double currentHour, List<Double> optimalHours) {
+    boolean isOptimalHour(double currentHour, HourMask optimalHours) {
         return optimalHours.contains(currentHour);
     }
 
+    /**
+     * @deprecated använd {@link #isOptimalHour(double, HourMask)}
+     */
+    @Deprecated
+    boolean isOptimalHour(double currentHour, List<Double> optimalHours) {
+        return isOptimalHour(currentHour, HourMask.fromHours(optimalHours));
+    }
+
     void waitUntilNextHour(double currentMinute) throws InterruptedException {
         double minutesToWait = 60 - currentMinute;
-        long realMillisecondsToWait = (long) (minutesToWait / 15.0 * 1000.0);
-         if (realMillisecondsToWait <= 0) realMillisecondsToWait = 100; 
-
         System.out.println("Waiting for " + minutesToWait + " simulated minutes ("
-                + (realMillisecondsToWait / 1000.0) + " real seconds) until the next hour...");
-        Thread.sleep(realMillisecondsToWait);
+                + (clock.toWallTime(minutesToWait).toMillis() / 1000.0) + " real seconds) until the next hour...");
+        clock.awaitNextHour();
     }
 
     // Denna metod används inte längre aktivt av strategierna
-    Double findNextOptimalChargingHour(int currentHour, List<Double> optimalHours) {
-        Collections.sort(optimalHours);
-
-        // Leta efter den första timmen i listan som är större än currentHour
-        for (Double hour : optimalHours) {
-            if (hour > currentHour) {
-                return hour; // Returnera nästa optimala timme
-            }
+    Double findNextOptimalChargingHour(int currentHour, HourMask optimalHours) {
+        // Första optimala timmen efter currentHour, annars den första i masken
+        int hour = optimalHours.next(currentHour + 1);
+        if (hour < 0) {
+            hour = optimalHours.first();
         }
-        return optimalHours.isEmpty() ? null : optimalHours.get(0);
+        return hour < 0 ? null : (double) hour;
     }
 
     @Override
@@ -232,10 +242,70 @@ public class ChargingServiceImpl implements ChargingService {
         performSmartChargingSession(strategy);
     }
 
+    @Override
+    public void chargingSessionOnCostOptimalSchedule() {
+        System.out.println("ChargingServiceImpl: Planned schedule: " + chargingHourOptimizer.findCostOptimalSchedule());
+        OptimalHoursStrategy strategy = new CostOptimalStrategy(chargingHourOptimizer);
+        performSmartChargingSession(strategy);
+    }
+
+    @Override
+    public void chargingSessionOnRollingHorizonPlan() {
+        RollingHorizonStrategy strategy = new RollingHorizonStrategy(chargePlanService);
+        performSmartChargingSession(strategy);
+        System.out.println("ChargingServiceImpl: Plan solved " + strategy.getSolveCount()
+            + " times, reused " + strategy.getReuseCount() + " times.");
+    }
+
+    /**
+     * Laddar på solöverskott. Varje kvart bestämmer SolarSurplusController utifrån klockans
+     * gemensamma snapshot om laddaren ska vara på; hysteresen håller nere antalet start/stopp.
+     */
+    @Override
+    public void chargingSessionOnSolarSurplus() {
+        SolarSurplusController controller = solarPanelManager.newSurplusController();
+        boolean isCurrentlyCharging = false;
+        try {
+            System.out.println("ChargingServiceImpl: Starting solar-following charging session.");
+            InfoResponse info = apiClient.getInfo();
+
+            while (!batteryManager.isBatterySufficient(info)) {
+                boolean shouldCharge = controller.update(info);
+                if (shouldCharge != isCurrentlyCharging) {
+                    System.out.println("ChargingServiceImpl: Solar surplus " + Math.round(SolarSurplusController.surplusKw(info) * 100.0) / 100.0
+                        + " kW at " + info.getSimTimeHour() + ":" + (int) info.getSimTimeMin() + ". "
+                        + (shouldCharge ? "Starting" : "Stopping") + " charging on server.");
+                    if (shouldCharge) {
+                        batteryManager.startChargingApi();
+                    } else {
+                        batteryManager.stopChargingApi();
+                    }
+                    isCurrentlyCharging = shouldCharge;
+                }
+                info = clock.awaitNextQuarterHour();
+            }
+
+            if (isCurrentlyCharging) {
+                batteryManager.stopChargingApi();
+            }
+            System.out.println("ChargingServiceImpl: Solar-following charging session complete after "
+                + controller.getSwitches() + " start/stop switches.");
+
+        } catch (InterruptedException e) {
+            System.err.println("ChargingServiceImpl: Solar-following charging session was interrupted.");
+            batteryManager.stopChargingApi();
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("ChargingServiceImpl: Error in solar-following charging session: " + e.getMessage());
+            batteryManager.stopChargingApi();
+            throw new ChargingServiceException("Error in solar-following charging session.", e);
+        }
+    }
+
     private void performSmartChargingSession(OptimalHoursStrategy strategy) {
         try {
             System.out.println("ChargingServiceImpl: Starting smart charging session.");
-            List<Double> optimalHours = strategy.findOptimalHours();
+            HourMask optimalHours = strategy.findOptimalHourMask();
 
             if (optimalHours.isEmpty()) {
                 System.out.println("ChargingServiceImpl: No optimal hours found. Cannot start charging session.");
@@ -245,6 +315,10 @@ public class ChargingServiceImpl implements ChargingService {
             boolean isCurrentlyCharging = false;
 
             while (!batteryManager.isBatterySufficient()) {
+                // simulateChargingPeriod sväljer avbrottet och sätter bara flaggan igen
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
                 InfoResponse infoResponse = apiClient.getInfo();
                 if (infoResponse == null) {
                     System.err.println("ChargingServiceImpl: Failed to fetch info. Retrying in 10 sec...");
@@ -254,7 +328,7 @@ public class ChargingServiceImpl implements ChargingService {
 
                 double currentHour = infoResponse.getSimTimeHour();
                 double currentMinute = infoResponse.getSimTimeMin();
-                boolean isCurrentHourOptimal = isOptimalHour(currentHour, optimalHours);
+                boolean isCurrentHourOptimal = strategy.shouldChargeNow(infoResponse, optimalHours);
 
                 if (isCurrentHourOptimal) {
                     if (!isCurrentlyCharging) {
@@ -270,8 +344,14 @@ public class ChargingServiceImpl implements ChargingService {
                         batteryManager.stopChargingApi();
                         isCurrentlyCharging = false;
                     }
-                    System.out.println("ChargingServiceImpl: Current hour (" + currentHour + ") is not optimal. Waiting until the next simulated hour begins.");
-                    waitUntilNextHour(currentMinute);
+                    if (strategy.mayChargeLaterThisHour(infoResponse, optimalHours)) {
+                        // Strategin väljer per kvart och en senare kvart i timmen kan vara vald
+                        System.out.println("ChargingServiceImpl: Current quarter of hour " + currentHour + " is not planned. Waiting until the next quarter.");
+                        clock.awaitNextQuarterHour();
+                    } else {
+                        System.out.println("ChargingServiceImpl: Current hour (" + currentHour + ") is not optimal. Waiting until the next simulated hour begins.");
+                        waitUntilNextHour(currentMinute);
+                    }
                 }
             }
 
@@ -283,9 +363,10 @@ public class ChargingServiceImpl implements ChargingService {
             System.out.println("ChargingServiceImpl: Smart charging session complete. Battery is sufficiently charged.");
 
         } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
             System.err.println("ChargingServiceImpl: Smart charging session was interrupted.");
-            batteryManager.stopChargingApi(); // Försök stoppa laddningen om tråden avbryts
+            // Stoppa innan avbrottsflaggan sätts igen, annars avbryts även stopp-anropet
+            batteryManager.stopChargingApi();
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             System.err.println("ChargingServiceImpl: Error in smart charging session: " + e.getMessage());
             batteryManager.stopChargingApi(); // Försök stoppa laddningen vid fel
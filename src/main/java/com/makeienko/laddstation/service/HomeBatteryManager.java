@@ -24,11 +24,17 @@ public class HomeBatteryManager {
         if (info == null) {
             throw new RuntimeException("Failed to fetch battery info from server");
         }
+        return getHomeBatteryStatus(info);
+    }
 
+    /**
+     * Bygger husbatteristatus från en redan hämtad snapshot
+     */
+    public HomeBatteryResponse getHomeBatteryStatus(InfoResponse info) {
         // Försök ladda batteriet om det finns solproduktion
         double currentCapacity = info.getHomeBattCapacityKwh();
         if (info.getSolarProductionKwh() > 0 && info.getHomeBattCapacityPercent() < 95.0) {
-            currentCapacity = chargeHomeBattery();
+            currentCapacity = calculateSolarChargedCapacity(info);
         }
 
         return new HomeBatteryResponse(
@@ -54,22 +60,17 @@ public class HomeBatteryManager {
             double homeBatteryPercent = info.getHomeBattCapacityPercent();
             double solarProduction = info.getSolarProductionKwh();
             double homeBatteryCapacity = info.getHomeBattCapacityKwh();
-            double homeBattMaxCapacityKwh = info.getHomeBattMaxCapacityKwh();
             double currentCapacity = homeBatteryCapacity;
             
             // Kontrollera om vi har solproduktion och batteriet inte är fullt
             if (solarProduction > 0 && homeBatteryPercent < 95.0) {
                 System.out.println("HomeBatteryManager: Starting solar charging of home battery");
                 
-                // Beräkna hur mycket vi kan ladda
-                double availableSpace = homeBattMaxCapacityKwh - homeBatteryCapacity;
-                double chargeAmount = Math.min(solarProduction, availableSpace);
-                
-                // Uppdatera kapaciteten
-                currentCapacity = homeBatteryCapacity + chargeAmount;
+                currentCapacity = calculateSolarChargedCapacity(info);
+                double chargeAmount = currentCapacity - homeBatteryCapacity;
                 
                 // Uppdatera procenten
-                homeBatteryPercent = (currentCapacity / homeBattMaxCapacityKwh) * 100;
+                homeBatteryPercent = (currentCapacity / info.getHomeBattMaxCapacityKwh()) * 100;
                 
                 System.out.printf("HomeBatteryManager: Charged %.2f kWh, new capacity: %.2f kWh (%.1f%%)\n", 
                     chargeAmount, currentCapacity, homeBatteryPercent);
@@ -83,6 +84,16 @@ public class HomeBatteryManager {
         }
     }
 
+    /**
+     * Kapaciteten efter en timmes solladdning, begränsad av ledigt utrymme i batteriet
+     */
+    private double calculateSolarChargedCapacity(InfoResponse info) {
+        double homeBatteryCapacity = info.getHomeBattCapacityKwh();
+        double availableSpace = info.getHomeBattMaxCapacityKwh() - homeBatteryCapacity;
+        double chargeAmount = Math.min(info.getSolarProductionKwh(), availableSpace);
+        return homeBatteryCapacity + chargeAmount;
+    }
+
     /**
      * Ladda ur husbatteriet till 10%
      */
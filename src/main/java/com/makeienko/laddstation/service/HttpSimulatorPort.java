@@ -0,0 +1,210 @@
+package com.makeienko.laddstation.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.exception.ChargingServiceException;
+import com.makeienko.laddstation.service.SimulatorMetrics.Endpoint;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Simulatorn över HTTP: blockerande anrop via RestTemplate, icke-blockerande via
+ * LaddstationAsyncApiClient. Varje anrop registreras i SimulatorMetrics per endpoint.
+ * Med laddstation.transport.type=simple går även de icke-blockerande anropen via
+ * RestTemplate, på virtuella trådar, så att hela porten använder vald transport.
+ */
+public class HttpSimulatorPort implements SimulatorPort {
+
+    private static final Executor BLOCKING_CALLS = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("simulator-simple-", 1).factory());
+
+    private final RestTemplate restTemplate;
+    private final LaddstationAsyncApiClient asyncClient;
+    private final SimulatorMetrics metrics;
+    private final String baseUrl;
+    private final boolean blockingTransport;
+
+    public HttpSimulatorPort(RestTemplate restTemplate, LaddstationProperties properties,
+                             LaddstationAsyncApiClient asyncClient, SimulatorMetrics metrics) {
+        this.restTemplate = restTemplate;
+        this.asyncClient = asyncClient;
+        this.metrics = metrics;
+        this.baseUrl = properties.getSimulator().getBaseUrl();
+        this.blockingTransport = properties.getTransport().getType() == LaddstationProperties.TransportType.SIMPLE;
+    }
+
+    @Override
+    public CompletableFuture<InfoResponse> fetchInfoAsync() {
+        return blockingTransport ? CompletableFuture.supplyAsync(this::fetchInfo, BLOCKING_CALLS) : asyncClient.getInfoAsync();
+    }
+
+    @Override
+    public CompletableFuture<double[]> getHourlyPricesAsync() {
+        return blockingTransport ? CompletableFuture.supplyAsync(this::getHourlyPrices, BLOCKING_CALLS) : asyncClient.getHourlyPricesAsync();
+    }
+
+    @Override
+    public CompletableFuture<double[]> getBaseloadAsync() {
+        return blockingTransport ? CompletableFuture.supplyAsync(this::getBaseload, BLOCKING_CALLS) : asyncClient.getBaseloadAsync();
+    }
+
+    @Override
+    public CompletableFuture<double[]> getSolarProductionPerHourAsync() {
+        return blockingTransport
+                ? CompletableFuture.supplyAsync(this::getSolarProductionPerHour, BLOCKING_CALLS)
+                : asyncClient.getSolarProductionPerHourAsync();
+    }
+
+    @Override
+    public InfoResponse fetchInfo() {
+        try {
+            InfoResponse infoResponse = readJson(Endpoint.INFO, "info", SimulatorJsonReader::readInfo);
+            
+            if (infoResponse == null) {
+                throw new ChargingServiceException("Failed to deserialize response to InfoResponse object");
+            }
+            
+            return infoResponse;
+        } catch (ChargingServiceException e) {
+            throw e;
+        } catch (RestClientException e) {
+            throw new ChargingServiceException("Failed to fetch data from info endpoint: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new ChargingServiceException("Unexpected error while fetching info: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Startar laddning av batteriet
+     */
+    @Override
+    public String startCharging() {
+        return post(Endpoint.CHARGE_START, Map.of("charging", "on"), "Failed to start charging");
+    }
+    
+    /**
+     * Stoppar laddning av batteriet
+     */
+    @Override
+    public String stopCharging() {
+        return post(Endpoint.CHARGE_STOP, Map.of("charging", "off"), "Failed to stop charging");
+    }
+    
+    /**
+     * Hämtar elpriser per timme
+     */
+    @Override
+    public double[] getHourlyPrices() {
+        try {
+            return readJson(Endpoint.PRICE_PER_HOUR, "priceperhour", SimulatorJsonReader::readDoubleArray);
+        } catch (ChargingServiceException e) {
+            throw e;
+        } catch (RestClientException e) {
+            throw new ChargingServiceException("Failed to fetch hourly prices: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new ChargingServiceException("Unexpected error while fetching hourly prices: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Hämtar hushållets basförbrukning per timme
+     */
+    @Override
+    public double[] getBaseload() {
+        try {
+            return readJson(Endpoint.BASELOAD, "baseload", SimulatorJsonReader::readDoubleArray);
+        } catch (ChargingServiceException e) {
+            throw e;
+        } catch (RestClientException e) {
+            throw new ChargingServiceException("Failed to fetch baseload data: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new ChargingServiceException("Unexpected error while fetching baseload: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Hämtar solpanelproduktion per timme
+     */
+    @Override
+    public double[] getSolarProductionPerHour() {
+        try {
+            return readJson(Endpoint.SOLAR_PRODUCTION, "solarproduction", SimulatorJsonReader::readDoubleArray);
+        } catch (ChargingServiceException e) {
+            throw e;
+        } catch (RestClientException e) {
+            throw new ChargingServiceException("Failed to fetch solar production data: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new ChargingServiceException("Unexpected error while fetching solar production: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Urladdning av EV batteriet till 20%
+     */
+    @Override
+    public String dischargeEVBattery() {
+        return post(Endpoint.DISCHARGE_EV, Map.of("discharging", "on"), "Failed to discharge EV battery");
+    }
+
+    /**
+     * Ladda ur husbatteriet till 10%
+     */
+    @Override
+    public String dischargeHomeBatteryTo10() {
+        return post(Endpoint.DISCHARGE_HOME, Map.of("discharging", "on"), "Failed to discharge home battery");
+    }
+
+    /**
+     * Skickar ett kommando till simulatorn
+     */
+    private String post(Endpoint endpoint, Map<String, String> body, String errorMessage) {
+        long start = System.nanoTime();
+        try {
+            String response = restTemplate.postForObject(baseUrl + endpoint.getPath(), body, String.class);
+            metrics.recordSuccess(endpoint, System.nanoTime() - start);
+            metrics.recordPayload(endpoint, response != null ? response.getBytes(StandardCharsets.UTF_8).length : 0);
+            return response;
+        } catch (Exception e) {
+            metrics.recordError(endpoint, System.nanoTime() - start);
+            throw new ChargingServiceException(errorMessage + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Läser svaret direkt från strömmen utan att först bygga en String.
+     * Svarets storlek tas från Content-Length så att strömmen inte behöver räknas.
+     */
+    private <T> T readJson(Endpoint endpoint, String endpointName, JsonBodyReader<T> reader) {
+        long start = System.nanoTime();
+        try {
+            T result = restTemplate.execute(baseUrl + endpoint.getPath(), HttpMethod.GET, null, response -> {
+                metrics.recordPayload(endpoint, response.getHeaders().getContentLength());
+                try {
+                    return reader.read(response.getBody());
+                } catch (JsonProcessingException e) {
+                    throw new ChargingServiceException("Failed to process JSON response from " + endpointName + ": " + e.getMessage(), e);
+                }
+            });
+            metrics.recordSuccess(endpoint, System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            metrics.recordError(endpoint, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonBodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+}
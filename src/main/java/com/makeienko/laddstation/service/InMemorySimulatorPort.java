@@ -0,0 +1,85 @@
+package com.makeienko.laddstation.service;
+
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Läser och styr SimulatorEngine direkt i minnet, utan HTTP eller JSON. /info är motorns
+ * publicerade snapshot som den är, så en läsning kostar ett volatile-läs. Används med
+ * profilen "in-memory" och för what-if-beräkningar och backtester som annars begränsas av HTTP.
+ */
+public class InMemorySimulatorPort implements SimulatorPort {
+
+    private final SimulatorEngine engine;
+
+    public InMemorySimulatorPort(SimulatorEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public InfoResponse fetchInfo() {
+        return engine.snapshot();
+    }
+
+    @Override
+    public CompletableFuture<InfoResponse> fetchInfoAsync() {
+        return CompletableFuture.completedFuture(engine.snapshot());
+    }
+
+    @Override
+    public double[] getHourlyPrices() {
+        return engine.getHourlyPrices();
+    }
+
+    @Override
+    public double[] getBaseload() {
+        return engine.getBaseload();
+    }
+
+    @Override
+    public double[] getSolarProductionPerHour() {
+        return engine.getSolarProduction();
+    }
+
+    @Override
+    public CompletableFuture<double[]> getHourlyPricesAsync() {
+        return CompletableFuture.completedFuture(engine.getHourlyPrices());
+    }
+
+    @Override
+    public CompletableFuture<double[]> getBaseloadAsync() {
+        return CompletableFuture.completedFuture(engine.getBaseload());
+    }
+
+    @Override
+    public CompletableFuture<double[]> getSolarProductionPerHourAsync() {
+        return CompletableFuture.completedFuture(engine.getSolarProduction());
+    }
+
+    // Svaren har samma innehåll som simulatorns JSON-svar
+
+    @Override
+    public String startCharging() {
+        engine.setCharging(true);
+        return "{\"charging\": \"on\"}";
+    }
+
+    @Override
+    public String stopCharging() {
+        engine.setCharging(false);
+        return "{\"charging\": \"off\"}";
+    }
+
+    @Override
+    public String dischargeEVBattery() {
+        engine.resetEvBattery();
+        return "{\"discharging\": \"on\"}";
+    }
+
+    @Override
+    public String dischargeHomeBatteryTo10() {
+        return "{\"home_battery_discharging\": \"on\", \"new_level\": " + engine.dischargeHomeBattery() + "}";
+    }
+}
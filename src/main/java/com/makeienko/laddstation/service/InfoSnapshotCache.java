@@ -0,0 +1,250 @@
+package com.makeienko.laddstation.service;
+
+import com.makeienko.laddstation.dto.InfoCacheStatsResponse;
+import com.makeienko.laddstation.dto.InfoResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Delad cache för den senaste /info-snapshoten.
+ * En snapshot återanvänds så länge den är yngre än staleness-fönstret. Samtidiga anrop
+ * som missar cachen kopplas på samma pågående hämtning istället för att göra egna anrop.
+ * invalidate() byter generation: en hämtning som startade före bytet lämnar sitt svar till
+ * dem som väntar på den, men svaret sparas inte och går inte till lyssnarna.
+ * Snapshots är delade mellan anropare och får inte modifieras.
+ * Lyssnare notifieras en gång per ny hämtad snapshot.
+ */
+public class InfoSnapshotCache {
+
+    /**
+     * En hämtad snapshot tillsammans med dess simulerade tidshink (minut på dygnet)
+     */
+    private static final class Entry {
+        private final InfoResponse snapshot;
+        private final int simMinuteOfDay;
+        private final long fetchedAtNanos;
+        private final long generation;
+
+        private Entry(InfoResponse snapshot, long fetchedAtNanos, long generation) {
+            this.snapshot = snapshot;
+            this.simMinuteOfDay = simMinuteOfDay(snapshot);
+            this.fetchedAtNanos = fetchedAtNanos;
+            this.generation = generation;
+        }
+    }
+
+    private final Supplier<InfoResponse> loader;
+    private final Supplier<CompletableFuture<InfoResponse>> asyncLoader;
+    private final long stalenessNanos;
+
+    private final AtomicReference<CompletableFuture<InfoResponse>> inFlight = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Entry current;
+    private final List<Consumer<InfoResponse>> listeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public InfoSnapshotCache(Supplier<InfoResponse> loader, Duration staleness) {
+        this(loader, () -> CompletableFuture.supplyAsync(loader), staleness);
+    }
+
+    /**
+     * @param loader      blockerande hämtning, körs i anroparens tråd vid get()
+     * @param asyncLoader icke-blockerande hämtning, används vid getAsync()
+     * @param staleness   högsta ålder i väggtid; se LaddstationProperties.Clock.toWallTime()
+     */
+    public InfoSnapshotCache(Supplier<InfoResponse> loader, Supplier<CompletableFuture<InfoResponse>> asyncLoader, Duration staleness) {
+        this.loader = loader;
+        this.asyncLoader = asyncLoader;
+        this.stalenessNanos = staleness.toNanos();
+    }
+
+    /**
+     * Returnerar en snapshot som är högst staleness-fönstret gammal
+     */
+    public InfoResponse get() {
+        return get(stalenessNanos);
+    }
+
+    /**
+     * Som get() men med ett snävare fönster, för anropare som inte tål en snapshot så gammal som staleness
+     */
+    public InfoResponse get(Duration maxAge) {
+        return get(Math.min(stalenessNanos, maxAge.toNanos()));
+    }
+
+    private InfoResponse get(long maxAgeNanos) {
+        Entry entry = current;
+        if (isFresh(entry, maxAgeNanos)) {
+            hits.increment();
+            return entry.snapshot;
+        }
+
+        CompletableFuture<InfoResponse> mine = new CompletableFuture<>();
+        CompletableFuture<InfoResponse> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            coalesced.increment();
+            return LaddstationAsyncApiClient.await(running);
+        }
+        if (completeFromFreshEntry(mine, maxAgeNanos)) {
+            return mine.join();
+        }
+
+        misses.increment();
+        long fetchGeneration = generation.get();
+        try {
+            InfoResponse snapshot = loader.get();
+            publish(mine, snapshot, fetchGeneration);
+            return snapshot;
+        } catch (RuntimeException e) {
+            fail(mine, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Som get() men utan att blockera. Delar pågående hämtning med både synkrona och asynkrona anropare.
+     */
+    public CompletableFuture<InfoResponse> getAsync() {
+        Entry entry = current;
+        if (isFresh(entry, stalenessNanos)) {
+            hits.increment();
+            return CompletableFuture.completedFuture(entry.snapshot);
+        }
+
+        CompletableFuture<InfoResponse> mine = new CompletableFuture<>();
+        CompletableFuture<InfoResponse> running = inFlight.compareAndExchange(null, mine);
+        if (running != null) {
+            coalesced.increment();
+            return running;
+        }
+        if (completeFromFreshEntry(mine, stalenessNanos)) {
+            return mine;
+        }
+
+        misses.increment();
+        long fetchGeneration = generation.get();
+        CompletableFuture<InfoResponse> load;
+        try {
+            load = asyncLoader.get();
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((snapshot, error) -> {
+            if (error == null) {
+                publish(mine, snapshot, fetchGeneration);
+            } else {
+                fail(mine, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        });
+        return mine;
+    }
+
+    /**
+     * Senast hämtade snapshot utan att trigga någon hämtning, eller null
+     */
+    public InfoResponse peek() {
+        Entry entry = current;
+        return entry != null ? entry.snapshot : null;
+    }
+
+    /**
+     * Registrerar en lyssnare som får varje ny snapshot direkt efter hämtningen
+     */
+    public void addListener(Consumer<InfoResponse> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Kastar den cachade snapshoten, t.ex. efter ett kommando som ändrar simulatorns tillstånd.
+     * En pågående hämtning kan ha läst tillståndet före kommandot, så nästa anrop startar en ny.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        current = null;
+        inFlight.set(null);
+    }
+
+    public InfoCacheStatsResponse getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long coalescedCount = coalesced.sum();
+        long total = hitCount + missCount + coalescedCount;
+        double hitRatio = total == 0 ? 0.0 : (double) (hitCount + coalescedCount) / total;
+
+        Entry entry = current;
+        int simMinuteOfDay = entry != null ? entry.simMinuteOfDay : -1;
+        long ageMs = entry != null ? Duration.ofNanos(System.nanoTime() - entry.fetchedAtNanos).toMillis() : -1;
+
+        return new InfoCacheStatsResponse(
+            hitCount,
+            missCount,
+            coalescedCount,
+            Math.round(hitRatio * 1000.0) / 1000.0,
+            simMinuteOfDay,
+            ageMs,
+            Duration.ofNanos(stalenessNanos).toMillis()
+        );
+    }
+
+    /**
+     * En annan tråd kan ha hunnit fylla cachen mellan första kontrollen och att vi tog platsen
+     */
+    private boolean completeFromFreshEntry(CompletableFuture<InfoResponse> mine, long maxAgeNanos) {
+        Entry entry = current;
+        if (!isFresh(entry, maxAgeNanos)) {
+            return false;
+        }
+        hits.increment();
+        inFlight.compareAndSet(mine, null);
+        mine.complete(entry.snapshot);
+        return true;
+    }
+
+    private void publish(CompletableFuture<InfoResponse> mine, InfoResponse snapshot, long fetchGeneration) {
+        boolean currentGeneration = fetchGeneration == generation.get();
+        if (currentGeneration) {
+            // Hinner invalidate() emellan gör generationen att posten ändå aldrig räknas som färsk
+            current = new Entry(snapshot, System.nanoTime(), fetchGeneration);
+        }
+        inFlight.compareAndSet(mine, null);
+        mine.complete(snapshot);
+        if (currentGeneration) {
+            notifyListeners(snapshot);
+        }
+    }
+
+    private void fail(CompletableFuture<InfoResponse> mine, Throwable error) {
+        inFlight.compareAndSet(mine, null);
+        mine.completeExceptionally(error);
+    }
+
+    private void notifyListeners(InfoResponse snapshot) {
+        for (Consumer<InfoResponse> listener : listeners) {
+            try {
+                listener.accept(snapshot);
+            } catch (RuntimeException e) {
+                System.err.println("InfoSnapshotCache: Listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean isFresh(Entry entry, long maxAgeNanos) {
+        return entry != null && entry.generation == generation.get() && System.nanoTime() - entry.fetchedAtNanos < maxAgeNanos;
+    }
+
+    public static int simMinuteOfDay(InfoResponse info) {
+        return (int) info.getSimTimeHour() * 60 + (int) info.getSimTimeMin();
+    }
+}
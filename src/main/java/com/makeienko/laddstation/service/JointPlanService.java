@@ -0,0 +1,81 @@
+package com.makeienko.laddstation.service;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.service.schedule.ChargeSchedule;
+import com.makeienko.laddstation.service.schedule.JointEnergyScheduler;
+import com.makeienko.laddstation.service.schedule.JointSchedule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+import static com.makeienko.laddstation.service.ChargingHourOptimizer.CHARGING_POWER;
+import static com.makeienko.laddstation.service.ChargingHourOptimizer.DEFAULT_MAX_CAPACITY_KWH;
+import static com.makeienko.laddstation.service.ChargingHourOptimizer.MAX_TOTAL_LOAD;
+import static com.makeienko.laddstation.service.ChargingHourOptimizer.TARGET_BATTERY_PERCENTAGE;
+
+/**
+ * Gemensam plan för elbilen och husbatteriet fram till avgång. Varje tråd har en egen
+ * JointEnergyScheduler med återanvända buffertar, så planer för många anläggningar kan
+ * lösas parallellt med plan(info, prices, baseload, solar, departureHour).
+ */
+@Component
+public class JointPlanService {
+
+    private final LaddstationApiClient apiClient;
+    private final SimulatorSeriesStore seriesStore;
+    private final ThreadLocal<JointEnergyScheduler> schedulers;
+
+    @Autowired
+    public JointPlanService(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore, LaddstationProperties properties) {
+        this.apiClient = apiClient;
+        this.seriesStore = seriesStore;
+        LaddstationProperties.JointPlan config = properties.getJointPlan();
+        this.schedulers = ThreadLocal.withInitial(() -> new JointEnergyScheduler(
+            CHARGING_POWER, MAX_TOTAL_LOAD, config.getHomeBatteryPowerKw(), config.getHomeBatteryEfficiency(), config.getLevelKwh()));
+    }
+
+    public JointPlanService(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore) {
+        this(apiClient, seriesStore, new LaddstationProperties());
+    }
+
+    /**
+     * Hämtar aktuell status och serier parallellt och planerar fram till avgångstimmen
+     */
+    public JointSchedule plan(int departureHour) {
+        CompletableFuture<InfoResponse> infoFuture = apiClient.getInfoAsync();
+        CompletableFuture<HourlySeries> pricesFuture = seriesStore.getAsync(SimulatorSeriesStore.Series.HOURLY_PRICES);
+        CompletableFuture<HourlySeries> baseloadFuture = seriesStore.getAsync(SimulatorSeriesStore.Series.BASELOAD);
+        CompletableFuture<HourlySeries> solarFuture = seriesStore.getAsync(SimulatorSeriesStore.Series.SOLAR_PRODUCTION);
+
+        return plan(LaddstationAsyncApiClient.await(infoFuture),
+            LaddstationAsyncApiClient.await(pricesFuture),
+            LaddstationAsyncApiClient.await(baseloadFuture),
+            LaddstationAsyncApiClient.await(solarFuture),
+            departureHour);
+    }
+
+    /**
+     * Planerar från en redan hämtad snapshot och givna serier; gör inga anrop mot simulatorn
+     */
+    public JointSchedule plan(InfoResponse info, HourlySeries prices, HourlySeries baseload, HourlySeries solar, int departureHour) {
+        int startSlot = ChargeSchedule.slotOfDay(info.getSimTimeHour(), info.getSimTimeMin());
+        int departureSlot = Math.floorMod(departureHour, 24) * ChargeSchedule.SLOTS_PER_HOUR;
+        int horizonSlots = Math.floorMod(departureSlot - startSlot, ChargeSchedule.SLOTS_PER_DAY);
+        if (horizonSlots == 0) {
+            horizonSlots = ChargeSchedule.SLOTS_PER_DAY; // Avgång just nu betyder samma tid imorgon
+        }
+
+        double maxCapacityKwh = info.getEvBattMaxCapacityKwh();
+        if (maxCapacityKwh <= 0) {
+            System.err.println("JointPlanService: Invalid maxCapacityKwh from server: " + maxCapacityKwh + ". Using default " + DEFAULT_MAX_CAPACITY_KWH);
+            maxCapacityKwh = DEFAULT_MAX_CAPACITY_KWH;
+        }
+        double evEnergyNeeded = Math.max(0.0, maxCapacityKwh * TARGET_BATTERY_PERCENTAGE / 100.0 - info.getBatteryEnergyKwh());
+
+        return schedulers.get().solve(prices, baseload, solar, startSlot, horizonSlots, evEnergyNeeded,
+            info.getHomeBattCapacityKwh(), info.getHomeBattMinCapacityKwh(), info.getHomeBattMaxCapacityKwh());
+    }
+}
@@ -1,174 +1,153 @@
 package com.makeienko.laddstation.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.InfoCacheStatsResponse;
 import com.makeienko.laddstation.dto.InfoResponse;
-import com.makeienko.laddstation.exception.ChargingServiceException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Map;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
+/**
+ * Tjänsternas väg till simulatorn. Själva anropen görs av en SimulatorPort (HTTP eller i minnet,
+ * valt med Spring-profil); här ligger den delade /info-cachen och lyssnarna på nya snapshots.
+ */
 @Component
 public class LaddstationApiClient {
     
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
-    private static final String BASE_URL = "http://127.0.0.1:5001";
+    private final SimulatorPort port;
+    private final InfoSnapshotCache infoCache;
     
     public LaddstationApiClient(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
-        this.objectMapper = new ObjectMapper();
+        this(restTemplate, new LaddstationProperties());
+    }
+
+    /**
+     * Klient mot en annan simulatoradress, t.ex. den inbyggda simulatorn i tester
+     */
+    public LaddstationApiClient(RestTemplate restTemplate, LaddstationProperties properties) {
+        this(restTemplate, properties, SimulatorMetrics.standalone());
+    }
+
+    private LaddstationApiClient(RestTemplate restTemplate, LaddstationProperties properties, SimulatorMetrics metrics) {
+        this(new HttpSimulatorPort(restTemplate, properties, new LaddstationAsyncApiClient(properties, metrics), metrics),
+            properties, metrics);
+    }
+
+    @Autowired
+    public LaddstationApiClient(SimulatorPort port, LaddstationProperties properties, SimulatorMetrics metrics) {
+        this.port = port;
+        // Stalenessen anges i simulerad tid så att den följer klockans takt
+        this.infoCache = new InfoSnapshotCache(port::fetchInfo, port::fetchInfoAsync,
+            properties.getClock().toWallTime(properties.getInfoCache().getStaleness()));
+        this.infoCache.addListener(metrics::observe);
     }
     
     /**
-     * Hämtar information om batteristatus och simulerad tid
+     * Hämtar information om batteristatus och simulerad tid.
+     * Svaret delas via InfoSnapshotCache så länge det är färskt.
      */
     public InfoResponse getInfo() {
-        try {
-            String jsonResponse = restTemplate.getForObject(BASE_URL + "/info", String.class);
-            if (jsonResponse == null) {
-                throw new ChargingServiceException("Received null response from info endpoint");
-            }
-
-            InfoResponse infoResponse = objectMapper.readValue(jsonResponse, InfoResponse.class);
-            
-            if (infoResponse == null) {
-                throw new ChargingServiceException("Failed to deserialize response to InfoResponse object");
-            }
-            
-            return infoResponse;
-        } catch (RestClientException e) {
-            throw new ChargingServiceException("Failed to fetch data from info endpoint: " + e.getMessage(), e);
-        } catch (JsonProcessingException e) {
-            throw new ChargingServiceException("Failed to process JSON response: " + e.getMessage(), e);
-        } catch (Exception e) {
-            throw new ChargingServiceException("Unexpected error while fetching info: " + e.getMessage(), e);
-        }
+        return infoCache.get();
     }
-    
+
+    /**
+     * Som getInfo() men svaret får vara högst maxAge gammalt (och aldrig äldre än cachens eget fönster)
+     */
+    public InfoResponse getInfo(Duration maxAge) {
+        return infoCache.get(maxAge);
+    }
+
+    /**
+     * Icke-blockerande variant av getInfo(). Delar cache och pågående hämtning med getInfo().
+     */
+    public CompletableFuture<InfoResponse> getInfoAsync() {
+        return infoCache.getAsync();
+    }
+
+    public CompletableFuture<double[]> getHourlyPricesAsync() {
+        return port.getHourlyPricesAsync();
+    }
+
+    public CompletableFuture<double[]> getBaseloadAsync() {
+        return port.getBaseloadAsync();
+    }
+
+    public CompletableFuture<double[]> getSolarProductionPerHourAsync() {
+        return port.getSolarProductionPerHourAsync();
+    }
+
+    /**
+     * Statistik för /info-cachen
+     */
+    public InfoCacheStatsResponse getInfoCacheStats() {
+        return infoCache.getStats();
+    }
+
+    /**
+     * Registrerar en lyssnare som notifieras för varje ny /info-snapshot
+     */
+    public void addInfoListener(Consumer<InfoResponse> listener) {
+        infoCache.addListener(listener);
+    }
+
     /**
      * Startar laddning av batteriet
      */
     public String startCharging() {
-        try {
-            String response = restTemplate.postForObject(
-                    BASE_URL + "/charge",
-                    Map.of("charging", "on"),
-                    String.class
-            );
-            return response;
-        } catch (Exception e) {
-            throw new ChargingServiceException("Failed to start charging: " + e.getMessage(), e);
-        }
+        return afterCommand(port.startCharging());
     }
     
     /**
      * Stoppar laddning av batteriet
      */
     public String stopCharging() {
-        try {
-            String response = restTemplate.postForObject(
-                    BASE_URL + "/charge",
-                    Map.of("charging", "off"),
-                    String.class
-            );
-            return response;
-        } catch (Exception e) {
-            throw new ChargingServiceException("Failed to stop charging: " + e.getMessage(), e);
-        }
+        return afterCommand(port.stopCharging());
     }
     
     /**
      * Hämtar elpriser per timme
      */
     public double[] getHourlyPrices() {
-        try {
-            String jsonResponse = restTemplate.getForObject(BASE_URL + "/priceperhour", String.class);
-            if (jsonResponse == null) {
-                throw new ChargingServiceException("Received null response from priceperhour endpoint");
-            }
-            
-            return objectMapper.readValue(jsonResponse, double[].class);
-        } catch (JsonProcessingException e) {
-            throw new ChargingServiceException("Failed to process JSON response from priceperhour: " + e.getMessage(), e);
-        } catch (RestClientException e) {
-            throw new ChargingServiceException("Failed to fetch hourly prices: " + e.getMessage(), e);
-        } catch (Exception e) {
-            throw new ChargingServiceException("Unexpected error while fetching hourly prices: " + e.getMessage(), e);
-        }
+        return port.getHourlyPrices();
     }
     
     /**
      * Hämtar hushållets basförbrukning per timme
      */
     public double[] getBaseload() {
-        try {
-            String jsonResponse = restTemplate.getForObject(BASE_URL + "/baseload", String.class);
-            if (jsonResponse == null) {
-                throw new ChargingServiceException("Received null response from baseload endpoint");
-            }
-            
-            return objectMapper.readValue(jsonResponse, double[].class);
-        } catch (JsonProcessingException e) {
-            throw new ChargingServiceException("Failed to process JSON response from baseload: " + e.getMessage(), e);
-        } catch (RestClientException e) {
-            throw new ChargingServiceException("Failed to fetch baseload data: " + e.getMessage(), e);
-        } catch (Exception e) {
-            throw new ChargingServiceException("Unexpected error while fetching baseload: " + e.getMessage(), e);
-        }
+        return port.getBaseload();
     }
     
     /**
      * Hämtar solpanelproduktion per timme
      */
     public double[] getSolarProductionPerHour() {
-        try {
-            String jsonResponse = restTemplate.getForObject(BASE_URL + "/solarproduction", String.class);
-            if (jsonResponse == null) {
-                throw new ChargingServiceException("Received null response from solarproduction endpoint");
-            }
-            
-            return objectMapper.readValue(jsonResponse, double[].class);
-        } catch (JsonProcessingException e) {
-            throw new ChargingServiceException("Failed to process JSON response from solarproduction: " + e.getMessage(), e);
-        } catch (RestClientException e) {
-            throw new ChargingServiceException("Failed to fetch solar production data: " + e.getMessage(), e);
-        } catch (Exception e) {
-            throw new ChargingServiceException("Unexpected error while fetching solar production: " + e.getMessage(), e);
-        }
+        return port.getSolarProductionPerHour();
     }
     
     /**
      * Urladdning av EV batteriet till 20%
      */
     public String dischargeEVBattery() {
-        try {
-            String response = restTemplate.postForObject(
-                    BASE_URL + "/discharge-ev-battery",
-                    Map.of("discharging", "on"),
-                    String.class
-            );
-            return response;
-        } catch (Exception e) {
-            throw new ChargingServiceException("Failed to discharge EV battery: " + e.getMessage(), e);
-        }
+        return afterCommand(port.dischargeEVBattery());
     }
 
     /**
      * Ladda ur husbatteriet till 10%
      */
     public String dischargeHomeBatteryTo10() {
-        try {
-            String response = restTemplate.postForObject(
-                    BASE_URL + "/discharge-home-battery",
-                    Map.of("discharging", "on"),
-                    String.class
-            );
-            return response;
-        } catch (Exception e) {
-            throw new ChargingServiceException("Failed to discharge home battery: " + e.getMessage(), e);
-        }
-    }
-} 
\ No newline at end of file
+        return afterCommand(port.dischargeHomeBatteryTo10());
+    }
+
+    /**
+     * Simulatorns tillstånd har ändrats, så cachad /info gäller inte längre
+     */
+    private String afterCommand(String response) {
+        infoCache.invalidate();
+        return response;
+    }
+}
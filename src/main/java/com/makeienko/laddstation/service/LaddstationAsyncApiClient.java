@@ -0,0 +1,200 @@
+package com.makeienko.laddstation.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.config.TransportPoolLimiter;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.exception.ChargingServiceException;
+import com.makeienko.laddstation.service.SimulatorMetrics.Endpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Icke-blockerande klient mot simulatorn byggd på java.net.http.HttpClient.
+ * Alla metoder returnerar direkt; svaren avkodas på HttpClientens egna trådar.
+ * Anropen delar TransportPoolLimiter med de blockerande anropen via RestTemplate.
+ * Fel levereras som ChargingServiceException i den returnerade futuren.
+ */
+@Component
+public class LaddstationAsyncApiClient {
+
+    private final HttpClient httpClient;
+    private final TransportPoolLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final Duration readTimeout;
+    private final SimulatorMetrics metrics;
+    private final String baseUrl;
+
+    /**
+     * Klient utanför Spring, t.ex. i tester och benchmarks. Alla sådana klienter delar en HttpClient.
+     */
+    public LaddstationAsyncApiClient(LaddstationProperties properties, SimulatorMetrics metrics) {
+        this(SharedHttpClient.INSTANCE, TransportPoolLimiter.of(properties.getTransport()), properties, metrics);
+    }
+
+    @Autowired
+    public LaddstationAsyncApiClient(HttpClient simulatorHttpClient, TransportPoolLimiter transportPoolLimiter,
+                                     LaddstationProperties properties, SimulatorMetrics metrics) {
+        this.httpClient = simulatorHttpClient;
+        this.limiter = transportPoolLimiter;
+        this.objectMapper = new ObjectMapper();
+        this.readTimeout = properties.getTransport().getReadTimeout();
+        this.metrics = metrics;
+        this.baseUrl = properties.getSimulator().getBaseUrl();
+    }
+
+    /**
+     * Hämtar information om batteristatus och simulerad tid
+     */
+    public CompletableFuture<InfoResponse> getInfoAsync() {
+        return get(Endpoint.INFO, "info", SimulatorJsonReader::readInfo);
+    }
+
+    /**
+     * Hämtar elpriser per timme
+     */
+    public CompletableFuture<double[]> getHourlyPricesAsync() {
+        return get(Endpoint.PRICE_PER_HOUR, "priceperhour", SimulatorJsonReader::readDoubleArray);
+    }
+
+    /**
+     * Hämtar hushållets basförbrukning per timme
+     */
+    public CompletableFuture<double[]> getBaseloadAsync() {
+        return get(Endpoint.BASELOAD, "baseload", SimulatorJsonReader::readDoubleArray);
+    }
+
+    /**
+     * Hämtar solpanelproduktion per timme
+     */
+    public CompletableFuture<double[]> getSolarProductionPerHourAsync() {
+        return get(Endpoint.SOLAR_PRODUCTION, "solarproduction", SimulatorJsonReader::readDoubleArray);
+    }
+
+    public CompletableFuture<String> startChargingAsync() {
+        return post(Endpoint.CHARGE_START, Map.of("charging", "on"), "Failed to start charging");
+    }
+
+    public CompletableFuture<String> stopChargingAsync() {
+        return post(Endpoint.CHARGE_STOP, Map.of("charging", "off"), "Failed to stop charging");
+    }
+
+    public CompletableFuture<String> dischargeEVBatteryAsync() {
+        return post(Endpoint.DISCHARGE_EV, Map.of("discharging", "on"), "Failed to discharge EV battery");
+    }
+
+    public CompletableFuture<String> dischargeHomeBatteryTo10Async() {
+        return post(Endpoint.DISCHARGE_HOME, Map.of("discharging", "on"), "Failed to discharge home battery");
+    }
+
+    /**
+     * Väntar in en future och packar upp felet till ChargingServiceException
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ChargingServiceException("Interrupted while waiting for simulator response", e);
+        } catch (ExecutionException | CompletionException e) {
+            throw toChargingServiceException(e.getCause() != null ? e.getCause() : e, "Simulator request failed");
+        }
+    }
+
+    private <T> CompletableFuture<T> get(Endpoint endpoint, String endpointName, JsonBodyReader<T> reader) {
+        long start = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + endpoint.getPath()))
+                .timeout(readTimeout)
+                .GET()
+                .build();
+
+        return limiter.executeAsync(() -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()))
+                .thenApply(response -> {
+                    checkStatus(response, endpointName);
+                    byte[] body = response.body();
+                    if (body == null || body.length == 0) {
+                        throw new ChargingServiceException("Received null response from " + endpointName + " endpoint");
+                    }
+                    metrics.recordPayload(endpoint, body.length);
+                    T result;
+                    try {
+                        result = reader.read(body);
+                    } catch (IOException e) {
+                        throw new ChargingServiceException("Failed to process JSON response from " + endpointName + ": " + e.getMessage(), e);
+                    }
+                    metrics.recordSuccess(endpoint, System.nanoTime() - start);
+                    return result;
+                })
+                .exceptionally(e -> {
+                    metrics.recordError(endpoint, System.nanoTime() - start);
+                    throw toChargingServiceException(e, "Failed to fetch data from " + endpointName + " endpoint");
+                });
+    }
+
+    private CompletableFuture<String> post(Endpoint endpoint, Map<String, String> body, String errorMessage) {
+        long start = System.nanoTime();
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + endpoint.getPath()))
+                    .timeout(readTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new ChargingServiceException(errorMessage + ": " + e.getMessage(), e));
+        }
+
+        return limiter.executeAsync(() -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .thenApply(response -> {
+                    checkStatus(response, endpoint.getPath());
+                    String responseBody = response.body();
+                    metrics.recordPayload(endpoint, responseBody != null ? responseBody.getBytes(StandardCharsets.UTF_8).length : 0);
+                    metrics.recordSuccess(endpoint, System.nanoTime() - start);
+                    return responseBody;
+                })
+                .exceptionally(e -> {
+                    metrics.recordError(endpoint, System.nanoTime() - start);
+                    throw toChargingServiceException(e, errorMessage);
+                });
+    }
+
+    private static void checkStatus(HttpResponse<?> response, String endpointName) {
+        if (response.statusCode() >= 400) {
+            throw new ChargingServiceException("Unexpected HTTP status " + response.statusCode() + " from " + endpointName + " endpoint");
+        }
+    }
+
+    private static ChargingServiceException toChargingServiceException(Throwable e, String message) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof ChargingServiceException) {
+            return (ChargingServiceException) cause;
+        }
+        return new ChargingServiceException(message + ": " + cause.getMessage(), cause);
+    }
+
+    @FunctionalInterface
+    private interface JsonBodyReader<T> {
+        T read(byte[] body) throws IOException;
+    }
+
+    /**
+     * Skapas först när en fristående klient behövs
+     */
+    private static final class SharedHttpClient {
+        static final HttpClient INSTANCE = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+}
@@ -0,0 +1,199 @@
+package com.makeienko.laddstation.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.exception.ChargingServiceException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streamande avkodning av simulatorns JSON-svar direkt från bytes, utan String som mellanled.
+ * /info läses med en handskriven parser för det fasta schemat, serierna läses till double[].
+ * Jacksons JsonFactory återanvänder sina läsbuffertar per tråd; serieläsaren har dessutom
+ * en egen buffert per tråd så att enda allokeringen är den slutliga arrayen.
+ */
+public final class SimulatorJsonReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ThreadLocal<double[]> SCRATCH = ThreadLocal.withInitial(() -> new double[32]);
+
+    // Exakta tiopotenser; mantissa / 10^k avrundas då korrekt för upp till 15 siffror
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_FAST_DIGITS = 15;
+
+    // Kända lägen för husbatteriet, delas istället för att skapa en ny String per svar
+    private static final String[] KNOWN_MODES = {"idle", "charging", "discharging"};
+
+    private SimulatorJsonReader() {
+    }
+
+    public static InfoResponse readInfo(InputStream in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            return readInfo(parser);
+        }
+    }
+
+    public static InfoResponse readInfo(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return readInfo(parser);
+        }
+    }
+
+    public static double[] readDoubleArray(InputStream in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            return readDoubleArray(parser);
+        }
+    }
+
+    public static double[] readDoubleArray(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return readDoubleArray(parser);
+        }
+    }
+
+    private static InfoResponse readInfo(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new ChargingServiceException("Received null response from info endpoint");
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new ChargingServiceException("Expected JSON object from info endpoint but got " + token);
+        }
+
+        InfoResponse info = new InfoResponse();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "sim_time_hour" -> info.setSimTimeHour(readDouble(parser));
+                case "sim_time_min" -> info.setSimTimeMin(readDouble(parser));
+                case "household_load_kwh" -> info.setHouseholdLoadKwh(readDouble(parser));
+                case "battery_energy_kwh" -> info.setBatteryEnergyKwh(readDouble(parser));
+                case "ev_battery_charge_start_stopp" -> info.setEvBatteryChargeStartStopp(parser.getValueAsBoolean());
+                case "ev_batt_max_capacity_kwh" -> info.setEvBattMaxCapacityKwh(readDouble(parser));
+                case "home_batt_capacity_kwh" -> info.setHomeBattCapacityKwh(readDouble(parser));
+                case "home_batt_max_capacity_kwh" -> info.setHomeBattMaxCapacityKwh(readDouble(parser));
+                case "home_batt_min_capacity_kwh" -> info.setHomeBattMinCapacityKwh(readDouble(parser));
+                case "home_batt_capacity_percent" -> info.setHomeBattCapacityPercent(readDouble(parser));
+                case "home_battery_mode" -> info.setHomeBatteryMode(value == JsonToken.VALUE_NULL ? null : readMode(parser));
+                case "solar_production_kwh" -> info.setSolarProductionKwh(readDouble(parser));
+                case "solar_max_capacity_kwh" -> info.setSolarMaxCapacityKwh(readDouble(parser));
+                case "net_household_load_kwh" -> info.setNetHouseholdLoadKwh(readDouble(parser));
+                default -> parser.skipChildren(); // Okända fält ignoreras, som med ObjectMapper tidigare
+            }
+        }
+        return info;
+    }
+
+    private static double[] readDoubleArray(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new ChargingServiceException("Received null response from series endpoint");
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw new ChargingServiceException("Expected JSON array but got " + token);
+        }
+
+        double[] scratch = SCRATCH.get();
+        int count = 0;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new ChargingServiceException("Unexpected end of JSON array");
+            }
+            if (count == scratch.length) {
+                scratch = Arrays.copyOf(scratch, scratch.length * 2);
+                SCRATCH.set(scratch);
+            }
+            scratch[count++] = readDouble(parser);
+        }
+        return Arrays.copyOf(scratch, count);
+    }
+
+    /**
+     * Läser aktuellt tal utan att gå via en String, vilket Jackson annars gör för decimaltal.
+     * Korta decimaltal som simulatorn skickar (t.ex. 9.26) tolkas direkt från teckenbufferten,
+     * övriga faller tillbaka på Jacksons egen tolkning.
+     */
+    private static double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ? parser.getDoubleValue() : parser.getLongValue();
+        }
+        if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+            double value = parseShortDecimal(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            return Double.isNaN(value) ? parser.getDoubleValue() : value;
+        }
+        return parser.getValueAsDouble();
+    }
+
+    /**
+     * Tolkar [-]siffror[.siffror] med högst 15 signifikanta siffror, annars NaN
+     */
+    static double parseShortDecimal(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && chars[i] == '-') {
+            negative = true;
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                if (mantissa != 0 || c != '0') {
+                    digits++;
+                }
+                if (digits > MAX_FAST_DIGITS) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (inFraction) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                return Double.NaN; // Exponent eller annat format
+            }
+        }
+        if (fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.NaN;
+        }
+
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static String readMode(JsonParser parser) throws IOException {
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        for (String mode : KNOWN_MODES) {
+            if (mode.length() == length && regionMatches(mode, chars, offset)) {
+                return mode;
+            }
+        }
+        return new String(chars, offset, length);
+    }
+
+    private static boolean regionMatches(String expected, char[] chars, int offset) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (expected.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
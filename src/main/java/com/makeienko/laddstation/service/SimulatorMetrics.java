@@ -0,0 +1,149 @@
+package com.makeienko.laddstation.service;
+
+import com.makeienko.laddstation.dto.InfoResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Mätvärden för alla anrop mot simulatorn samt mätare för senaste /info-snapshot.
+ * Alla mätare skapas en gång per endpoint i konstruktorn; registreringen per anrop
+ * är bara uppslag i en array och record(long) utan taggar, lambdor eller Timer.Sample,
+ * så den allokerar inget.
+ */
+@Component
+public class SimulatorMetrics {
+
+    /**
+     * Simulatorns endpoints, med klientmetoden som anropar dem
+     */
+    public enum Endpoint {
+        INFO("/info", "getInfo"),
+        PRICE_PER_HOUR("/priceperhour", "getHourlyPrices"),
+        BASELOAD("/baseload", "getBaseload"),
+        SOLAR_PRODUCTION("/solarproduction", "getSolarProductionPerHour"),
+        CHARGE_START("/charge", "startCharging"),
+        CHARGE_STOP("/charge", "stopCharging"),
+        DISCHARGE_EV("/discharge-ev-battery", "dischargeEVBattery"),
+        DISCHARGE_HOME("/discharge-home-battery", "dischargeHomeBatteryTo10");
+
+        private final String path;
+        private final String method;
+
+        Endpoint(String path, String method) {
+            this.path = path;
+            this.method = method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
+    private static final String[] HOME_BATTERY_MODES = {"idle", "charging", "discharging"};
+
+    private final Timer[] successTimers = new Timer[Endpoint.values().length];
+    private final Timer[] errorTimers = new Timer[Endpoint.values().length];
+    private final Counter[] errorCounters = new Counter[Endpoint.values().length];
+    private final DistributionSummary[] payloadSizes = new DistributionSummary[Endpoint.values().length];
+
+    // Mätarna läser snapshoten via hållaren, inte via this, så konstruktorn läcker inte ut objektet
+    private final AtomicReference<InfoResponse> lastInfo = new AtomicReference<>();
+
+    public SimulatorMetrics(MeterRegistry registry) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            int i = endpoint.ordinal();
+            successTimers[i] = timer(registry, endpoint, "success");
+            errorTimers[i] = timer(registry, endpoint, "error");
+            errorCounters[i] = Counter.builder("laddstation.simulator.errors")
+                .description("Failed calls to the simulator")
+                .tag("endpoint", endpoint.path)
+                .tag("method", endpoint.method)
+                .register(registry);
+            payloadSizes[i] = DistributionSummary.builder("laddstation.simulator.response.size")
+                .description("Size of simulator response bodies")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint.path)
+                .tag("method", endpoint.method)
+                .serviceLevelObjectives(64, 256, 512, 1024, 2048, 4096)
+                .register(registry);
+        }
+
+        Gauge.builder("laddstation.ev.battery.energy", lastInfo, latest -> value(latest.get(), InfoResponse::getBatteryEnergyKwh))
+            .description("EV battery energy from the latest /info snapshot")
+            .baseUnit("kWh")
+            .register(registry);
+        Gauge.builder("laddstation.home.battery.energy", lastInfo, latest -> value(latest.get(), InfoResponse::getHomeBattCapacityKwh))
+            .description("Home battery energy from the latest /info snapshot")
+            .baseUnit("kWh")
+            .register(registry);
+        Gauge.builder("laddstation.solar.production", lastInfo, latest -> value(latest.get(), InfoResponse::getSolarProductionKwh))
+            .description("Solar production from the latest /info snapshot")
+            .baseUnit("kWh")
+            .register(registry);
+        // Ett mätvärde per läge, 1 för det aktuella; samma form som Prometheus state sets
+        for (String mode : HOME_BATTERY_MODES) {
+            Gauge.builder("laddstation.home.battery.mode", lastInfo, latest -> {
+                    InfoResponse info = latest.get();
+                    return info != null && mode.equals(info.getHomeBatteryMode()) ? 1.0 : 0.0;
+                })
+                .description("Current home battery mode from the latest /info snapshot")
+                .tag("mode", mode)
+                .register(registry);
+        }
+    }
+
+    /**
+     * Mätvärden som inte exporteras någonstans, för klienter som skapas utanför Spring (CLI)
+     */
+    public static SimulatorMetrics standalone() {
+        return new SimulatorMetrics(new SimpleMeterRegistry());
+    }
+
+    public void recordSuccess(Endpoint endpoint, long elapsedNanos) {
+        successTimers[endpoint.ordinal()].record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordError(Endpoint endpoint, long elapsedNanos) {
+        errorTimers[endpoint.ordinal()].record(elapsedNanos, TimeUnit.NANOSECONDS);
+        errorCounters[endpoint.ordinal()].increment();
+    }
+
+    /**
+     * Svarets storlek i bytes; okänd storlek (t.ex. saknad Content-Length) registreras inte
+     */
+    public void recordPayload(Endpoint endpoint, long bytes) {
+        if (bytes >= 0) {
+            payloadSizes[endpoint.ordinal()].record(bytes);
+        }
+    }
+
+    /**
+     * Senaste /info-snapshot, läses av mätarna när de skrapas
+     */
+    public void observe(InfoResponse info) {
+        lastInfo.set(info);
+    }
+
+    private static Timer timer(MeterRegistry registry, Endpoint endpoint, String outcome) {
+        return Timer.builder("laddstation.simulator.requests")
+            .description("Latency of calls to the simulator")
+            .tag("endpoint", endpoint.path)
+            .tag("method", endpoint.method)
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    private static double value(InfoResponse info, ToDoubleFunction<InfoResponse> getter) {
+        return info != null ? getter.applyAsDouble(info) : Double.NaN;
+    }
+}
@@ -0,0 +1,48 @@
+package com.makeienko.laddstation.service;
+
+import com.makeienko.laddstation.dto.InfoResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Åtkomst till simulatorn utan cache. LaddstationApiClient lägger /info-cachen och lyssnarna
+ * ovanpå; implementationerna står bara för själva anropen. HttpSimulatorPort går över HTTP
+ * mot Flask-servern eller den inbyggda simulatorn, InMemorySimulatorPort läser tillståndet
+ * direkt ur SimulatorEngine. Fel kastas som ChargingServiceException, eller levereras så
+ * i futuren för de asynkrona varianterna.
+ */
+public interface SimulatorPort {
+
+    /**
+     * Aktuell batteristatus och simulerad tid. Svaret kan delas och får inte ändras.
+     */
+    InfoResponse fetchInfo();
+
+    CompletableFuture<InfoResponse> fetchInfoAsync();
+
+    double[] getHourlyPrices();
+
+    double[] getBaseload();
+
+    double[] getSolarProductionPerHour();
+
+    CompletableFuture<double[]> getHourlyPricesAsync();
+
+    CompletableFuture<double[]> getBaseloadAsync();
+
+    CompletableFuture<double[]> getSolarProductionPerHourAsync();
+
+    String startCharging();
+
+    String stopCharging();
+
+    /**
+     * Återställer elbilens batteri till 20 % och klockan till 00:00
+     */
+    String dischargeEVBattery();
+
+    /**
+     * Laddar ur husbatteriet till 10 %
+     */
+    String dischargeHomeBatteryTo10();
+}
@@ -0,0 +1,165 @@
+package com.makeienko.laddstation.service;
+
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.dto.InfoResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Håller simulatorns dygnsserier (baseload, timpriser och solproduktion) i minnet.
+ * Varje serie hämtas en gång per simulerat dygn. Dygnsskiftet upptäcks från /info-snapshots:
+ * när den simulerade klockan går bakåt (23:45 -> 00:00, eller vid återställning) räknas ett nytt dygn.
+ */
+@Component
+public final class SimulatorSeriesStore {
+
+    public enum Series {
+        BASELOAD,
+        HOURLY_PRICES,
+        SOLAR_PRODUCTION
+    }
+
+    private final LaddstationApiClient apiClient;
+
+    // Skrivs av den tråd som hämtar en serie och läses av alla anropare, så varje plats publiceras säkert
+    private final AtomicReferenceArray<HourlySeries> loaded = new AtomicReferenceArray<>(Series.values().length);
+    // ReentrantLock istället för synchronized: hämtningen blockerar på I/O och en virtuell tråd
+    // som väntar i ett synchronized-block låser sin bärartråd
+    private final ReentrantLock[] locks = new ReentrantLock[Series.values().length];
+    private final AtomicLong versions = new AtomicLong();
+
+    private volatile long simulatedDay;
+    private int lastSimMinuteOfDay = -1;
+
+    public SimulatorSeriesStore(LaddstationApiClient apiClient) {
+        this.apiClient = apiClient;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        // Sist i konstruktorn: lyssnaren kan anropas direkt från en annan tråd.
+        // Klassen är final, så inga subklassfält hinner saknas.
+        apiClient.addInfoListener(this::observe);
+    }
+
+    public HourlySeries baseload() {
+        return get(Series.BASELOAD);
+    }
+
+    public HourlySeries hourlyPrices() {
+        return get(Series.HOURLY_PRICES);
+    }
+
+    public HourlySeries solarProduction() {
+        return get(Series.SOLAR_PRODUCTION);
+    }
+
+    /**
+     * Returnerar serien för aktuellt simulerat dygn, hämtar den om den saknas eller är från ett tidigare dygn
+     */
+    public HourlySeries get(Series series) {
+        long day = simulatedDay;
+        HourlySeries current = loaded.get(series.ordinal());
+        if (current != null && current.getSimulatedDay() == day) {
+            return current;
+        }
+
+        ReentrantLock lock = locks[series.ordinal()];
+        lock.lock();
+        try {
+            current = loaded.get(series.ordinal());
+            if (current != null && current.getSimulatedDay() == day) {
+                return current;
+            }
+            return install(series, fetch(series), day);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Icke-blockerande variant av get(); flera serier kan på så sätt hämtas parallellt
+     */
+    public CompletableFuture<HourlySeries> getAsync(Series series) {
+        long day = simulatedDay;
+        HourlySeries current = loaded.get(series.ordinal());
+        if (current != null && current.getSimulatedDay() == day) {
+            return CompletableFuture.completedFuture(current);
+        }
+        return fetchAsync(series).thenApply(values -> {
+            ReentrantLock lock = locks[series.ordinal()];
+            lock.lock();
+            try {
+                HourlySeries installed = loaded.get(series.ordinal());
+                if (installed != null && installed.getSimulatedDay() == day) {
+                    return installed;
+                }
+                return install(series, values, day);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Versionen för en redan laddad serie i aktuellt dygn, eller -1 om den måste hämtas
+     */
+    public long currentVersion(Series series) {
+        HourlySeries current = loaded.get(series.ordinal());
+        return current != null && current.getSimulatedDay() == simulatedDay ? current.getVersion() : -1;
+    }
+
+    public long getSimulatedDay() {
+        return simulatedDay;
+    }
+
+    /**
+     * Tvingar fram ny hämtning av alla serier vid nästa anrop
+     */
+    public void invalidate() {
+        advanceDay();
+    }
+
+    /**
+     * Följer den simulerade klockan och byter dygn när tiden går bakåt
+     */
+    synchronized void observe(InfoResponse info) {
+        int simMinuteOfDay = InfoSnapshotCache.simMinuteOfDay(info);
+        if (lastSimMinuteOfDay >= 0 && simMinuteOfDay < lastSimMinuteOfDay) {
+            advanceDay();
+        }
+        lastSimMinuteOfDay = simMinuteOfDay;
+    }
+
+    private synchronized void advanceDay() {
+        simulatedDay++;
+    }
+
+    private HourlySeries install(Series series, double[] values, long day) {
+        HourlySeries fresh = new HourlySeries(values, versions.incrementAndGet(), day);
+        loaded.set(series.ordinal(), fresh);
+        return fresh;
+    }
+
+    private double[] fetch(Series series) {
+        Supplier<double[]> source = switch (series) {
+            case BASELOAD -> apiClient::getBaseload;
+            case HOURLY_PRICES -> apiClient::getHourlyPrices;
+            case SOLAR_PRODUCTION -> apiClient::getSolarProductionPerHour;
+        };
+        return source.get();
+    }
+
+    private CompletableFuture<double[]> fetchAsync(Series series) {
+        Supplier<CompletableFuture<double[]>> source = switch (series) {
+            case BASELOAD -> apiClient::getBaseloadAsync;
+            case HOURLY_PRICES -> apiClient::getHourlyPricesAsync;
+            case SOLAR_PRODUCTION -> apiClient::getSolarProductionPerHourAsync;
+        };
+        return source.get();
+    }
+}
@@ -1,7 +1,9 @@
 package com.makeienko.laddstation.service;
 
+import com.makeienko.laddstation.config.LaddstationProperties;
 import com.makeienko.laddstation.dto.InfoResponse;
 import com.makeienko.laddstation.dto.SolarPanelStatus;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
@@ -11,6 +13,7 @@ import org.springframework.stereotype.Component;
 public class SolarPanelManager {
 
     private final LaddstationApiClient apiClient;
+    private final LaddstationProperties.Solar solarConfig;
     
     // Produktionsgränser
     private static final double LOW_PRODUCTION_PERCENT = 15.0;
@@ -18,7 +21,20 @@ public class SolarPanelManager {
     private static final double HIGH_PRODUCTION_PERCENT = 80.0;
 
     public SolarPanelManager(LaddstationApiClient apiClient) {
+        this(apiClient, new LaddstationProperties());
+    }
+
+    @Autowired
+    public SolarPanelManager(LaddstationApiClient apiClient, LaddstationProperties properties) {
         this.apiClient = apiClient;
+        this.solarConfig = properties.getSolar();
+    }
+
+    /**
+     * Ny regulator för solföljande laddning med konfigurerade gränser, en per session
+     */
+    public SolarSurplusController newSurplusController() {
+        return new SolarSurplusController(solarConfig);
     }
 
     /**
@@ -29,7 +45,13 @@ public class SolarPanelManager {
         if (info == null) {
             throw new RuntimeException("Failed to fetch solar panel info from server");
         }
+        return getSolarPanelStatus(info);
+    }
 
+    /**
+     * Bygger solpanelstatus från en redan hämtad snapshot
+     */
+    public SolarPanelStatus getSolarPanelStatus(InfoResponse info) {
         double productionPercent = (info.getSolarProductionKwh() / info.getSolarMaxCapacityKwh()) * 100;
         String productionStatus = determineProductionStatus(productionPercent);
         double energySurplus = calculateEnergySurplus(info);
@@ -77,7 +99,7 @@ public class SolarPanelManager {
      * Kontrollera om det är bra tid för soldriven laddning
      */
     public boolean isGoodForSolarCharging(InfoResponse info) {
-        SolarPanelStatus status = getSolarPanelStatus();
+        SolarPanelStatus status = getSolarPanelStatus(info);
         return status.isSurplusAvailable() && 
                status.getEnergySurplus() >= 3.0 && // Minst 3 kW överskott
                status.getProductionPercent() > NORMAL_PRODUCTION_PERCENT;
@@ -0,0 +1,81 @@
+package com.makeienko.laddstation.service;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.InfoResponse;
+
+/**
+ * Styr elbilsladdningen efter solöverskottet (solproduktion - hushållets last) med hysteres.
+ * Laddaren är antingen av eller på med full effekt, så regleringen gäller när den slås på och av:
+ * på när överskottet når startSurplusKw, av när det sjunker under stopSurplusKw. Efter ett byte
+ * hålls läget minst minOnTicks respektive minOffTicks tidssteg, så laddaren inte slår av och på
+ * när överskottet pendlar kring en gräns.
+ *
+ * Ett anrop till update per tidssteg med den snapshot som klockan redan läst; klassen gör inga
+ * egna anrop mot simulatorn. En instans per session, inte trådsäker.
+ */
+public class SolarSurplusController {
+
+    private final double startSurplusKw;
+    private final double stopSurplusKw;
+    private final int minOnTicks;
+    private final int minOffTicks;
+
+    private boolean charging;
+    private int ticksInState;
+    private int switches;
+
+    public SolarSurplusController(LaddstationProperties.Solar config) {
+        this(config.getStartSurplusKw(), config.getStopSurplusKw(), config.getMinOnQuarters(), config.getMinOffQuarters());
+    }
+
+    public SolarSurplusController(double startSurplusKw, double stopSurplusKw, int minOnTicks, int minOffTicks) {
+        if (stopSurplusKw > startSurplusKw) {
+            throw new IllegalArgumentException("Stop surplus (" + stopSurplusKw + " kW) must not exceed start surplus (" + startSurplusKw + " kW)");
+        }
+        this.startSurplusKw = startSurplusKw;
+        this.stopSurplusKw = stopSurplusKw;
+        this.minOnTicks = Math.max(1, minOnTicks);
+        this.minOffTicks = Math.max(1, minOffTicks);
+        this.ticksInState = this.minOffTicks; // Får starta redan vid första tidssteget
+    }
+
+    /**
+     * Ett tidssteg; returnerar om elbilen ska ladda fram till nästa steg
+     */
+    public boolean update(InfoResponse info) {
+        double surplus = surplusKw(info);
+        ticksInState++;
+        if (charging) {
+            if (surplus < stopSurplusKw && ticksInState >= minOnTicks) {
+                switchTo(false);
+            }
+        } else if (surplus >= startSurplusKw && ticksInState >= minOffTicks) {
+            switchTo(true);
+        }
+        return charging;
+    }
+
+    public boolean isCharging() {
+        return charging;
+    }
+
+    /**
+     * Antal gånger laddaren slagits på eller av
+     */
+    public int getSwitches() {
+        return switches;
+    }
+
+    /**
+     * Solproduktion minus hushållets last; negativt när huset förbrukar mer än panelerna ger
+     */
+    public static double surplusKw(InfoResponse info) {
+        return info.getSolarProductionKwh() - info.getHouseholdLoadKwh();
+    }
+
+    private void switchTo(boolean on) {
+        charging = on;
+        ticksInState = 0;
+        switches++;
+    }
+}
@@ -0,0 +1,275 @@
+package com.makeienko.laddstation.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.BatteryStatusResponse;
+import com.makeienko.laddstation.dto.HomeBatteryResponse;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.dto.SolarPanelStatus;
+import com.makeienko.laddstation.dto.StationStreamEvent;
+import com.makeienko.laddstation.dto.StreamStatsResponse;
+import com.makeienko.laddstation.dto.TimeResponse;
+import com.makeienko.laddstation.service.clock.SimulatedClock;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live-ström av stationens tillstånd. Strömmen lyssnar på den gemensamma simulerade klockan och
+ * bygger en gemensam delta per simulerad kvart, oavsett antal klienter, som skickas till alla prenumeranter.
+ *
+ * Mottryck: varje prenumerant har högst en sändning i taget. Är den fortfarande upptagen
+ * när nästa tidssteg kommer hoppas steget över för den klienten, och nästa händelse den får
+ * blir en fullständig snapshot istället för en delta.
+ */
+@Service
+public class StationStreamService {
+
+    static final String EVENT_NAME = "station";
+
+    private final StationViewAssembler assembler;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimulatedClock clock;
+    private final Duration emitterTimeout;
+
+    // Läses varje tidssteg men ändras bara vid an- och frånkoppling
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+    private final ExecutorService dispatcher;
+    private SimulatedClock.Registration clockRegistration;
+
+    // Senaste tillstånd, skrivs bara av klockans tråd
+    private volatile Frame current;
+    private int lastMinuteOfDay = -1;
+
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+
+    @Autowired
+    public StationStreamService(StationViewAssembler assembler, SimulatedClock clock, LaddstationProperties properties) {
+        this(assembler, clock, properties.getStream().getEmitterTimeout(),
+            Executors.newFixedThreadPool(properties.getStream().getDispatchThreads(), daemonThreads("station-stream-send")));
+    }
+
+    StationStreamService(StationViewAssembler assembler, SimulatedClock clock, Duration emitterTimeout, ExecutorService dispatcher) {
+        this.assembler = assembler;
+        this.clock = clock;
+        this.emitterTimeout = emitterTimeout;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Registrerar en ny SSE-klient. Den första klienten börjar lyssna på klockan.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        Subscriber subscriber = subscribe((sequence, json) -> emitter.send(SseEmitter.event()
+            .name(EVENT_NAME)
+            .id(Long.toString(sequence))
+            .data(json)));
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    Subscriber subscribe(EventSink sink) {
+        Subscriber subscriber = new Subscriber(sink);
+        subscribers.add(subscriber);
+        startIfNeeded();
+
+        // Ny klient får senaste kända tillstånd direkt istället för att vänta på nästa tidssteg
+        Frame frame = current;
+        if (frame != null) {
+            deliver(subscriber, frame);
+        }
+        return subscriber;
+    }
+
+    void unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            stopIfIdle();
+        }
+    }
+
+    public StreamStatsResponse getStats() {
+        Frame frame = current;
+        return new StreamStatsResponse(
+            subscribers.size(),
+            ticks.sum(),
+            eventsSent.sum(),
+            dropped.sum(),
+            resyncs.sum(),
+            frame == null ? 0 : frame.sequence
+        );
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (clockRegistration != null) {
+            clockRegistration.cancel();
+            clockRegistration = null;
+        }
+        dispatcher.shutdownNow();
+    }
+
+    private synchronized void startIfNeeded() {
+        if (clockRegistration == null && !subscribers.isEmpty()) {
+            System.out.println("StationStreamService: First subscriber connected, listening to simulated clock");
+            // Nuvarande tillstånd direkt, därefter en händelse per simulerad kvart
+            clockRegistration = clock.onQuarterHour(this::tick, true);
+        }
+    }
+
+    private synchronized void stopIfIdle() {
+        if (clockRegistration != null && subscribers.isEmpty()) {
+            System.out.println("StationStreamService: Last subscriber disconnected, leaving simulated clock");
+            clockRegistration.cancel();
+            clockRegistration = null;
+        }
+    }
+
+    /**
+     * Ett tidssteg: skickar bara om den simulerade minuten har ändrats
+     */
+    void tick(InfoResponse info) {
+        ticks.increment();
+        int minuteOfDay = InfoSnapshotCache.simMinuteOfDay(info);
+        if (minuteOfDay == lastMinuteOfDay && current != null) {
+            return;
+        }
+        lastMinuteOfDay = minuteOfDay;
+
+        Frame previous = current;
+        Frame frame = new Frame(previous == null ? 1 : previous.sequence + 1,
+            assembler.toTime(info),
+            assembler.toBattery(info),
+            assembler.toHomeBattery(info),
+            assembler.toSolarPanel(info));
+        frame.serialize(previous, objectMapper);
+        current = frame;
+
+        for (Subscriber subscriber : subscribers) {
+            deliver(subscriber, frame);
+        }
+    }
+
+    private void deliver(Subscriber subscriber, Frame frame) {
+        if (!subscriber.sending.compareAndSet(false, true)) {
+            dropped.increment();
+            return;
+        }
+
+        // Delta går bara till klienter som har sett föregående händelse
+        boolean inSync = subscriber.lastSequence == frame.sequence - 1 && frame.deltaJson != null;
+        String json = inSync ? frame.deltaJson : frame.snapshotJson;
+        if (!inSync && subscriber.lastSequence > 0) {
+            resyncs.increment();
+        }
+
+        try {
+            dispatcher.execute(() -> send(subscriber, frame.sequence, json));
+        } catch (RuntimeException e) {
+            subscriber.sending.set(false);
+            dropped.increment();
+        }
+    }
+
+    private void send(Subscriber subscriber, long sequence, String json) {
+        try {
+            subscriber.sink.send(sequence, json);
+            subscriber.lastSequence = sequence;
+            eventsSent.increment();
+        } catch (Exception e) {
+            // Klienten har kopplat ner; den tas bort och får en ny snapshot om den ansluter igen
+            unsubscribe(subscriber);
+        } finally {
+            subscriber.sending.set(false);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Skickar en färdigserialiserad händelse till en klient
+     */
+    @FunctionalInterface
+    interface EventSink {
+        void send(long sequence, String json) throws IOException;
+    }
+
+    static final class Subscriber {
+        private final EventSink sink;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long lastSequence;
+
+        private Subscriber(EventSink sink) {
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * Ett tidssteg; snapshot och delta serialiseras en gång och delas av alla prenumeranter
+     */
+    private static final class Frame {
+        private final long sequence;
+        private final TimeResponse time;
+        private final BatteryStatusResponse battery;
+        private final HomeBatteryResponse homeBattery;
+        private final SolarPanelStatus solarPanel;
+        private String snapshotJson;
+        private String deltaJson;
+
+        private Frame(long sequence, TimeResponse time, BatteryStatusResponse battery,
+                      HomeBatteryResponse homeBattery, SolarPanelStatus solarPanel) {
+            this.sequence = sequence;
+            this.time = time;
+            this.battery = battery;
+            this.homeBattery = homeBattery;
+            this.solarPanel = solarPanel;
+        }
+
+        private void serialize(Frame previous, ObjectMapper objectMapper) {
+            try {
+                snapshotJson = objectMapper.writeValueAsString(new StationStreamEvent(
+                    StationStreamEvent.SNAPSHOT, sequence, time, battery, homeBattery, solarPanel));
+                if (previous != null) {
+                    deltaJson = objectMapper.writeValueAsString(new StationStreamEvent(
+                        StationStreamEvent.DELTA, sequence,
+                        changed(previous.time, time),
+                        changed(previous.battery, battery),
+                        changed(previous.homeBattery, homeBattery),
+                        changed(previous.solarPanel, solarPanel)));
+                }
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize station stream event", e);
+            }
+        }
+
+        private static <T> T changed(T before, T after) {
+            return Objects.equals(before, after) ? null : after;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.makeienko.laddstation.service;
+
+import com.makeienko.laddstation.dto.BatteryStatusResponse;
+import com.makeienko.laddstation.dto.CurrentPriceResponse;
+import com.makeienko.laddstation.dto.DashboardResponse;
+import com.makeienko.laddstation.dto.HomeBatteryResponse;
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.dto.SolarPanelStatus;
+import com.makeienko.laddstation.dto.TimeResponse;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bygger UI-vyerna (tid, elbilsbatteri, husbatteri, solpaneler) från en och samma /info-snapshot,
+ * så att REST-endpoints och live-strömmen räknar fram exakt samma värden.
+ */
+@Component
+public class StationViewAssembler {
+
+    private final HomeBatteryManager homeBatteryManager;
+    private final SolarPanelManager solarPanelManager;
+
+    public StationViewAssembler(HomeBatteryManager homeBatteryManager, SolarPanelManager solarPanelManager) {
+        this.homeBatteryManager = homeBatteryManager;
+        this.solarPanelManager = solarPanelManager;
+    }
+
+    public TimeResponse toTime(InfoResponse info) {
+        return new TimeResponse(info.getSimTimeHour(), info.getSimTimeMin());
+    }
+
+    /**
+     * Elbilens batteristatus med beräknad procent
+     */
+    public BatteryStatusResponse toBattery(InfoResponse info) {
+        double maxCapacityKwh = info.getEvBattMaxCapacityKwh();
+        double currentPercentage = (info.getBatteryEnergyKwh() / maxCapacityKwh) * 100;
+        currentPercentage = Math.round(currentPercentage * 10.0) / 10.0; // Avrunda till 1 decimal
+
+        return new BatteryStatusResponse(
+            currentPercentage,
+            info.getBatteryEnergyKwh(),
+            maxCapacityKwh,
+            info.isEvBatteryChargeStartStopp()
+        );
+    }
+
+    /**
+     * Aktuellt timpris baserat på simulerad tid
+     */
+    public CurrentPriceResponse toCurrentPrice(InfoResponse info, HourlySeries hourlyPrices) {
+        int currentHour = (int) Math.floor(info.getSimTimeHour()) % 24;
+        return new CurrentPriceResponse(hourlyPrices.get(currentHour), currentHour, hourlyPrices);
+    }
+
+    public HomeBatteryResponse toHomeBattery(InfoResponse info) {
+        return homeBatteryManager.getHomeBatteryStatus(info);
+    }
+
+    public SolarPanelStatus toSolarPanel(InfoResponse info) {
+        return solarPanelManager.getSolarPanelStatus(info);
+    }
+
+    /**
+     * Hela startsidan från en snapshot och de cachade timpriserna
+     */
+    public DashboardResponse toDashboard(InfoResponse info, HourlySeries hourlyPrices) {
+        return new DashboardResponse(
+            toTime(info),
+            toBattery(info),
+            toCurrentPrice(info, hourlyPrices),
+            toHomeBattery(info),
+            toSolarPanel(info)
+        );
+    }
+}
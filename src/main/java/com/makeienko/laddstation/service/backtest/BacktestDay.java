@@ -0,0 +1,53 @@
+package com.makeienko.laddstation.service.backtest;
+
+/**
+ * Ett dygn att spela upp: pris (öre/kWh), hushållets last och solproduktion (kWh per timme),
+ * 24 värden vardera. Arrayerna kopieras in och lämnar aldrig klassen.
+ */
+public final class BacktestDay {
+
+    public static final int HOURS = 24;
+
+    private final String label;
+    private final double[] prices;
+    private final double[] baseload;
+    private final double[] solar;
+
+    public BacktestDay(String label, double[] prices, double[] baseload, double[] solar) {
+        if (prices.length != HOURS || baseload.length != HOURS || solar.length != HOURS) {
+            throw new IllegalArgumentException("Backtest day " + label + " must have 24 hourly values per series");
+        }
+        this.label = label;
+        this.prices = prices.clone();
+        this.baseload = baseload.clone();
+        this.solar = solar.clone();
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public double getPrice(int hour) {
+        return prices[hour];
+    }
+
+    public double getBaseload(int hour) {
+        return baseload[hour];
+    }
+
+    public double getSolar(int hour) {
+        return solar[hour];
+    }
+
+    double[] copyPrices() {
+        return prices.clone();
+    }
+
+    double[] copyBaseload() {
+        return baseload.clone();
+    }
+
+    double[] copySolar() {
+        return solar.clone();
+    }
+}
@@ -0,0 +1,118 @@
+package com.makeienko.laddstation.service.backtest;
+
+import com.makeienko.laddstation.dto.HistorySampleResponse;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Källor till dygn för backtester: simulatorns referensdygn, syntetiska variationer av det
+ * och dygn som spelats in i historiken.
+ */
+public final class BacktestDays {
+
+    private BacktestDays() {
+    }
+
+    /**
+     * Simulatorns egna serier, samma som ChargingWebserver_v0.8.py
+     */
+    public static BacktestDay simulatorDay() {
+        SimulatorEngine engine = new SimulatorEngine();
+        return new BacktestDay("simulator", engine.getHourlyPrices(), engine.getBaseload(), engine.getSolarProduction());
+    }
+
+    /**
+     * Dygn där simulatorns kurvor skalas och brusas: prisnivån varierar mellan dygnen (ibland
+     * med en kvällstopp), hushållets last ±20 % och solen efter ett molnighetstal per dygn.
+     * Varje dygn har ett eget frö, så samma seed ger samma dygn oavsett hur många som skapas.
+     */
+    public static List<BacktestDay> synthetic(int days, long seed) {
+        if (days < 1) {
+            throw new IllegalArgumentException("days must be at least 1: " + days);
+        }
+        SimulatorEngine engine = new SimulatorEngine();
+        double[] basePrices = engine.getHourlyPrices();
+        double[] baseLoad = engine.getBaseload();
+        double[] baseSolar = engine.getSolarProduction();
+
+        List<BacktestDay> result = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            Random random = new Random(seed * 31 + day);
+            double priceLevel = 0.5 + random.nextDouble() * 1.5;
+            boolean eveningPeak = random.nextInt(4) == 0;
+            double loadLevel = 0.8 + random.nextDouble() * 0.4;
+            double clearSky = random.nextDouble();
+
+            double[] prices = new double[BacktestDay.HOURS];
+            double[] load = new double[BacktestDay.HOURS];
+            double[] solar = new double[BacktestDay.HOURS];
+            for (int hour = 0; hour < BacktestDay.HOURS; hour++) {
+                double peak = eveningPeak && hour >= 17 && hour <= 20 ? 2.0 : 1.0;
+                prices[hour] = round2(basePrices[hour] * priceLevel * peak * (0.85 + random.nextDouble() * 0.3));
+                load[hour] = round2(baseLoad[hour] * loadLevel * (0.9 + random.nextDouble() * 0.2));
+                solar[hour] = round2(baseSolar[hour] * clearSky);
+            }
+            result.add(new BacktestDay("synthetic-" + (day + 1), prices, load, solar));
+        }
+        return result;
+    }
+
+    /**
+     * Dygn ur inspelade /info-snapshots: hushållets last och solproduktion är medelvärdet per
+     * simulerad timme. Ett nytt dygn börjar när den simulerade klockan går bakåt; bara dygn där
+     * alla 24 timmar finns med tas med. Historiken saknar priser, så alla dygn får prices.
+     */
+    public static List<BacktestDay> fromHistory(List<HistorySampleResponse> samples, double[] prices) {
+        List<BacktestDay> result = new ArrayList<>();
+        double[] loadSum = new double[BacktestDay.HOURS];
+        double[] solarSum = new double[BacktestDay.HOURS];
+        int[] count = new int[BacktestDay.HOURS];
+        double previousMinuteOfDay = -1;
+
+        for (HistorySampleResponse sample : samples) {
+            InfoResponse info = sample.getInfo();
+            int hour = (int) info.getSimTimeHour();
+            if (hour < 0 || hour >= BacktestDay.HOURS) {
+                continue;
+            }
+            double minuteOfDay = hour * 60 + info.getSimTimeMin();
+            if (minuteOfDay < previousMinuteOfDay) {
+                addCompleteDay(result, loadSum, solarSum, count, prices);
+            }
+            previousMinuteOfDay = minuteOfDay;
+            loadSum[hour] += info.getHouseholdLoadKwh();
+            solarSum[hour] += info.getSolarProductionKwh();
+            count[hour]++;
+        }
+        addCompleteDay(result, loadSum, solarSum, count, prices);
+        return result;
+    }
+
+    private static void addCompleteDay(List<BacktestDay> result, double[] loadSum, double[] solarSum, int[] count, double[] prices) {
+        boolean complete = true;
+        for (int c : count) {
+            complete &= c > 0;
+        }
+        if (complete) {
+            double[] load = new double[BacktestDay.HOURS];
+            double[] solar = new double[BacktestDay.HOURS];
+            for (int hour = 0; hour < BacktestDay.HOURS; hour++) {
+                load[hour] = round2(loadSum[hour] / count[hour]);
+                solar[hour] = round2(solarSum[hour] / count[hour]);
+            }
+            result.add(new BacktestDay("recorded-" + (result.size() + 1), prices, load, solar));
+        }
+        Arrays.fill(loadSum, 0.0);
+        Arrays.fill(solarSum, 0.0);
+        Arrays.fill(count, 0);
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,185 @@
+package com.makeienko.laddstation.service.backtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.HourMask;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.exception.ChargingServiceException;
+import com.makeienko.laddstation.service.InMemorySimulatorPort;
+import com.makeienko.laddstation.service.LaddstationApiClient;
+import com.makeienko.laddstation.service.SimulatorMetrics;
+import com.makeienko.laddstation.service.SimulatorSeriesStore;
+import com.makeienko.laddstation.service.strategy.OptimalHoursStrategy;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spelar upp dygn genom laddstrategier utan Python-simulatorn. Varje (strategi, dygn) får en
+ * egen SimulatorEngine med dygnets serier bakom en InMemorySimulatorPort, så strategin och
+ * ChargingHourOptimizer arbetar exakt som i en riktig session men stegas så fort som möjligt.
+ *
+ * En uppspelning börjar 00:00 med elbilen på 20 %, som efter "ladda ur till 20 %" i CLI:t,
+ * och fortsätter replayHours timmar. Varje tidssteg frågas strategin som i
+ * ChargingServiceImpl, tills batteriet nått 80 %; därefter är laddaren av men kostnaden
+ * räknas vidare så att alla strategier jämförs över samma tid. Uppspelningarna körs parallellt.
+ */
+public class BacktestEngine implements AutoCloseable {
+
+    private static final double TARGET_BATTERY_PERCENTAGE = 80.0;
+    private static final double EPSILON = 1e-9;
+
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int replayHours;
+    private final int departureHour;
+    private final double fuseKw;
+    private final LaddstationProperties clientProperties;
+    private final SimulatorMetrics metrics = SimulatorMetrics.standalone();
+
+    public BacktestEngine(LaddstationProperties.Backtest config) {
+        this(config.getParallelism(), config.getReplayHours(), config.getDepartureHour(), SimulatorEngine.MAX_POWER_RESIDENTIAL);
+    }
+
+    /**
+     * @param parallelism   antal trådar; 0 eller mindre betyder en per processorkärna
+     * @param replayHours   hur länge varje dygn spelas upp
+     * @param departureHour timmen då bilen ska vara klar, för readyByDeparture
+     * @param fuseKw        säkringen som hushåll + laddning jämförs mot
+     */
+    public BacktestEngine(int parallelism, int replayHours, int departureHour, double fuseKw) {
+        if (replayHours < 1) {
+            throw new IllegalArgumentException("replayHours must be at least 1: " + replayHours);
+        }
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.replayHours = replayHours;
+        this.departureHour = departureHour;
+        this.fuseKw = fuseKw;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.parallelism,
+            r -> Thread.ofPlatform().name("backtest-" + threadCount.incrementAndGet()).daemon().unstarted(r));
+        // Motorn stegas utanför klienten, så /info får aldrig tas ur cachen
+        this.clientProperties = new LaddstationProperties();
+        this.clientProperties.getInfoCache().setStaleness(Duration.ZERO);
+    }
+
+    public BacktestReport run(List<BacktestDay> days, List<BacktestStrategy> strategies) {
+        if (days.isEmpty() || strategies.isEmpty()) {
+            throw new IllegalArgumentException("Backtest needs at least one day and one strategy");
+        }
+        long started = System.nanoTime();
+        List<Future<BacktestResult>> futures = new ArrayList<>(days.size() * strategies.size());
+        for (BacktestStrategy strategy : strategies) {
+            for (BacktestDay day : days) {
+                futures.add(executor.submit((Callable<BacktestResult>) () -> replay(day, strategy)));
+            }
+        }
+
+        List<BacktestResult> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<BacktestResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ChargingServiceException("Backtest was interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new ChargingServiceException("Backtest failed: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        List<BacktestSummary> summaries = new ArrayList<>(strategies.size());
+        for (int s = 0; s < strategies.size(); s++) {
+            summaries.add(new BacktestSummary(strategies.get(s).getName(),
+                results.subList(s * days.size(), (s + 1) * days.size())));
+        }
+        return new BacktestReport(results, summaries, System.nanoTime() - started);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * En strategi på ett dygn, i den anropande tråden
+     */
+    BacktestResult replay(BacktestDay day, BacktestStrategy strategy) throws JsonProcessingException {
+        SimulatorEngine engine = new SimulatorEngine(SimulatorEngine.DEFAULT_STEPS_PER_HOUR,
+            day.copyPrices(), day.copyBaseload(), day.copySolar());
+        LaddstationApiClient apiClient = new LaddstationApiClient(new InMemorySimulatorPort(engine), clientProperties, metrics);
+        OptimalHoursStrategy optimalHoursStrategy = strategy.create(apiClient, new SimulatorSeriesStore(apiClient));
+
+        int stepsPerHour = engine.getStepsPerHour();
+        double stepHours = 1.0 / stepsPerHour;
+        int totalSteps = replayHours * stepsPerHour;
+        int departureStep = departureHour * stepsPerHour;
+
+        // Läses via klienten som i en session, så serielagret ser klockan och dygnsbytena
+        InfoResponse info = apiClient.getInfo();
+        double startEnergy = info.getBatteryEnergyKwh();
+        double targetEnergy = info.getEvBattMaxCapacityKwh() * TARGET_BATTERY_PERCENTAGE / 100.0;
+        HourMask optimalHours = optimalHoursStrategy.findOptimalHourMask();
+
+        boolean charging = false;
+        boolean reachedTarget = info.getBatteryEnergyKwh() >= targetEnergy;
+        int targetStep = reachedTarget ? 0 : -1;
+        int switches = 0;
+        int fuseViolations = 0;
+        double evCost = 0;
+        double gridCost = 0;
+        double peakLoadKw = 0;
+
+        for (int step = 1; step <= totalSteps; step++) {
+            boolean shouldCharge = !reachedTarget && !optimalHours.isEmpty()
+                && optimalHoursStrategy.shouldChargeNow(info, optimalHours);
+            if (shouldCharge != charging) {
+                if (shouldCharge) {
+                    apiClient.startCharging();
+                } else {
+                    apiClient.stopCharging();
+                }
+                charging = shouldCharge;
+                switches++;
+            }
+
+            double energyBefore = info.getBatteryEnergyKwh();
+            engine.step();
+            info = apiClient.getInfo();
+
+            // Tidssteget som just gick: dess timme, hushållets last och energin som laddades in
+            double price = day.getPrice((int) info.getSimTimeHour());
+            double evEnergy = Math.max(0.0, info.getBatteryEnergyKwh() - energyBefore);
+            double loadKw = info.getHouseholdLoadKwh() + evEnergy / stepHours;
+            peakLoadKw = Math.max(peakLoadKw, loadKw);
+            if (loadKw > fuseKw + EPSILON) {
+                fuseViolations++;
+            }
+            evCost += evEnergy * price;
+            gridCost += Math.max(0.0, loadKw - info.getSolarProductionKwh()) * stepHours * price;
+
+            if (!reachedTarget && info.getBatteryEnergyKwh() >= targetEnergy) {
+                reachedTarget = true;
+                targetStep = step;
+            }
+        }
+
+        return new BacktestResult(strategy.getName(), day.getLabel(), info.getBatteryEnergyKwh() - startEnergy,
+            evCost, gridCost, peakLoadKw, fuseViolations, switches, reachedTarget,
+            reachedTarget && targetStep <= departureStep,
+            reachedTarget ? (double) targetStep / stepsPerHour : Double.NaN);
+    }
+}
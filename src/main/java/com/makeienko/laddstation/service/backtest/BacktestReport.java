@@ -0,0 +1,34 @@
+package com.makeienko.laddstation.service.backtest;
+
+import java.util.List;
+
+/**
+ * Alla uppspelningar i en backtest, per strategi och dygn, och en summering per strategi
+ */
+public final class BacktestReport {
+
+    private final List<BacktestResult> results;
+    private final List<BacktestSummary> summaries;
+    private final long elapsedNanos;
+
+    BacktestReport(List<BacktestResult> results, List<BacktestSummary> summaries, long elapsedNanos) {
+        this.results = List.copyOf(results);
+        this.summaries = List.copyOf(summaries);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Strategi för strategi, dygnen i samma ordning som de gavs
+     */
+    public List<BacktestResult> getResults() {
+        return results;
+    }
+
+    public List<BacktestSummary> getSummaries() {
+        return summaries;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
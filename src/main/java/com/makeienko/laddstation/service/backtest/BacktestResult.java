@@ -0,0 +1,92 @@
+package com.makeienko.laddstation.service.backtest;
+
+/**
+ * Utfallet av en strategi på ett dygn. Kostnader i öre; gridCost är all el som köps under
+ * uppspelningen (hushållet inräknat, solen avdragen, export ger inget), så den går att
+ * jämföra mellan strategier eftersom alla spelas upp lika länge.
+ */
+public final class BacktestResult {
+
+    private final String strategy;
+    private final String day;
+    private final double chargedKwh;
+    private final double evCost;
+    private final double gridCost;
+    private final double peakLoadKw;
+    private final int fuseViolations;
+    private final int switches;
+    private final boolean reachedTarget;
+    private final boolean readyByDeparture;
+    private final double hoursToTarget; // NaN om målet inte nåddes
+
+    BacktestResult(String strategy, String day, double chargedKwh, double evCost, double gridCost, double peakLoadKw,
+                   int fuseViolations, int switches, boolean reachedTarget, boolean readyByDeparture, double hoursToTarget) {
+        this.strategy = strategy;
+        this.day = day;
+        this.chargedKwh = chargedKwh;
+        this.evCost = evCost;
+        this.gridCost = gridCost;
+        this.peakLoadKw = peakLoadKw;
+        this.fuseViolations = fuseViolations;
+        this.switches = switches;
+        this.reachedTarget = reachedTarget;
+        this.readyByDeparture = readyByDeparture;
+        this.hoursToTarget = hoursToTarget;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public String getDay() {
+        return day;
+    }
+
+    public double getChargedKwh() {
+        return chargedKwh;
+    }
+
+    /**
+     * Kostnad för energin som laddats in i elbilen, till timpriset
+     */
+    public double getEvCost() {
+        return evCost;
+    }
+
+    public double getGridCost() {
+        return gridCost;
+    }
+
+    /**
+     * Högsta last (hushåll + laddning) under ett tidssteg
+     */
+    public double getPeakLoadKw() {
+        return peakLoadKw;
+    }
+
+    /**
+     * Tidssteg där hushåll + laddning gick över säkringen
+     */
+    public int getFuseViolations() {
+        return fuseViolations;
+    }
+
+    /**
+     * Antal gånger laddningen startats eller stoppats
+     */
+    public int getSwitches() {
+        return switches;
+    }
+
+    public boolean isReachedTarget() {
+        return reachedTarget;
+    }
+
+    public boolean isReadyByDeparture() {
+        return readyByDeparture;
+    }
+
+    public double getHoursToTarget() {
+        return hoursToTarget;
+    }
+}
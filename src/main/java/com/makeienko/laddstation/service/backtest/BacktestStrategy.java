@@ -0,0 +1,57 @@
+package com.makeienko.laddstation.service.backtest;
+
+import com.makeienko.laddstation.service.ChargePlanService;
+import com.makeienko.laddstation.service.ChargingHourOptimizer;
+import com.makeienko.laddstation.service.LaddstationApiClient;
+import com.makeienko.laddstation.service.SimulatorSeriesStore;
+import com.makeienko.laddstation.service.strategy.ConsumptionBasedStrategy;
+import com.makeienko.laddstation.service.strategy.CostOptimalStrategy;
+import com.makeienko.laddstation.service.strategy.OptimalHoursStrategy;
+import com.makeienko.laddstation.service.strategy.PriceBasedStrategy;
+import com.makeienko.laddstation.service.strategy.RollingHorizonStrategy;
+
+import java.util.List;
+
+/**
+ * En namngiven strategi i en backtest. Strategin skapas på nytt för varje uppspelat dygn,
+ * mot en klient och ett serielager som läser dygnets simulator i minnet, så strategier med
+ * eget tillstånd (t.ex. en flerdygnsplan) aldrig delas mellan dygn eller trådar.
+ */
+public final class BacktestStrategy {
+
+    @FunctionalInterface
+    public interface Factory {
+        OptimalHoursStrategy create(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore);
+    }
+
+    private final String name;
+    private final Factory factory;
+
+    public BacktestStrategy(String name, Factory factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    OptimalHoursStrategy create(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore) {
+        return factory.create(apiClient, seriesStore);
+    }
+
+    /**
+     * Strategierna som sessionerna i ChargingServiceImpl använder
+     */
+    public static List<BacktestStrategy> defaults() {
+        return List.of(
+            new BacktestStrategy("price", (apiClient, seriesStore) ->
+                new PriceBasedStrategy(apiClient, new ChargingHourOptimizer(apiClient, seriesStore))),
+            new BacktestStrategy("consumption", (apiClient, seriesStore) ->
+                new ConsumptionBasedStrategy(apiClient, new ChargingHourOptimizer(apiClient, seriesStore))),
+            new BacktestStrategy("cost-optimal", (apiClient, seriesStore) ->
+                new CostOptimalStrategy(new ChargingHourOptimizer(apiClient, seriesStore))),
+            new BacktestStrategy("rolling-horizon", (apiClient, seriesStore) ->
+                new RollingHorizonStrategy(new ChargePlanService(apiClient, seriesStore))));
+    }
+}
@@ -0,0 +1,90 @@
+package com.makeienko.laddstation.service.backtest;
+
+import java.util.List;
+
+/**
+ * En strategis resultat summerat över alla uppspelade dygn
+ */
+public final class BacktestSummary {
+
+    private final String strategy;
+    private final int days;
+    private final double chargedKwh;
+    private final double evCost;
+    private final double gridCost;
+    private final double peakLoadKw;
+    private final int fuseViolations;
+    private final int daysReachedTarget;
+    private final int daysReadyByDeparture;
+
+    BacktestSummary(String strategy, List<BacktestResult> results) {
+        double charged = 0;
+        double ev = 0;
+        double grid = 0;
+        double peak = 0;
+        int violations = 0;
+        int reached = 0;
+        int ready = 0;
+        for (BacktestResult result : results) {
+            charged += result.getChargedKwh();
+            ev += result.getEvCost();
+            grid += result.getGridCost();
+            peak = Math.max(peak, result.getPeakLoadKw());
+            violations += result.getFuseViolations();
+            reached += result.isReachedTarget() ? 1 : 0;
+            ready += result.isReadyByDeparture() ? 1 : 0;
+        }
+        this.strategy = strategy;
+        this.days = results.size();
+        this.chargedKwh = charged;
+        this.evCost = ev;
+        this.gridCost = grid;
+        this.peakLoadKw = peak;
+        this.fuseViolations = violations;
+        this.daysReachedTarget = reached;
+        this.daysReadyByDeparture = ready;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public double getChargedKwh() {
+        return chargedKwh;
+    }
+
+    public double getEvCost() {
+        return evCost;
+    }
+
+    /**
+     * Genomsnittligt pris för laddenergin (öre/kWh)
+     */
+    public double getAverageEvPrice() {
+        return chargedKwh > 0 ? evCost / chargedKwh : 0.0;
+    }
+
+    public double getGridCost() {
+        return gridCost;
+    }
+
+    public double getPeakLoadKw() {
+        return peakLoadKw;
+    }
+
+    public int getFuseViolations() {
+        return fuseViolations;
+    }
+
+    public int getDaysReachedTarget() {
+        return daysReachedTarget;
+    }
+
+    public int getDaysReadyByDeparture() {
+        return daysReadyByDeparture;
+    }
+}
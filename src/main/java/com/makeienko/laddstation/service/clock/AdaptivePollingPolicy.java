@@ -0,0 +1,140 @@
+package com.makeienko.laddstation.service.clock;
+
+/**
+ * Bestämmer när nästa läsning behövs medan man väntar på att ett stigande värde
+ * (t.ex. elbilsbatteriets energi) ska nå en gräns.
+ *
+ * Takten skattas som ändring per sekund sedan en baslinje, inte mellan två närliggande läsningar,
+ * eftersom simulatorn ändrar värdet i steg en gång per simulerad kvart. Långt från gränsen läses
+ * värdet glest, nära gränsen tätt, så att gränsen upptäcks senast när värdet passerat den med
+ * överskjutningstoleransen. Vid avvikelser (värdet sjunker, står still eller hoppar fortare än
+ * skattat) börjar skattningen om och läsningarna går med fast intervall, ett steg, tills takten
+ * är känd igen. En instans per väntan; inte trådsäker.
+ */
+public class AdaptivePollingPolicy {
+
+    // Andel av återstående tid som väntas när gränsen är långt bort
+    private static final double APPROACH_FACTOR = 0.8;
+
+    private final long stepMillis;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final double toleranceUnits;
+    private final int warmupSamples;
+
+    private long baseNanos;
+    private double baseValue;
+    private long lastNanos;
+    private double lastValue;
+    private long lastIncreaseNanos;
+    private int samplesSinceBase;
+    private double ratePerSecond;
+    private boolean fallback = true;
+
+    private long samples;
+    private long fallbackSamples;
+    private long anomalies;
+
+    /**
+     * @param stepMillis      väggtid mellan simulatorns steg (en simulerad kvart); även fast intervall
+     * @param toleranceUnits  tillåten överskjutning, bör vara minst ett stegs ändring
+     */
+    public AdaptivePollingPolicy(long stepMillis, long minIntervalMillis, long maxIntervalMillis,
+                                 double toleranceUnits, int warmupSamples) {
+        this.stepMillis = stepMillis;
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxIntervalMillis = Math.max(minIntervalMillis, maxIntervalMillis);
+        this.toleranceUnits = toleranceUnits;
+        this.warmupSamples = Math.max(2, warmupSamples);
+    }
+
+    /**
+     * Registrerar en läsning av värdet vid en viss tidpunkt (System.nanoTime)
+     */
+    public void observe(long nanos, double value) {
+        samples++;
+        if (fallback) {
+            fallbackSamples++;
+        }
+        if (samplesSinceBase == 0) {
+            resetBaseline(nanos, value);
+            return;
+        }
+
+        double seconds = (nanos - lastNanos) / 1e9;
+        double change = value - lastValue;
+        if (change > 0) {
+            lastIncreaseNanos = nanos;
+        }
+
+        boolean decreased = change < 0;
+        // Står still i flera steg: laddningen har troligen stoppats
+        boolean stalled = nanos - lastIncreaseNanos > 3 * stepMillis * 1_000_000L;
+        // Mer än ett steg plus toleransen över skattningen: risk att passera gränsen innan nästa läsning
+        boolean jumped = !fallback && change > ratePerSecond * Math.max(seconds, stepMillis / 1000.0) + toleranceUnits;
+        if (decreased || stalled || jumped) {
+            anomalies++;
+            fallback = true;
+            resetBaseline(nanos, value);
+            return;
+        }
+
+        lastNanos = nanos;
+        lastValue = value;
+        samplesSinceBase++;
+        double elapsed = (nanos - baseNanos) / 1e9;
+        ratePerSecond = elapsed > 0 ? (value - baseValue) / elapsed : 0.0;
+        fallback = samplesSinceBase < warmupSamples || ratePerSecond <= 0;
+    }
+
+    /**
+     * Hur länge man kan vänta till nästa läsning utan att passera gränsen med mer än toleransen
+     */
+    public long nextDelayMillis(double target) {
+        if (fallback) {
+            return stepMillis;
+        }
+        double remaining = target - lastValue;
+        if (remaining <= 0) {
+            return minIntervalMillis;
+        }
+        double eta = remaining / ratePerSecond;
+        double slack = toleranceUnits / ratePerSecond;
+        // Långt bort: närma sig gränsen i steg; nära: läs strax efter beräknad passage
+        double delaySeconds = eta > slack
+            ? Math.max(eta * APPROACH_FACTOR, eta - slack)
+            : eta + slack / 2;
+        long delay = Math.round(delaySeconds * 1000.0);
+        return Math.max(minIntervalMillis, Math.min(maxIntervalMillis, delay));
+    }
+
+    public boolean isFallback() {
+        return fallback;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public long getFallbackSamples() {
+        return fallbackSamples;
+    }
+
+    public long getAnomalies() {
+        return anomalies;
+    }
+
+    private void resetBaseline(long nanos, double value) {
+        baseNanos = nanos;
+        baseValue = value;
+        lastNanos = nanos;
+        lastValue = value;
+        lastIncreaseNanos = nanos;
+        samplesSinceBase = 1;
+        ratePerSecond = 0.0;
+    }
+}
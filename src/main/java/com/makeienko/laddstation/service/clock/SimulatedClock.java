@@ -0,0 +1,451 @@
+package com.makeienko.laddstation.service.clock;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.AdaptivePollingStatsResponse;
+import com.makeienko.laddstation.dto.ClockStatsResponse;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.exception.ChargingServiceException;
+import com.makeienko.laddstation.service.InfoSnapshotCache;
+import com.makeienko.laddstation.service.LaddstationApiClient;
+import com.makeienko.laddstation.service.SimulatorSeriesStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Gemensam simulerad klocka. En enda schemalagd tråd läser /info åt alla som väntar på
+ * simulerad tid och anropar registrerade lyssnare när en kvart eller timme passeras,
+ * eller när ett villkor på stationens tillstånd blir sant.
+ *
+ * Simulatorn flyttar klockan en kvart i taget (seconds_per_hour = 4 ger en kvart per verklig sekund).
+ * Efter ett observerat kvartsbyte väntar klockan en halv kvart i väggtid innan nästa läsning och läser
+ * sedan tätare tills bytet syns, så antalet /info-anrop beror inte på antalet lyssnare.
+ *
+ * Den som väntar på att ett stigande värde ska nå en gräns (whenReaching) styr i stället läsningarna
+ * med en AdaptivePollingPolicy: glest långt från gränsen, tätt nära den. Finns bara sådana väntande
+ * läser klockan /info först när någon av dem behöver det.
+ *
+ * Lyssnare anropas på klockans tråd och ska vara korta; längre arbete lämnas över till egen tråd,
+ * t.ex. genom att vänta på awaitNextQuarterHour() och liknande.
+ */
+@Component
+public class SimulatedClock {
+
+    public static final int MINUTES_PER_QUARTER = 15;
+    public static final int MINUTES_PER_HOUR = 60;
+    private static final int MINUTES_PER_DAY = 24 * MINUTES_PER_HOUR;
+
+    private final LaddstationApiClient apiClient;
+    private final SimulatorSeriesStore seriesStore;
+    private final ScheduledExecutorService scheduler;
+    private final long quarterWallMillis;
+    private final long retryMillis;
+    private final LaddstationProperties.Polling polling;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Skyddas av this; generationen gör att en ersatt schemaläggning inte kör
+    private ScheduledFuture<?> nextTick;
+    private long generation;
+
+    // Skrivs bara av klockans tråd
+    private long lastQuarter = Long.MIN_VALUE;
+    private long lastHour = Long.MIN_VALUE;
+
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder quarterEvents = new LongAdder();
+    private final LongAdder hourEvents = new LongAdder();
+    private final LongAdder callbacks = new LongAdder();
+
+    private final LongAdder predictiveWaits = new LongAdder();
+    private final LongAdder predictivePolls = new LongAdder();
+    private final LongAdder fallbackPolls = new LongAdder();
+    private final LongAdder anomalies = new LongAdder();
+    private final LongAdder overshootExceeded = new LongAdder();
+    private final DoubleAdder overshootTotal = new DoubleAdder();
+    private final DoubleAccumulator overshootMax = new DoubleAccumulator(Math::max, 0.0);
+
+    @Autowired
+    public SimulatedClock(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore, LaddstationProperties properties) {
+        this(apiClient, seriesStore, properties.getClock(), properties.getPolling(),
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "simulated-clock");
+                thread.setDaemon(true);
+                return thread;
+            }));
+    }
+
+    public SimulatedClock(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore) {
+        this(apiClient, seriesStore, new LaddstationProperties());
+    }
+
+    SimulatedClock(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore, LaddstationProperties.Clock config,
+                   LaddstationProperties.Polling polling, ScheduledExecutorService scheduler) {
+        this.apiClient = apiClient;
+        this.seriesStore = seriesStore;
+        this.scheduler = scheduler;
+        this.quarterWallMillis = Math.round(config.getSecondsPerHour() * 1000.0 * MINUTES_PER_QUARTER / MINUTES_PER_HOUR);
+        this.retryMillis = Math.max(1, config.getRetryInterval().toMillis());
+        this.polling = polling;
+    }
+
+    /**
+     * Registrering som kan avbrytas; klockan slutar läsa /info när inga registreringar finns kvar
+     */
+    public interface Registration {
+        void cancel();
+    }
+
+    public Registration onQuarterHour(Consumer<InfoResponse> callback) {
+        return onQuarterHour(callback, false);
+    }
+
+    /**
+     * @param includeCurrent anropa även direkt med nuvarande tillstånd, vid lyssnarens första läsning
+     */
+    public Registration onQuarterHour(Consumer<InfoResponse> callback, boolean includeCurrent) {
+        Listener listener = new Listener(Trigger.QUARTER, null, callback);
+        listener.pendingCurrent = includeCurrent;
+        return register(listener);
+    }
+
+    public Registration onHour(Consumer<InfoResponse> callback) {
+        return register(new Listener(Trigger.HOUR, null, callback));
+    }
+
+    /**
+     * Anropas varje gång villkoret går från falskt till sant, även vid första läsningen
+     */
+    public Registration onThreshold(Predicate<InfoResponse> condition, Consumer<InfoResponse> callback) {
+        return register(new Listener(Trigger.THRESHOLD, condition, callback));
+    }
+
+    public CompletableFuture<InfoResponse> nextQuarterHour() {
+        return once(Trigger.QUARTER, null);
+    }
+
+    public CompletableFuture<InfoResponse> nextHour() {
+        return once(Trigger.HOUR, null);
+    }
+
+    public CompletableFuture<InfoResponse> whenThreshold(Predicate<InfoResponse> condition) {
+        return once(Trigger.THRESHOLD, condition);
+    }
+
+    /**
+     * Blir klar när metric når target, eller när abort blir sant. Läsningarna styrs av en egen
+     * AdaptivePollingPolicy så att gränsen inte passeras med mer än överskjutningstoleransen.
+     */
+    public CompletableFuture<InfoResponse> whenReaching(ToDoubleFunction<InfoResponse> metric, double target,
+                                                        Predicate<InfoResponse> abort) {
+        CompletableFuture<InfoResponse> future = new CompletableFuture<>();
+        Listener listener = new Listener(Trigger.PREDICTIVE, abort, null);
+        listener.metric = metric;
+        listener.target = target;
+        listener.policy = new AdaptivePollingPolicy(quarterWallMillis, polling.getMinInterval().toMillis(),
+            polling.getMaxInterval().toMillis(), polling.getOvershootTolerance(), polling.getWarmupSamples());
+        listener.callback = info -> {
+            listener.cancel();
+            future.complete(info);
+        };
+        register(listener);
+        future.whenComplete((info, e) -> listener.cancel());
+        return future;
+    }
+
+    public InfoResponse awaitReaching(ToDoubleFunction<InfoResponse> metric, double target,
+                                      Predicate<InfoResponse> abort) throws InterruptedException {
+        return await(whenReaching(metric, target, abort));
+    }
+
+    public InfoResponse awaitNextQuarterHour() throws InterruptedException {
+        return await(nextQuarterHour());
+    }
+
+    public InfoResponse awaitNextHour() throws InterruptedException {
+        return await(nextHour());
+    }
+
+    /**
+     * Väntar tills det angivna antalet kvartsbyten passerats (minst ett)
+     */
+    public InfoResponse awaitQuarterHours(int quarters) throws InterruptedException {
+        InfoResponse info = awaitNextQuarterHour();
+        for (int i = 1; i < quarters; i++) {
+            info = awaitNextQuarterHour();
+        }
+        return info;
+    }
+
+    public InfoResponse awaitThreshold(Predicate<InfoResponse> condition) throws InterruptedException {
+        return await(whenThreshold(condition));
+    }
+
+    /**
+     * Hur lång väggtid ett antal simulerade minuter motsvarar
+     */
+    public Duration toWallTime(double simulatedMinutes) {
+        return Duration.ofMillis(Math.round(simulatedMinutes / MINUTES_PER_QUARTER * quarterWallMillis));
+    }
+
+    public ClockStatsResponse getStats() {
+        return new ClockStatsResponse(listeners.size(), polls.sum(), quarterEvents.sum(), hourEvents.sum(), callbacks.sum());
+    }
+
+    public AdaptivePollingStatsResponse getAdaptivePollingStats() {
+        int active = 0;
+        for (Listener listener : listeners) {
+            if (listener.trigger == Trigger.PREDICTIVE) {
+                active++;
+            }
+        }
+        long waits = predictiveWaits.sum();
+        return new AdaptivePollingStatsResponse(
+            active,
+            waits,
+            predictivePolls.sum(),
+            fallbackPolls.sum(),
+            anomalies.sum(),
+            waits == 0 ? 0.0 : Math.round((double) predictivePolls.sum() / waits * 100.0) / 100.0,
+            waits == 0 ? 0.0 : Math.round(overshootTotal.sum() / waits * 1000.0) / 1000.0,
+            Math.round(overshootMax.get() * 1000.0) / 1000.0,
+            polling.getOvershootTolerance(),
+            overshootExceeded.sum()
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Ett tidssteg: läser /info, anropar lyssnare för passerade gränser och schemalägger nästa läsning
+     */
+    void tick() {
+        boolean quarterChanged = false;
+        boolean failed = false;
+        try {
+            if (!listeners.isEmpty()) {
+                polls.increment();
+                // Cachens fönster kan vara längre än en kvart i väggtid; klockan får högst en kvarts kvarts fördröjning
+                quarterChanged = advance(apiClient.getInfo(Duration.ofMillis(quarterWallMillis / 4)));
+            }
+        } catch (Exception e) {
+            failed = true;
+            System.err.println("SimulatedClock: Failed to read simulated time: " + e.getMessage());
+        } finally {
+            scheduleNext(failed ? retryMillis : nextDelay(quarterChanged));
+        }
+    }
+
+    /**
+     * Kortaste väntan någon lyssnare tål. Kvarts-, tim- och villkorslyssnare följer kvartstakten,
+     * lyssnare med prognos bestämmer själva.
+     */
+    private long nextDelay(boolean quarterChanged) {
+        long cadence = quarterChanged ? Math.max(retryMillis, quarterWallMillis / 2) : retryMillis;
+        long delay = Long.MAX_VALUE;
+        for (Listener listener : listeners) {
+            delay = Math.min(delay, listener.policy != null ? listener.nextDelayMillis() : cadence);
+        }
+        return delay == Long.MAX_VALUE ? cadence : delay;
+    }
+
+    private boolean advance(InfoResponse info) {
+        long minute = seriesStore.getSimulatedDay() * MINUTES_PER_DAY + InfoSnapshotCache.simMinuteOfDay(info);
+        long quarter = Math.floorDiv(minute, MINUTES_PER_QUARTER);
+        long hour = Math.floorDiv(minute, MINUTES_PER_HOUR);
+        // Första läsningen ger bara utgångsläget; nästa gräns är den som passeras härifrån
+        boolean known = lastQuarter != Long.MIN_VALUE;
+        boolean quarterChanged = known && quarter != lastQuarter;
+        boolean hourChanged = known && hour != lastHour;
+        lastQuarter = quarter;
+        lastHour = hour;
+        if (quarterChanged) {
+            quarterEvents.increment();
+        }
+        if (hourChanged) {
+            hourEvents.increment();
+        }
+
+        long now = System.nanoTime();
+        for (Listener listener : listeners) {
+            boolean fire = switch (listener.trigger) {
+                case QUARTER -> quarterChanged || listener.takePendingCurrent();
+                case HOUR -> hourChanged;
+                case THRESHOLD -> listener.crossed(info);
+                case PREDICTIVE -> listener.reached(info, now);
+            };
+            if (fire && !listener.cancelled) {
+                callbacks.increment();
+                try {
+                    listener.callback.accept(info);
+                } catch (Exception e) {
+                    System.err.println("SimulatedClock: Listener failed: " + e.getMessage());
+                }
+            }
+        }
+        return quarterChanged;
+    }
+
+    private Registration register(Listener listener) {
+        listeners.add(listener);
+        synchronized (this) {
+            // En ny lyssnare läses snart, även om klockan väntar länge för en prognos
+            if (nextTick == null || nextTick.getDelay(TimeUnit.MILLISECONDS) > retryMillis) {
+                if (nextTick != null) {
+                    nextTick.cancel(false);
+                }
+                schedule(0);
+            }
+        }
+        return listener;
+    }
+
+    private synchronized void scheduleNext(long delayMillis) {
+        if (listeners.isEmpty()) {
+            // Utgångsläget glöms så att en senare registrering inte får ett gammalt kvartsbyte
+            nextTick = null;
+            generation++;
+            lastQuarter = Long.MIN_VALUE;
+            lastHour = Long.MIN_VALUE;
+            return;
+        }
+        schedule(delayMillis);
+    }
+
+    private void schedule(long delayMillis) {
+        long scheduledGeneration = ++generation;
+        try {
+            nextTick = scheduler.schedule(() -> runTick(scheduledGeneration), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            nextTick = null; // Klockan stängs ner
+        }
+    }
+
+    private void runTick(long scheduledGeneration) {
+        synchronized (this) {
+            if (scheduledGeneration != generation) {
+                return;
+            }
+        }
+        tick();
+    }
+
+    private void recordPredictiveWait(Listener listener, double value) {
+        AdaptivePollingPolicy policy = listener.policy;
+        predictiveWaits.increment();
+        predictivePolls.add(policy.getSamples());
+        fallbackPolls.add(policy.getFallbackSamples());
+        anomalies.add(policy.getAnomalies());
+        if (value >= listener.target) {
+            double overshoot = value - listener.target;
+            overshootTotal.add(overshoot);
+            overshootMax.accumulate(overshoot);
+            if (overshoot > polling.getOvershootTolerance()) {
+                overshootExceeded.increment();
+            }
+        }
+    }
+
+    private CompletableFuture<InfoResponse> once(Trigger trigger, Predicate<InfoResponse> condition) {
+        CompletableFuture<InfoResponse> future = new CompletableFuture<>();
+        Listener[] self = new Listener[1];
+        self[0] = new Listener(trigger, condition, info -> {
+            self[0].cancel();
+            future.complete(info);
+        });
+        register(self[0]);
+        // Även en avbruten väntan tar bort lyssnaren
+        future.whenComplete((info, e) -> self[0].cancel());
+        return future;
+    }
+
+    private static InfoResponse await(CompletableFuture<InfoResponse> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            throw new ChargingServiceException("Waiting for simulated time failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private enum Trigger {
+        QUARTER,
+        HOUR,
+        THRESHOLD,
+        PREDICTIVE
+    }
+
+    private final class Listener implements Registration {
+        private final Trigger trigger;
+        private final Predicate<InfoResponse> condition;
+        private Consumer<InfoResponse> callback;
+        private boolean matched; // Bara klockans tråd
+        private volatile boolean pendingCurrent;
+        // Bara för PREDICTIVE; condition är då avbrottsvillkoret
+        private ToDoubleFunction<InfoResponse> metric;
+        private double target;
+        private AdaptivePollingPolicy policy;
+        private volatile boolean cancelled;
+
+        private Listener(Trigger trigger, Predicate<InfoResponse> condition, Consumer<InfoResponse> callback) {
+            this.trigger = trigger;
+            this.condition = condition;
+            this.callback = callback;
+        }
+
+        private boolean crossed(InfoResponse info) {
+            boolean now = condition.test(info);
+            boolean crossed = now && !matched;
+            matched = now;
+            return crossed;
+        }
+
+        private boolean reached(InfoResponse info, long nanos) {
+            double value = metric.applyAsDouble(info);
+            policy.observe(nanos, value);
+            boolean done = value >= target || (condition != null && condition.test(info));
+            if (done && !cancelled) {
+                recordPredictiveWait(this, value);
+            }
+            return done;
+        }
+
+        private long nextDelayMillis() {
+            return policy.getSamples() == 0 ? 0 : policy.nextDelayMillis(target);
+        }
+
+        private boolean takePendingCurrent() {
+            if (!pendingCurrent) {
+                return false;
+            }
+            pendingCurrent = false;
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            listeners.remove(this);
+        }
+    }
+}
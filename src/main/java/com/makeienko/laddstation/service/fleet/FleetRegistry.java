@@ -0,0 +1,153 @@
+package com.makeienko.laddstation.service.fleet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tillstånd för alla fordon på en depå lagrat som parallella arrayer (struct-of-arrays).
+ * Allokeringen varje tidssteg läser bara de kolumner den behöver i en linjär genomgång,
+ * utan ett objekt per fordon. Borttagning flyttar sista fordonet till den lediga platsen,
+ * så raderna är alltid 0..size-1 utan hål. Inte trådsäker; FleetService synkroniserar.
+ */
+public class FleetRegistry {
+
+    // Index packas i de lägsta bitarna av sorteringsnyckeln i LeastLaxityAllocator
+    static final int MAX_VEHICLES = 1 << LeastLaxityAllocator.INDEX_BITS;
+
+    private final Map<String, Integer> indexById = new HashMap<>();
+    private String[] ids;
+    double[] capacityKwh;
+    double[] energyKwh;
+    double[] targetKwh;
+    double[] maxPowerKw;
+    long[] departureSlot;
+    double[] allocatedKw;
+    private int size;
+
+    public FleetRegistry(int initialCapacity) {
+        int capacity = Math.max(4, initialCapacity);
+        ids = new String[capacity];
+        capacityKwh = new double[capacity];
+        energyKwh = new double[capacity];
+        targetKwh = new double[capacity];
+        maxPowerKw = new double[capacity];
+        departureSlot = new long[capacity];
+        allocatedKw = new double[capacity];
+    }
+
+    /**
+     * Registrerar ett fordon, eller uppdaterar det om id redan finns. Returnerar raden.
+     */
+    public int register(String id, double capacityKwh, double energyKwh, double targetKwh, double maxPowerKw, long departureSlot) {
+        Integer existing = indexById.get(id);
+        int index;
+        if (existing != null) {
+            index = existing;
+        } else {
+            if (size == MAX_VEHICLES) {
+                throw new IllegalStateException("Fleet is full (" + MAX_VEHICLES + " vehicles)");
+            }
+            ensureCapacity(size + 1);
+            index = size++;
+            ids[index] = id;
+            indexById.put(id, index);
+        }
+        this.capacityKwh[index] = capacityKwh;
+        this.energyKwh[index] = energyKwh;
+        this.targetKwh[index] = targetKwh;
+        this.maxPowerKw[index] = maxPowerKw;
+        this.departureSlot[index] = departureSlot;
+        this.allocatedKw[index] = 0.0;
+        return index;
+    }
+
+    public boolean deregister(String id) {
+        Integer removed = indexById.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        int index = removed;
+        int last = --size;
+        if (index != last) {
+            ids[index] = ids[last];
+            capacityKwh[index] = capacityKwh[last];
+            energyKwh[index] = energyKwh[last];
+            targetKwh[index] = targetKwh[last];
+            maxPowerKw[index] = maxPowerKw[last];
+            departureSlot[index] = departureSlot[last];
+            allocatedKw[index] = allocatedKw[last];
+            indexById.put(ids[index], index);
+        }
+        ids[last] = null;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Raden för ett fordon, eller -1 om det inte är registrerat
+     */
+    public int indexOf(String id) {
+        Integer index = indexById.get(id);
+        return index == null ? -1 : index;
+    }
+
+    public String idAt(int index) {
+        return ids[index];
+    }
+
+    public double capacityKwhAt(int index) {
+        return capacityKwh[index];
+    }
+
+    public double energyKwhAt(int index) {
+        return energyKwh[index];
+    }
+
+    public double targetKwhAt(int index) {
+        return targetKwh[index];
+    }
+
+    public double maxPowerKwAt(int index) {
+        return maxPowerKw[index];
+    }
+
+    public long departureSlotAt(int index) {
+        return departureSlot[index];
+    }
+
+    public double allocatedKwAt(int index) {
+        return allocatedKw[index];
+    }
+
+    /**
+     * Tillför den energi som allokerats från fromSlot till toSlot. Ett fordon laddas bara
+     * fram till sin avgång och aldrig över sin målnivå.
+     */
+    public void applyAllocation(long fromSlot, long toSlot, double slotHours) {
+        for (int i = 0; i < size; i++) {
+            long chargedSlots = Math.min(toSlot, departureSlot[i]) - fromSlot;
+            double charged = allocatedKw[i] * chargedSlots * slotHours;
+            if (charged > 0) {
+                energyKwh[i] = Math.min(targetKwh[i], energyKwh[i] + charged);
+            }
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.min(MAX_VEHICLES, Math.max(required, ids.length * 2));
+        ids = Arrays.copyOf(ids, capacity);
+        capacityKwh = Arrays.copyOf(capacityKwh, capacity);
+        energyKwh = Arrays.copyOf(energyKwh, capacity);
+        targetKwh = Arrays.copyOf(targetKwh, capacity);
+        maxPowerKw = Arrays.copyOf(maxPowerKw, capacity);
+        departureSlot = Arrays.copyOf(departureSlot, capacity);
+        allocatedKw = Arrays.copyOf(allocatedKw, capacity);
+    }
+}
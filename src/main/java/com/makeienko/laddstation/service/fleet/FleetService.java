@@ -0,0 +1,221 @@
+package com.makeienko.laddstation.service.fleet;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.FleetStatusResponse;
+import com.makeienko.laddstation.dto.FleetVehicleRequest;
+import com.makeienko.laddstation.dto.FleetVehicleResponse;
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.exception.ChargingServiceException;
+import com.makeienko.laddstation.service.LaddstationApiClient;
+import com.makeienko.laddstation.service.SimulatorSeriesStore;
+import com.makeienko.laddstation.service.clock.SimulatedClock;
+import com.makeienko.laddstation.service.schedule.ChargeSchedule;
+import com.makeienko.laddstation.service.schedule.RollingPlan;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Laddning av många elbilar bakom en gemensam anslutning. Varje simulerad kvart fördelas
+ * depåns effektbudget (anslutningens gräns minus hushållets basförbrukning) mellan fordonen
+ * med LeastLaxityAllocator, och den tilldelade energin läggs på fordonens batterier.
+ * Tjänsten lyssnar på den simulerade klockan bara när det finns registrerade fordon.
+ */
+@Service
+public class FleetService {
+
+    private static final double TICK_HOURS = 1.0 / ChargeSchedule.SLOTS_PER_HOUR;
+
+    private final LaddstationApiClient apiClient;
+    private final SimulatorSeriesStore seriesStore;
+    private final LaddstationProperties.Fleet config;
+    private final SimulatedClock clock;
+    private SimulatedClock.Registration clockRegistration;
+
+    // Skyddas av this; registrering, avregistrering och tidssteg körs aldrig samtidigt
+    private final FleetRegistry registry;
+    private final LeastLaxityAllocator allocator = new LeastLaxityAllocator();
+    private long currentSlot = Long.MIN_VALUE;
+    private double baseloadKw;
+    private double budgetKw;
+    private double allocatedKw;
+    private long ticks;
+    private long lastAllocationNanos;
+
+    @Autowired
+    public FleetService(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore, SimulatedClock clock, LaddstationProperties properties) {
+        this(apiClient, seriesStore, clock, properties.getFleet());
+    }
+
+    FleetService(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore, SimulatedClock clock, LaddstationProperties.Fleet config) {
+        this.apiClient = apiClient;
+        this.seriesStore = seriesStore;
+        this.config = config;
+        this.clock = clock;
+        this.registry = new FleetRegistry(config.getInitialCapacity());
+    }
+
+    /**
+     * Registrerar eller uppdaterar ett fordon. Avgångstiden räknas från aktuell simulerad tid.
+     */
+    public synchronized FleetVehicleResponse register(FleetVehicleRequest request) {
+        if (request.getId() == null || request.getId().isBlank()) {
+            throw new IllegalArgumentException("Vehicle id is required");
+        }
+        double capacity = valueOrDefault(request.getCapacityKwh(), config.getDefaultCapacityKwh());
+        double energy = valueOrDefault(request.getEnergyKwh(), 0.0);
+        double targetPercent = valueOrDefault(request.getTargetPercent(), config.getDefaultTargetPercent());
+        double maxPower = valueOrDefault(request.getMaxPowerKw(), config.getDefaultMaxPowerKw());
+        double hoursUntilDeparture = valueOrDefault(request.getHoursUntilDeparture(), config.getDefaultHoursUntilDeparture());
+        if (capacity <= 0 || energy < 0 || energy > capacity || targetPercent <= 0 || targetPercent > 100
+                || maxPower <= 0 || hoursUntilDeparture < 0) {
+            throw new IllegalArgumentException("Invalid vehicle parameters for " + request.getId());
+        }
+
+        long nowSlot = currentSlot();
+        long departureSlot = nowSlot + Math.round(hoursUntilDeparture * ChargeSchedule.SLOTS_PER_HOUR);
+        int index = registry.register(request.getId(), capacity, energy, capacity * targetPercent / 100.0, maxPower, departureSlot);
+        startIfNeeded();
+        return toResponse(index, nowSlot);
+    }
+
+    public synchronized boolean deregister(String id) {
+        boolean removed = registry.deregister(id);
+        if (removed) {
+            stopIfIdle();
+        }
+        return removed;
+    }
+
+    public synchronized FleetVehicleResponse getVehicle(String id) {
+        int index = registry.indexOf(id);
+        return index < 0 ? null : toResponse(index, currentSlot);
+    }
+
+    public synchronized List<FleetVehicleResponse> getVehicles() {
+        List<FleetVehicleResponse> vehicles = new ArrayList<>(registry.size());
+        for (int i = 0; i < registry.size(); i++) {
+            vehicles.add(toResponse(i, currentSlot));
+        }
+        return vehicles;
+    }
+
+    public synchronized FleetStatusResponse getStatus() {
+        int charging = 0;
+        for (int i = 0; i < registry.size(); i++) {
+            if (registry.allocatedKwAt(i) > 0) {
+                charging++;
+            }
+        }
+        return new FleetStatusResponse(
+            registry.size(),
+            charging,
+            config.getSiteLimitKw(),
+            round(baseloadKw),
+            round(budgetKw),
+            round(allocatedKw),
+            ticks,
+            Math.round(lastAllocationNanos / 10.0) / 100.0
+        );
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (clockRegistration != null) {
+            clockRegistration.cancel();
+            clockRegistration = null;
+        }
+    }
+
+    /**
+     * Ett tidssteg. Energi för den förra fördelningen läggs på för varje passerad kvart
+     * innan budgeten fördelas om; samma kvart två gånger gör ingenting.
+     */
+    synchronized void tick(long nowSlot, double baseloadKw) {
+        if (currentSlot != Long.MIN_VALUE) {
+            if (nowSlot <= currentSlot) {
+                return;
+            }
+            registry.applyAllocation(currentSlot, nowSlot, TICK_HOURS);
+        }
+        currentSlot = nowSlot;
+        this.baseloadKw = baseloadKw;
+        this.budgetKw = Math.max(0.0, config.getSiteLimitKw() - baseloadKw);
+
+        long start = System.nanoTime();
+        allocatedKw = allocator.allocate(registry, nowSlot, budgetKw, TICK_HOURS);
+        lastAllocationNanos = System.nanoTime() - start;
+        ticks++;
+    }
+
+    FleetRegistry registry() {
+        return registry;
+    }
+
+    private void onQuarterHour(InfoResponse info) {
+        try {
+            long nowSlot = RollingPlan.absoluteSlot(seriesStore.getSimulatedDay(), info.getSimTimeHour(), info.getSimTimeMin());
+            HourlySeries baseload = seriesStore.baseload();
+            int hour = (int) info.getSimTimeHour();
+            tick(nowSlot, hour < baseload.length() ? baseload.get(hour) : 0.0);
+        } catch (Exception e) {
+            System.err.println("FleetService: Failed to allocate fleet power: " + e.getMessage());
+        }
+    }
+
+    private long currentSlot() {
+        if (currentSlot != Long.MIN_VALUE) {
+            return currentSlot;
+        }
+        try {
+            InfoResponse info = apiClient.getInfo();
+            return RollingPlan.absoluteSlot(seriesStore.getSimulatedDay(), info.getSimTimeHour(), info.getSimTimeMin());
+        } catch (ChargingServiceException e) {
+            System.err.println("FleetService: Could not read simulated time, departures counted from midnight: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private void startIfNeeded() {
+        if (clockRegistration == null && registry.size() > 0) {
+            System.out.println("FleetService: First vehicle registered, listening to simulated clock");
+            // Första fördelningen direkt, därefter en per simulerad kvart
+            clockRegistration = clock.onQuarterHour(this::onQuarterHour, true);
+        }
+    }
+
+    private void stopIfIdle() {
+        if (clockRegistration != null && registry.size() == 0) {
+            System.out.println("FleetService: Last vehicle deregistered, leaving simulated clock");
+            clockRegistration.cancel();
+            clockRegistration = null;
+            currentSlot = Long.MIN_VALUE;
+        }
+    }
+
+    private FleetVehicleResponse toResponse(int index, long nowSlot) {
+        long slot = nowSlot == Long.MIN_VALUE ? 0 : nowSlot;
+        return new FleetVehicleResponse(
+            registry.idAt(index),
+            registry.capacityKwhAt(index),
+            round(registry.energyKwhAt(index)),
+            round(registry.targetKwhAt(index)),
+            registry.maxPowerKwAt(index),
+            round(registry.allocatedKwAt(index)),
+            (registry.departureSlotAt(index) - slot) * TICK_HOURS,
+            round(LeastLaxityAllocator.laxityHours(registry, index, slot))
+        );
+    }
+
+    private static double valueOrDefault(Double value, double defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
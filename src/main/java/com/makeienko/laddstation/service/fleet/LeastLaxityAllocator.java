@@ -0,0 +1,83 @@
+package com.makeienko.laddstation.service.fleet;
+
+import com.makeienko.laddstation.service.schedule.ChargeSchedule;
+
+import java.util.Arrays;
+
+/**
+ * Fördelar depåns effektbudget mellan fordonen, minst slack först (least laxity first).
+ *
+ * Slack = tid kvar till avgång minus tiden det tar att ladda klart på full effekt.
+ * Varje fordon som behöver laddas får en sorteringsnyckel där slacken i minuter ligger
+ * i de höga bitarna och radindex i de låga; en primitiv sortering av long[] ger då ordningen
+ * utan jämförelseobjekt. Därefter fylls budgeten girigt i den ordningen. Kostnad per tidssteg
+ * är O(n log n) och nyckelbufferten återanvänds mellan tidsstegen.
+ */
+public class LeastLaxityAllocator {
+
+    static final int INDEX_BITS = 24;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final int LAXITY_BITS = 63 - INDEX_BITS;
+    private static final long LAXITY_MAX = (1L << LAXITY_BITS) - 1;
+    // Negativ slack (fordon som inte hinner bli klara) flyttas upp så att nyckeln alltid är positiv
+    private static final long LAXITY_OFFSET = 1L << (LAXITY_BITS - 1);
+    private static final double EPSILON = 1e-9;
+
+    private long[] keys = new long[0];
+
+    /**
+     * @param nowSlot   aktuell absolut lucka
+     * @param budgetKw  effekt som får fördelas det här tidssteget
+     * @param tickHours tidsstegets längd i timmar
+     * @return fördelad effekt totalt (kW)
+     */
+    public double allocate(FleetRegistry registry, long nowSlot, double budgetKw, double tickHours) {
+        int size = registry.size();
+        double[] energy = registry.energyKwh;
+        double[] target = registry.targetKwh;
+        double[] maxPower = registry.maxPowerKw;
+        long[] departure = registry.departureSlot;
+        double[] allocated = registry.allocatedKw;
+
+        if (keys.length < size) {
+            keys = new long[Math.max(size, keys.length * 2)];
+        }
+
+        int waiting = 0;
+        for (int i = 0; i < size; i++) {
+            allocated[i] = 0.0;
+            double remaining = target[i] - energy[i];
+            // Avgångna fordon står inte längre vid laddaren
+            if (remaining <= EPSILON || maxPower[i] <= 0 || departure[i] <= nowSlot) {
+                continue;
+            }
+            double hoursLeft = (departure[i] - nowSlot) / (double) ChargeSchedule.SLOTS_PER_HOUR;
+            double laxityMinutes = (hoursLeft - remaining / maxPower[i]) * 60.0;
+            long quantized = Math.round(laxityMinutes) + LAXITY_OFFSET;
+            quantized = Math.max(0, Math.min(LAXITY_MAX, quantized));
+            keys[waiting++] = (quantized << INDEX_BITS) | i;
+        }
+
+        Arrays.sort(keys, 0, waiting);
+
+        double left = Math.max(0.0, budgetKw);
+        for (int j = 0; j < waiting && left > EPSILON; j++) {
+            int i = (int) (keys[j] & INDEX_MASK);
+            // Inte mer än vad som behövs för att nå målet under tidssteget
+            double wanted = Math.min(maxPower[i], (target[i] - energy[i]) / tickHours);
+            double granted = Math.min(wanted, left);
+            allocated[i] = granted;
+            left -= granted;
+        }
+        return Math.max(0.0, budgetKw) - left;
+    }
+
+    /**
+     * Slack i timmar för ett fordon, samma definition som sorteringen använder
+     */
+    public static double laxityHours(FleetRegistry registry, int index, long nowSlot) {
+        double remaining = Math.max(0.0, registry.targetKwhAt(index) - registry.energyKwhAt(index));
+        double hoursLeft = (registry.departureSlotAt(index) - nowSlot) / (double) ChargeSchedule.SLOTS_PER_HOUR;
+        return registry.maxPowerKwAt(index) <= 0 ? hoursLeft : hoursLeft - remaining / registry.maxPowerKwAt(index);
+    }
+}
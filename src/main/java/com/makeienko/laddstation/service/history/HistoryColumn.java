@@ -0,0 +1,43 @@
+package com.makeienko.laddstation.service.history;
+
+import com.makeienko.laddstation.dto.InfoResponse;
+
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Numeriska kolumner i historiken, en double per rad och kolumn. Ordningen bestämmer
+ * kolumnernas plats i segmentfilen och får bara utökas i slutet (kräver ny filversion).
+ */
+public enum HistoryColumn {
+    SIM_TIME_HOUR(InfoResponse::getSimTimeHour, InfoResponse::setSimTimeHour),
+    SIM_TIME_MIN(InfoResponse::getSimTimeMin, InfoResponse::setSimTimeMin),
+    HOUSEHOLD_LOAD_KWH(InfoResponse::getHouseholdLoadKwh, InfoResponse::setHouseholdLoadKwh),
+    BATTERY_ENERGY_KWH(InfoResponse::getBatteryEnergyKwh, InfoResponse::setBatteryEnergyKwh),
+    EV_BATT_MAX_CAPACITY_KWH(InfoResponse::getEvBattMaxCapacityKwh, InfoResponse::setEvBattMaxCapacityKwh),
+    HOME_BATT_CAPACITY_KWH(InfoResponse::getHomeBattCapacityKwh, InfoResponse::setHomeBattCapacityKwh),
+    HOME_BATT_MAX_CAPACITY_KWH(InfoResponse::getHomeBattMaxCapacityKwh, InfoResponse::setHomeBattMaxCapacityKwh),
+    HOME_BATT_MIN_CAPACITY_KWH(InfoResponse::getHomeBattMinCapacityKwh, InfoResponse::setHomeBattMinCapacityKwh),
+    HOME_BATT_CAPACITY_PERCENT(InfoResponse::getHomeBattCapacityPercent, InfoResponse::setHomeBattCapacityPercent),
+    SOLAR_PRODUCTION_KWH(InfoResponse::getSolarProductionKwh, InfoResponse::setSolarProductionKwh),
+    SOLAR_MAX_CAPACITY_KWH(InfoResponse::getSolarMaxCapacityKwh, InfoResponse::setSolarMaxCapacityKwh),
+    NET_HOUSEHOLD_LOAD_KWH(InfoResponse::getNetHouseholdLoadKwh, InfoResponse::setNetHouseholdLoadKwh);
+
+    static final HistoryColumn[] VALUES = values();
+
+    private final ToDoubleFunction<InfoResponse> getter;
+    private final ObjDoubleConsumer<InfoResponse> setter;
+
+    HistoryColumn(ToDoubleFunction<InfoResponse> getter, ObjDoubleConsumer<InfoResponse> setter) {
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    double get(InfoResponse info) {
+        return getter.applyAsDouble(info);
+    }
+
+    void set(InfoResponse info, double value) {
+        setter.accept(info, value);
+    }
+}
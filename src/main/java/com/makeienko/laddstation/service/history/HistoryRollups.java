@@ -0,0 +1,125 @@
+package com.makeienko.laddstation.service.history;
+
+import com.makeienko.laddstation.dto.RollupPointResponse;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rollups på 1 minut, 15 minuter och 1 timme som uppdateras för varje snapshot som läggs
+ * i historiken, samt valet av nivå för en fråga. Allt hålls i minnet och byggs om från
+ * segmentfilerna vid start.
+ */
+final class HistoryRollups {
+
+    private final RollupSeries[] series;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    HistoryRollups() {
+        series = new RollupSeries[RollupResolution.VALUES.length];
+        for (RollupResolution resolution : RollupResolution.VALUES) {
+            series[resolution.ordinal()] = new RollupSeries(resolution);
+        }
+    }
+
+    HistoryRollups(RollupSeries... series) {
+        this.series = series;
+    }
+
+    /**
+     * values indexeras med RollupMetric.ordinal()
+     */
+    void add(long timestamp, double[] values) {
+        lock.lock();
+        try {
+            for (RollupSeries s : series) {
+                s.add(timestamp, values);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Väljer den grövsta nivån som ger minst points punkter i intervallet och har data
+     * ända från from. Räcker ingen nivå till blir det rådata (null) för korta intervall;
+     * för långa intervall utanför de fina nivåernas lagringstid används den finaste nivå
+     * som täcker, hellre än att läsa miljontals rader.
+     */
+    RollupResolution plan(long from, long to, int points) {
+        long desiredStep = (to - from) / points;
+        lock.lock();
+        try {
+            if (desiredStep < series[0].getResolution().getMillis()) {
+                return null;
+            }
+            for (int i = series.length - 1; i >= 0; i--) {
+                RollupSeries s = series[i];
+                if (s.getResolution().getMillis() <= desiredStep && s.coverageStart() <= from) {
+                    return s.getResolution();
+                }
+            }
+            for (RollupSeries s : series) {
+                if (s.coverageStart() <= from) {
+                    return s.getResolution();
+                }
+            }
+            return series[series.length - 1].getResolution();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Slår ihop nivåns intervall som börjar i [from, to) till punkter om step millisekunder
+     */
+    void collect(RollupResolution resolution, long from, long to, long step, List<RollupPointResponse> points) {
+        RollupSeries source = seriesFor(resolution);
+        RollupAccumulator accumulator = new RollupAccumulator();
+        long pointStart = 0;
+        lock.lock();
+        try {
+            long firstBucket = Math.floorDiv(from, resolution.getMillis()) * resolution.getMillis();
+            for (int i = source.lowerBound(firstBucket); i < source.size(); i++) {
+                long start = source.startAt(i);
+                if (start >= to) {
+                    break;
+                }
+                long bucketPoint = Math.floorDiv(start, step) * step;
+                if (!accumulator.isEmpty() && bucketPoint != pointStart) {
+                    points.add(accumulator.toResponse(pointStart));
+                    accumulator.reset();
+                }
+                pointStart = bucketPoint;
+                source.mergeInto(i, accumulator);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!accumulator.isEmpty()) {
+            points.add(accumulator.toResponse(pointStart));
+        }
+    }
+
+    int bucketCount() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (RollupSeries s : series) {
+                count += s.size();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private RollupSeries seriesFor(RollupResolution resolution) {
+        for (RollupSeries s : series) {
+            if (s.getResolution() == resolution) {
+                return s;
+            }
+        }
+        throw new IllegalArgumentException("No rollup kept at " + resolution.getLabel());
+    }
+}
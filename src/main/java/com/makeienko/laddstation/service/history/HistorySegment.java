@@ -0,0 +1,260 @@
+package com.makeienko.laddstation.service.history;
+
+import com.makeienko.laddstation.dto.InfoResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * En minnesmappad segmentfil med ett fast antal rader, lagrade kolumnvis:
+ *
+ * <pre>
+ * [huvud 4 KiB] [tidsstämpel long x kapacitet] [en double-kolumn per HistoryColumn x kapacitet]
+ * [laddar byte x kapacitet] [husbatteriläge byte x kapacitet]
+ * </pre>
+ *
+ * Huvudet innehåller magiskt tal, version, kapacitet, antal skrivna rader, första och sista
+ * tidsstämpel samt ordlistan för husbatteriläget (kod 0-254, 255 = null). En rad skrivs först
+ * i alla kolumner och räknas sedan in i huvudet, så en avbruten skrivning syns aldrig.
+ * Skrivningar kräver att anroparen håller butikens lås; läsningar kan ske samtidigt.
+ */
+final class HistorySegment implements AutoCloseable {
+
+    static final String FILE_SUFFIX = ".ldh";
+
+    private static final int MAGIC = 0x4C444853; // "LDHS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4096;
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_VERSION = 4;
+    private static final int OFF_CAPACITY = 8;
+    private static final int OFF_ROWS = 12;
+    private static final int OFF_FIRST_TIMESTAMP = 16;
+    private static final int OFF_LAST_TIMESTAMP = 24;
+    private static final int OFF_DICTIONARY = 32;
+    private static final int MAX_DICTIONARY_ENTRIES = 255;
+    private static final byte NULL_MODE = (byte) 0xFF;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int chargingOffset;
+    private final int modeOffset;
+    // Skrivs bara under butikens lås; läsare kan slå upp koder samtidigt
+    private final List<String> dictionary = new CopyOnWriteArrayList<>();
+    private int dictionaryEnd = OFF_DICTIONARY + 1;
+
+    private volatile int rows;
+    private volatile long firstTimestamp;
+    private volatile long lastTimestamp;
+
+    private HistorySegment(Path path, FileChannel channel, int capacity) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.capacity = capacity;
+        this.chargingOffset = doubleOffset(HistoryColumn.VALUES.length, capacity);
+        this.modeOffset = chargingOffset + capacity;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+    }
+
+    static long fileSize(int capacity) {
+        return HEADER_BYTES + 8L * capacity * (1 + HistoryColumn.VALUES.length) + 2L * capacity;
+    }
+
+    static HistorySegment create(Path path, int capacity) throws IOException {
+        if (capacity <= 0 || fileSize(capacity) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment capacity must be between 1 and " + maxCapacity() + " rows");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        HistorySegment segment = new HistorySegment(path, channel, capacity);
+        segment.buffer.putInt(OFF_VERSION, VERSION);
+        segment.buffer.putInt(OFF_CAPACITY, capacity);
+        segment.buffer.putInt(OFF_ROWS, 0);
+        segment.buffer.put(OFF_DICTIONARY, (byte) 0);
+        segment.buffer.putInt(OFF_MAGIC, MAGIC);
+        return segment;
+    }
+
+    static HistorySegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(OFF_DICTIONARY);
+            channel.read(header, 0);
+            if (header.getInt(OFF_MAGIC) != MAGIC || header.getInt(OFF_VERSION) != VERSION) {
+                throw new IOException("Not a history segment (version " + VERSION + "): " + path);
+            }
+            int capacity = header.getInt(OFF_CAPACITY);
+            if (capacity <= 0 || fileSize(capacity) > Integer.MAX_VALUE || channel.size() < fileSize(capacity)) {
+                throw new IOException("Truncated history segment: " + path);
+            }
+            HistorySegment segment = new HistorySegment(path, channel, capacity);
+            segment.readHeader();
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        int entries = Byte.toUnsignedInt(buffer.get(OFF_DICTIONARY));
+        int offset = OFF_DICTIONARY + 1;
+        for (int i = 0; i < entries; i++) {
+            int length = Byte.toUnsignedInt(buffer.get(offset));
+            byte[] bytes = new byte[length];
+            buffer.get(offset + 1, bytes);
+            dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+            offset += 1 + length;
+        }
+        dictionaryEnd = offset;
+        int stored = buffer.getInt(OFF_ROWS);
+        if (stored < 0 || stored > capacity) {
+            throw new IOException("Corrupt row count " + stored + " in " + path);
+        }
+        firstTimestamp = buffer.getLong(OFF_FIRST_TIMESTAMP);
+        lastTimestamp = buffer.getLong(OFF_LAST_TIMESTAMP);
+        rows = stored;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    boolean isFull() {
+        return rows >= capacity;
+    }
+
+    long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * Lägger till en rad. Tidsstämpeln måste vara minst lika stor som föregående.
+     */
+    void append(long timestamp, InfoResponse info) {
+        int row = rows;
+        if (row >= capacity) {
+            throw new IllegalStateException("Segment is full: " + path);
+        }
+        buffer.putLong(HEADER_BYTES + row * 8, timestamp);
+        for (HistoryColumn column : HistoryColumn.VALUES) {
+            buffer.putDouble(doubleOffset(column.ordinal(), capacity) + row * 8, column.get(info));
+        }
+        buffer.put(chargingOffset + row, (byte) (info.isEvBatteryChargeStartStopp() ? 1 : 0));
+        buffer.put(modeOffset + row, encodeMode(info.getHomeBatteryMode()));
+
+        if (row == 0) {
+            buffer.putLong(OFF_FIRST_TIMESTAMP, timestamp);
+            firstTimestamp = timestamp;
+        }
+        buffer.putLong(OFF_LAST_TIMESTAMP, timestamp);
+        lastTimestamp = timestamp;
+        buffer.putInt(OFF_ROWS, row + 1);
+        rows = row + 1;
+    }
+
+    long timestampAt(int row) {
+        return buffer.getLong(HEADER_BYTES + row * 8);
+    }
+
+    double valueAt(HistoryColumn column, int row) {
+        return buffer.getDouble(doubleOffset(column.ordinal(), capacity) + row * 8);
+    }
+
+    boolean chargingAt(int row) {
+        return buffer.get(chargingOffset + row) != 0;
+    }
+
+    String modeAt(int row) {
+        byte code = buffer.get(modeOffset + row);
+        return code == NULL_MODE ? null : dictionary.get(Byte.toUnsignedInt(code));
+    }
+
+    /**
+     * Första raden med tidsstämpel >= timestamp bland de skrivna raderna (binärsökning)
+     */
+    int lowerBound(long timestamp, int rowCount) {
+        int low = 0;
+        int high = rowCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestampAt(mid) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    InfoResponse read(int row) {
+        InfoResponse info = new InfoResponse();
+        for (HistoryColumn column : HistoryColumn.VALUES) {
+            column.set(info, valueAt(column, row));
+        }
+        info.setEvBatteryChargeStartStopp(chargingAt(row));
+        info.setHomeBatteryMode(modeAt(row));
+        return info;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private byte encodeMode(String mode) {
+        if (mode == null) {
+            return NULL_MODE;
+        }
+        int code = dictionary.indexOf(mode);
+        if (code >= 0) {
+            return (byte) code;
+        }
+        byte[] bytes = mode.getBytes(StandardCharsets.UTF_8);
+        if (dictionary.size() >= MAX_DICTIONARY_ENTRIES || bytes.length > 255
+                || dictionaryEnd + 1 + bytes.length > HEADER_BYTES) {
+            System.err.println("HistorySegment: Dictionary full, storing home battery mode '" + mode + "' as null");
+            return NULL_MODE;
+        }
+        buffer.put(dictionaryEnd, (byte) bytes.length);
+        buffer.put(dictionaryEnd + 1, bytes);
+        dictionaryEnd += 1 + bytes.length;
+        dictionary.add(mode);
+        buffer.put(OFF_DICTIONARY, (byte) dictionary.size());
+        return (byte) (dictionary.size() - 1);
+    }
+
+    /**
+     * Största kapacitet där hela filen ryms i en mappning (int-index)
+     */
+    static int maxCapacity() {
+        return (int) ((Integer.MAX_VALUE - HEADER_BYTES) / (8L * (1 + HistoryColumn.VALUES.length) + 2));
+    }
+
+    // Kapaciteten är kontrollerad mot fileSize, så förskjutningarna ryms i en int
+    private static int doubleOffset(int columnIndex, int capacity) {
+        return HEADER_BYTES + 8 * capacity * (1 + columnIndex);
+    }
+}
@@ -0,0 +1,519 @@
+package com.makeienko.laddstation.service.history;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.HistoryBucketResponse;
+import com.makeienko.laddstation.dto.HistorySampleResponse;
+import com.makeienko.laddstation.dto.HistoryStatsResponse;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.dto.RollupPointResponse;
+import com.makeienko.laddstation.dto.RollupSeriesResponse;
+import com.makeienko.laddstation.service.InfoSnapshotCache;
+import com.makeienko.laddstation.service.LaddstationApiClient;
+import com.makeienko.laddstation.service.SimulatorSeriesStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Append-only historik över alla hämtade /info-snapshots, lagrad kolumnvis i minnesmappade
+ * segmentfiler (se HistorySegment). Segmenten är sorterade i tid och tidsstämplarna växer
+ * monotont, så en tidpunkt hittas med binärsökning först bland segmenten och sedan i segmentet.
+ *
+ * Med 86 400 rader per segment blir ett år med en snapshot per sekund 365 filer om ca 9 MB.
+ * Läsningar sker utan lås mot de mappade filerna och ser bara rader som skrivits färdigt.
+ * Varje snapshot uppdaterar även rollups på 1 minut, 15 minuter och 1 timme (HistoryRollups).
+ *
+ * Tidsstämplarna är simulerad tid i millisekunder från simulatorns dygn 0, 00:00, så att
+ * rollups och intervall följer simulatorns klocka och inte hur snabbt den körs.
+ */
+@Service
+public class InfoHistoryStore {
+
+    private static final String FILE_PREFIX = "segment-";
+    private static final int BYTES_PER_ROW = 8 + 8 * HistoryColumn.VALUES.length + 2;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private final LaddstationApiClient apiClient;
+    private final LongSupplier simulatedDay;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentRows;
+    private final int maxRangeRows;
+    private final int maxBuckets;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final List<HistorySegment> segments = new CopyOnWriteArrayList<>();
+    private long nextSegmentNumber = 1;
+
+    private final HistoryRollups rollups = new HistoryRollups();
+    private final double[] rollupValues = new double[RollupMetric.VALUES.length]; // Skrivs under writeLock
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder failedAppends = new LongAdder();
+
+    @Autowired
+    public InfoHistoryStore(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore, LaddstationProperties properties) {
+        this(apiClient, seriesStore::getSimulatedDay, properties.getHistory());
+    }
+
+    InfoHistoryStore(LaddstationProperties.History history) {
+        this(null, () -> 0, history);
+    }
+
+    InfoHistoryStore(LaddstationApiClient apiClient, LongSupplier simulatedDay, LaddstationProperties.History history) {
+        this.apiClient = apiClient;
+        this.simulatedDay = simulatedDay;
+        this.enabled = history.isEnabled();
+        this.directory = Paths.get(history.getDirectory());
+        this.segmentRows = history.getSegmentRows();
+        this.maxRangeRows = history.getMaxRangeRows();
+        this.maxBuckets = history.getMaxBuckets();
+        if (segmentRows <= 0 || segmentRows > HistorySegment.maxCapacity()) {
+            throw new IllegalArgumentException("laddstation.history.segment-rows must be between 1 and " + HistorySegment.maxCapacity());
+        }
+    }
+
+    /**
+     * Öppnar befintliga segment och börjar spara snapshots från klienten
+     */
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        openExistingSegments();
+        if (apiClient != null) {
+            apiClient.addInfoListener(this::record);
+        }
+    }
+
+    /**
+     * Sparar en snapshot stämplad med simulerad tid. Fel loggas så att pollningen inte påverkas.
+     */
+    public void record(InfoResponse info) {
+        try {
+            append(simulatedMillis(simulatedDay.getAsLong(), info), info);
+        } catch (RuntimeException e) {
+            failedAppends.increment();
+            System.err.println("InfoHistoryStore: Failed to record snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lägger till en snapshot. En tidsstämpel som ligger före den senaste (t.ex. när simulatorn
+     * nollställts till 00:00) sparas som den senaste så att tidsordningen håller.
+     */
+    public void append(long timestamp, InfoResponse info) {
+        if (!enabled) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            HistorySegment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (segment != null && segment.getRows() > 0) {
+                timestamp = Math.max(timestamp, segment.getLastTimestamp());
+            }
+            if (segment == null || segment.isFull()) {
+                segment = createSegment();
+            }
+            segment.append(timestamp, info);
+            for (RollupMetric metric : RollupMetric.VALUES) {
+                rollupValues[metric.ordinal()] = metric.getColumn().get(info);
+            }
+            rollups.add(timestamp, rollupValues);
+            appended.increment();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Snapshots med from <= tidsstämpel < to i tidsordning, högst limit stycken
+     */
+    public List<HistorySampleResponse> range(long from, long to, int limit) {
+        validateRange(from, to);
+        if (limit <= 0 || limit > maxRangeRows) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxRangeRows);
+        }
+
+        List<HistorySampleResponse> samples = new ArrayList<>();
+        List<HistorySegment> snapshot = segments;
+        for (int s = firstSegmentEndingAtOrAfter(snapshot, from); s < snapshot.size() && samples.size() < limit; s++) {
+            HistorySegment segment = snapshot.get(s);
+            int rows = segment.getRows();
+            if (rows == 0 || segment.getFirstTimestamp() >= to) {
+                break;
+            }
+            for (int row = segment.lowerBound(from, rows); row < rows && samples.size() < limit; row++) {
+                long timestamp = segment.timestampAt(row);
+                if (timestamp >= to) {
+                    return samples;
+                }
+                samples.add(new HistorySampleResponse(timestamp, segment.read(row)));
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Medelvärden per intervall om bucketMillis, räknat från from. Tomma intervall utelämnas.
+     */
+    public List<HistoryBucketResponse> downsample(long from, long to, long bucketMillis) {
+        validateRange(from, to);
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("bucket must be positive");
+        }
+        if ((to - from + bucketMillis - 1) / bucketMillis > maxBuckets) {
+            throw new IllegalArgumentException("Range would produce more than " + maxBuckets + " buckets");
+        }
+
+        List<HistoryBucketResponse> buckets = new ArrayList<>();
+        BucketAccumulator bucket = new BucketAccumulator();
+        forEachRow(from, to, (segment, row, timestamp) -> {
+            long bucketStart = from + (timestamp - from) / bucketMillis * bucketMillis;
+            if (bucket.samples > 0 && bucketStart != bucket.bucketStart) {
+                buckets.add(bucket.toResponse());
+                bucket.reset();
+            }
+            bucket.add(bucketStart, segment, row);
+        });
+        if (bucket.samples > 0) {
+            buckets.add(bucket.toResponse());
+        }
+        return buckets;
+    }
+
+    /**
+     * Högst points punkter för intervallet. Läser den grövsta rollup-nivån som ger tillräckligt
+     * många punkter och slår ihop dess intervall till jämna steg; korta intervall läses från rådata.
+     */
+    public RollupSeriesResponse rollup(long from, long to, int points) {
+        validateRange(from, to);
+        if (points <= 0 || points > maxBuckets) {
+            throw new IllegalArgumentException("points must be between 1 and " + maxBuckets);
+        }
+
+        RollupResolution resolution = rollups.plan(from, to, points);
+        long sourceMillis = resolution != null ? resolution.getMillis() : 1;
+        long step = Math.max(sourceMillis, ceilToMultiple(ceilDiv(to - from, points), sourceMillis));
+        // Stegen räknas från epoch, så ett ojämnt from kan ge en punkt extra
+        while (ceilDiv(to - Math.floorDiv(from, step) * step, step) > points) {
+            step += sourceMillis;
+        }
+
+        List<RollupPointResponse> result = new ArrayList<>();
+        if (resolution != null) {
+            rollups.collect(resolution, from, to, step, result);
+        } else {
+            collectRaw(from, to, step, result);
+        }
+        return new RollupSeriesResponse(resolution != null ? resolution.getLabel() : "raw", step, from, to, result);
+    }
+
+    /**
+     * Simulerad tid i millisekunder från dygn 0, 00:00
+     */
+    public static long simulatedMillis(long simulatedDay, InfoResponse info) {
+        return (simulatedDay * MINUTES_PER_DAY + InfoSnapshotCache.simMinuteOfDay(info)) * MILLIS_PER_MINUTE;
+    }
+
+    /**
+     * Senaste sparade tidsstämpel, eller 0 om historiken är tom
+     */
+    public long getLatestTimestamp() {
+        List<HistorySegment> snapshot = segments;
+        for (int s = snapshot.size() - 1; s >= 0; s--) {
+            if (snapshot.get(s).getRows() > 0) {
+                return snapshot.get(s).getLastTimestamp();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Största limit som range() tar emot
+     */
+    public int getMaxRangeRows() {
+        return maxRangeRows;
+    }
+
+    public HistoryStatsResponse getStats() {
+        List<HistorySegment> snapshot = segments;
+        long rows = 0;
+        long bytes = 0;
+        for (HistorySegment segment : snapshot) {
+            rows += segment.getRows();
+            bytes += HistorySegment.fileSize(segment.getCapacity());
+        }
+        HistorySegment first = snapshot.isEmpty() ? null : snapshot.get(0);
+        HistorySegment last = snapshot.isEmpty() ? null : snapshot.get(snapshot.size() - 1);
+        return new HistoryStatsResponse(
+            enabled,
+            directory.toAbsolutePath().toString(),
+            snapshot.size(),
+            rows,
+            bytes,
+            BYTES_PER_ROW,
+            appended.sum(),
+            failedAppends.sum(),
+            rollups.bucketCount(),
+            first != null && first.getRows() > 0 ? first.getFirstTimestamp() : null,
+            last != null && last.getRows() > 0 ? last.getLastTimestamp() : null
+        );
+    }
+
+    @PreDestroy
+    public void close() {
+        writeLock.lock();
+        try {
+            for (HistorySegment segment : segments) {
+                try {
+                    segment.close();
+                } catch (IOException e) {
+                    System.err.println("InfoHistoryStore: Failed to close " + segment.getPath() + ": " + e.getMessage());
+                }
+            }
+            segments.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void collectRaw(long from, long to, long step, List<RollupPointResponse> points) {
+        RollupAccumulator accumulator = new RollupAccumulator();
+        long[] pointStart = new long[1];
+        forEachRow(from, to, (segment, row, timestamp) -> {
+            long start = Math.floorDiv(timestamp, step) * step;
+            if (!accumulator.isEmpty() && start != pointStart[0]) {
+                points.add(accumulator.toResponse(pointStart[0]));
+                accumulator.reset();
+            }
+            pointStart[0] = start;
+            for (RollupMetric metric : RollupMetric.VALUES) {
+                accumulator.add(metric.ordinal(), segment.valueAt(metric.getColumn(), row));
+            }
+            accumulator.addSamples(1);
+        });
+        if (!accumulator.isEmpty()) {
+            points.add(accumulator.toResponse(pointStart[0]));
+        }
+    }
+
+    /**
+     * Besöker alla rader med from <= tidsstämpel < to i tidsordning
+     */
+    private void forEachRow(long from, long to, RowVisitor visitor) {
+        List<HistorySegment> snapshot = segments;
+        for (int s = firstSegmentEndingAtOrAfter(snapshot, from); s < snapshot.size(); s++) {
+            HistorySegment segment = snapshot.get(s);
+            int rows = segment.getRows();
+            if (rows == 0 || segment.getFirstTimestamp() >= to) {
+                return;
+            }
+            for (int row = segment.lowerBound(from, rows); row < rows; row++) {
+                long timestamp = segment.timestampAt(row);
+                if (timestamp >= to) {
+                    return;
+                }
+                visitor.visit(segment, row, timestamp);
+            }
+        }
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    private static long ceilToMultiple(long value, long multiple) {
+        return ceilDiv(value, multiple) * multiple;
+    }
+
+    private void validateRange(long from, long to) {
+        if (from >= to) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+    }
+
+    /**
+     * Index för första segmentet vars sista tidsstämpel är >= timestamp (binärsökning)
+     */
+    private static int firstSegmentEndingAtOrAfter(List<HistorySegment> snapshot, long timestamp) {
+        int low = 0;
+        int high = snapshot.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (snapshot.get(mid).getLastTimestamp() < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void openExistingSegments() {
+        if (!Files.isDirectory(directory)) {
+            return; // Katalogen skapas vid första skrivningen
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + HistorySegment.FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list history segments in " + directory, e);
+        }
+        files.sort(null); // Löpnumret är nollutfyllt, så namnordning är skrivordning
+
+        for (Path file : files) {
+            try {
+                segments.add(HistorySegment.open(file));
+                nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber(file) + 1);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("InfoHistoryStore: Skipping unreadable segment " + file + ": " + e.getMessage());
+            }
+        }
+        System.out.println("InfoHistoryStore: Opened " + segments.size() + " segments in " + directory.toAbsolutePath());
+        rebuildRollups();
+    }
+
+    /**
+     * Fyller rollups från segmenten; segment äldre än den grövsta nivåns lagringstid hoppas över
+     */
+    private void rebuildRollups() {
+        if (segments.isEmpty()) {
+            return;
+        }
+        RollupResolution coarsest = RollupResolution.VALUES[RollupResolution.VALUES.length - 1];
+        long oldest = segments.get(segments.size() - 1).getLastTimestamp() - coarsest.getMillis() * coarsest.getRetainedBuckets();
+        double[] values = new double[RollupMetric.VALUES.length];
+        long replayed = 0;
+        for (HistorySegment segment : segments) {
+            int rows = segment.getRows();
+            if (rows == 0 || segment.getLastTimestamp() < oldest) {
+                continue;
+            }
+            for (int row = 0; row < rows; row++) {
+                for (RollupMetric metric : RollupMetric.VALUES) {
+                    values[metric.ordinal()] = segment.valueAt(metric.getColumn(), row);
+                }
+                rollups.add(segment.timestampAt(row), values);
+            }
+            replayed += rows;
+        }
+        System.out.println("InfoHistoryStore: Rebuilt rollups from " + replayed + " rows");
+    }
+
+    private HistorySegment createSegment() {
+        try {
+            Files.createDirectories(directory);
+            Path file = directory.resolve(String.format("%s%012d%s", FILE_PREFIX, nextSegmentNumber, HistorySegment.FILE_SUFFIX));
+            HistorySegment segment = HistorySegment.create(file, segmentRows);
+            nextSegmentNumber++;
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create history segment in " + directory, e);
+        }
+    }
+
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - HistorySegment.FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowVisitor {
+        void visit(HistorySegment segment, int row, long timestamp);
+    }
+
+    /**
+     * Summor för ett intervall; läser kolumnerna direkt ur segmentet utan att skapa InfoResponse
+     */
+    private static final class BucketAccumulator {
+        private long bucketStart;
+        private int samples;
+        private int charging;
+        private double householdLoad;
+        private double batteryEnergy;
+        private double minBatteryEnergy;
+        private double maxBatteryEnergy;
+        private double homeBattCapacity;
+        private double homeBattPercent;
+        private double solarProduction;
+        private double netLoad;
+        private String lastMode;
+
+        void add(long start, HistorySegment segment, int row) {
+            double energy = segment.valueAt(HistoryColumn.BATTERY_ENERGY_KWH, row);
+            if (samples == 0) {
+                bucketStart = start;
+                minBatteryEnergy = energy;
+                maxBatteryEnergy = energy;
+            } else {
+                minBatteryEnergy = Math.min(minBatteryEnergy, energy);
+                maxBatteryEnergy = Math.max(maxBatteryEnergy, energy);
+            }
+            samples++;
+            charging += segment.chargingAt(row) ? 1 : 0;
+            householdLoad += segment.valueAt(HistoryColumn.HOUSEHOLD_LOAD_KWH, row);
+            batteryEnergy += energy;
+            homeBattCapacity += segment.valueAt(HistoryColumn.HOME_BATT_CAPACITY_KWH, row);
+            homeBattPercent += segment.valueAt(HistoryColumn.HOME_BATT_CAPACITY_PERCENT, row);
+            solarProduction += segment.valueAt(HistoryColumn.SOLAR_PRODUCTION_KWH, row);
+            netLoad += segment.valueAt(HistoryColumn.NET_HOUSEHOLD_LOAD_KWH, row);
+            lastMode = segment.modeAt(row);
+        }
+
+        HistoryBucketResponse toResponse() {
+            return new HistoryBucketResponse(
+                bucketStart,
+                samples,
+                round(householdLoad / samples),
+                round(batteryEnergy / samples),
+                minBatteryEnergy,
+                maxBatteryEnergy,
+                round(homeBattCapacity / samples),
+                round(homeBattPercent / samples),
+                round(solarProduction / samples),
+                round(netLoad / samples),
+                round((double) charging / samples),
+                lastMode
+            );
+        }
+
+        void reset() {
+            samples = 0;
+            charging = 0;
+            householdLoad = 0;
+            batteryEnergy = 0;
+            homeBattCapacity = 0;
+            homeBattPercent = 0;
+            solarProduction = 0;
+            netLoad = 0;
+            lastMode = null;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 1000.0) / 1000.0;
+        }
+    }
+}
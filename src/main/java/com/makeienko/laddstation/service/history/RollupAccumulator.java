@@ -0,0 +1,70 @@
+package com.makeienko.laddstation.service.history;
+
+import com.makeienko.laddstation.dto.RollupPointResponse;
+import com.makeienko.laddstation.dto.RollupStatsResponse;
+
+/**
+ * Slår ihop snapshots eller färdiga rollup-intervall till en punkt i svaret.
+ * Medelvärdet viktas med antalet snapshots, så resultatet blir detsamma oavsett källnivå.
+ */
+final class RollupAccumulator {
+
+    private static final int METRICS = RollupMetric.VALUES.length;
+
+    private final double[] min = new double[METRICS];
+    private final double[] max = new double[METRICS];
+    private final double[] sum = new double[METRICS];
+    private final double[] last = new double[METRICS];
+    private long samples;
+    private boolean empty = true;
+
+    /**
+     * Ett enskilt värde; anropas per metric och följs av addSamples(1)
+     */
+    void add(int metric, double value) {
+        add(metric, value, value, value, value);
+    }
+
+    void add(int metric, double minValue, double maxValue, double sumValue, double lastValue) {
+        if (empty) {
+            min[metric] = minValue;
+            max[metric] = maxValue;
+            sum[metric] = sumValue;
+        } else {
+            min[metric] = Math.min(min[metric], minValue);
+            max[metric] = Math.max(max[metric], maxValue);
+            sum[metric] += sumValue;
+        }
+        last[metric] = lastValue;
+    }
+
+    void addSamples(long count) {
+        samples += count;
+        empty = false;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    RollupPointResponse toResponse(long bucketStart) {
+        return new RollupPointResponse(
+            bucketStart,
+            samples,
+            stats(RollupMetric.BATTERY_ENERGY_KWH),
+            stats(RollupMetric.HOUSEHOLD_LOAD_KWH),
+            stats(RollupMetric.NET_HOUSEHOLD_LOAD_KWH),
+            stats(RollupMetric.SOLAR_PRODUCTION_KWH)
+        );
+    }
+
+    void reset() {
+        samples = 0;
+        empty = true;
+    }
+
+    private RollupStatsResponse stats(RollupMetric metric) {
+        int m = metric.ordinal();
+        return new RollupStatsResponse(min[m], max[m], Math.round(sum[m] / samples * 1000.0) / 1000.0, last[m]);
+    }
+}
@@ -0,0 +1,23 @@
+package com.makeienko.laddstation.service.history;
+
+/**
+ * Kolumner som aggregeras till min/max/medel/senaste i rollup-nivåerna
+ */
+public enum RollupMetric {
+    BATTERY_ENERGY_KWH(HistoryColumn.BATTERY_ENERGY_KWH),
+    HOUSEHOLD_LOAD_KWH(HistoryColumn.HOUSEHOLD_LOAD_KWH),
+    NET_HOUSEHOLD_LOAD_KWH(HistoryColumn.NET_HOUSEHOLD_LOAD_KWH),
+    SOLAR_PRODUCTION_KWH(HistoryColumn.SOLAR_PRODUCTION_KWH);
+
+    static final RollupMetric[] VALUES = values();
+
+    private final HistoryColumn column;
+
+    RollupMetric(HistoryColumn column) {
+        this.column = column;
+    }
+
+    HistoryColumn getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,37 @@
+package com.makeienko.laddstation.service.history;
+
+import java.time.Duration;
+
+/**
+ * Upplösningar som hålls uppdaterade i minnet, från finast till grövst. Antalet intervall
+ * som sparas per nivå bestämmer hur långt bakåt nivån räcker (7, 90 respektive 730 dygn).
+ */
+public enum RollupResolution {
+    ONE_MINUTE("1m", Duration.ofMinutes(1), 7 * 24 * 60),
+    FIFTEEN_MINUTES("15m", Duration.ofMinutes(15), 90 * 24 * 4),
+    ONE_HOUR("1h", Duration.ofHours(1), 730 * 24);
+
+    static final RollupResolution[] VALUES = values();
+
+    private final String label;
+    private final long millis;
+    private final int retainedBuckets;
+
+    RollupResolution(String label, Duration duration, int retainedBuckets) {
+        this.label = label;
+        this.millis = duration.toMillis();
+        this.retainedBuckets = retainedBuckets;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    int getRetainedBuckets() {
+        return retainedBuckets;
+    }
+}
@@ -0,0 +1,133 @@
+package com.makeienko.laddstation.service.history;
+
+/**
+ * Ringbuffert med aggregat per intervall för en upplösning. Varje intervall har antal snapshots
+ * och min/max/summa/senaste per RollupMetric i platta arrayer; när bufferten är full skrivs det
+ * äldsta intervallet över. Inte trådsäker, HistoryRollups låser runt alla anrop.
+ */
+final class RollupSeries {
+
+    private static final int METRICS = RollupMetric.VALUES.length;
+
+    private final RollupResolution resolution;
+    private final long millis;
+    private final int capacity;
+    private final long[] starts;
+    private final long[] counts;
+    private final double[] min;
+    private final double[] max;
+    private final double[] sum;
+    private final double[] last;
+
+    private int head; // Fysisk plats för äldsta intervallet
+    private int size;
+    private boolean evicted;
+
+    RollupSeries(RollupResolution resolution) {
+        this(resolution, resolution.getRetainedBuckets());
+    }
+
+    RollupSeries(RollupResolution resolution, int capacity) {
+        this.resolution = resolution;
+        this.millis = resolution.getMillis();
+        this.capacity = capacity;
+        this.starts = new long[capacity];
+        this.counts = new long[capacity];
+        this.min = new double[capacity * METRICS];
+        this.max = new double[capacity * METRICS];
+        this.sum = new double[capacity * METRICS];
+        this.last = new double[capacity * METRICS];
+    }
+
+    RollupResolution getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Lägger en snapshot i sitt intervall. Tidsstämplarna kommer i stigande ordning från
+     * historiken, så bara det senaste intervallet kan vara öppet.
+     */
+    void add(long timestamp, double[] values) {
+        long start = Math.floorDiv(timestamp, millis) * millis;
+        int slot = size > 0 && start <= starts[physical(size - 1)] ? physical(size - 1) : open(start);
+
+        long count = ++counts[slot];
+        int base = slot * METRICS;
+        for (int m = 0; m < METRICS; m++) {
+            double value = values[m];
+            int i = base + m;
+            if (count == 1) {
+                min[i] = value;
+                max[i] = value;
+                sum[i] = value;
+            } else {
+                min[i] = Math.min(min[i], value);
+                max[i] = Math.max(max[i], value);
+                sum[i] += value;
+            }
+            last[i] = value;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long startAt(int index) {
+        return starts[physical(index)];
+    }
+
+    /**
+     * Äldsta tidpunkten som nivån har komplett data för; Long.MIN_VALUE om inget har skrivits över
+     */
+    long coverageStart() {
+        return evicted ? starts[head] : Long.MIN_VALUE;
+    }
+
+    /**
+     * Första index (äldst = 0) vars intervall börjar på eller efter timestamp
+     */
+    int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (startAt(mid) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    void mergeInto(int index, RollupAccumulator accumulator) {
+        int slot = physical(index);
+        int base = slot * METRICS;
+        for (int m = 0; m < METRICS; m++) {
+            int i = base + m;
+            accumulator.add(m, min[i], max[i], sum[i], last[i]);
+        }
+        accumulator.addSamples(counts[slot]);
+    }
+
+    private int open(long start) {
+        int slot;
+        if (size < capacity) {
+            slot = physical(size);
+            size++;
+        } else {
+            slot = head;
+            head = (head + 1) % capacity;
+            evicted = true;
+        }
+        starts[slot] = start;
+        counts[slot] = 0;
+        return slot;
+    }
+
+    private int physical(int index) {
+        int slot = head + index;
+        return slot >= capacity ? slot - capacity : slot;
+    }
+}
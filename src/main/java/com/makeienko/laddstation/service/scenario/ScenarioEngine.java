@@ -0,0 +1,133 @@
+package com.makeienko.laddstation.service.scenario;
+
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.service.schedule.ChargeSchedule;
+import com.makeienko.laddstation.service.schedule.CostMinimizingScheduler;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Löser det kostnadsoptimala laddschemat för varje scenario i en ScenarioGrid, parallellt på
+ * en egen fork-join-pool. Scenarierna delas i halvor tills en bit är högst LEAF_SCENARIOS
+ * scenarier; en bit har egna schedulers per (säkring, laddeffekt) och bygger om priset per
+ * lucka bara när priskurva, säkring eller laddeffekt byts, vilket med batteristorleken
+ * innerst i ordningen sker sällan. Inget delas mellan bitarna utom resultatets arrayer,
+ * där varje bit skriver sina egna index.
+ */
+public class ScenarioEngine implements AutoCloseable {
+
+    static final int LEAF_SCENARIOS = 256;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism antal trådar; 0 eller mindre betyder en per processorkärna
+     */
+    public ScenarioEngine(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public ScenarioMatrix evaluate(ScenarioGrid grid) {
+        int size = grid.size();
+        double[] cost = new double[size];
+        boolean[] feasible = new boolean[size];
+        double[] planned = new double[size];
+
+        long started = System.nanoTime();
+        pool.invoke(new Slice(grid, cost, feasible, planned, 0, size));
+        return new ScenarioMatrix(grid, cost, feasible, planned, System.nanoTime() - started);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Löser scenarierna [from, to) i ordning i den anropande tråden
+     */
+    static void evaluateRange(ScenarioGrid grid, double[] cost, boolean[] feasible, double[] planned, int from, int to) {
+        int batteries = grid.batteryCount();
+        int chargers = grid.chargerCount();
+        int fuses = grid.fuseCount();
+        int horizon = grid.getHorizonSlots();
+        int start = grid.getStartSlotOfDay();
+
+        double[] slotPrices = new double[horizon];
+        CostMinimizingScheduler[] schedulers = new CostMinimizingScheduler[fuses * chargers];
+        CostMinimizingScheduler scheduler = null;
+        int currentKey = -1;
+
+        for (int i = from; i < to; i++) {
+            int key = i / batteries; // (priskurva, säkring, laddeffekt)
+            if (key != currentKey) {
+                currentKey = key;
+                int charger = key % chargers;
+                int fuse = key / chargers % fuses;
+                int price = key / (chargers * fuses);
+                int schedulerIndex = fuse * chargers + charger;
+                scheduler = schedulers[schedulerIndex];
+                if (scheduler == null) {
+                    scheduler = new CostMinimizingScheduler(grid.getChargerKw(charger), grid.getFuseKw(fuse));
+                    schedulers[schedulerIndex] = scheduler;
+                }
+                fillSlotPrices(scheduler, grid.getPrices(price), grid.getBaseload(), start, slotPrices);
+            }
+
+            ChargeSchedule schedule = scheduler.solve(slotPrices, start, horizon, grid.energyNeededKwh(i % batteries));
+            cost[i] = schedule.getTotalCost();
+            feasible[i] = schedule.isFeasible();
+            planned[i] = schedule.getPlannedEnergyKwh();
+        }
+    }
+
+    /**
+     * Pris per lucka, spärrad där hushållets last plus laddeffekten går över säkringen
+     */
+    private static void fillSlotPrices(CostMinimizingScheduler scheduler, HourlySeries prices, HourlySeries baseload,
+                                       int startSlotOfDay, double[] slotPrices) {
+        for (int t = 0; t < slotPrices.length; t++) {
+            int hour = (startSlotOfDay + t) % ChargeSchedule.SLOTS_PER_DAY / ChargeSchedule.SLOTS_PER_HOUR;
+            slotPrices[t] = scheduler.isWithinFuseLimit(baseload.get(hour % baseload.length()))
+                ? prices.get(hour % prices.length())
+                : CostMinimizingScheduler.BLOCKED;
+        }
+    }
+
+    // Uppgiften körs bara i poolen och serialiseras aldrig
+    @SuppressWarnings("serial")
+    private static final class Slice extends RecursiveAction {
+
+        private final ScenarioGrid grid;
+        private final double[] cost;
+        private final boolean[] feasible;
+        private final double[] planned;
+        private final int from;
+        private final int to;
+
+        Slice(ScenarioGrid grid, double[] cost, boolean[] feasible, double[] planned, int from, int to) {
+            this.grid = grid;
+            this.cost = cost;
+            this.feasible = feasible;
+            this.planned = planned;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SCENARIOS) {
+                evaluateRange(grid, cost, feasible, planned, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Slice(grid, cost, feasible, planned, from, middle),
+                new Slice(grid, cost, feasible, planned, middle, to));
+        }
+    }
+}
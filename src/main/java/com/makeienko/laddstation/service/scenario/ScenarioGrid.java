@@ -0,0 +1,164 @@
+package com.makeienko.laddstation.service.scenario;
+
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.service.schedule.ChargeSchedule;
+
+/**
+ * Parametrarna för en what-if-körning: varje kombination av priskurva, säkring, laddeffekt
+ * och batteristorlek är ett scenario. Hushållets last, starttid, avgång och batterinivåer
+ * är gemensamma för alla scenarier.
+ *
+ * Scenarierna numreras med priskurvan ytterst och batteristorleken innerst, se index().
+ */
+public final class ScenarioGrid {
+
+    private final String[] priceNames;
+    private final HourlySeries[] prices;
+    private final double[] fuseKw;
+    private final double[] chargerKw;
+    private final double[] batteryKwh;
+    private final HourlySeries baseload;
+    private final int startSlotOfDay;
+    private final int horizonSlots;
+    private final double startPercent;
+    private final double targetPercent;
+    private final int size;
+
+    /**
+     * @param priceNames    namn per priskurva, samma ordning som prices
+     * @param prices        pris per timme (öre/kWh) för varje priskurva
+     * @param fuseKw        säkringsstorlekar att pröva
+     * @param chargerKw     laddeffekter att pröva
+     * @param batteryKwh    elbilens batteristorlekar att pröva
+     * @param baseload      hushållets last per timme (kW)
+     * @param startSlotOfDay första luckan som kan laddas (0-95)
+     * @param horizonSlots  antal luckor fram till avgång
+     * @param startPercent  elbilens nivå vid start
+     * @param targetPercent elbilens nivå vid avgång
+     */
+    public ScenarioGrid(String[] priceNames, HourlySeries[] prices, double[] fuseKw, double[] chargerKw, double[] batteryKwh,
+                        HourlySeries baseload, int startSlotOfDay, int horizonSlots, double startPercent, double targetPercent) {
+        if (priceNames.length != prices.length) {
+            throw new IllegalArgumentException("Got " + priceNames.length + " price names for " + prices.length + " price series");
+        }
+        for (HourlySeries series : prices) {
+            if (series == null || series.isEmpty()) {
+                throw new IllegalArgumentException("Price series must not be empty");
+            }
+        }
+        if (baseload == null || baseload.isEmpty()) {
+            throw new IllegalArgumentException("Baseload series must not be empty");
+        }
+        requirePositive("fuseKw", fuseKw);
+        requirePositive("chargerKw", chargerKw);
+        requirePositive("batteryKwh", batteryKwh);
+        if (horizonSlots < 1 || horizonSlots > ChargeSchedule.SLOTS_PER_DAY) {
+            throw new IllegalArgumentException("horizonSlots out of range: " + horizonSlots);
+        }
+        if (startPercent < 0 || targetPercent > 100 || startPercent > targetPercent) {
+            throw new IllegalArgumentException("Invalid battery levels: " + startPercent + " % -> " + targetPercent + " %");
+        }
+
+        long count = (long) prices.length * fuseKw.length * chargerKw.length * batteryKwh.length;
+        if (count == 0 || count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Scenario count out of range: " + count);
+        }
+
+        this.priceNames = priceNames.clone();
+        this.prices = prices.clone();
+        this.fuseKw = fuseKw.clone();
+        this.chargerKw = chargerKw.clone();
+        this.batteryKwh = batteryKwh.clone();
+        this.baseload = baseload;
+        this.startSlotOfDay = Math.floorMod(startSlotOfDay, ChargeSchedule.SLOTS_PER_DAY);
+        this.horizonSlots = horizonSlots;
+        this.startPercent = startPercent;
+        this.targetPercent = targetPercent;
+        this.size = (int) count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Scenariots plats i resultatets arrayer
+     */
+    public int index(int price, int fuse, int charger, int battery) {
+        return ((price * fuseKw.length + fuse) * chargerKw.length + charger) * batteryKwh.length + battery;
+    }
+
+    public int priceCount() {
+        return prices.length;
+    }
+
+    public int fuseCount() {
+        return fuseKw.length;
+    }
+
+    public int chargerCount() {
+        return chargerKw.length;
+    }
+
+    public int batteryCount() {
+        return batteryKwh.length;
+    }
+
+    public String getPriceName(int price) {
+        return priceNames[price];
+    }
+
+    public HourlySeries getPrices(int price) {
+        return prices[price];
+    }
+
+    public double getFuseKw(int fuse) {
+        return fuseKw[fuse];
+    }
+
+    public double getChargerKw(int charger) {
+        return chargerKw[charger];
+    }
+
+    public double getBatteryKwh(int battery) {
+        return batteryKwh[battery];
+    }
+
+    public HourlySeries getBaseload() {
+        return baseload;
+    }
+
+    public int getStartSlotOfDay() {
+        return startSlotOfDay;
+    }
+
+    public int getHorizonSlots() {
+        return horizonSlots;
+    }
+
+    public double getStartPercent() {
+        return startPercent;
+    }
+
+    public double getTargetPercent() {
+        return targetPercent;
+    }
+
+    /**
+     * Energi som ska laddas in i ett batteri av given storlek
+     */
+    public double energyNeededKwh(int battery) {
+        return batteryKwh[battery] * (targetPercent - startPercent) / 100.0;
+    }
+
+    private static void requirePositive(String name, double[] values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException(name + " must contain at least one value");
+        }
+        for (double value : values) {
+            if (!(value > 0) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException(name + " must be positive: " + value);
+            }
+        }
+    }
+}
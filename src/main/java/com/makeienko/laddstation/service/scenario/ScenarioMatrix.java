@@ -0,0 +1,59 @@
+package com.makeienko.laddstation.service.scenario;
+
+/**
+ * Resultat från ScenarioEngine: kostnad, om behovet hann täckas och planerad energi per
+ * scenario, i samma ordning som ScenarioGrid.index().
+ */
+public final class ScenarioMatrix {
+
+    private final ScenarioGrid grid;
+    private final double[] cost;
+    private final boolean[] feasible;
+    private final double[] plannedEnergyKwh;
+    private final long elapsedNanos;
+
+    ScenarioMatrix(ScenarioGrid grid, double[] cost, boolean[] feasible, double[] plannedEnergyKwh, long elapsedNanos) {
+        this.grid = grid;
+        this.cost = cost;
+        this.feasible = feasible;
+        this.plannedEnergyKwh = plannedEnergyKwh;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public ScenarioGrid getGrid() {
+        return grid;
+    }
+
+    public int size() {
+        return cost.length;
+    }
+
+    /**
+     * Laddkostnad i öre; för ett scenario som inte hinner bli klart gäller kostnaden det som hinner laddas
+     */
+    public double getCost(int index) {
+        return cost[index];
+    }
+
+    public boolean isFeasible(int index) {
+        return feasible[index];
+    }
+
+    public double getPlannedEnergyKwh(int index) {
+        return plannedEnergyKwh[index];
+    }
+
+    public int getFeasibleCount() {
+        int count = 0;
+        for (boolean f : feasible) {
+            if (f) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
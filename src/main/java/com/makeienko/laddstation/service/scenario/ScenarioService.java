@@ -0,0 +1,178 @@
+package com.makeienko.laddstation.service.scenario;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.dto.ScenarioMatrixResponse;
+import com.makeienko.laddstation.dto.ScenarioRequest;
+import com.makeienko.laddstation.service.ChargingHourOptimizer;
+import com.makeienko.laddstation.service.LaddstationApiClient;
+import com.makeienko.laddstation.service.SimulatorSeriesStore;
+import com.makeienko.laddstation.service.schedule.ChargeSchedule;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What-if-körningar: "vad kostar laddningen med 16 A-säkring, 11 kW-laddare eller en annan
+ * priskurva?". Bygger en ScenarioGrid från förfrågan, med dagens värden för det som utelämnas,
+ * och löser alla kombinationer med ScenarioEngine. Simulatorn anropas bara för serier och
+ * starttid som inte finns i förfrågan.
+ */
+@Service
+public class ScenarioService {
+
+    // Dagens anläggning, samma värden som ChargingHourOptimizer räknar med
+    private static final double DEFAULT_FUSE_KW = ChargingHourOptimizer.MAX_TOTAL_LOAD;
+    private static final double DEFAULT_CHARGER_KW = ChargingHourOptimizer.CHARGING_POWER;
+    private static final double DEFAULT_BATTERY_KWH = ChargingHourOptimizer.DEFAULT_MAX_CAPACITY_KWH;
+    private static final double DEFAULT_START_PERCENT = 20.0;
+    private static final double DEFAULT_TARGET_PERCENT = ChargingHourOptimizer.TARGET_BATTERY_PERCENTAGE;
+    private static final String SIMULATOR_PRICES = "simulator";
+
+    private final LaddstationApiClient apiClient;
+    private final SimulatorSeriesStore seriesStore;
+    private final LaddstationProperties.Scenario config;
+    private final ScenarioEngine engine;
+
+    @Autowired
+    public ScenarioService(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore, LaddstationProperties properties) {
+        this(apiClient, seriesStore, properties.getScenario());
+    }
+
+    ScenarioService(LaddstationApiClient apiClient, SimulatorSeriesStore seriesStore, LaddstationProperties.Scenario config) {
+        this.apiClient = apiClient;
+        this.seriesStore = seriesStore;
+        this.config = config;
+        this.engine = new ScenarioEngine(config.getParallelism());
+    }
+
+    public ScenarioMatrixResponse evaluate(ScenarioRequest request) {
+        ScenarioGrid grid = toGrid(request);
+        ScenarioMatrix matrix = engine.evaluate(grid);
+        return toResponse(matrix, request.getDepartureHour() != null ? request.getDepartureHour() : ChargingHourOptimizer.DEFAULT_DEPARTURE_HOUR);
+    }
+
+    ScenarioGrid toGrid(ScenarioRequest request) {
+        double[] fuseKw = valuesOrDefault(request.getFuseKw(), DEFAULT_FUSE_KW);
+        double[] chargerKw = valuesOrDefault(request.getChargerKw(), DEFAULT_CHARGER_KW);
+        double[] batteryKwh = valuesOrDefault(request.getBatteryKwh(), DEFAULT_BATTERY_KWH);
+
+        List<String> priceNames = new ArrayList<>();
+        List<HourlySeries> prices = new ArrayList<>();
+        if (request.getPrices() == null || request.getPrices().isEmpty()) {
+            priceNames.add(SIMULATOR_PRICES);
+            prices.add(seriesStore.hourlyPrices());
+        } else {
+            for (Map.Entry<String, List<Double>> entry : request.getPrices().entrySet()) {
+                priceNames.add(entry.getKey());
+                prices.add(toSeries("prices." + entry.getKey(), entry.getValue()));
+            }
+        }
+
+        long count = (long) prices.size() * fuseKw.length * chargerKw.length * batteryKwh.length;
+        if (count > config.getMaxScenarios()) {
+            throw new IllegalArgumentException("Too many scenarios: " + count + " (max " + config.getMaxScenarios() + ")");
+        }
+
+        HourlySeries baseload = request.getBaseload() != null
+            ? toSeries("baseload", request.getBaseload())
+            : seriesStore.baseload();
+
+        int startHour = request.getStartHour() != null
+            ? request.getStartHour()
+            : (int) apiClient.getInfo().getSimTimeHour();
+        int departureHour = request.getDepartureHour() != null ? request.getDepartureHour() : ChargingHourOptimizer.DEFAULT_DEPARTURE_HOUR;
+        if (startHour < 0 || startHour > 23 || departureHour < 0 || departureHour > 23) {
+            throw new IllegalArgumentException("Hours must be 0-23: start " + startHour + ", departure " + departureHour);
+        }
+        int startSlot = startHour * ChargeSchedule.SLOTS_PER_HOUR;
+        int horizonSlots = Math.floorMod((departureHour - startHour) * ChargeSchedule.SLOTS_PER_HOUR, ChargeSchedule.SLOTS_PER_DAY);
+        if (horizonSlots == 0) {
+            horizonSlots = ChargeSchedule.SLOTS_PER_DAY; // Avgång vid starttimmen betyder samma tid imorgon
+        }
+
+        return new ScenarioGrid(priceNames.toArray(new String[0]), prices.toArray(new HourlySeries[0]),
+            fuseKw, chargerKw, batteryKwh, baseload, startSlot, horizonSlots,
+            valueOrDefault(request.getStartPercent(), DEFAULT_START_PERCENT),
+            valueOrDefault(request.getTargetPercent(), DEFAULT_TARGET_PERCENT));
+    }
+
+    @PreDestroy
+    public void close() {
+        engine.close();
+    }
+
+    private static ScenarioMatrixResponse toResponse(ScenarioMatrix matrix, int departureHour) {
+        ScenarioGrid grid = matrix.getGrid();
+        int size = matrix.size();
+        double[] cost = new double[size];
+        boolean[] feasible = new boolean[size];
+        double[] planned = new double[size];
+        for (int i = 0; i < size; i++) {
+            cost[i] = Math.round(matrix.getCost(i) * 100.0) / 100.0;
+            feasible[i] = matrix.isFeasible(i);
+            planned[i] = Math.round(matrix.getPlannedEnergyKwh(i) * 100.0) / 100.0;
+        }
+
+        List<String> priceProfiles = new ArrayList<>(grid.priceCount());
+        for (int p = 0; p < grid.priceCount(); p++) {
+            priceProfiles.add(grid.getPriceName(p));
+        }
+        List<Double> fuseKw = new ArrayList<>(grid.fuseCount());
+        for (int f = 0; f < grid.fuseCount(); f++) {
+            fuseKw.add(grid.getFuseKw(f));
+        }
+        List<Double> chargerKw = new ArrayList<>(grid.chargerCount());
+        for (int c = 0; c < grid.chargerCount(); c++) {
+            chargerKw.add(grid.getChargerKw(c));
+        }
+        List<Double> batteryKwh = new ArrayList<>(grid.batteryCount());
+        for (int b = 0; b < grid.batteryCount(); b++) {
+            batteryKwh.add(grid.getBatteryKwh(b));
+        }
+
+        return new ScenarioMatrixResponse(priceProfiles, fuseKw, chargerKw, batteryKwh,
+            String.format("%02d:00", grid.getStartSlotOfDay() / ChargeSchedule.SLOTS_PER_HOUR),
+            String.format("%02d:00", departureHour),
+            size, matrix.getFeasibleCount(), matrix.getElapsedNanos() / 1_000_000.0,
+            cost, feasible, planned);
+    }
+
+    private static double[] valuesOrDefault(List<Double> values, double defaultValue) {
+        if (values == null || values.isEmpty()) {
+            return new double[] {defaultValue};
+        }
+        double[] result = new double[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            Double value = values.get(i);
+            if (value == null) {
+                throw new IllegalArgumentException("Null value in scenario parameters");
+            }
+            result[i] = value;
+        }
+        return result;
+    }
+
+    private static HourlySeries toSeries(String name, List<Double> values) {
+        if (values == null || values.isEmpty()) {
+            throw new IllegalArgumentException(name + " must contain at least one hourly value");
+        }
+        double[] result = new double[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            Double value = values.get(i);
+            if (value == null || !Double.isFinite(value)) {
+                throw new IllegalArgumentException(name + " has an invalid value at hour " + i);
+            }
+            result[i] = value;
+        }
+        return new HourlySeries(result, 0, 0);
+    }
+
+    private static double valueOrDefault(Double value, double defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,138 @@
+package com.makeienko.laddstation.service.schedule;
+
+import com.makeienko.laddstation.dto.HourMask;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Resultat från CostMinimizingScheduler: vilka 15-minutersluckor som ska laddas,
+ * räknat från startluckan och framåt (över midnatt om horisonten sträcker sig dit).
+ */
+public final class ChargeSchedule {
+
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_HOUR = 60 / SLOT_MINUTES;
+    public static final int SLOTS_PER_DAY = 24 * SLOTS_PER_HOUR;
+
+    private final int startSlotOfDay;
+    private final int horizonSlots;
+    private final BitSet chargingSlots;
+    private final double energyNeededKwh;
+    private final double plannedEnergyKwh;
+    private final double totalCost;
+    private final boolean feasible;
+
+    ChargeSchedule(int startSlotOfDay, int horizonSlots, BitSet chargingSlots, double energyNeededKwh,
+                   double plannedEnergyKwh, double totalCost, boolean feasible) {
+        this.startSlotOfDay = startSlotOfDay;
+        this.horizonSlots = horizonSlots;
+        this.chargingSlots = chargingSlots;
+        this.energyNeededKwh = energyNeededKwh;
+        this.plannedEnergyKwh = plannedEnergyKwh;
+        this.totalCost = totalCost;
+        this.feasible = feasible;
+    }
+
+    /**
+     * Lucka inom dygnet (0-95) för en simulerad tid
+     */
+    public static int slotOfDay(double hour, double minute) {
+        int slot = (int) Math.floor(hour) * SLOTS_PER_HOUR + (int) Math.floor(minute) / SLOT_MINUTES;
+        return Math.floorMod(slot, SLOTS_PER_DAY);
+    }
+
+    public int getStartSlotOfDay() {
+        return startSlotOfDay;
+    }
+
+    public int getHorizonSlots() {
+        return horizonSlots;
+    }
+
+    public double getEnergyNeededKwh() {
+        return energyNeededKwh;
+    }
+
+    public double getPlannedEnergyKwh() {
+        return plannedEnergyKwh;
+    }
+
+    /**
+     * Kostnad för laddenergin, i samma enhet som prisserien (öre)
+     */
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Falskt om behovet inte hinner täckas före deadline; schemat laddar då så mycket som går
+     */
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    /**
+     * Ska laddning ske i luckan offset steg efter starten?
+     */
+    public boolean isChargingAt(int offset) {
+        return offset >= 0 && offset < horizonSlots && chargingSlots.get(offset);
+    }
+
+    /**
+     * Är någon senare kvart i samma klocktimme som luckan offset planerad?
+     */
+    public boolean isChargingLaterInHour(int offset) {
+        int hourEnd = offset + SLOTS_PER_HOUR - (startSlotOfDay + offset) % SLOTS_PER_HOUR;
+        for (int next = offset + 1; next < hourEnd; next++) {
+            if (isChargingAt(next)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getChargingSlotCount() {
+        return chargingSlots.cardinality();
+    }
+
+    /**
+     * Luckor inom dygnet (0-95) som ska laddas, i tidsordning
+     */
+    public List<Integer> getChargingSlotsOfDay() {
+        List<Integer> slots = new ArrayList<>(chargingSlots.cardinality());
+        for (int offset = chargingSlots.nextSetBit(0); offset >= 0; offset = chargingSlots.nextSetBit(offset + 1)) {
+            slots.add((startSlotOfDay + offset) % SLOTS_PER_DAY);
+        }
+        return slots;
+    }
+
+    /**
+     * Timmar med minst en laddlucka, räknade från startluckan: timme 0 är de fyra första luckorna
+     * i schemat. Horisonter längre än ett dygn får en längre mask istället för att vikas ihop.
+     */
+    public HourMask getChargingHourMask() {
+        HourMask.Builder hours = new HourMask.Builder(HourMask.lengthFor((horizonSlots + SLOTS_PER_HOUR - 1) / SLOTS_PER_HOUR));
+        for (int offset = chargingSlots.nextSetBit(0); offset >= 0; offset = chargingSlots.nextSetBit(offset + 1)) {
+            hours.set(offset / SLOTS_PER_HOUR);
+        }
+        return hours.build();
+    }
+
+    /**
+     * Timmar med minst en laddlucka, räknade från startluckan, i tidsordning
+     *
+     * @deprecated använd {@link #getChargingHourMask()}
+     */
+    @Deprecated
+    public List<Double> getChargingHours() {
+        return getChargingHourMask().toHourList();
+    }
+
+    @Override
+    public String toString() {
+        return "ChargeSchedule{start=" + startSlotOfDay + ", horizon=" + horizonSlots + ", slots=" + getChargingSlotsOfDay()
+            + ", energy=" + plannedEnergyKwh + "/" + energyNeededKwh + " kWh, cost=" + totalCost + ", feasible=" + feasible + "}";
+    }
+}
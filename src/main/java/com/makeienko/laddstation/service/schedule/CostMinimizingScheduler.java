@@ -0,0 +1,150 @@
+package com.makeienko.laddstation.service.schedule;
+
+import com.makeienko.laddstation.dto.HourlySeries;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Exakt kostnadsminimerande laddschema med 15 minuters upplösning.
+ *
+ * Dynamisk programmering över (lucka, antal laddade luckor). Laddaren är antingen av eller på
+ * med full effekt, så varje laddad lucka ger en fast energimängd, utom den sista i tidsordning
+ * som bara behöver täcka resten. Därför räcker antalet laddade luckor som tillstånd och den
+ * avslutande delluckan prissätts exakt. Luckor där hushållets last plus laddeffekten överstiger
+ * säkringen är spärrade. Horisonten slutar vid avgångstiden och får gå över midnatt;
+ * dygnsserierna upprepas då.
+ *
+ * Buffertarna återanvänds mellan anrop så att en omplanering varje tidssteg inte allokerar
+ * annat än själva resultatet. En instans löser ett problem i taget.
+ */
+public class CostMinimizingScheduler {
+
+    public static final double BLOCKED = Double.POSITIVE_INFINITY;
+    private static final double EPSILON = 1e-9;
+
+    private final double chargingPowerKw;
+    private final double maxTotalLoadKw;
+    private final double slotEnergyKwh;
+
+    // Lägsta kostnad för att ha laddat k luckor hittills
+    private double[] cost = new double[0];
+    // took[t * (n + 1) + k]: optimum för k luckor efter lucka t använder lucka t
+    private boolean[] took = new boolean[0];
+    // Pris per lucka när problemet ges som timserier
+    private double[] hourlySlotPrices = new double[0];
+
+    public CostMinimizingScheduler(double chargingPowerKw, double maxTotalLoadKw) {
+        this.chargingPowerKw = chargingPowerKw;
+        this.maxTotalLoadKw = maxTotalLoadKw;
+        this.slotEnergyKwh = chargingPowerKw * ChargeSchedule.SLOT_MINUTES / 60.0;
+    }
+
+    public double getSlotEnergyKwh() {
+        return slotEnergyKwh;
+    }
+
+    /**
+     * @param prices          pris per timme (öre/kWh), index = timme på dygnet
+     * @param baseload        hushållets last per timme (kWh per timme, dvs medeleffekt i kW)
+     * @param startSlotOfDay  första luckan som kan laddas (0-95)
+     * @param horizonSlots    antal luckor fram till avgång
+     * @param energyNeededKwh energi som ska tillföras elbilen
+     */
+    public synchronized ChargeSchedule solve(HourlySeries prices, HourlySeries baseload, int startSlotOfDay,
+                                             int horizonSlots, double energyNeededKwh) {
+        if (horizonSlots < 0) {
+            throw new IllegalArgumentException("horizonSlots must not be negative: " + horizonSlots);
+        }
+        if (hourlySlotPrices.length < horizonSlots) {
+            hourlySlotPrices = new double[Math.max(horizonSlots, hourlySlotPrices.length * 2)];
+        }
+        int start = Math.floorMod(startSlotOfDay, ChargeSchedule.SLOTS_PER_DAY);
+        for (int t = 0; t < horizonSlots; t++) {
+            int hour = (start + t) % ChargeSchedule.SLOTS_PER_DAY / ChargeSchedule.SLOTS_PER_HOUR;
+            hourlySlotPrices[t] = isWithinFuseLimit(baseload.get(hour % baseload.length()))
+                ? prices.get(hour % prices.length())
+                : BLOCKED; // Säkringen tillåter inte laddning den här timmen
+        }
+        return solve(hourlySlotPrices, start, horizonSlots, energyNeededKwh);
+    }
+
+    /**
+     * Samma lösning men med ett färdigt pris per lucka (öre/kWh laddenergi).
+     * BLOCKED markerar luckor där laddning inte är tillåten.
+     */
+    public synchronized ChargeSchedule solve(double[] slotPrices, int startSlotOfDay, int horizonSlots, double energyNeededKwh) {
+        if (horizonSlots < 0 || horizonSlots > slotPrices.length) {
+            throw new IllegalArgumentException("horizonSlots out of range: " + horizonSlots);
+        }
+        int start = Math.floorMod(startSlotOfDay, ChargeSchedule.SLOTS_PER_DAY);
+        if (energyNeededKwh <= EPSILON) {
+            return new ChargeSchedule(start, horizonSlots, new BitSet(), 0.0, 0.0, 0.0, true);
+        }
+
+        int needed = (int) Math.ceil(energyNeededKwh / slotEnergyKwh - EPSILON);
+        double lastSlotEnergy = energyNeededKwh - (needed - 1) * slotEnergyKwh;
+        int stride = needed + 1;
+        ensureCapacity(stride, horizonSlots * stride);
+
+        Arrays.fill(cost, 0, stride, Double.POSITIVE_INFINITY);
+        cost[0] = 0.0;
+
+        for (int t = 0; t < horizonSlots; t++) {
+            int row = t * stride;
+            Arrays.fill(took, row, row + stride, false);
+
+            double price = slotPrices[t];
+            if (price == BLOCKED) {
+                continue;
+            }
+
+            // Bakifrån så att cost[k - 1] fortfarande gäller för föregående lucka
+            for (int k = Math.min(needed, t + 1); k >= 1; k--) {
+                double previous = cost[k - 1];
+                if (previous == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double candidate = previous + price * (k == needed ? lastSlotEnergy : slotEnergyKwh);
+                // Strikt mindre: vid lika kostnad behålls den tidigare luckan
+                if (candidate < cost[k] - EPSILON) {
+                    cost[k] = candidate;
+                    took[row + k] = true;
+                }
+            }
+        }
+
+        int reached = needed;
+        while (reached > 0 && cost[reached] == Double.POSITIVE_INFINITY) {
+            reached--;
+        }
+
+        BitSet slots = new BitSet(horizonSlots);
+        for (int t = horizonSlots - 1, k = reached; t >= 0 && k > 0; t--) {
+            if (took[t * stride + k]) {
+                slots.set(t);
+                k--;
+            }
+        }
+
+        boolean feasible = reached == needed;
+        double planned = feasible ? energyNeededKwh : reached * slotEnergyKwh;
+        return new ChargeSchedule(start, horizonSlots, slots, energyNeededKwh, planned, cost[reached], feasible);
+    }
+
+    /**
+     * Ryms laddningen under säkringen när hushållet drar baseloadKw?
+     */
+    public boolean isWithinFuseLimit(double baseloadKw) {
+        return baseloadKw + chargingPowerKw <= maxTotalLoadKw;
+    }
+
+    private void ensureCapacity(int costLength, int tookLength) {
+        if (cost.length < costLength) {
+            cost = new double[Math.max(costLength, cost.length * 2)];
+        }
+        if (took.length < tookLength) {
+            took = new boolean[Math.max(tookLength, took.length * 2)];
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.makeienko.laddstation.service.schedule;
+
+import com.makeienko.laddstation.dto.HourlySeries;
+
+import java.util.Arrays;
+
+/**
+ * Gemensam plan för elbilen och husbatteriet med 15 minuters upplösning.
+ *
+ * Dynamisk programmering över (lucka, antal laddade elbilsluckor, husbatteriets nivå). Elbilen
+ * laddar av eller på med full effekt som i CostMinimizingScheduler, så antalet laddade luckor räcker
+ * som tillstånd. Husbatteriets energi avrundas till steg om levelKwh och får ändras högst
+ * batteryPowerKw per lucka åt något håll, med verkningsgraden efficiency både in och ut.
+ * I varje lucka köps det som hushåll, elbil och batteriladdning kräver utöver solen och
+ * batteriets urladdning; överskott går ut på nätet utan ersättning. Köpet får inte överstiga
+ * säkringen, så en urladdning kan göra laddning möjlig när hushållets last annars är för hög.
+ *
+ * Energi som finns kvar i husbatteriet vid horisontens slut värderas till horisontens lägsta pris,
+ * annars skulle planen alltid tömma batteriet inför avgång.
+ *
+ * Med 96 luckor, 21 elbilsluckor och 49 batterinivåer blir det drygt 2 miljoner övergångar,
+ * några millisekunder per lösning. Buffertarna återanvänds mellan anrop; en instans löser ett
+ * problem i taget, så parallella planer använder en instans per tråd.
+ */
+public class JointEnergyScheduler {
+
+    private static final double EPSILON = 1e-9;
+    private static final double SLOT_HOURS = ChargeSchedule.SLOT_MINUTES / 60.0;
+    private static final byte NONE = -1;
+
+    private final double chargingPowerKw;
+    private final double maxGridKw;
+    private final double efficiency;
+    private final double levelKwh;
+    private final double evSlotEnergyKwh;
+    private final int maxLevelDelta;
+    private final int actionsPerEvChoice;
+
+    private double[] cost = new double[0];
+    private double[] next = new double[0];
+    // choice[t * states + state]: åtgärden i lucka t som gav lägst kostnad för state efter luckan
+    private byte[] choice = new byte[0];
+    private double[] slotPrices = new double[0];
+    private double[] slotLoadKw = new double[0];
+    private double[] slotSolarKw = new double[0];
+
+    /**
+     * @param chargingPowerKw elbilsladdarens effekt
+     * @param maxGridKw       säkringen, högsta effekt som får köpas från nätet
+     * @param batteryPowerKw  husbatteriets högsta laddnings- och urladdningseffekt
+     * @param efficiency      verkningsgrad per riktning (0-1]
+     * @param levelKwh        upplösning för husbatteriets nivå
+     */
+    public JointEnergyScheduler(double chargingPowerKw, double maxGridKw, double batteryPowerKw, double efficiency, double levelKwh) {
+        if (efficiency <= 0 || efficiency > 1) {
+            throw new IllegalArgumentException("efficiency must be in (0, 1]: " + efficiency);
+        }
+        if (levelKwh <= 0) {
+            throw new IllegalArgumentException("levelKwh must be positive: " + levelKwh);
+        }
+        this.chargingPowerKw = chargingPowerKw;
+        this.maxGridKw = maxGridKw;
+        this.efficiency = efficiency;
+        this.levelKwh = levelKwh;
+        this.evSlotEnergyKwh = chargingPowerKw * SLOT_HOURS;
+        this.maxLevelDelta = (int) Math.floor(Math.max(0.0, batteryPowerKw) * SLOT_HOURS / levelKwh + EPSILON);
+        this.actionsPerEvChoice = 2 * maxLevelDelta + 1;
+        if (2 * actionsPerEvChoice > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Battery power too large for level " + levelKwh + " kWh");
+        }
+    }
+
+    public double getChargingPowerKw() {
+        return chargingPowerKw;
+    }
+
+    /**
+     * Löser med timserier som upprepas per dygn om horisonten går över midnatt
+     */
+    public synchronized JointSchedule solve(HourlySeries prices, HourlySeries baseload, HourlySeries solar, int startSlotOfDay,
+                                            int horizonSlots, double evEnergyNeededKwh,
+                                            double homeBattKwh, double homeBattMinKwh, double homeBattMaxKwh) {
+        if (horizonSlots < 0) {
+            throw new IllegalArgumentException("horizonSlots must not be negative: " + horizonSlots);
+        }
+        if (slotPrices.length < horizonSlots) {
+            int length = Math.max(horizonSlots, slotPrices.length * 2);
+            slotPrices = new double[length];
+            slotLoadKw = new double[length];
+            slotSolarKw = new double[length];
+        }
+        int start = Math.floorMod(startSlotOfDay, ChargeSchedule.SLOTS_PER_DAY);
+        for (int t = 0; t < horizonSlots; t++) {
+            int hour = (start + t) % ChargeSchedule.SLOTS_PER_DAY / ChargeSchedule.SLOTS_PER_HOUR;
+            slotPrices[t] = prices.get(hour % prices.length());
+            slotLoadKw[t] = baseload.get(hour % baseload.length());
+            slotSolarKw[t] = solar == null || solar.isEmpty() ? 0.0 : solar.get(hour % solar.length());
+        }
+        return solve(slotPrices, slotLoadKw, slotSolarKw, start, horizonSlots, evEnergyNeededKwh, homeBattKwh, homeBattMinKwh, homeBattMaxKwh);
+    }
+
+    /**
+     * @param slotPrices  pris per lucka (öre/kWh)
+     * @param slotLoadKw  hushållets medeleffekt per lucka
+     * @param slotSolarKw solproduktionens medeleffekt per lucka
+     */
+    public synchronized JointSchedule solve(double[] slotPrices, double[] slotLoadKw, double[] slotSolarKw, int startSlotOfDay,
+                                            int horizonSlots, double evEnergyNeededKwh,
+                                            double homeBattKwh, double homeBattMinKwh, double homeBattMaxKwh) {
+        if (horizonSlots < 0 || horizonSlots > slotPrices.length || horizonSlots > slotLoadKw.length || horizonSlots > slotSolarKw.length) {
+            throw new IllegalArgumentException("horizonSlots out of range: " + horizonSlots);
+        }
+        if (homeBattMaxKwh < homeBattMinKwh) {
+            throw new IllegalArgumentException("Home battery max below min: " + homeBattMaxKwh + " < " + homeBattMinKwh);
+        }
+        int start = Math.floorMod(startSlotOfDay, ChargeSchedule.SLOTS_PER_DAY);
+        double evNeeded = Math.max(0.0, evEnergyNeededKwh);
+
+        int needed = evNeeded <= EPSILON ? 0 : (int) Math.ceil(evNeeded / evSlotEnergyKwh - EPSILON);
+        double lastSlotEnergy = evNeeded - (needed - 1) * evSlotEnergyKwh;
+        int levels = (int) Math.floor((homeBattMaxKwh - homeBattMinKwh) / levelKwh + EPSILON) + 1;
+        int startLevel = (int) Math.max(0, Math.min(levels - 1, Math.round((homeBattKwh - homeBattMinKwh) / levelKwh)));
+        int states = (needed + 1) * levels;
+        ensureCapacity(states, horizonSlots * states);
+
+        Arrays.fill(cost, 0, states, Double.POSITIVE_INFINITY);
+        cost[startLevel] = 0.0;
+        double maxImportKwh = maxGridKw * SLOT_HOURS + EPSILON;
+
+        for (int t = 0; t < horizonSlots; t++) {
+            int row = t * states;
+            Arrays.fill(next, 0, states, Double.POSITIVE_INFINITY);
+            Arrays.fill(choice, row, row + states, NONE);
+
+            double price = slotPrices[t];
+            double baseKwh = (slotLoadKw[t] - slotSolarKw[t]) * SLOT_HOURS;
+
+            for (int k = 0; k <= needed; k++) {
+                int evChoices = k < needed ? 2 : 1;
+                for (int b = 0; b < levels; b++) {
+                    double current = cost[k * levels + b];
+                    if (current == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    for (int ev = 0; ev < evChoices; ev++) {
+                        double evKwh = ev == 0 ? 0.0 : (k + 1 == needed ? lastSlotEnergy : evSlotEnergyKwh);
+                        int nextK = k + ev;
+                        int lowDelta = Math.max(-maxLevelDelta, -b);
+                        int highDelta = Math.min(maxLevelDelta, levels - 1 - b);
+                        for (int delta = lowDelta; delta <= highDelta; delta++) {
+                            double importKwh = baseKwh + evKwh + batteryGridSideKwh(delta);
+                            if (importKwh > maxImportKwh) {
+                                continue; // Säkringen räcker inte
+                            }
+                            double candidate = current + (importKwh > 0 ? price * importKwh : 0.0);
+                            int target = nextK * levels + b + delta;
+                            if (candidate < next[target] - EPSILON) {
+                                next[target] = candidate;
+                                choice[row + target] = (byte) (ev * actionsPerEvChoice + delta + maxLevelDelta);
+                            }
+                        }
+                    }
+                }
+            }
+            double[] swap = cost;
+            cost = next;
+            next = swap;
+        }
+
+        // Kvarvarande energi i husbatteriet värderas till lägsta pris i horisonten
+        double terminalValue = Double.POSITIVE_INFINITY;
+        for (int t = 0; t < horizonSlots; t++) {
+            terminalValue = Math.min(terminalValue, slotPrices[t]);
+        }
+        terminalValue = horizonSlots == 0 ? 0.0 : Math.max(0.0, terminalValue) * efficiency;
+
+        int reached = -1;
+        int bestLevel = startLevel;
+        for (int k = needed; k >= 0 && reached < 0; k--) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int b = 0; b < levels; b++) {
+                double value = cost[k * levels + b];
+                if (value == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                value -= terminalValue * b * levelKwh;
+                if (value < best - EPSILON) {
+                    best = value;
+                    bestLevel = b;
+                    reached = k;
+                }
+            }
+        }
+        if (reached < 0) {
+            // Säkringen räcker inte ens för hushållet; planera utan laddning och batteri
+            reached = 0;
+            bestLevel = startLevel;
+        }
+
+        return buildSchedule(start, horizonSlots, evNeeded, needed, lastSlotEnergy, levels, startLevel, reached, bestLevel,
+            homeBattMinKwh, slotPrices, slotLoadKw, slotSolarKw);
+    }
+
+    private JointSchedule buildSchedule(int start, int horizonSlots, double evNeeded, int needed, double lastSlotEnergy,
+                                        int levels, int startLevel, int reached, int endLevel, double homeBattMinKwh,
+                                        double[] slotPrices, double[] slotLoadKw, double[] slotSolarKw) {
+        int states = (needed + 1) * levels;
+        int[] deltas = new int[horizonSlots];
+        boolean[] evOn = new boolean[horizonSlots];
+        int k = reached;
+        int b = endLevel;
+        for (int t = horizonSlots - 1; t >= 0; t--) {
+            byte action = choice[t * states + k * levels + b];
+            if (action == NONE) {
+                break; // Bara möjligt när inget tillstånd nåddes; resten lämnas tomt
+            }
+            evOn[t] = action >= actionsPerEvChoice;
+            deltas[t] = action % actionsPerEvChoice - maxLevelDelta;
+            k -= evOn[t] ? 1 : 0;
+            b -= deltas[t];
+        }
+
+        double[] evEnergy = new double[horizonSlots];
+        double[] gridImport = new double[horizonSlots];
+        double[] battCharge = new double[horizonSlots];
+        double[] battDischarge = new double[horizonSlots];
+        double[] battLevel = new double[horizonSlots];
+        double[] solarToEv = new double[horizonSlots];
+        double[] solarToBatt = new double[horizonSlots];
+        double[] solarToGrid = new double[horizonSlots];
+
+        double totalCost = 0.0;
+        double planned = 0.0;
+        int charged = 0;
+        int level = startLevel;
+        for (int t = 0; t < horizonSlots; t++) {
+            if (evOn[t]) {
+                charged++;
+                evEnergy[t] = charged == needed ? lastSlotEnergy : evSlotEnergyKwh;
+                planned += evEnergy[t];
+            }
+            int delta = deltas[t];
+            level += delta;
+            battLevel[t] = homeBattMinKwh + level * levelKwh;
+            double stored = delta * levelKwh;
+            battCharge[t] = delta > 0 ? stored : 0.0;
+            battDischarge[t] = delta < 0 ? -stored * efficiency : 0.0;
+
+            double loadKwh = slotLoadKw[t] * SLOT_HOURS;
+            double solarKwh = slotSolarKw[t] * SLOT_HOURS;
+            double net = loadKwh + evEnergy[t] + batteryGridSideKwh(delta) - solarKwh;
+            gridImport[t] = Math.max(0.0, net);
+            totalCost += slotPrices[t] * gridImport[t];
+
+            double remainingSolar = Math.max(0.0, solarKwh - loadKwh);
+            solarToEv[t] = Math.min(remainingSolar, evEnergy[t]);
+            remainingSolar -= solarToEv[t];
+            solarToBatt[t] = Math.min(remainingSolar, battCharge[t] / efficiency);
+            remainingSolar -= solarToBatt[t];
+            solarToGrid[t] = remainingSolar;
+        }
+
+        boolean feasible = reached == needed;
+        return new JointSchedule(start, horizonSlots, evNeeded, feasible ? evNeeded : planned,
+            homeBattMinKwh + startLevel * levelKwh, totalCost, feasible, evEnergy, gridImport, battCharge, battDischarge,
+            battLevel, solarToEv, solarToBatt, solarToGrid);
+    }
+
+    /**
+     * Batteriets bidrag till köpbehovet för en nivåändring: laddning kostar stored / efficiency,
+     * urladdning levererar stored * efficiency (negativt)
+     */
+    private double batteryGridSideKwh(int delta) {
+        double stored = delta * levelKwh;
+        return delta > 0 ? stored / efficiency : stored * efficiency;
+    }
+
+    private void ensureCapacity(int states, int choiceLength) {
+        if (cost.length < states) {
+            int length = Math.max(states, cost.length * 2);
+            cost = new double[length];
+            next = new double[length];
+        }
+        if (choice.length < choiceLength) {
+            choice = new byte[Math.max(choiceLength, choice.length * 2)];
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.makeienko.laddstation.service.schedule;
+
+/**
+ * Resultat från JointEnergyScheduler: per 15-minuterslucka om elbilen laddar, hur husbatteriet
+ * laddas eller laddas ur och vart solproduktionen tar vägen. Energier i kWh per lucka.
+ * Solen går i första hand till hushållet, sedan elbilen, sedan husbatteriet och resten ut på nätet.
+ */
+public final class JointSchedule {
+
+    private final int startSlotOfDay;
+    private final int horizonSlots;
+    private final double evEnergyNeededKwh;
+    private final double plannedEvEnergyKwh;
+    private final double homeBattStartKwh;
+    private final double totalCost;
+    private final boolean feasible;
+
+    private final double[] evEnergyKwh;
+    private final double[] gridImportKwh;
+    private final double[] homeBattChargeKwh;    // Energi in i batteriet
+    private final double[] homeBattDischargeKwh; // Energi som batteriet levererar
+    private final double[] homeBattLevelKwh;     // Nivå efter luckan
+    private final double[] solarToEvKwh;
+    private final double[] solarToHomeBattKwh;
+    private final double[] solarToGridKwh;
+
+    JointSchedule(int startSlotOfDay, int horizonSlots, double evEnergyNeededKwh, double plannedEvEnergyKwh,
+                  double homeBattStartKwh, double totalCost, boolean feasible, double[] evEnergyKwh, double[] gridImportKwh,
+                  double[] homeBattChargeKwh, double[] homeBattDischargeKwh, double[] homeBattLevelKwh,
+                  double[] solarToEvKwh, double[] solarToHomeBattKwh, double[] solarToGridKwh) {
+        this.startSlotOfDay = startSlotOfDay;
+        this.horizonSlots = horizonSlots;
+        this.evEnergyNeededKwh = evEnergyNeededKwh;
+        this.plannedEvEnergyKwh = plannedEvEnergyKwh;
+        this.homeBattStartKwh = homeBattStartKwh;
+        this.totalCost = totalCost;
+        this.feasible = feasible;
+        this.evEnergyKwh = evEnergyKwh;
+        this.gridImportKwh = gridImportKwh;
+        this.homeBattChargeKwh = homeBattChargeKwh;
+        this.homeBattDischargeKwh = homeBattDischargeKwh;
+        this.homeBattLevelKwh = homeBattLevelKwh;
+        this.solarToEvKwh = solarToEvKwh;
+        this.solarToHomeBattKwh = solarToHomeBattKwh;
+        this.solarToGridKwh = solarToGridKwh;
+    }
+
+    public int getStartSlotOfDay() {
+        return startSlotOfDay;
+    }
+
+    public int getHorizonSlots() {
+        return horizonSlots;
+    }
+
+    public double getEvEnergyNeededKwh() {
+        return evEnergyNeededKwh;
+    }
+
+    public double getPlannedEvEnergyKwh() {
+        return plannedEvEnergyKwh;
+    }
+
+    public double getHomeBattStartKwh() {
+        return homeBattStartKwh;
+    }
+
+    public double getHomeBattEndKwh() {
+        return horizonSlots == 0 ? homeBattStartKwh : homeBattLevelKwh[horizonSlots - 1];
+    }
+
+    /**
+     * Kostnad för all el som köps från nätet under horisonten (öre), hushållet inräknat
+     */
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Falskt om elbilens behov inte hinner täckas; planen laddar då så mycket som går
+     */
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    public boolean isEvChargingAt(int offset) {
+        return evEnergyKwh[offset] > 0;
+    }
+
+    public double getEvEnergyKwh(int offset) {
+        return evEnergyKwh[offset];
+    }
+
+    public double getGridImportKwh(int offset) {
+        return gridImportKwh[offset];
+    }
+
+    public double getHomeBattChargeKwh(int offset) {
+        return homeBattChargeKwh[offset];
+    }
+
+    public double getHomeBattDischargeKwh(int offset) {
+        return homeBattDischargeKwh[offset];
+    }
+
+    public double getHomeBattLevelKwh(int offset) {
+        return homeBattLevelKwh[offset];
+    }
+
+    public double getSolarToEvKwh(int offset) {
+        return solarToEvKwh[offset];
+    }
+
+    public double getSolarToHomeBattKwh(int offset) {
+        return solarToHomeBattKwh[offset];
+    }
+
+    public double getSolarToGridKwh(int offset) {
+        return solarToGridKwh[offset];
+    }
+
+    /**
+     * Lucka inom dygnet (0-95) för en position i planen
+     */
+    public int slotOfDayAt(int offset) {
+        return (startSlotOfDay + offset) % ChargeSchedule.SLOTS_PER_DAY;
+    }
+}
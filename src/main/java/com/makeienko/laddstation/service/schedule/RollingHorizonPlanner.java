@@ -0,0 +1,259 @@
+package com.makeienko.laddstation.service.schedule;
+
+import com.makeienko.laddstation.dto.HourlySeries;
+
+import java.util.Arrays;
+
+/**
+ * Planerar laddning över 48-168 timmar framåt med CostMinimizingScheduler.
+ *
+ * Simulatorn har bara dygnsserier, så pris, hushållslast och solproduktion upprepas för varje
+ * dygn i horisonten. Solöverskott sänker det effektiva priset: en lucka kostar bara för den del
+ * av laddeffekten som faktiskt måste köpas från nätet.
+ *
+ * Horisonten rullar: dess slut ligger alltid horizonHours efter aktuell lucka. Varje nytt tidssteg
+ * jämförs bilens verkliga energibehov med vad planen förutsåg. Stämmer det, är serierna oförändrade
+ * och kan ingen plan som använder luckorna som tillkommit i horisontens slut bli billigare, är resten
+ * av planen fortfarande optimal och återanvänds direkt. Annars löses planen om.
+ */
+public class RollingHorizonPlanner {
+
+    public static final int MIN_HORIZON_HOURS = 48;
+    public static final int MAX_HORIZON_HOURS = 168;
+    private static final double EPSILON = 1e-9;
+
+    private final CostMinimizingScheduler scheduler;
+    private final double chargingPowerKw;
+    private final double toleranceKwh;
+
+    // Effektivt pris per lucka för aktuell plan
+    private final double[] slotPrices = new double[MAX_HORIZON_HOURS * ChargeSchedule.SLOTS_PER_HOUR];
+    // Tillåtna priser före en ny lucka och en sorterad kopia, återanvänds mellan tidsstegen
+    private final double[] earlierPrices = new double[MAX_HORIZON_HOURS * ChargeSchedule.SLOTS_PER_HOUR];
+    private final double[] sortedPrices = new double[MAX_HORIZON_HOURS * ChargeSchedule.SLOTS_PER_HOUR];
+
+    private ChargeSchedule schedule;
+    private long scheduleStartSlot;
+    // Horisontens slut som planen hittills prövats mot; flyttas fram vid varje återanvändning
+    private long deadlineSlot;
+    private int horizonHours;
+    private long pricesVersion = -1;
+    private long baseloadVersion = -1;
+    private long solarVersion = -1;
+
+    private long solves;
+    private long reuses;
+
+    public RollingHorizonPlanner(double chargingPowerKw, double maxTotalLoadKw, double toleranceKwh) {
+        this.scheduler = new CostMinimizingScheduler(chargingPowerKw, maxTotalLoadKw);
+        this.chargingPowerKw = chargingPowerKw;
+        this.toleranceKwh = toleranceKwh;
+    }
+
+    /**
+     * @param nowSlot         absolut lucka (simulerat dygn * 96 + lucka inom dygnet)
+     * @param horizonHours    planeringshorisont, 48-168 timmar
+     * @param energyNeededKwh energi som fortfarande ska tillföras elbilen
+     * @param solar           solproduktion per timme, eller null om den saknas
+     */
+    public synchronized RollingPlan plan(long nowSlot, int horizonHours, double energyNeededKwh,
+                                         HourlySeries prices, HourlySeries baseload, HourlySeries solar) {
+        if (horizonHours < MIN_HORIZON_HOURS || horizonHours > MAX_HORIZON_HOURS) {
+            throw new IllegalArgumentException("horizonHours must be between " + MIN_HORIZON_HOURS
+                + " and " + MAX_HORIZON_HOURS + ": " + horizonHours);
+        }
+
+        if (canReuse(nowSlot, horizonHours, energyNeededKwh, prices, baseload, solar)) {
+            deadlineSlot = nowSlot + (long) horizonHours * ChargeSchedule.SLOTS_PER_HOUR;
+            reuses++;
+            return view(nowSlot, true);
+        }
+
+        int horizonSlots = horizonHours * ChargeSchedule.SLOTS_PER_HOUR;
+        int startSlotOfDay = (int) Math.floorMod(nowSlot, (long) ChargeSchedule.SLOTS_PER_DAY);
+        for (int t = 0; t < horizonSlots; t++) {
+            int hour = (startSlotOfDay + t) % ChargeSchedule.SLOTS_PER_DAY / ChargeSchedule.SLOTS_PER_HOUR;
+            slotPrices[t] = effectivePrice(hour, prices, baseload, solar);
+        }
+
+        schedule = scheduler.solve(slotPrices, startSlotOfDay, horizonSlots, energyNeededKwh);
+        scheduleStartSlot = nowSlot;
+        deadlineSlot = nowSlot + horizonSlots;
+        this.horizonHours = horizonHours;
+        pricesVersion = prices.getVersion();
+        baseloadVersion = baseload.getVersion();
+        solarVersion = solar == null ? -1 : solar.getVersion();
+        solves++;
+        return view(nowSlot, false);
+    }
+
+    public synchronized long getSolveCount() {
+        return solves;
+    }
+
+    public synchronized long getReuseCount() {
+        return reuses;
+    }
+
+    /**
+     * Glömmer aktuell plan så att nästa anrop löser från början
+     */
+    public synchronized void reset() {
+        schedule = null;
+    }
+
+    private boolean canReuse(long nowSlot, int horizonHours, double energyNeededKwh,
+                             HourlySeries prices, HourlySeries baseload, HourlySeries solar) {
+        if (schedule == null || horizonHours != this.horizonHours) {
+            return false;
+        }
+        if (nowSlot < scheduleStartSlot || nowSlot >= scheduleStartSlot + schedule.getHorizonSlots()) {
+            return false;
+        }
+        if (prices.getVersion() != pricesVersion || baseload.getVersion() != baseloadVersion
+                || (solar == null ? -1 : solar.getVersion()) != solarVersion) {
+            return false;
+        }
+        if (Math.abs(energyNeededKwh - expectedRemaining(nowSlot)) > toleranceKwh) {
+            return false;
+        }
+        return newSlotsCannotImprove(nowSlot, nowSlot + (long) horizonHours * ChargeSchedule.SLOTS_PER_HOUR,
+            prices, baseload, solar);
+    }
+
+    /**
+     * Sant om ingen plan som använder någon lucka mellan förra horisontens slut och den nya är
+     * billigare än resten av nuvarande plan. Resten av planen är redan optimal fram till förra
+     * horisontens slut, så en bättre plan måste ha en ny lucka L som sista laddlucka i tidsordning.
+     * Den sista luckan ger bara resten av energin och de övriga är hela, så den bästa sådana planen
+     * kostar rest * pris(L) + hel lucka * summan av de n - 1 billigaste tillåtna luckorna före L.
+     * En ny lucka kan alltså löna sig genom att ta över delluckan även när den inte är billigare än
+     * planens dyraste lucka.
+     */
+    private boolean newSlotsCannotImprove(long nowSlot, long newDeadlineSlot,
+                                          HourlySeries prices, HourlySeries baseload, HourlySeries solar) {
+        if (newDeadlineSlot <= deadlineSlot) {
+            return true;
+        }
+        if (!schedule.isFeasible()) {
+            return false; // Fler luckor kan göra en ogenomförbar plan genomförbar
+        }
+        double remaining = expectedRemaining(nowSlot);
+        if (remaining <= EPSILON) {
+            return true;
+        }
+        double slotEnergy = scheduler.getSlotEnergyKwh();
+        int needed = (int) Math.ceil(remaining / slotEnergy - EPSILON);
+        double lastSlotEnergy = remaining - (needed - 1) * slotEnergy;
+        double currentCost = remainingCost(nowSlot);
+
+        int earlier = 0;
+        for (long slot = nowSlot; slot < newDeadlineSlot; slot++) {
+            double price = effectivePrice(hourOf(slot), prices, baseload, solar);
+            if (price == CostMinimizingScheduler.BLOCKED) {
+                continue;
+            }
+            if (slot >= deadlineSlot) {
+                double fullSlots = cheapestSum(earlier, needed - 1);
+                if (lastSlotEnergy * price + slotEnergy * fullSlots < currentCost - EPSILON) {
+                    return false;
+                }
+            }
+            earlierPrices[earlier++] = price;
+        }
+        return true;
+    }
+
+    /**
+     * Summan av de count billigaste av de första available priserna i earlierPrices
+     */
+    private double cheapestSum(int available, int count) {
+        if (count > available) {
+            return Double.POSITIVE_INFINITY;
+        }
+        System.arraycopy(earlierPrices, 0, sortedPrices, 0, available);
+        Arrays.sort(sortedPrices, 0, available);
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) {
+            sum += sortedPrices[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Kostnad för planens återstående luckor från nowSlot, med resten av energin i den sista
+     */
+    private double remainingCost(long nowSlot) {
+        double remaining = expectedRemaining(nowSlot);
+        double cost = 0.0;
+        for (int t = (int) (nowSlot - scheduleStartSlot); t < schedule.getHorizonSlots() && remaining > 0; t++) {
+            if (schedule.isChargingAt(t)) {
+                double delivered = Math.min(scheduler.getSlotEnergyKwh(), remaining);
+                cost += slotPrices[t] * delivered;
+                remaining -= delivered;
+            }
+        }
+        return cost;
+    }
+
+    private static int hourOf(long slot) {
+        return (int) (Math.floorMod(slot, (long) ChargeSchedule.SLOTS_PER_DAY) / ChargeSchedule.SLOTS_PER_HOUR);
+    }
+
+    /**
+     * Energi planen räknade med att det fortfarande skulle behövas vid nowSlot
+     */
+    private double expectedRemaining(long nowSlot) {
+        int offset = (int) (nowSlot - scheduleStartSlot);
+        double remaining = schedule.getEnergyNeededKwh();
+        for (int t = 0; t < offset && remaining > 0; t++) {
+            if (schedule.isChargingAt(t)) {
+                remaining -= Math.min(scheduler.getSlotEnergyKwh(), remaining);
+            }
+        }
+        return remaining;
+    }
+
+    private RollingPlan view(long nowSlot, boolean reused) {
+        int offset = (int) (nowSlot - scheduleStartSlot);
+        int horizonSlots = schedule.getHorizonSlots();
+        double needed = expectedRemaining(nowSlot);
+        double remaining = needed;
+
+        int count = 0;
+        for (int t = offset; t < horizonSlots; t++) {
+            if (schedule.isChargingAt(t)) {
+                count++;
+            }
+        }
+        long[] slots = new long[count];
+        int i = 0;
+        for (int t = offset; t < horizonSlots; t++) {
+            if (schedule.isChargingAt(t)) {
+                slots[i++] = scheduleStartSlot + t;
+                remaining -= Math.min(scheduler.getSlotEnergyKwh(), remaining);
+            }
+        }
+
+        double planned = needed - Math.max(0.0, remaining);
+        return new RollingPlan(nowSlot, deadlineSlot, slots, needed, planned, remainingCost(nowSlot), schedule.isFeasible(), reused);
+    }
+
+    /**
+     * Pris per kWh laddenergi: bara den del av laddeffekten som inte täcks av solöverskott köps från nätet
+     */
+    private double effectivePrice(int hour, HourlySeries prices, HourlySeries baseload, HourlySeries solar) {
+        double load = baseload.get(hour % baseload.length());
+        if (!scheduler.isWithinFuseLimit(load)) {
+            return CostMinimizingScheduler.BLOCKED;
+        }
+        double price = prices.get(hour % prices.length());
+        if (solar == null || solar.isEmpty()) {
+            return price;
+        }
+        double production = solar.get(hour % solar.length());
+        double importWithCharging = Math.max(0.0, load + chargingPowerKw - production);
+        double importWithout = Math.max(0.0, load - production);
+        return price * (importWithCharging - importWithout) / chargingPowerKw;
+    }
+}
@@ -0,0 +1,132 @@
+package com.makeienko.laddstation.service.schedule;
+
+import com.makeienko.laddstation.dto.HourMask;
+
+import java.util.List;
+
+/**
+ * Återstående del av en plan från RollingHorizonPlanner, räknat från aktuell lucka.
+ * Luckor anges som absoluta luckor (simulerat dygn * 96 + lucka inom dygnet),
+ * så att samma timme idag och imorgon går att skilja åt.
+ */
+public final class RollingPlan {
+
+    private final long startSlot;
+    private final long deadlineSlot;
+    private final long[] chargingSlots;
+    private final double energyNeededKwh;
+    private final double plannedEnergyKwh;
+    private final double totalCost;
+    private final boolean feasible;
+    private final boolean reused;
+
+    RollingPlan(long startSlot, long deadlineSlot, long[] chargingSlots, double energyNeededKwh,
+                double plannedEnergyKwh, double totalCost, boolean feasible, boolean reused) {
+        this.startSlot = startSlot;
+        this.deadlineSlot = deadlineSlot;
+        this.chargingSlots = chargingSlots;
+        this.energyNeededKwh = energyNeededKwh;
+        this.plannedEnergyKwh = plannedEnergyKwh;
+        this.totalCost = totalCost;
+        this.feasible = feasible;
+        this.reused = reused;
+    }
+
+    public static long absoluteSlot(long simulatedDay, double hour, double minute) {
+        return simulatedDay * ChargeSchedule.SLOTS_PER_DAY + ChargeSchedule.slotOfDay(hour, minute);
+    }
+
+    public long getStartSlot() {
+        return startSlot;
+    }
+
+    public long getDeadlineSlot() {
+        return deadlineSlot;
+    }
+
+    public double getEnergyNeededKwh() {
+        return energyNeededKwh;
+    }
+
+    public double getPlannedEnergyKwh() {
+        return plannedEnergyKwh;
+    }
+
+    /**
+     * Kostnad för den återstående laddenergin (öre), med hänsyn till solöverskott
+     */
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    /**
+     * Sant om planen återanvändes från föregående tidssteg istället för att lösas om
+     */
+    public boolean isReused() {
+        return reused;
+    }
+
+    public boolean isChargingAt(long absoluteSlot) {
+        for (long slot : chargingSlots) {
+            if (slot == absoluteSlot) {
+                return true;
+            }
+            if (slot > absoluteSlot) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public boolean isChargingNow() {
+        return isChargingAt(startSlot);
+    }
+
+    /**
+     * Är någon senare kvart i den pågående klocktimmen planerad?
+     */
+    public boolean isChargingLaterThisHour() {
+        long hourEnd = startSlot - Math.floorMod(startSlot, ChargeSchedule.SLOTS_PER_HOUR) + ChargeSchedule.SLOTS_PER_HOUR;
+        for (long slot = startSlot + 1; slot < hourEnd; slot++) {
+            if (isChargingAt(slot)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Absoluta luckor som ska laddas, i tidsordning
+     */
+    public long[] getChargingSlots() {
+        return chargingSlots.clone();
+    }
+
+    /**
+     * Timmar med minst en laddlucka, räknade från planens start: timme 0 är de fyra första luckorna
+     * från startSlot, timme 24 samma tid nästa dygn. Masken är så lång som horisonten kräver
+     * (upp till en vecka), så samma klocktimme på olika dygn hålls isär.
+     */
+    public HourMask getChargingHourMask() {
+        int horizonHours = (int) ((deadlineSlot - startSlot + ChargeSchedule.SLOTS_PER_HOUR - 1) / ChargeSchedule.SLOTS_PER_HOUR);
+        HourMask.Builder hours = new HourMask.Builder(HourMask.lengthFor(horizonHours));
+        for (long slot : chargingSlots) {
+            hours.set((int) ((slot - startSlot) / ChargeSchedule.SLOTS_PER_HOUR));
+        }
+        return hours.build();
+    }
+
+    /**
+     * Timmar med minst en laddlucka, räknade från planens start, i tidsordning
+     *
+     * @deprecated använd {@link #getChargingHourMask()}
+     */
+    @Deprecated
+    public List<Double> getChargingHours() {
+        return getChargingHourMask().toHourList();
+    }
+}
@@ -0,0 +1,270 @@
+package com.makeienko.laddstation.service.session;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.SessionStatsResponse;
+import com.makeienko.laddstation.dto.SessionStatusResponse;
+import com.makeienko.laddstation.service.BatteryManager;
+import com.makeienko.laddstation.service.ChargingService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Kör laddningssessioner som hanterade uppgifter, en virtuell tråd per session.
+ * Sessionerna väntar mest i Thread.sleep och på simulatorn, vilket en virtuell tråd gör
+ * utan att hålla en plattformstråd, så tusentals samtidiga sessioner är billiga.
+ *
+ * En session som avbryts eller misslyckas stoppar alltid laddningen på servern innan den
+ * räknas som avslutad. Avbrottsflaggan rensas först så att stopp-anropet inte avbryts i sin tur.
+ * Sessionerna delar simulatorns laddare via BatteryManager, så ett stopp stänger bara av
+ * laddaren när ingen annan session fortfarande laddar.
+ */
+@Service
+public class ChargingSessionManager {
+
+    private final ChargingService chargingService;
+    private final BatteryManager batteryManager;
+    private final ExecutorService executor;
+    private final int retainedFinished;
+    private final int stopAttempts;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    // Avslutade sessioner i den ordning de blev klara; de äldsta glöms bort först
+    private final Queue<String> finished = new ConcurrentLinkedQueue<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder stopFailures = new LongAdder();
+
+    @Autowired
+    public ChargingSessionManager(ChargingService chargingService, BatteryManager batteryManager, LaddstationProperties properties) {
+        this(chargingService, batteryManager, properties.getSession().getRetainedFinished(), properties.getSession().getStopAttempts());
+    }
+
+    ChargingSessionManager(ChargingService chargingService, BatteryManager batteryManager, int retainedFinished, int stopAttempts) {
+        this(chargingService, batteryManager, retainedFinished, stopAttempts,
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("charging-session-", 1).factory()));
+    }
+
+    ChargingSessionManager(ChargingService chargingService, BatteryManager batteryManager, int retainedFinished, int stopAttempts,
+                           ExecutorService executor) {
+        this.chargingService = chargingService;
+        this.batteryManager = batteryManager;
+        this.retainedFinished = retainedFinished;
+        this.stopAttempts = Math.max(1, stopAttempts);
+        this.executor = executor;
+    }
+
+    /**
+     * Startar en ny session och returnerar direkt
+     */
+    public SessionStatusResponse start(SessionMode mode) {
+        Session session = new Session(ids.incrementAndGet(), mode);
+        sessions.put(session.id, session);
+        started.increment();
+        synchronized (session) {
+            session.future = executor.submit(() -> run(session));
+        }
+        return session.toResponse();
+    }
+
+    /**
+     * Avbryter en session. Laddningen stoppas på servern av sessionens egen tråd;
+     * tills dess rapporteras sessionen som STOPPING. Hann uppgiften aldrig starta
+     * avslutas sessionen direkt här, eftersom ingen tråd annars gör det.
+     */
+    public SessionStatusResponse stop(String id) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            return null;
+        }
+        boolean neverStarted = false;
+        synchronized (session) {
+            if (session.state == SessionState.RUNNING) {
+                session.state = SessionState.STOPPING;
+                neverStarted = session.future.cancel(true) && !session.taskStarted;
+            }
+        }
+        if (neverStarted) {
+            ensureChargingStopped(session);
+            finish(session, SessionState.CANCELLED, null);
+        }
+        return session.toResponse();
+    }
+
+    public SessionStatusResponse getStatus(String id) {
+        Session session = sessions.get(id);
+        return session == null ? null : session.toResponse();
+    }
+
+    public List<SessionStatusResponse> getSessions() {
+        List<Session> snapshot = new ArrayList<>(sessions.values());
+        snapshot.sort(Comparator.comparingLong(session -> session.sequence));
+        List<SessionStatusResponse> responses = new ArrayList<>(snapshot.size());
+        for (Session session : snapshot) {
+            responses.add(session.toResponse());
+        }
+        return responses;
+    }
+
+    public SessionStatsResponse getStats() {
+        int active = 0;
+        for (Session session : sessions.values()) {
+            if (!session.state.isFinished()) {
+                active++;
+            }
+        }
+        return new SessionStatsResponse(active, started.sum(), completed.sum(), cancelled.sum(), failed.sum(), stopFailures.sum());
+    }
+
+    /**
+     * Avbryter alla pågående sessioner och väntar kort på att de hunnit stoppa laddningen
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Session session : sessions.values()) {
+            stop(session.id);
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.err.println("ChargingSessionManager: Sessions still running at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(Session session) {
+        synchronized (session) {
+            // Avbruten innan uppgiften startade; stop() har redan avslutat sessionen
+            if (session.state != SessionState.RUNNING) {
+                return;
+            }
+            session.taskStarted = true;
+        }
+        SessionState outcome = SessionState.COMPLETED;
+        String error = null;
+        try {
+            System.out.println("ChargingSessionManager: Session " + session.id + " started (" + session.mode + ")");
+            runMode(session.mode);
+            // Sessionerna fångar själva avbrott och sätter bara tillbaka flaggan
+            if (Thread.currentThread().isInterrupted() || session.state == SessionState.STOPPING) {
+                outcome = SessionState.CANCELLED;
+            }
+        } catch (Exception e) {
+            if (session.state == SessionState.STOPPING) {
+                outcome = SessionState.CANCELLED;
+            } else {
+                outcome = SessionState.FAILED;
+                error = e.getMessage();
+                System.err.println("ChargingSessionManager: Session " + session.id + " failed: " + e.getMessage());
+            }
+        } finally {
+            // Sessionen stoppar själv laddningen när den avbryts eller fallerar; bara en kvarvarande del av laddaren stoppas här
+            if (outcome != SessionState.COMPLETED && batteryManager.holdsCharger()) {
+                ensureChargingStopped(session);
+            }
+            finish(session, outcome, error);
+        }
+    }
+
+    private void runMode(SessionMode mode) {
+        switch (mode) {
+            case DIRECT -> chargingService.chargeBatteryDirect();
+            case PRICE -> chargingService.chargingSessionOnOptimalChargingHoursPrice();
+            case CONSUMPTION -> chargingService.chargingSessionOnOptimalChargingHours();
+            case COST_OPTIMAL -> chargingService.chargingSessionOnCostOptimalSchedule();
+            case ROLLING_HORIZON -> chargingService.chargingSessionOnRollingHorizonPlan();
+            case SOLAR -> chargingService.chargingSessionOnSolarSurplus();
+        }
+    }
+
+    /**
+     * Stoppar laddningen på servern med avbrottsflaggan rensad; flaggan återställs efteråt
+     */
+    private void ensureChargingStopped(Session session) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            for (int attempt = 1; attempt <= stopAttempts; attempt++) {
+                try {
+                    batteryManager.stopChargingApi();
+                    return;
+                } catch (Exception e) {
+                    System.err.println("ChargingSessionManager: Attempt " + attempt + " to stop charging for session "
+                        + session.id + " failed: " + e.getMessage());
+                }
+            }
+            stopFailures.increment();
+            // Laddaren får inte hållas kvar av en session som är slut; andra sessioner ska kunna stänga av den
+            batteryManager.releaseCharger();
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void finish(Session session, SessionState outcome, String error) {
+        synchronized (session) {
+            session.state = outcome;
+            session.error = error;
+            session.finishedAt = Instant.now();
+        }
+        switch (outcome) {
+            case COMPLETED -> completed.increment();
+            case CANCELLED -> cancelled.increment();
+            default -> failed.increment();
+        }
+        System.out.println("ChargingSessionManager: Session " + session.id + " " + outcome);
+
+        finished.add(session.id);
+        while (finished.size() > retainedFinished) {
+            String oldest = finished.poll();
+            if (oldest != null) {
+                sessions.remove(oldest);
+            }
+        }
+    }
+
+    private static final class Session {
+        private final long sequence;
+        private final String id;
+        private final SessionMode mode;
+        private final Instant startedAt = Instant.now();
+        private volatile SessionState state = SessionState.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile String error;
+        private Future<?> future;
+        private boolean taskStarted;
+
+        private Session(long sequence, SessionMode mode) {
+            this.sequence = sequence;
+            this.id = "s-" + sequence;
+            this.mode = mode;
+        }
+
+        private synchronized SessionStatusResponse toResponse() {
+            return new SessionStatusResponse(id, mode.name(), state.name(), startedAt.toString(),
+                finishedAt != null ? finishedAt.toString() : null, error);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.makeienko.laddstation.service.session;
+
+/**
+ * Laddningslägen som kan köras som sessioner, motsvarar CLI-menyns laddningsval
+ */
+public enum SessionMode {
+    DIRECT,
+    PRICE,
+    CONSUMPTION,
+    COST_OPTIMAL,
+    ROLLING_HORIZON,
+    SOLAR
+}
@@ -0,0 +1,13 @@
+package com.makeienko.laddstation.service.session;
+
+public enum SessionState {
+    RUNNING,
+    STOPPING,  // Avbruten, väntar på att laddningen stoppats på servern
+    COMPLETED,
+    CANCELLED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == CANCELLED || this == FAILED;
+    }
+}
@@ -0,0 +1,55 @@
+package com.makeienko.laddstation.service.strategy;
+
+import com.makeienko.laddstation.dto.HourMask;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.service.ChargingHourOptimizer;
+import com.makeienko.laddstation.service.schedule.ChargeSchedule;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * Laddar enligt det exakta kostnadsminimerande schemat (15 minuters upplösning, avgång kl 07:00).
+ * Beslutet tas per lucka, så en delvis använd timme laddas bara under de kvartar schemat valt.
+ * Har horisonten passerats utan att målnivån nåtts planeras ett nytt schema.
+ */
+public class CostOptimalStrategy implements OptimalHoursStrategy {
+    private final ChargingHourOptimizer optimizer;
+    private volatile ChargeSchedule schedule;
+
+    public CostOptimalStrategy(ChargingHourOptimizer optimizer) {
+        this.optimizer = optimizer;
+    }
+
+    @Override
+    public HourMask findOptimalHourMask() throws JsonProcessingException {
+        schedule = optimizer.findCostOptimalSchedule();
+        return schedule.getChargingHourMask();
+    }
+
+    @Override
+    public boolean shouldChargeNow(InfoResponse info, HourMask optimalHours) {
+        // Masken räknas från schemats start och kan inte jämföras med klocktimmen; planera istället
+        ChargeSchedule current = schedule;
+        if (current == null) {
+            current = optimizer.findCostOptimalSchedule();
+            schedule = current;
+        }
+        int slot = ChargeSchedule.slotOfDay(info.getSimTimeHour(), info.getSimTimeMin());
+        int offset = Math.floorMod(slot - current.getStartSlotOfDay(), ChargeSchedule.SLOTS_PER_DAY);
+        if (offset >= current.getHorizonSlots()) {
+            current = optimizer.findCostOptimalSchedule();
+            schedule = current;
+            offset = Math.floorMod(slot - current.getStartSlotOfDay(), ChargeSchedule.SLOTS_PER_DAY);
+        }
+        return current.isChargingAt(offset);
+    }
+
+    @Override
+    public boolean mayChargeLaterThisHour(InfoResponse info, HourMask optimalHours) {
+        ChargeSchedule current = schedule;
+        if (current == null) {
+            return false;
+        }
+        int slot = ChargeSchedule.slotOfDay(info.getSimTimeHour(), info.getSimTimeMin());
+        return current.isChargingLaterInHour(Math.floorMod(slot - current.getStartSlotOfDay(), ChargeSchedule.SLOTS_PER_DAY));
+    }
+}
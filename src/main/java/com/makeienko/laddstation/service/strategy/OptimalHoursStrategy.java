@@ -3,7 +3,42 @@ package com.makeienko.laddstation.service.strategy;
 import java.util.List;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.makeienko.laddstation.dto.HourMask;
+import com.makeienko.laddstation.dto.InfoResponse;
 
 public interface OptimalHoursStrategy {
-    List<Double> findOptimalHours() throws JsonProcessingException;
+    HourMask findOptimalHourMask() throws JsonProcessingException;
+
+    /**
+     * Ska laddning ske i det här tidssteget? Standard är att aktuell timme finns bland de optimala.
+     * Strategier som planerar över flera dygn svarar istället mot absolut simulerad tid.
+     */
+    default boolean shouldChargeNow(InfoResponse info, HourMask optimalHours) {
+        return optimalHours.contains(info.getSimTimeHour());
+    }
+
+    /**
+     * Kan en senare kvart i den pågående timmen bli aktuell? Avgör om en session som inte laddar
+     * väntar en kvart eller till nästa timme. Standard är att aktuell timme finns bland de optimala;
+     * strategier vars mask räknas från planens start svarar utifrån sin plan.
+     */
+    default boolean mayChargeLaterThisHour(InfoResponse info, HourMask optimalHours) {
+        return optimalHours.contains(info.getSimTimeHour());
+    }
+
+    /**
+     * @deprecated använd {@link #findOptimalHourMask()}
+     */
+    @Deprecated
+    default List<Double> findOptimalHours() throws JsonProcessingException {
+        return findOptimalHourMask().toHourList();
+    }
+
+    /**
+     * @deprecated använd {@link #shouldChargeNow(InfoResponse, HourMask)}
+     */
+    @Deprecated
+    default boolean shouldChargeNow(InfoResponse info, List<Double> optimalHours) {
+        return shouldChargeNow(info, HourMask.fromHours(optimalHours));
+    }
 }
@@ -1,7 +1,6 @@
 package com.makeienko.laddstation.service.strategy;
 
-import java.util.List;
-
+import com.makeienko.laddstation.dto.HourMask;
 import com.makeienko.laddstation.service.LaddstationApiClient;
 import com.makeienko.laddstation.service.ChargingHourOptimizer;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -16,8 +15,8 @@ public class PriceBasedStrategy implements OptimalHoursStrategy {
     }
 
     @Override
-    public List<Double> findOptimalHours() throws JsonProcessingException {
+    public HourMask findOptimalHourMask() throws JsonProcessingException {
         // ChargingHourOptimizer hämtar nu själv nödvändig data (baseload, prices, info)
-        return optimizer.findOptimalHoursByPrice();
+        return optimizer.findOptimalHourMaskByPrice();
     }
 }
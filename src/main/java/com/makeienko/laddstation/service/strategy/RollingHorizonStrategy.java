@@ -0,0 +1,58 @@
+package com.makeienko.laddstation.service.strategy;
+
+import com.makeienko.laddstation.dto.HourMask;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.service.ChargePlanService;
+import com.makeienko.laddstation.service.schedule.RollingPlan;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * Laddar enligt en egen flerdygnsplan för sessionen. Beslutet tas per 15-minuterslucka mot absolut
+ * simulerad tid, så en session som passerar midnatt kan använda billiga timmar nästa dygn.
+ */
+public class RollingHorizonStrategy implements OptimalHoursStrategy {
+    private final ChargePlanService planService;
+    private volatile ChargePlanService.Session session;
+    private volatile RollingPlan plan;
+
+    public RollingHorizonStrategy(ChargePlanService planService) {
+        this.planService = planService;
+    }
+
+    @Override
+    public HourMask findOptimalHourMask() throws JsonProcessingException {
+        // Ny session, ny horisont; stationens gemensamma plan lämnas orörd
+        // Masken räknas från sessionens start och rymmer hela horisonten, även kommande dygn
+        session = planService.newSession();
+        plan = session.plan();
+        return plan.getChargingHourMask();
+    }
+
+    @Override
+    public boolean shouldChargeNow(InfoResponse info, HourMask optimalHours) {
+        ChargePlanService.Session current = session;
+        if (current == null) {
+            current = planService.newSession();
+            session = current;
+        }
+        RollingPlan next = current.plan(info);
+        plan = next;
+        return next.isChargingNow();
+    }
+
+    @Override
+    public boolean mayChargeLaterThisHour(InfoResponse info, HourMask optimalHours) {
+        RollingPlan current = plan;
+        return current != null && current.isChargingLaterThisHour();
+    }
+
+    public long getSolveCount() {
+        ChargePlanService.Session current = session;
+        return current == null ? 0 : current.getSolveCount();
+    }
+
+    public long getReuseCount() {
+        ChargePlanService.Session current = session;
+        return current == null ? 0 : current.getReuseCount();
+    }
+}
@@ -0,0 +1,341 @@
+package com.makeienko.laddstation.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ersättare för ChargingWebserver_v0.8.py som körs i samma JVM. Exponerar samma endpoints
+ * (/info, /charge, /baseload, /priceperhour, /solarproduction, /discharge-ev-battery,
+ * /discharge-home-battery) över en inbyggd HTTP-server, med en klocka som kan accelereras,
+ * stegas eller frysas. Varje anrop hanteras i en egen virtuell tråd och läser en publicerad
+ * snapshot, så läsningar blockerar inte varandra som Python-skriptets globala lås gör.
+ *
+ * Styrning för lasttester utanför processen:
+ * POST /sim/advance?steps=N (eller days=N) och POST /sim/clock?mode=...&stepsPerSecond=...
+ */
+public class EmbeddedSimulator implements AutoCloseable {
+
+    // Takten i Python-skriptet: ett steg (15 simulerade minuter) per verklig sekund
+    public static final double REALTIME_STEPS_PER_SECOND = 1.0;
+
+    private static final long MIN_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_TICK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimulatorEngine engine;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScheduledExecutorService ticker;
+
+    private HttpServer server;
+    private ExecutorService handlers;
+
+    private SimulatorClockMode clockMode = SimulatorClockMode.STEPPED;
+    private double stepsPerSecond = REALTIME_STEPS_PER_SECOND;
+    private ScheduledFuture<?> tickTask;
+    private long acceleratedSince;
+    private long acceleratedSteps;
+
+    public EmbeddedSimulator() {
+        this(new SimulatorEngine());
+    }
+
+    public EmbeddedSimulator(SimulatorEngine engine) {
+        this.engine = engine;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("embedded-simulator-clock").daemon().factory());
+    }
+
+    public SimulatorEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Startar HTTP-servern; port 0 ger en ledig port
+     */
+    public synchronized EmbeddedSimulator start(String host, int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Embedded simulator is already running on port " + getPort());
+        }
+        // Utan TCP_NODELAY väntar svaren in fördröjda ACK:ar (~40 ms) eftersom huvud och kropp skrivs var för sig
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(host, port), 256);
+        handlers = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(handlers);
+        server.createContext("/", this::handle);
+        server.start();
+        System.out.println("EmbeddedSimulator: Listening on " + getBaseUrl() + " with clock " + clockMode);
+        return this;
+    }
+
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("Embedded simulator is not running");
+        }
+        return server.getAddress().getPort();
+    }
+
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + getPort();
+    }
+
+    public synchronized SimulatorClockMode getClockMode() {
+        return clockMode;
+    }
+
+    /**
+     * Byter klockläge. stepsPerSecond används bara i ACCELERATED; 1,0 motsvarar Python-skriptet
+     * och t.ex. 100 000 ger ungefär tusen simulerade dygn per sekund.
+     */
+    public synchronized void setClockMode(SimulatorClockMode mode, double stepsPerSecond) {
+        if (mode == SimulatorClockMode.ACCELERATED && !(stepsPerSecond > 0)) {
+            throw new IllegalArgumentException("stepsPerSecond must be positive");
+        }
+        if (tickTask != null) {
+            tickTask.cancel(false);
+            tickTask = null;
+        }
+        clockMode = mode;
+        if (mode == SimulatorClockMode.ACCELERATED) {
+            this.stepsPerSecond = stepsPerSecond;
+            acceleratedSince = System.nanoTime();
+            acceleratedSteps = 0;
+            long period = Math.max(MIN_TICK_NANOS, Math.min(MAX_TICK_NANOS, (long) (1_000_000_000L / stepsPerSecond)));
+            tickTask = ticker.scheduleAtFixedRate(this::catchUp, period, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void setClockMode(SimulatorClockMode mode) {
+        setClockMode(mode, stepsPerSecond);
+    }
+
+    /**
+     * Stegar klockan manuellt. Tillåts i STEPPED och ACCELERATED men inte i FROZEN.
+     */
+    public void advance(long steps) {
+        synchronized (this) {
+            if (clockMode == SimulatorClockMode.FROZEN) {
+                throw new IllegalStateException("Simulator clock is frozen");
+            }
+        }
+        engine.advance(steps);
+    }
+
+    public void advanceDays(long days) {
+        advance(days * 24 * engine.getStepsPerHour());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (tickTask != null) {
+            tickTask.cancel(false);
+            tickTask = null;
+        }
+        ticker.shutdownNow();
+        if (server != null) {
+            server.stop(0);
+            handlers.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Tar igen de steg som borde ha hunnit tas sedan accelerationen startade,
+     * så att takten håller även när schemaläggaren inte hinner med varje period
+     */
+    private synchronized void catchUp() {
+        if (clockMode != SimulatorClockMode.ACCELERATED) {
+            return;
+        }
+        long due = (long) ((System.nanoTime() - acceleratedSince) / 1e9 * stepsPerSecond);
+        long steps = due - acceleratedSteps;
+        if (steps > 0) {
+            engine.advance(steps);
+            acceleratedSteps = due;
+        }
+    }
+
+    private Response route(String method, URI uri, byte[] body) throws IOException {
+        String path = uri.getPath();
+        boolean get = "GET".equals(method);
+        boolean post = "POST".equals(method);
+        switch (path) {
+            case "/":
+                return get ? Response.json(engine.snapshot().getBatteryEnergyKwh()) : Response.methodNotAllowed();
+            case "/info":
+                return get ? Response.json(engine.snapshot()) : Response.methodNotAllowed();
+            case "/baseload":
+                return get ? Response.json(engine.getBaseload()) : Response.methodNotAllowed();
+            case "/priceperhour":
+                return get ? Response.json(engine.getHourlyPrices()) : Response.methodNotAllowed();
+            case "/solarproduction":
+                return get ? Response.json(engine.getSolarProduction()) : Response.methodNotAllowed();
+            case "/charge":
+                if (get) {
+                    return Response.json(SimulatorEngine.round2(engine.snapshot().getBatteryEnergyKwh() / SimulatorEngine.EV_BATT_MAX_CAPACITY * 100));
+                }
+                if (post) {
+                    String value = readField(body, "charging");
+                    if (!"on".equals(value) && !"off".equals(value)) {
+                        return Response.badRequest("charging must be \"on\" or \"off\"");
+                    }
+                    engine.setCharging("on".equals(value));
+                    return Response.json(Map.of("charging", value));
+                }
+                return Response.methodNotAllowed();
+            case "/discharge-ev-battery":
+                if (get) {
+                    return Response.json(Map.of("message", "This is a GET request. Use POST to reset the EV battery."));
+                }
+                if (post) {
+                    if (!"on".equals(readField(body, "discharging"))) {
+                        return Response.badRequest("discharging must be \"on\"");
+                    }
+                    engine.resetEvBattery();
+                    return Response.json(Map.of("discharging", "on"));
+                }
+                return Response.methodNotAllowed();
+            case "/discharge-home-battery":
+                if (get) {
+                    return Response.json(Map.of("message", "This is a GET request. Use POST to discharge home battery to 10%."));
+                }
+                if (post) {
+                    if (!"on".equals(readField(body, "discharging"))) {
+                        return Response.badRequest("discharging must be \"on\"");
+                    }
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("home_battery_discharging", "on");
+                    result.put("new_level", engine.dischargeHomeBattery());
+                    return Response.json(result);
+                }
+                return Response.methodNotAllowed();
+            case "/sim/advance":
+                return post ? advance(uri) : Response.methodNotAllowed();
+            case "/sim/clock":
+                return post ? clock(uri) : Response.methodNotAllowed();
+            default:
+                return new Response(404, "{\"error\": \"Not found\"}");
+        }
+    }
+
+    private Response advance(URI uri) {
+        Map<String, String> query = query(uri);
+        try {
+            if (query.containsKey("days")) {
+                advanceDays(Long.parseLong(query.get("days")));
+            } else {
+                advance(Long.parseLong(query.getOrDefault("steps", "1")));
+            }
+        } catch (NumberFormatException e) {
+            return Response.badRequest("steps and days must be integers");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return Response.badRequest(e.getMessage());
+        }
+        return Response.json(engine.snapshot());
+    }
+
+    private Response clock(URI uri) {
+        Map<String, String> query = query(uri);
+        try {
+            SimulatorClockMode mode = SimulatorClockMode.valueOf(query.getOrDefault("mode", "").toUpperCase());
+            double rate = query.containsKey("stepsPerSecond") ? Double.parseDouble(query.get("stepsPerSecond")) : stepsPerSecond;
+            setClockMode(mode, rate);
+        } catch (IllegalArgumentException e) {
+            return Response.badRequest("mode must be one of accelerated, stepped, frozen and stepsPerSecond a positive number");
+        }
+        return Response.json(Map.of("mode", getClockMode().name().toLowerCase()));
+    }
+
+    private String readField(byte[] body, String field) throws IOException {
+        if (body.length == 0) {
+            return null;
+        }
+        Object value = objectMapper.readValue(body, Map.class).get(field);
+        return value != null ? value.toString() : null;
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> values = new LinkedHashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return values;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                values.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return values;
+    }
+
+    private void handle(HttpExchange exchange) {
+        try (exchange; InputStream in = exchange.getRequestBody()) {
+            byte[] requestBody = in.readAllBytes();
+            Response response;
+            try {
+                response = route(exchange.getRequestMethod(), exchange.getRequestURI(), requestBody);
+            } catch (IOException e) {
+                response = Response.badRequest("Invalid JSON input");
+            } catch (RuntimeException e) {
+                response = new Response(500, "{\"error\": \"" + e.getClass().getSimpleName() + "\"}");
+            }
+            byte[] bytes = response.body instanceof String text
+                ? text.getBytes(StandardCharsets.UTF_8)
+                : objectMapper.writeValueAsBytes(response.body);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            exchange.sendResponseHeaders(response.status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            System.err.println("EmbeddedSimulator: Failed to write response: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Svar där body antingen är färdig JSON-text eller ett objekt som serialiseras
+     */
+    private record Response(int status, Object body) {
+        static Response json(Object body) {
+            return new Response(200, body);
+        }
+
+        static Response badRequest(String message) {
+            return new Response(400, Map.of("error", message));
+        }
+
+        static Response methodNotAllowed() {
+            return new Response(405, "{\"error\": \"Unsupported HTTP method\"}");
+        }
+    }
+
+    /**
+     * Startar simulatorn fristående som ersättning för Flask-servern:
+     * [port] [accelerated|stepped|frozen] [stepsPerSecond]
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 5001;
+        SimulatorClockMode mode = args.length > 1 ? SimulatorClockMode.valueOf(args[1].toUpperCase()) : SimulatorClockMode.ACCELERATED;
+        double rate = args.length > 2 ? Double.parseDouble(args[2]) : REALTIME_STEPS_PER_SECOND;
+
+        EmbeddedSimulator simulator = new EmbeddedSimulator().start("127.0.0.1", port);
+        simulator.setClockMode(mode, rate);
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::close));
+    }
+}
@@ -0,0 +1,13 @@
+package com.makeienko.laddstation.simulator;
+
+/**
+ * Hur den inbyggda simulatorns klocka drivs framåt
+ */
+public enum SimulatorClockMode {
+    /** Klockan går av sig själv med ett konfigurerbart antal steg per verklig sekund */
+    ACCELERATED,
+    /** Klockan går bara fram när någon uttryckligen stegar den */
+    STEPPED,
+    /** Klockan står still; stegning avvisas */
+    FROZEN
+}
@@ -0,0 +1,264 @@
+package com.makeienko.laddstation.simulator;
+
+import com.makeienko.laddstation.dto.InfoResponse;
+
+/**
+ * Java-version av fysiken i ChargingWebserver_v0.8.py, utan egen klocka.
+ * Ett steg motsvarar ett varv i Python-skriptets inre loop (en verklig sekund där),
+ * dvs. 60/stepsPerHour simulerade minuter. Vem som helst kan driva stegen: en
+ * accelererad klocka, ett test eller en lasttest som stegar tusentals dygn.
+ *
+ * Tillståndet ändras under objektets lås; läsare får en oföränderlig snapshot
+ * som publiceras efter varje ändring och läses utan lås.
+ */
+public class SimulatorEngine {
+
+    // Öre per kWh inkl. moms, samma värden som energy_price i Python-skriptet
+    private static final double[] ENERGY_PRICE = {
+        85.28, 70.86, 68.01, 67.95, 68.01, 85.04, 87.86, 100.26, 118.45, 116.61, 105.93, 91.95,
+        90.51, 90.34, 90.80, 88.85, 90.39, 99.03, 87.11, 82.9, 80.45, 76.48, 32.00, 34.29
+    };
+
+    private static final double[] BASE_LOAD_PERCENT = {
+        0.18, 0.16, 0.15, 0.15, 0.16, 0.20, 0.35, 0.45, 0.40, 0.25, 0.30, 0.35,
+        0.50, 0.30, 0.25, 0.30, 0.35, 0.60, 0.70, 0.45, 0.35, 0.30, 0.25, 0.20
+    };
+
+    private static final double[] SOLAR_PRODUCTION_PERCENT = {
+        0.0, 0.0, 0.0, 0.0, 0.0, 0.05, 0.15, 0.35, 0.55, 0.75, 0.90, 0.95,
+        1.0, 0.95, 0.90, 0.75, 0.55, 0.35, 0.15, 0.05, 0.0, 0.0, 0.0, 0.0
+    };
+
+    public static final double MAX_POWER_RESIDENTIAL = 11.0;
+    public static final double CHARGING_POWER = 7.4;
+    public static final double EV_BATT_MAX_CAPACITY = 46.3;
+    public static final double EV_BATT_DEFAULT_PERCENT = 20.0;
+    public static final double HOME_BATT_MAX_CAPACITY = 13.5;
+    public static final double HOME_BATT_MIN_PERCENT = 10.0;
+    public static final double HOME_BATT_DEFAULT_PERCENT = 40.0;
+    public static final double SOLAR_PANEL_MAX_CAPACITY = 10.0;
+    public static final int DEFAULT_STEPS_PER_HOUR = 4;
+
+    // Laddningen fortsätter tills batteriet passerat 110 %, som i skriptet
+    private static final double EV_MAX_CHARGE_PERCENT = 110.0;
+
+    private final int stepsPerHour;
+    private final double[] hourlyPrices;
+    private final double[] baseLoadKwh;
+    private final double[] solarProductionKwh;
+    private final double homeBattMinCapacityKwh = HOME_BATT_MIN_PERCENT / 100 * HOME_BATT_MAX_CAPACITY;
+
+    private int hour;
+    private int minute;
+    private int stepInHour;
+    private long simulatedDay;
+    private long totalSteps;
+    private double householdLoadKwh;
+    private double solarNowKwh;
+    private double evBattCapacityKwh;
+    private double evBattCapacityPercent;
+    private boolean charging;
+    private double homeBattCapacityKwh;
+    private double homeBattCapacityPercent;
+    private String homeBatteryMode;
+
+    private volatile InfoResponse snapshot;
+
+    public SimulatorEngine() {
+        this(DEFAULT_STEPS_PER_HOUR);
+    }
+
+    public SimulatorEngine(int stepsPerHour) {
+        this(stepsPerHour, ENERGY_PRICE, scaled(BASE_LOAD_PERCENT, MAX_POWER_RESIDENTIAL),
+            scaled(SOLAR_PRODUCTION_PERCENT, SOLAR_PANEL_MAX_CAPACITY));
+    }
+
+    /**
+     * Motor med egna dygnsserier istället för skriptets, t.ex. inspelade eller syntetiska dygn
+     * i en backtest. Serierna kopieras och har 24 värden: pris (öre/kWh), hushållets last och
+     * solproduktion (kWh per timme).
+     */
+    public SimulatorEngine(int stepsPerHour, double[] hourlyPrices, double[] baseLoadKwh, double[] solarProductionKwh) {
+        if (stepsPerHour < 1 || stepsPerHour > 60) {
+            throw new IllegalArgumentException("stepsPerHour must be between 1 and 60");
+        }
+        if (hourlyPrices.length != 24 || baseLoadKwh.length != 24 || solarProductionKwh.length != 24) {
+            throw new IllegalArgumentException("Hourly series must have 24 values");
+        }
+        this.stepsPerHour = stepsPerHour;
+        this.hourlyPrices = hourlyPrices.clone();
+        this.baseLoadKwh = baseLoadKwh.clone();
+        this.solarProductionKwh = solarProductionKwh.clone();
+        householdLoadKwh = baseLoadKwh[0];
+        solarNowKwh = solarProductionKwh[0];
+        // Privata hjälpmetoder, så att konstruktorn inte anropar metoder som en subklass kan ersätta
+        resetEvBatteryState();
+        // Skriptets tråd kör första steget direkt vid start
+        stepOnce();
+        publish();
+    }
+
+    /**
+     * Senaste tillstånd i samma form som /info. Delas mellan läsare och får inte ändras.
+     */
+    public InfoResponse snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Stegar klockan ett steg framåt
+     */
+    public void step() {
+        advance(1);
+    }
+
+    /**
+     * Stegar klockan flera steg framåt under ett och samma lås; snapshot publiceras en gång
+     */
+    public synchronized void advance(long steps) {
+        if (steps < 0) {
+            throw new IllegalArgumentException("steps must not be negative");
+        }
+        for (long i = 0; i < steps; i++) {
+            stepOnce();
+        }
+        if (steps > 0) {
+            publish();
+        }
+    }
+
+    /**
+     * Stegar fram hela simulerade dygn
+     */
+    public void advanceDays(long days) {
+        advance(days * 24 * stepsPerHour);
+    }
+
+    public synchronized void setCharging(boolean on) {
+        charging = on;
+        publish();
+    }
+
+    /**
+     * /discharge-ev-battery: återställer elbil, husbatteri och klockan till 00:00
+     */
+    public synchronized void resetEvBattery() {
+        resetEvBatteryState();
+        publish();
+    }
+
+    private void resetEvBatteryState() {
+        charging = false;
+        householdLoadKwh = baseLoadKwh[0];
+        evBattCapacityPercent = EV_BATT_DEFAULT_PERCENT;
+        evBattCapacityKwh = evBattCapacityPercent / 100 * EV_BATT_MAX_CAPACITY;
+        resetHomeBattery(HOME_BATT_DEFAULT_PERCENT);
+        // Som i skriptet nollställs bara tiden; stegräknaren i timmen löper vidare
+        hour = 0;
+        minute = 0;
+    }
+
+    /**
+     * /discharge-home-battery: husbatteriet till lägsta säkra nivån
+     */
+    public synchronized double dischargeHomeBattery() {
+        resetHomeBattery(HOME_BATT_MIN_PERCENT);
+        publish();
+        return homeBattCapacityPercent;
+    }
+
+    public double[] getHourlyPrices() {
+        return hourlyPrices.clone();
+    }
+
+    public double[] getBaseload() {
+        return baseLoadKwh.clone();
+    }
+
+    public double[] getSolarProduction() {
+        return solarProductionKwh.clone();
+    }
+
+    public int getStepsPerHour() {
+        return stepsPerHour;
+    }
+
+    public synchronized long getSimulatedDay() {
+        return simulatedDay;
+    }
+
+    public synchronized long getTotalSteps() {
+        return totalSteps;
+    }
+
+    /**
+     * Ett varv i skriptets inre loop; timbyte sker först när nästa timme börjar
+     */
+    private void stepOnce() {
+        if (stepInHour == stepsPerHour) {
+            stepInHour = 0;
+            hour = (hour + 1) % 24;
+            if (hour == 0) {
+                simulatedDay++;
+            }
+        }
+        if (stepInHour == 0) {
+            householdLoadKwh = baseLoadKwh[hour];
+            solarNowKwh = solarProductionKwh[hour];
+        }
+
+        if (charging && evBattCapacityPercent < EV_MAX_CHARGE_PERCENT) {
+            evBattCapacityKwh = round2(evBattCapacityKwh + CHARGING_POWER / stepsPerHour);
+            evBattCapacityPercent = round2(evBattCapacityKwh / EV_BATT_MAX_CAPACITY * 100);
+        }
+
+        if (homeBattCapacityKwh < homeBattMinCapacityKwh) {
+            homeBatteryMode = "idle";
+        }
+        if (homeBattCapacityKwh > HOME_BATT_MAX_CAPACITY) {
+            homeBattCapacityKwh = HOME_BATT_MAX_CAPACITY;
+        }
+        homeBattCapacityPercent = round2(homeBattCapacityKwh / HOME_BATT_MAX_CAPACITY * 100);
+
+        minute = (int) Math.round((60.0 / stepsPerHour * stepInHour) % 60);
+        stepInHour++;
+        totalSteps++;
+    }
+
+    private void resetHomeBattery(double percent) {
+        homeBattCapacityPercent = percent;
+        homeBattCapacityKwh = percent / 100 * HOME_BATT_MAX_CAPACITY;
+        homeBatteryMode = "idle";
+    }
+
+    private void publish() {
+        InfoResponse info = new InfoResponse();
+        info.setSimTimeHour(hour);
+        info.setSimTimeMin(minute);
+        info.setHouseholdLoadKwh(householdLoadKwh);
+        info.setBatteryEnergyKwh(evBattCapacityKwh);
+        info.setEvBatteryChargeStartStopp(charging);
+        info.setEvBattMaxCapacityKwh(EV_BATT_MAX_CAPACITY);
+        info.setHomeBattCapacityKwh(homeBattCapacityKwh);
+        info.setHomeBattMaxCapacityKwh(HOME_BATT_MAX_CAPACITY);
+        info.setHomeBattMinCapacityKwh(homeBattMinCapacityKwh);
+        info.setHomeBattCapacityPercent(homeBattCapacityPercent);
+        info.setHomeBatteryMode(homeBatteryMode);
+        info.setSolarProductionKwh(solarNowKwh);
+        info.setSolarMaxCapacityKwh(SOLAR_PANEL_MAX_CAPACITY);
+        info.setNetHouseholdLoadKwh(round2(householdLoadKwh - solarNowKwh));
+        snapshot = info;
+    }
+
+    private static double[] scaled(double[] percent, double max) {
+        double[] values = new double[percent.length];
+        for (int i = 0; i < percent.length; i++) {
+            values[i] = round2(percent[i] * max);
+        }
+        return values;
+    }
+
+    static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.makeienko.laddstation.UI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.service.InMemorySimulatorPort;
+import com.makeienko.laddstation.service.LaddstationApiClient;
+import com.makeienko.laddstation.service.SimulatorMetrics;
+import com.makeienko.laddstation.service.SimulatorSeriesStore;
+import com.makeienko.laddstation.service.backtest.BacktestDay;
+import com.makeienko.laddstation.service.history.InfoHistoryStore;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+
+public class BacktestCLITest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordedDaysFollowSimulatedTime() {
+        SimulatorEngine engine = new SimulatorEngine();
+        LaddstationProperties properties = new LaddstationProperties();
+        properties.getInfoCache().setStaleness(Duration.ZERO);
+        properties.getHistory().setEnabled(true);
+        properties.getHistory().setDirectory(directory.toString());
+        LaddstationApiClient apiClient = new LaddstationApiClient(new InMemorySimulatorPort(engine), properties, SimulatorMetrics.standalone());
+        InfoHistoryStore historyStore = new InfoHistoryStore(apiClient, new SimulatorSeriesStore(apiClient), properties);
+        historyStore.open();
+        try {
+            // Två och ett halvt simulerat dygn med en snapshot per kvart, via klienten som i appen
+            int steps = 5 * 24 * engine.getStepsPerHour() / 2;
+            for (int i = 0; i < steps; i++) {
+                apiClient.getInfo();
+                engine.step();
+            }
+
+            List<BacktestDay> days = BacktestCLI.recordedDays(historyStore);
+
+            assertEquals(1, days.size());
+            BacktestDay day = days.get(0);
+            for (int hour = 0; hour < BacktestDay.HOURS; hour++) {
+                assertEquals(engine.getBaseload()[hour], day.getBaseload(hour), 1e-9, "hour " + hour);
+            }
+            assertTrue(historyStore.getLatestTimestamp() > 2 * 24 * 3600 * 1000L);
+        } finally {
+            historyStore.close();
+        }
+    }
+}
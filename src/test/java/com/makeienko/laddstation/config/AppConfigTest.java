@@ -0,0 +1,70 @@
+package com.makeienko.laddstation.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.annotation.UserConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+public class AppConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withConfiguration(UserConfigurations.of(AppConfig.class));
+
+    @Test
+    void testTransportTypeSelectsRequestFactory() {
+        LaddstationProperties.Transport transport = new LaddstationProperties().getTransport();
+        ExecutorService executor = AppConfig.httpExecutor(2);
+        try {
+            HttpClient httpClient = AppConfig.httpClient(transport, executor);
+            assertInstanceOf(JdkClientHttpRequestFactory.class, AppConfig.requestFactory(transport, httpClient));
+
+            transport.setType(LaddstationProperties.TransportType.SIMPLE);
+            assertInstanceOf(SimpleClientHttpRequestFactory.class, AppConfig.requestFactory(transport, httpClient));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testHttpClientIsConfiguredOnTheClient() {
+        LaddstationProperties.Transport transport = new LaddstationProperties().getTransport();
+        transport.setConnectTimeout(Duration.ofMillis(750));
+        ExecutorService executor = AppConfig.httpExecutor(4);
+        try {
+            HttpClient httpClient = AppConfig.httpClient(transport, executor);
+            assertEquals(HttpClient.Version.HTTP_1_1, httpClient.version());
+            assertEquals(Duration.ofMillis(750), httpClient.connectTimeout().orElseThrow());
+            assertSame(executor, httpClient.executor().orElseThrow());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testBeansFollowTransportProperties() {
+        contextRunner
+            .withPropertyValues("laddstation.transport.type=simple", "laddstation.transport.max-connections=3")
+            .run(context -> {
+                TransportPoolLimiter limiter = context.getBean(TransportPoolLimiter.class);
+                assertEquals("simple", limiter.getStats().getTransportType());
+                assertEquals(3, limiter.getStats().getMaxConnections());
+                assertThat(context.getBean(RestTemplate.class).getInterceptors()).containsExactly(limiter);
+            });
+
+        contextRunner.run(context -> {
+            assertEquals("jdk", context.getBean(TransportPoolLimiter.class).getStats().getTransportType());
+            assertThat(context.getBean(HttpClient.class).executor()).isPresent();
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package com.makeienko.laddstation.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+public class HttpClientKeepAliveListenerTest {
+
+    private String original;
+
+    @BeforeEach
+    void setUp() {
+        original = System.clearProperty(HttpClientKeepAliveListener.KEEP_ALIVE_PROPERTY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (original != null) {
+            System.setProperty(HttpClientKeepAliveListener.KEEP_ALIVE_PROPERTY, original);
+        } else {
+            System.clearProperty(HttpClientKeepAliveListener.KEEP_ALIVE_PROPERTY);
+        }
+    }
+
+    @Test
+    void testIdleTimeoutBecomesKeepAliveSeconds() {
+        HttpClientKeepAliveListener.apply(new MockEnvironment().withProperty(HttpClientKeepAliveListener.IDLE_TIMEOUT_PROPERTY, "2m"));
+
+        assertEquals("120", System.getProperty(HttpClientKeepAliveListener.KEEP_ALIVE_PROPERTY));
+    }
+
+    @Test
+    void testExplicitJvmFlagWins() {
+        System.setProperty(HttpClientKeepAliveListener.KEEP_ALIVE_PROPERTY, "5");
+
+        HttpClientKeepAliveListener.apply(new MockEnvironment().withProperty(HttpClientKeepAliveListener.IDLE_TIMEOUT_PROPERTY, "30s"));
+
+        assertEquals("5", System.getProperty(HttpClientKeepAliveListener.KEEP_ALIVE_PROPERTY));
+    }
+
+    @Test
+    void testUnsetPropertyLeavesJdkDefault() {
+        HttpClientKeepAliveListener.apply(new MockEnvironment());
+
+        assertNull(System.getProperty(HttpClientKeepAliveListener.KEEP_ALIVE_PROPERTY));
+    }
+}
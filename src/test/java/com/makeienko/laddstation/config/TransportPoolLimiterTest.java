@@ -0,0 +1,151 @@
+package com.makeienko.laddstation.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import com.makeienko.laddstation.dto.TransportStatsResponse;
+
+public class TransportPoolLimiterTest {
+
+    private final MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create("http://127.0.0.1:5001/info"));
+    private final ClientHttpRequestExecution execution = (req, body) -> new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+
+    @Test
+    void testWaitsForFreeConnectionUntilResponseIsClosed() throws Exception {
+        TransportPoolLimiter limiter = new TransportPoolLimiter("jdk", 2);
+        ClientHttpResponse first = limiter.intercept(request, new byte[0], execution);
+        limiter.intercept(request, new byte[0], execution);
+
+        CompletableFuture<ClientHttpResponse> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.intercept(request, new byte[0], execution);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThrows(TimeoutException.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, limiter.getStats().getWaiting());
+
+        first.close();
+        first.close(); // En andra stängning lämnar inte tillbaka anslutningen igen
+        third.get(5, TimeUnit.SECONDS);
+
+        TransportStatsResponse stats = limiter.getStats();
+        assertEquals(2, stats.getInUse());
+        assertEquals(2, stats.getPeakInUse());
+        assertEquals(3, stats.getTotalRequests());
+        assertEquals(1, stats.getWaitedRequests());
+        assertEquals(1.0, stats.getUtilisation());
+    }
+
+    @Test
+    void testFailedRequestReleasesConnection() throws Exception {
+        TransportPoolLimiter limiter = new TransportPoolLimiter("simple", 1);
+        ClientHttpRequestExecution failing = (req, body) -> {
+            throw new IOException("Connection refused");
+        };
+
+        assertThrows(IOException.class, () -> limiter.intercept(request, new byte[0], failing));
+        assertEquals(0, limiter.getStats().getInUse());
+
+        // Den enda anslutningen är ledig igen
+        CompletableFuture<ClientHttpResponse> next = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.intercept(request, new byte[0], execution);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        next.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, limiter.getStats().getInUse());
+        assertEquals(0, limiter.getStats().getWaitedRequests());
+        assertFalse(limiter.getStats().getAvgWaitMs() > 0);
+    }
+
+    @Test
+    void testAsyncCallsQueueWithoutBlocking() throws Exception {
+        TransportPoolLimiter limiter = new TransportPoolLimiter("jdk", 1);
+        CompletableFuture<String> firstResponse = new CompletableFuture<>();
+        AtomicInteger started = new AtomicInteger();
+
+        CompletableFuture<String> first = limiter.executeAsync(() -> {
+            started.incrementAndGet();
+            return firstResponse;
+        });
+        // Returnerar direkt trots att anslutningen är upptagen
+        CompletableFuture<String> second = limiter.executeAsync(() -> {
+            started.incrementAndGet();
+            return CompletableFuture.completedFuture("second");
+        });
+        assertEquals(1, started.get());
+        assertFalse(second.isDone());
+        assertEquals(1, limiter.getStats().getWaiting());
+
+        firstResponse.complete("first");
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("second", second.get(5, TimeUnit.SECONDS));
+
+        TransportStatsResponse stats = limiter.getStats();
+        assertEquals(2, started.get());
+        assertEquals(0, stats.getInUse());
+        assertEquals(1, stats.getPeakInUse());
+        assertEquals(2, stats.getTotalRequests());
+        assertEquals(1, stats.getWaitedRequests());
+    }
+
+    @Test
+    void testAsyncAndBlockingCallsShareConnections() throws Exception {
+        TransportPoolLimiter limiter = new TransportPoolLimiter("jdk", 1);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        limiter.executeAsync(() -> pending);
+
+        CompletableFuture<ClientHttpResponse> blocking = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.intercept(request, new byte[0], execution);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThrows(TimeoutException.class, () -> blocking.get(200, TimeUnit.MILLISECONDS));
+
+        pending.complete("done");
+        blocking.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, limiter.getStats().getInUse());
+    }
+
+    @Test
+    void testFailedAsyncCallReleasesConnection() throws Exception {
+        TransportPoolLimiter limiter = new TransportPoolLimiter("jdk", 1);
+        IllegalStateException failure = new IllegalStateException("Connection refused");
+
+        CompletableFuture<String> failed = limiter.executeAsync(() -> CompletableFuture.failedFuture(failure));
+        CompletableFuture<String> thrown = limiter.executeAsync(() -> {
+            throw failure;
+        });
+        assertTrue(failed.isCompletedExceptionally());
+        assertTrue(thrown.isCompletedExceptionally());
+        assertSame(failure, assertThrows(ExecutionException.class, thrown::get).getCause());
+
+        assertEquals("ok", limiter.executeAsync(() -> CompletableFuture.completedFuture("ok")).get(5, TimeUnit.SECONDS));
+        assertEquals(0, limiter.getStats().getInUse());
+    }
+}
@@ -0,0 +1,70 @@
+package com.makeienko.laddstation.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.makeienko.laddstation.dto.ConditionalGetStatsResponse;
+
+public class ConditionalGetSupportTest {
+
+    private final ConditionalGetSupport conditionalGet = new ConditionalGetSupport();
+
+    @Test
+    void testEtagChangesWithVersionAndHour() {
+        String etag = conditionalGet.etag("current-price", 3, 14);
+
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        assertEquals(etag, conditionalGet.etag("current-price", 3, 14));
+        assertNotEquals(etag, conditionalGet.etag("current-price", 3, 15));
+        assertNotEquals(etag, conditionalGet.etag("current-price", 4, 14));
+    }
+
+    @Test
+    void testIfNoneMatchParsing() {
+        String etag = conditionalGet.etag("baseload", 7);
+
+        assertTrue(ConditionalGetSupport.matches(etag, etag));
+        assertTrue(ConditionalGetSupport.matches("\"other\", W/" + etag, etag));
+        assertTrue(ConditionalGetSupport.matches("*", etag));
+        assertFalse(ConditionalGetSupport.matches(null, etag));
+        assertFalse(ConditionalGetSupport.matches(conditionalGet.etag("baseload", 8), etag));
+    }
+
+    @Test
+    void testNotModifiedRatioIsCountedPerEndpoint() {
+        String etag = conditionalGet.etag("baseload", 1);
+        conditionalGet.isNotModified("baseload", null, etag);
+        conditionalGet.isNotModified("baseload", etag, etag);
+        conditionalGet.isNotModified("baseload", etag, etag);
+        conditionalGet.isNotModified("baseload", etag, etag);
+
+        ConditionalGetStatsResponse stats = conditionalGet.getStats().get(0);
+        assertEquals("baseload", stats.getEndpoint());
+        assertEquals(4, stats.getRequests());
+        assertEquals(3, stats.getNotModified());
+        assertEquals(0.75, stats.getNotModifiedRatio());
+
+        ResponseEntity<Object> response = conditionalGet.notModified(etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().getETag());
+    }
+
+    @Test
+    void testColdRequestsCountInRatio() {
+        // Första anropet innan serien laddats kan aldrig bli 304 men räknas ändå
+        conditionalGet.recordColdRequest("baseload");
+        String etag = conditionalGet.etag("baseload", 1);
+        conditionalGet.isNotModified("baseload", etag, etag);
+
+        ConditionalGetStatsResponse stats = conditionalGet.getStats().get(0);
+        assertEquals(2, stats.getRequests());
+        assertEquals(1, stats.getNotModified());
+        assertEquals(0.5, stats.getNotModifiedRatio());
+    }
+}
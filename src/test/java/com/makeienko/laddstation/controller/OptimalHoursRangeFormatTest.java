@@ -0,0 +1,51 @@
+package com.makeienko.laddstation.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.dto.HourMask;
+
+public class OptimalHoursRangeFormatTest {
+
+    @Test
+    void testFormatsLikeListVersion() {
+        assertEquals("Ingen optimal tid", LaddstationController.formatOptimalHoursRange(HourMask.empty(HourMask.DAY)));
+        assertEquals("09:00", LaddstationController.formatOptimalHoursRange(HourMask.of(9)));
+
+        // Minst tre nattimmar: från första timmen efter 22 till sista före 07
+        assertEquals("22:00 - 06:00", LaddstationController.formatOptimalHoursRange(HourMask.of(0, 1, 2, 3, 4, 5, 22, 23)));
+        assertEquals("22:00 - 03:00", LaddstationController.formatOptimalHoursRange(HourMask.of(0, 1, 2, 12, 13, 14, 15)));
+        assertEquals("23:00 - 07:00", LaddstationController.formatOptimalHoursRange(HourMask.of(23, 5, 6, 12)));
+
+        // Annars det första av de längsta sammanhängande intervallen
+        assertEquals("09:00 - 12:00", LaddstationController.formatOptimalHoursRange(HourMask.of(2, 9, 10, 11, 15, 19)));
+        assertEquals("09:00 - 11:00", LaddstationController.formatOptimalHoursRange(HourMask.of(9, 10, 14, 15)));
+        assertEquals("3 optimala timmar", LaddstationController.formatOptimalHoursRange(HourMask.of(8, 12, 16)));
+    }
+
+    @Test
+    void testNightCountsOnlyFirstDayOfLongerMask() {
+        // 22-23 första dygnet är bara två nattimmar; 46-47 är andra dygnets kväll och räknas inte
+        HourMask twoDays = new HourMask.Builder(HourMask.TWO_DAYS).set(12).set(13).set(22).set(23).set(46).set(47).build();
+        assertEquals("12:00 - 14:00", LaddstationController.formatOptimalHoursRange(twoDays));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testListAdapterGivesSameText() {
+        List<List<Double>> cases = List.of(
+            List.of(),
+            List.of(22.0, 23.0, 0.0, 1.0, 2.0),
+            List.of(15.0, 2.0, 11.0, 9.0, 10.0, 19.0),
+            List.of(8.0, 12.0, 16.0),
+            List.of(4.0));
+        for (List<Double> hours : cases) {
+            assertEquals(LaddstationController.formatOptimalHoursRange(HourMask.fromHours(hours)),
+                LaddstationController.formatOptimalHoursRange(hours));
+        }
+        assertEquals("22:00 - 03:00", LaddstationController.formatOptimalHoursRange(List.of(22.0, 23.0, 0.0, 1.0, 2.0)));
+    }
+}
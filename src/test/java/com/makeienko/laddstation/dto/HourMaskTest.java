@@ -0,0 +1,126 @@
+package com.makeienko.laddstation.dto;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class HourMaskTest {
+
+    @Test
+    void testMatchesSortedSetForRandomMasks() {
+        Random random = new Random(11);
+        for (int length : new int[] {HourMask.DAY, HourMask.TWO_DAYS, HourMask.WEEK}) {
+            for (int round = 0; round < 200; round++) {
+                TreeSet<Integer> expected = new TreeSet<>();
+                HourMask.Builder builder = new HourMask.Builder(length);
+                for (int hour = 0; hour < length; hour++) {
+                    if (random.nextInt(3) == 0) {
+                        expected.add(hour);
+                        builder.set(hour);
+                    }
+                }
+                HourMask mask = builder.build();
+
+                assertEquals(expected.size(), mask.count());
+                assertEquals(expected.isEmpty() ? -1 : expected.first(), mask.first());
+                assertEquals(expected.isEmpty() ? -1 : expected.last(), mask.last());
+                for (int hour = -1; hour <= length; hour++) {
+                    assertEquals(expected.contains(hour), mask.contains(hour));
+                    Integer next = expected.ceiling(hour);
+                    assertEquals(next == null || hour >= length ? -1 : next, mask.next(hour));
+                }
+                assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), mask.toArray());
+
+                List<Integer> visited = new ArrayList<>();
+                mask.forEach(visited::add);
+                assertEquals(new ArrayList<>(expected), visited);
+            }
+        }
+    }
+
+    @Test
+    void testRunsAcrossWordBoundaries() {
+        // 60-70 korsar gränsen mellan första och andra long, 120-167 går till maskens slut
+        HourMask.Builder builder = new HourMask.Builder(HourMask.WEEK);
+        for (int hour = 60; hour <= 70; hour++) {
+            builder.set(hour);
+        }
+        for (int hour = 120; hour < HourMask.WEEK; hour++) {
+            builder.set(hour);
+        }
+        HourMask mask = builder.build();
+
+        assertEquals(71, mask.runEnd(60));
+        assertEquals(71, mask.runEnd(65));
+        assertEquals(HourMask.WEEK, mask.runEnd(120));
+        assertEquals(100, mask.runEnd(100)); // Inte i masken, intervallet är tomt
+        assertEquals(120, mask.next(71));
+        assertEquals(167, mask.last());
+        assertEquals("dag 3 12:00 - dag 3 23:00, dag 6 00:00 - dag 7 24:00", mask.toRangeString());
+    }
+
+    @Test
+    void testRangeString() {
+        assertEquals("", HourMask.empty(HourMask.DAY).toRangeString());
+        assertEquals("03:00 - 04:00", HourMask.of(3).toRangeString());
+        assertEquals("00:00 - 02:00, 05:00 - 06:00, 22:00 - 24:00", HourMask.of(0, 1, 5, 22, 23).toRangeString());
+    }
+
+    @Test
+    void testFromHoursAdaptsBoxedList() {
+        HourMask mask = HourMask.fromHours(Arrays.asList(23.0, 1.0, 1.0, 2.5, -1.0, null, 13.0));
+        assertEquals(HourMask.of(1, 13, 23), mask);
+        assertEquals(List.of(1.0, 13.0, 23.0), mask.toHourList());
+
+        assertEquals(HourMask.TWO_DAYS, HourMask.fromHours(List.of(1.0, 24.0)).length());
+        assertEquals(HourMask.WEEK, HourMask.fromHours(List.of(100.0)).length());
+        assertEquals(HourMask.DAY, HourMask.fromHours(List.of()).length());
+    }
+
+    @Test
+    void testContainsSimulatorHour() {
+        HourMask mask = HourMask.of(14);
+        assertTrue(mask.contains(14.0));
+        assertFalse(mask.contains(14.5));
+        assertFalse(mask.contains(-0.5));
+        assertFalse(mask.contains(Double.NaN));
+    }
+
+    @Test
+    void testEqualityIncludesLength() {
+        HourMask day = HourMask.of(2, 3);
+        HourMask twoDays = new HourMask.Builder(HourMask.TWO_DAYS).set(2).set(3).build();
+        assertEquals(day, HourMask.of(3, 2));
+        assertEquals(day.hashCode(), HourMask.of(3, 2).hashCode());
+        assertFalse(day.equals(twoDays));
+        assertEquals("[2, 3]", day.toString());
+    }
+
+    @Test
+    void testRejectsInvalidLengthAndHour() {
+        assertThrows(IllegalArgumentException.class, () -> new HourMask.Builder(25));
+        assertThrows(IllegalArgumentException.class, () -> HourMask.of(24));
+        assertThrows(IllegalArgumentException.class, () -> HourMask.of(-1));
+        assertThrows(IllegalArgumentException.class, () -> HourMask.lengthFor(HourMask.WEEK + 1));
+    }
+
+    @Test
+    void testSerializesAsIntArray() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        OptimalChargingResponse response = new OptimalChargingResponse(HourMask.of(23, 0, 1), "Låg förbrukning", "23:00 - 02:00");
+        assertEquals("{\"optimalHours\":[0,1,23],\"strategy\":\"Låg förbrukning\",\"timeRange\":\"23:00 - 02:00\"}",
+            objectMapper.writeValueAsString(response));
+    }
+}
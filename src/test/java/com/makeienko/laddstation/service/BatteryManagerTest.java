@@ -0,0 +1,79 @@
+package com.makeienko.laddstation.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.exception.ChargingServiceException;
+import com.makeienko.laddstation.service.clock.SimulatedClock;
+
+public class BatteryManagerTest {
+
+    private LaddstationApiClient apiClient;
+    private BatteryManager batteryManager;
+
+    @BeforeEach
+    void setUp() {
+        apiClient = mock(LaddstationApiClient.class);
+        batteryManager = new BatteryManager(apiClient, mock(SimulatedClock.class));
+    }
+
+    @Test
+    void testChargerStaysOnUntilLastSessionStops() throws Exception {
+        // Två sessioner, var och en på sin tråd, startar laddningen
+        ExecutorService otherSession = Executors.newSingleThreadExecutor();
+        try {
+            otherSession.submit(batteryManager::startChargingApi).get();
+            batteryManager.startChargingApi();
+            assertTrue(batteryManager.holdsCharger());
+
+            batteryManager.stopChargingApi();
+            assertFalse(batteryManager.holdsCharger());
+            verify(apiClient, never()).stopCharging();
+
+            // Den andra sessionen stoppar sist och stänger av laddaren
+            otherSession.submit(batteryManager::stopChargingApi).get();
+            verify(apiClient, times(1)).stopCharging();
+        } finally {
+            otherSession.shutdownNow();
+        }
+    }
+
+    @Test
+    void testEndedThreadNoLongerHoldsCharger() throws Exception {
+        Thread ended = Thread.ofVirtual().start(batteryManager::startChargingApi);
+        ended.join();
+
+        batteryManager.stopChargingApi();
+        verify(apiClient, times(1)).stopCharging();
+    }
+
+    @Test
+    void testStopWithoutHoldersIsForwarded() {
+        batteryManager.stopChargingApi();
+        verify(apiClient, times(1)).stopCharging();
+    }
+
+    @Test
+    void testFailedStopKeepsChargerHeld() {
+        batteryManager.startChargingApi();
+        when(apiClient.stopCharging()).thenThrow(new ChargingServiceException("simulator down"));
+
+        assertThrows(ChargingServiceException.class, batteryManager::stopChargingApi);
+        assertTrue(batteryManager.holdsCharger());
+
+        batteryManager.releaseCharger();
+        assertFalse(batteryManager.holdsCharger());
+    }
+}
@@ -0,0 +1,40 @@
+package com.makeienko.laddstation.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.service.schedule.RollingPlan;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+
+public class ChargePlanServiceTest {
+
+    @Test
+    void testSessionsDoNotTouchStationPlan() {
+        SimulatorEngine engine = new SimulatorEngine();
+        LaddstationProperties properties = new LaddstationProperties();
+        properties.getInfoCache().setStaleness(Duration.ZERO);
+        LaddstationApiClient apiClient = new LaddstationApiClient(new InMemorySimulatorPort(engine), properties, SimulatorMetrics.standalone());
+        ChargePlanService planService = new ChargePlanService(apiClient, new SimulatorSeriesStore(apiClient), properties);
+
+        planService.plan();
+        // En ny session börjar med egen planerare istället för att nollställa stationens
+        ChargePlanService.Session session = planService.newSession();
+        session.plan();
+        RollingPlan stationPlan = planService.plan();
+
+        assertTrue(stationPlan.isReused());
+        assertEquals(1, planService.getSolveCount());
+        assertEquals(1, planService.getReuseCount());
+        assertEquals(1, session.getSolveCount());
+
+        engine.step();
+        session.plan(apiClient.getInfo());
+        assertEquals(2, planService.getSolveCount() + planService.getReuseCount());
+        assertEquals(2, session.getSolveCount() + session.getReuseCount());
+    }
+}
@@ -14,8 +14,6 @@ import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -27,6 +25,7 @@ import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.makeienko.laddstation.dto.HourMask;
 import com.makeienko.laddstation.dto.InfoResponse;
 import com.makeienko.laddstation.service.strategy.OptimalHoursStrategy;
 
@@ -113,8 +112,8 @@ public class ChargingServiceImplTest {
 
         //Skapa mock för optimala timmar för OptimalHoursStrategy
         OptimalHoursStrategy mockStrategy = mock(OptimalHoursStrategy.class);
-        List<Double> optimalHours = Arrays.asList(1.0, 2.0, 13.0, 14.0, 22.0, 23.0, 24.0);
-        when(mockStrategy.findOptimalHours()).thenReturn(optimalHours);
+        HourMask optimalHours = HourMask.of(1, 2, 13, 14, 22, 23);
+        when(mockStrategy.findOptimalHourMask()).thenReturn(optimalHours);
         
 
 
@@ -131,8 +130,8 @@ public class ChargingServiceImplTest {
     void testPerformChargingSessionWithStrategy() throws Exception {
         //Skapa mock för optimala timmar för OptimalHoursStrategy
         OptimalHoursStrategy mockStrategy = mock(OptimalHoursStrategy.class);
-        List<Double> optimalHours = Arrays.asList(1.0, 2.0, 13.0, 14.0, 22.0, 23.0, 24.0);
-        when(mockStrategy.findOptimalHours()).thenReturn(optimalHours);
+        HourMask optimalHours = HourMask.of(1, 2, 13, 14, 22, 23);
+        when(mockStrategy.findOptimalHourMask()).thenReturn(optimalHours);
 
         //konfiguera InfoResponse att returera timme 2 (optimal)
         //expectedResponse.setSimTimeHour(14.0);
@@ -151,7 +150,7 @@ public class ChargingServiceImplTest {
             chargingService.performChargingSessionWithStrategy(mockStrategy);
 
             //verifiera anrop
-            verify(mockStrategy).findOptimalHours();
+            verify(mockStrategy).findOptimalHourMask();
             verify(restTemplate, atLeastOnce()).getForObject("http://127.0.0.1:5001/info", String.class);
             verify(restTemplate, times(2)).postForObject(eq("http://127.0.0.1:5001/charge"), any(Map.class), eq(String.class));
 
@@ -165,7 +164,7 @@ public class ChargingServiceImplTest {
 
     @Test
     void testIsOptimalHour() {
-        List<Double> optimalHours = Arrays.asList(1.0, 5.0, 23.0);
+        HourMask optimalHours = HourMask.of(1, 5, 23);
         
         // Test positiva fall
         assertTrue(chargingService.isOptimalHour(1.0, optimalHours));
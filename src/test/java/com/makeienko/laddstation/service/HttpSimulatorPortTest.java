@@ -0,0 +1,80 @@
+package com.makeienko.laddstation.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.http.HttpClient;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.config.TransportPoolLimiter;
+import com.makeienko.laddstation.simulator.EmbeddedSimulator;
+
+/**
+ * Icke-blockerande anrop ska gå genom samma TransportPoolLimiter och transport som de blockerande
+ */
+public class HttpSimulatorPortTest {
+
+    private EmbeddedSimulator simulator;
+    private LaddstationProperties properties;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new EmbeddedSimulator().start("127.0.0.1", 0);
+        properties = new LaddstationProperties();
+        properties.getSimulator().setBaseUrl(simulator.getBaseUrl());
+    }
+
+    @AfterEach
+    void tearDown() {
+        simulator.close();
+    }
+
+    @Test
+    void testAsyncCallsUseLimiterWithJdkTransport() {
+        TransportPoolLimiter limiter = TransportPoolLimiter.of(properties.getTransport());
+        HttpSimulatorPort port = port(limiter);
+
+        assertEquals(simulator.getEngine().snapshot(), port.fetchInfoAsync().join());
+        assertArrayEquals(simulator.getEngine().getBaseload(), port.getBaseloadAsync().join());
+        assertEquals(2, limiter.getStats().getTotalRequests());
+        assertEquals(0, limiter.getStats().getInUse());
+    }
+
+    @Test
+    void testAsyncCallsFollowSimpleTransport() {
+        properties.getTransport().setType(LaddstationProperties.TransportType.SIMPLE);
+        TransportPoolLimiter limiter = TransportPoolLimiter.of(properties.getTransport());
+        TransportPoolLimiter unusedAsyncLimiter = TransportPoolLimiter.of(properties.getTransport());
+        HttpSimulatorPort port = new HttpSimulatorPort(restTemplate(limiter), properties,
+            new LaddstationAsyncApiClient(HttpClient.newHttpClient(), unusedAsyncLimiter, properties, SimulatorMetrics.standalone()),
+            SimulatorMetrics.standalone());
+
+        assertEquals(simulator.getEngine().snapshot(), port.fetchInfoAsync().join());
+        assertArrayEquals(simulator.getEngine().getHourlyPrices(), port.getHourlyPricesAsync().join());
+        assertArrayEquals(simulator.getEngine().getSolarProduction(), port.getSolarProductionPerHourAsync().join());
+
+        // Anropen gick via RestTemplate och dess interceptor, inte via HttpClient
+        assertEquals("simple", limiter.getStats().getTransportType());
+        assertEquals(3, limiter.getStats().getTotalRequests());
+        assertEquals(0, limiter.getStats().getInUse());
+        assertEquals(0, unusedAsyncLimiter.getStats().getTotalRequests());
+    }
+
+    private HttpSimulatorPort port(TransportPoolLimiter limiter) {
+        SimulatorMetrics metrics = SimulatorMetrics.standalone();
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        return new HttpSimulatorPort(restTemplate(limiter), properties,
+            new LaddstationAsyncApiClient(httpClient, limiter, properties, metrics), metrics);
+    }
+
+    private static RestTemplate restTemplate(TransportPoolLimiter limiter) {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(limiter);
+        return restTemplate;
+    }
+}
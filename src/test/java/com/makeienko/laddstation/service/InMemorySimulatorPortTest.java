@@ -0,0 +1,74 @@
+package com.makeienko.laddstation.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+
+public class InMemorySimulatorPortTest {
+
+    private SimulatorEngine engine;
+    private LaddstationApiClient apiClient;
+
+    @BeforeEach
+    void setUp() {
+        engine = new SimulatorEngine();
+        LaddstationProperties properties = new LaddstationProperties();
+        // Lång staleness för att visa att kommandon ändå invaliderar cachen
+        properties.getInfoCache().setStaleness(Duration.ofHours(1));
+        apiClient = new LaddstationApiClient(new InMemorySimulatorPort(engine), properties, SimulatorMetrics.standalone());
+    }
+
+    @Test
+    void testInfoIsEngineSnapshotWithoutCopy() {
+        assertSame(engine.snapshot(), apiClient.getInfo());
+        assertSame(engine.snapshot(), apiClient.getInfoAsync().join());
+        assertArrayEquals(engine.getBaseload(), apiClient.getBaseload());
+        assertArrayEquals(engine.getHourlyPrices(), apiClient.getBaseloadAsync().thenCombine(apiClient.getHourlyPricesAsync(), (b, p) -> p).join());
+    }
+
+    @Test
+    void testCommandsChangeEngineAndInvalidateCache() {
+        apiClient.getInfo();
+        assertEquals("{\"charging\": \"on\"}", apiClient.startCharging());
+        engine.advance(4);
+
+        // Klockan stegas utanför klienten, så cachen är inaktuell tills nästa kommando
+        apiClient.stopCharging();
+        InfoResponse info = apiClient.getInfo();
+        assertEquals(16.66, info.getBatteryEnergyKwh());
+        assertTrue(!info.isEvBatteryChargeStartStopp());
+
+        assertEquals("{\"home_battery_discharging\": \"on\", \"new_level\": 10.0}", apiClient.dischargeHomeBatteryTo10());
+        assertEquals(10.0, apiClient.getInfo().getHomeBattCapacityPercent());
+    }
+
+    /**
+     * En backtest-liknande körning: tusen simulerade dygn med en läsning per steg
+     */
+    @Test
+    void testThousandDaysInMemory() {
+        LaddstationProperties properties = new LaddstationProperties();
+        properties.getInfoCache().setStaleness(Duration.ZERO);
+        LaddstationApiClient client = new LaddstationApiClient(new InMemorySimulatorPort(engine), properties, SimulatorMetrics.standalone());
+
+        int steps = 1000 * 24 * engine.getStepsPerHour();
+        double solarKwh = 0;
+        for (int i = 0; i < steps; i++) {
+            engine.step();
+            solarKwh += client.getInfo().getSolarProductionKwh() / engine.getStepsPerHour();
+        }
+
+        assertEquals(1000 * 84.0, solarKwh, 1e-6); // 10 kW * summan av solprofilen (8,4) per dygn
+        assertEquals(1000, engine.getSimulatedDay());
+    }
+}
@@ -0,0 +1,188 @@
+package com.makeienko.laddstation.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.InfoCacheStatsResponse;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.exception.ChargingServiceException;
+
+public class InfoSnapshotCacheTest {
+
+    private static InfoResponse info(double hour, double minute) {
+        InfoResponse info = new InfoResponse();
+        info.setSimTimeHour(hour);
+        info.setSimTimeMin(minute);
+        return info;
+    }
+
+    @Test
+    void testReturnsCachedSnapshotWithinStalenessWindow() {
+        AtomicInteger fetches = new AtomicInteger();
+        InfoSnapshotCache cache = new InfoSnapshotCache(() -> {
+            fetches.incrementAndGet();
+            return info(14, 30);
+        }, Duration.ofMinutes(1));
+
+        InfoResponse first = cache.get();
+        InfoResponse second = cache.get();
+
+        assertSame(first, second);
+        assertEquals(1, fetches.get());
+
+        InfoCacheStatsResponse stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(14 * 60 + 30, stats.getSimMinuteOfDay());
+    }
+
+    @Test
+    void testRefetchesWhenStaleOrInvalidated() {
+        AtomicInteger fetches = new AtomicInteger();
+        InfoSnapshotCache cache = new InfoSnapshotCache(() -> info(fetches.incrementAndGet(), 0), Duration.ZERO);
+
+        InfoResponse first = cache.get();
+        InfoResponse second = cache.get();
+        assertNotSame(first, second);
+
+        InfoSnapshotCache longLived = new InfoSnapshotCache(() -> info(fetches.incrementAndGet(), 0), Duration.ofMinutes(1));
+        InfoResponse cached = longLived.get();
+        longLived.invalidate();
+        assertNull(longLived.peek());
+        assertNotSame(cached, longLived.get());
+    }
+
+    @Test
+    void testMaxAgeNarrowsButNeverWidensStalenessWindow() {
+        AtomicInteger fetches = new AtomicInteger();
+        InfoSnapshotCache cache = new InfoSnapshotCache(() -> info(fetches.incrementAndGet(), 0), Duration.ofMinutes(1));
+
+        InfoResponse cached = cache.get();
+        assertSame(cached, cache.get(Duration.ofHours(1)));
+        assertNotSame(cached, cache.get(Duration.ZERO));
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void testConcurrentMissesAreCoalesced() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        InfoSnapshotCache cache = new InfoSnapshotCache(() -> {
+            fetches.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return info(3, 15);
+        }, Duration.ofMinutes(1));
+
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<InfoResponse>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> cache.get()));
+            }
+            // Ge alla anropare tid att hamna på samma pågående hämtning
+            Thread.sleep(200);
+            release.countDown();
+
+            InfoResponse expected = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<InfoResponse> result : results) {
+                assertSame(expected, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, fetches.get());
+        InfoCacheStatsResponse stats = cache.getStats();
+        assertEquals(callers, stats.getHits() + stats.getMisses() + stats.getCoalesced());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    void testInvalidateFencesFetchStartedBefore() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InfoSnapshotCache cache = new InfoSnapshotCache(() -> {
+            if (fetches.incrementAndGet() == 1) {
+                // Första hämtningen läser tillståndet före kommandot och blir klar efter det
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return info(1, 0);
+            }
+            return info(2, 0);
+        }, Duration.ofMinutes(1));
+        List<InfoResponse> notified = new ArrayList<>();
+        cache.addListener(notified::add);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<InfoResponse> before = executor.submit(() -> cache.get());
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            cache.invalidate();
+
+            // En anropare efter invalidate() kopplas inte på den gamla hämtningen
+            assertEquals(2.0, cache.get().getSimTimeHour());
+            release.countDown();
+            assertEquals(1.0, before.get(5, TimeUnit.SECONDS).getSimTimeHour());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Det gamla svaret får inte ersätta det nya
+        assertEquals(2.0, cache.peek().getSimTimeHour());
+        assertEquals(2.0, cache.get().getSimTimeHour());
+        assertEquals(2, fetches.get());
+        assertEquals(1, notified.size());
+        assertEquals(2.0, notified.get(0).getSimTimeHour());
+    }
+
+    @Test
+    void testStalenessIsSimulatedTime() {
+        LaddstationProperties.Clock clock = new LaddstationProperties().getClock();
+        // seconds_per_hour = 4: tre simulerade minuter är 200 ms
+        assertEquals(Duration.ofMillis(200), clock.toWallTime(Duration.ofMinutes(3)));
+        clock.setSecondsPerHour(60);
+        assertEquals(Duration.ofSeconds(3), clock.toWallTime(Duration.ofMinutes(3)));
+    }
+
+    @Test
+    void testFailedFetchIsNotCached() {
+        AtomicInteger fetches = new AtomicInteger();
+        InfoSnapshotCache cache = new InfoSnapshotCache(() -> {
+            if (fetches.incrementAndGet() == 1) {
+                throw new ChargingServiceException("Simulator unavailable");
+            }
+            return info(0, 0);
+        }, Duration.ofMinutes(1));
+
+        assertThrows(ChargingServiceException.class, cache::get);
+        assertEquals(0.0, cache.get().getSimTimeHour());
+        assertEquals(2, fetches.get());
+    }
+}
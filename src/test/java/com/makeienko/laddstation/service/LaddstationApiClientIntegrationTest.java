@@ -0,0 +1,100 @@
+package com.makeienko.laddstation.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.simulator.EmbeddedSimulator;
+import com.makeienko.laddstation.simulator.SimulatorClockMode;
+
+/**
+ * LaddstationApiClient mot den inbyggda simulatorn över riktig HTTP, utan Flask-servern
+ */
+public class LaddstationApiClientIntegrationTest {
+
+    private EmbeddedSimulator simulator;
+    private LaddstationApiClient apiClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new EmbeddedSimulator().start("127.0.0.1", 0);
+
+        LaddstationProperties properties = new LaddstationProperties();
+        properties.getSimulator().setBaseUrl(simulator.getBaseUrl());
+        properties.getInfoCache().setStaleness(Duration.ZERO); // Varje getInfo() går till simulatorn
+        apiClient = new LaddstationApiClient(new RestTemplate(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        simulator.close();
+    }
+
+    @Test
+    void testSeriesAndInfoRoundTrip() {
+        assertArrayEquals(simulator.getEngine().getBaseload(), apiClient.getBaseload());
+        assertArrayEquals(simulator.getEngine().getHourlyPrices(), apiClient.getHourlyPrices());
+        assertArrayEquals(simulator.getEngine().getSolarProduction(), apiClient.getSolarProductionPerHour());
+        assertEquals(simulator.getEngine().snapshot(), apiClient.getInfo());
+        assertEquals(simulator.getEngine().snapshot(), apiClient.getInfoAsync().join());
+    }
+
+    @Test
+    void testChargingFollowsSteppedClock() {
+        apiClient.startCharging();
+        simulator.advance(4);
+
+        InfoResponse info = apiClient.getInfo();
+        assertTrue(info.isEvBatteryChargeStartStopp());
+        assertEquals(16.66, info.getBatteryEnergyKwh());
+        assertEquals(1, info.getSimTimeHour());
+
+        apiClient.stopCharging();
+        simulator.advance(4);
+        assertEquals(16.66, apiClient.getInfo().getBatteryEnergyKwh());
+
+        apiClient.dischargeEVBattery();
+        assertEquals(9.26, apiClient.getInfo().getBatteryEnergyKwh(), 1e-9);
+        apiClient.dischargeHomeBatteryTo10();
+        assertEquals(10.0, apiClient.getInfo().getHomeBattCapacityPercent());
+    }
+
+    @Test
+    void testFrozenClockRejectsStepping() {
+        simulator.setClockMode(SimulatorClockMode.FROZEN);
+        InfoResponse before = apiClient.getInfo();
+
+        assertThrows(IllegalStateException.class, () -> simulator.advance(1));
+        assertEquals(before, apiClient.getInfo());
+    }
+
+    /**
+     * Klienten följer motorn när tusen dygn stegas fram, tio i taget mellan läsningarna.
+     * Genomströmningen mot den accelererade klockan mäts i AcceleratedClockBenchmark.
+     */
+    @Test
+    void testClientFollowsThousandSteppedDays() {
+        int stepsPerDay = 24 * simulator.getEngine().getStepsPerHour();
+        for (int read = 1; read <= 100; read++) {
+            // Tio dygn plus 0-3 kvartar, så att läsningarna hamnar på olika tider
+            simulator.advance(10L * stepsPerDay + read % 4);
+            InfoResponse info = apiClient.getInfo();
+            assertEquals(simulator.getEngine().snapshot(), info);
+            assertTrue(info.getSimTimeMin() % 15 == 0);
+            assertFalse(info.isEvBatteryChargeStartStopp());
+        }
+
+        assertTrue(simulator.getEngine().getSimulatedDay() >= 1000);
+    }
+}
@@ -0,0 +1,77 @@
+package com.makeienko.laddstation.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.exception.ChargingServiceException;
+
+public class SimulatorJsonReaderTest {
+
+    // Samma format som ChargingWebserver_v0.8.py skickar från /info
+    private static final String INFO_JSON = "{\"sim_time_hour\": 14, \"sim_time_min\": 30, \"household_load_kwh\": 3.3, "
+            + "\"battery_energy_kwh\": 9.26, \"ev_battery_charge_start_stopp\": true, \"ev_batt_max_capacity_kwh\": 46.3, "
+            + "\"home_batt_capacity_kwh\": 5.4, \"home_batt_max_capacity_kwh\": 13.5, \"home_batt_min_capacity_kwh\": 1.35, "
+            + "\"home_batt_capacity_percent\": 40.0, \"home_battery_mode\": \"idle\", \"solar_production_kwh\": 9.0, "
+            + "\"solar_max_capacity_kwh\": 10.0, \"net_household_load_kwh\": -5.7}";
+
+    private static final String BASELOAD_JSON = "[1.98, 1.76, 1.65, 1.65, 1.76, 2.2, 3.85, 4.95, 4.4, 2.75, 3.3, 3.85, "
+            + "5.5, 3.3, 2.75, 3.3, 3.85, 6.6, 7.7, 4.95, 3.85, 3.3, 2.75, 2.2]";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testReadInfoMatchesObjectMapper() throws Exception {
+        byte[] body = INFO_JSON.getBytes(StandardCharsets.UTF_8);
+        InfoResponse expected = objectMapper.readValue(INFO_JSON, InfoResponse.class);
+
+        assertEquals(expected, SimulatorJsonReader.readInfo(new ByteArrayInputStream(body)));
+        assertEquals(expected, SimulatorJsonReader.readInfo(body));
+        assertSame("idle", SimulatorJsonReader.readInfo(body).getHomeBatteryMode());
+    }
+
+    @Test
+    void testReadInfoIgnoresUnknownFields() throws Exception {
+        String json = "{\"sim_time_hour\": 3, \"future_field\": {\"nested\": [1, 2]}, \"home_battery_mode\": \"standby\"}";
+        InfoResponse info = SimulatorJsonReader.readInfo(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(3.0, info.getSimTimeHour());
+        assertEquals("standby", info.getHomeBatteryMode());
+    }
+
+    @Test
+    void testReadDoubleArray() throws Exception {
+        double[] expected = objectMapper.readValue(BASELOAD_JSON, double[].class);
+        double[] actual = SimulatorJsonReader.readDoubleArray(new ByteArrayInputStream(BASELOAD_JSON.getBytes(StandardCharsets.UTF_8)));
+
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void testShortDecimalParsingMatchesDoubleParse() {
+        String[] samples = {"9.26", "46.3", "-5.7", "0.05", "1.35", "118.45", "0.1", "123456789.012345", "1e3", "1.2345678901234567"};
+        for (String sample : samples) {
+            char[] chars = ("x" + sample).toCharArray();
+            double fast = SimulatorJsonReader.parseShortDecimal(chars, 1, sample.length());
+            if (!Double.isNaN(fast)) {
+                assertEquals(Double.parseDouble(sample), fast, sample);
+            }
+        }
+        assertTrue(Double.isNaN(SimulatorJsonReader.parseShortDecimal("1e3".toCharArray(), 0, 3)));
+    }
+
+    @Test
+    void testRejectsEmptyAndMalformedBodies() {
+        assertThrows(ChargingServiceException.class, () -> SimulatorJsonReader.readInfo(new byte[0]));
+        assertThrows(ChargingServiceException.class, () -> SimulatorJsonReader.readDoubleArray("{}".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,104 @@
+package com.makeienko.laddstation.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.service.SimulatorMetrics.Endpoint;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SimulatorMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private SimulatorMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new SimulatorMetrics(registry);
+    }
+
+    @Test
+    void testRecordsPerEndpointAndOutcome() {
+        metrics.recordSuccess(Endpoint.INFO, TimeUnit.MILLISECONDS.toNanos(4));
+        metrics.recordSuccess(Endpoint.INFO, TimeUnit.MILLISECONDS.toNanos(6));
+        metrics.recordError(Endpoint.BASELOAD, TimeUnit.MILLISECONDS.toNanos(5000));
+        metrics.recordPayload(Endpoint.INFO, 412);
+        metrics.recordPayload(Endpoint.INFO, -1); // Okänd Content-Length
+
+        assertEquals(2, registry.get("laddstation.simulator.requests").tag("endpoint", "/info").tag("outcome", "success").timer().count());
+        assertEquals(10.0, registry.get("laddstation.simulator.requests").tag("endpoint", "/info").tag("outcome", "success").timer()
+            .totalTime(TimeUnit.MILLISECONDS), 1e-9);
+        assertEquals(1, registry.get("laddstation.simulator.requests").tag("endpoint", "/baseload").tag("outcome", "error").timer().count());
+        assertEquals(1.0, registry.get("laddstation.simulator.errors").tag("endpoint", "/baseload").counter().count());
+        assertEquals(0.0, registry.get("laddstation.simulator.errors").tag("endpoint", "/info").counter().count());
+        assertEquals(1, registry.get("laddstation.simulator.response.size").tag("endpoint", "/info").summary().count());
+        assertEquals(412.0, registry.get("laddstation.simulator.response.size").tag("endpoint", "/info").summary().totalAmount());
+    }
+
+    @Test
+    void testChargeStartAndStopAreSeparateMeters() {
+        metrics.recordSuccess(Endpoint.CHARGE_START, 1_000);
+        metrics.recordSuccess(Endpoint.CHARGE_STOP, 1_000);
+        metrics.recordSuccess(Endpoint.CHARGE_STOP, 1_000);
+
+        assertEquals(1, registry.get("laddstation.simulator.requests").tag("method", "startCharging").timer().count());
+        assertEquals(2, registry.get("laddstation.simulator.requests").tag("method", "stopCharging").timer().count());
+    }
+
+    @Test
+    void testGaugesFollowLatestInfo() {
+        assertTrue(Double.isNaN(registry.get("laddstation.ev.battery.energy").gauge().value()));
+
+        InfoResponse info = new InfoResponse();
+        info.setBatteryEnergyKwh(9.26);
+        info.setHomeBattCapacityKwh(5.4);
+        info.setSolarProductionKwh(3.1);
+        info.setHomeBatteryMode("charging");
+        metrics.observe(info);
+
+        assertEquals(9.26, registry.get("laddstation.ev.battery.energy").gauge().value());
+        assertEquals(5.4, registry.get("laddstation.home.battery.energy").gauge().value());
+        assertEquals(3.1, registry.get("laddstation.solar.production").gauge().value());
+        assertEquals(1.0, registry.get("laddstation.home.battery.mode").tag("mode", "charging").gauge().value());
+        assertEquals(0.0, registry.get("laddstation.home.battery.mode").tag("mode", "idle").gauge().value());
+    }
+
+    /**
+     * Registreringen sker på varje simulatoranrop och ska inte allokera något
+     */
+    @Test
+    void testRecordingDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < 20_000; i++) {
+            record(i);
+        }
+        int calls = 100_000;
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < calls; i++) {
+            record(i);
+        }
+        double bytesPerCall = (double) (threadBean.getThreadAllocatedBytes(threadId) - before) / calls;
+
+        assertTrue(bytesPerCall < 1.0, "Recording should not allocate, was " + bytesPerCall + " bytes/call");
+    }
+
+    private void record(int i) {
+        metrics.recordSuccess(Endpoint.INFO, 1_000_000L + i);
+        metrics.recordPayload(Endpoint.INFO, 400 + (i & 63));
+        metrics.recordError(Endpoint.PRICE_PER_HOUR, 2_000_000L + i);
+    }
+}
@@ -0,0 +1,71 @@
+package com.makeienko.laddstation.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.dto.InfoResponse;
+
+public class SimulatorSeriesStoreTest {
+
+    private LaddstationApiClient apiClient;
+    private SimulatorSeriesStore seriesStore;
+
+    @BeforeEach
+    void setUp() {
+        apiClient = mock(LaddstationApiClient.class);
+        when(apiClient.getBaseload()).thenReturn(new double[] {1.98, 1.76, 1.65});
+        when(apiClient.getHourlyPrices()).thenReturn(new double[] {85.28, 70.86, 68.01});
+        seriesStore = new SimulatorSeriesStore(apiClient);
+    }
+
+    private static InfoResponse info(double hour, double minute) {
+        InfoResponse info = new InfoResponse();
+        info.setSimTimeHour(hour);
+        info.setSimTimeMin(minute);
+        return info;
+    }
+
+    @Test
+    void testSeriesIsLoadedOncePerSimulatedDay() {
+        seriesStore.observe(info(10, 0));
+        HourlySeries first = seriesStore.baseload();
+        seriesStore.observe(info(23, 45));
+        HourlySeries second = seriesStore.baseload();
+
+        assertSame(first, second);
+        assertEquals(1.76, second.get(1));
+        verify(apiClient, times(1)).getBaseload();
+    }
+
+    @Test
+    void testDayRolloverInvalidatesSeries() {
+        seriesStore.observe(info(23, 45));
+        HourlySeries before = seriesStore.hourlyPrices();
+        long versionBefore = seriesStore.currentVersion(SimulatorSeriesStore.Series.HOURLY_PRICES);
+
+        seriesStore.observe(info(0, 0));
+        assertEquals(-1, seriesStore.currentVersion(SimulatorSeriesStore.Series.HOURLY_PRICES));
+
+        HourlySeries after = seriesStore.hourlyPrices();
+        assertNotEquals(before.getVersion(), after.getVersion());
+        assertEquals(versionBefore, before.getVersion());
+        assertEquals(1, seriesStore.getSimulatedDay());
+        verify(apiClient, times(2)).getHourlyPrices();
+    }
+
+    @Test
+    void testSeriesSerializesAsPlainArray() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(seriesStore.baseload());
+        assertEquals("[1.98,1.76,1.65]", json);
+    }
+}
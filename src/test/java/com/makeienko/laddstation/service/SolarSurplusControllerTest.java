@@ -0,0 +1,89 @@
+package com.makeienko.laddstation.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+
+public class SolarSurplusControllerTest {
+
+    @Test
+    void testHysteresisKeepsChargingInsideBand() {
+        SolarSurplusController controller = new SolarSurplusController(3.7, 1.85, 1, 1);
+
+        assertFalse(controller.update(info(10.0, 7.0))); // 3,0 kW räcker inte för att starta
+        assertTrue(controller.update(info(10.0, 6.0)));  // 4,0 kW startar
+        assertTrue(controller.update(info(10.0, 7.0)));  // 3,0 kW ligger i bandet, fortsätter
+        assertTrue(controller.update(info(10.0, 8.0)));  // 2,0 kW fortfarande över stoppgränsen
+        assertFalse(controller.update(info(10.0, 8.5))); // 1,5 kW stoppar
+        assertFalse(controller.update(info(10.0, 7.0)));
+        assertEquals(2, controller.getSwitches());
+    }
+
+    @Test
+    void testMinimumDwellLimitsSwitchesWhenSurplusOscillates() {
+        SolarSurplusController controller = new SolarSurplusController(3.7, 1.85, 2, 2);
+        for (int tick = 0; tick < 12; tick++) {
+            // Överskottet växlar mellan 4,0 och 1,5 kW varje kvart
+            controller.update(tick % 2 == 0 ? info(10.0, 6.0) : info(10.0, 8.5));
+        }
+        // Utan minsta på/av-tid hade laddaren bytt läge varje kvart
+        assertTrue(controller.getSwitches() <= 4, "switches: " + controller.getSwitches());
+    }
+
+    @Test
+    void testFollowsSimulatedSolarDay() {
+        SimulatorEngine engine = new SimulatorEngine();
+        SolarSurplusController controller = new SolarSurplusController(new LaddstationProperties.Solar());
+        BatteryManager batteryManager = new BatteryManager(mock(LaddstationApiClient.class), null);
+
+        double firstChargingHour = -1;
+        InfoResponse info = engine.snapshot();
+        for (int step = 0; step < 2 * 96 && !batteryManager.isBatterySufficient(info); step++) {
+            boolean charge = controller.update(info);
+            if (charge && firstChargingHour < 0) {
+                firstChargingHour = info.getSimTimeHour();
+            }
+            engine.setCharging(charge);
+            engine.step();
+            info = engine.snapshot();
+        }
+
+        assertTrue(batteryManager.isBatterySufficient(info));
+        // Överskottet passerar 3,7 kW först kl 9 och målet nås innan det sjunker under 1,85 kW
+        assertEquals(9.0, firstChargingHour);
+        assertEquals(1, controller.getSwitches());
+    }
+
+    @Test
+    void testRejectsInvertedThresholds() {
+        assertThrows(IllegalArgumentException.class, () -> new SolarSurplusController(1.0, 2.0, 1, 1));
+    }
+
+    @Test
+    void testGoodForSolarChargingUsesGivenSnapshot() {
+        LaddstationApiClient apiClient = mock(LaddstationApiClient.class);
+        SolarPanelManager solarPanelManager = new SolarPanelManager(apiClient);
+        InfoResponse info = info(9.0, 3.0);
+        info.setSolarMaxCapacityKwh(10.0);
+
+        assertTrue(solarPanelManager.isGoodForSolarCharging(info));
+        verify(apiClient, never()).getInfo();
+    }
+
+    private static InfoResponse info(double solarKwh, double householdLoadKwh) {
+        InfoResponse info = new InfoResponse();
+        info.setSolarProductionKwh(solarKwh);
+        info.setHouseholdLoadKwh(householdLoadKwh);
+        return info;
+    }
+}
@@ -0,0 +1,191 @@
+package com.makeienko.laddstation.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.dto.StationStreamEvent;
+import com.makeienko.laddstation.service.clock.SimulatedClock;
+
+public class StationStreamServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ManualExecutor dispatcher;
+    private StationStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new ManualExecutor();
+        StationViewAssembler assembler = new StationViewAssembler(
+            new HomeBatteryManager(mock(LaddstationApiClient.class)),
+            new SolarPanelManager(mock(LaddstationApiClient.class)));
+        // Klockan anropar aldrig strömmen; testerna driver tick() själva
+        SimulatedClock clock = mock(SimulatedClock.class);
+        doReturn(mock(SimulatedClock.Registration.class)).when(clock).onQuarterHour(any(), anyBoolean());
+        streamService = new StationStreamService(assembler, clock, Duration.ofMinutes(1), dispatcher);
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamService.shutdown();
+    }
+
+    private static InfoResponse info(double hour, double minute, double evEnergyKwh) {
+        InfoResponse info = new InfoResponse();
+        info.setSimTimeHour(hour);
+        info.setSimTimeMin(minute);
+        info.setBatteryEnergyKwh(evEnergyKwh);
+        info.setEvBattMaxCapacityKwh(46.3);
+        info.setHomeBattCapacityKwh(5.4);
+        info.setHomeBattMaxCapacityKwh(13.5);
+        info.setHomeBattCapacityPercent(40.0);
+        info.setHomeBatteryMode("idle");
+        info.setSolarMaxCapacityKwh(10.0);
+        return info;
+    }
+
+    private StationStreamEvent parse(String json) throws Exception {
+        return objectMapper.readValue(json, StationStreamEvent.class);
+    }
+
+    @Test
+    void testSnapshotFirstThenOnlyChangedSections() throws Exception {
+        List<String> received = new ArrayList<>();
+        streamService.subscribe((sequence, json) -> received.add(json));
+
+        streamService.tick(info(10, 0, 9.26));
+        dispatcher.runAll();
+        streamService.tick(info(10, 15, 9.26));
+        dispatcher.runAll();
+
+        StationStreamEvent snapshot = parse(received.get(0));
+        assertEquals(StationStreamEvent.SNAPSHOT, snapshot.getType());
+        assertNotNull(snapshot.getBattery());
+        assertNotNull(snapshot.getSolarPanel());
+
+        StationStreamEvent delta = parse(received.get(1));
+        assertEquals(StationStreamEvent.DELTA, delta.getType());
+        assertEquals(15.0, delta.getTime().getMinute());
+        assertNull(delta.getBattery());
+        assertNull(delta.getHomeBattery());
+        assertFalse(received.get(1).contains("battery\""));
+    }
+
+    @Test
+    void testSameSimulatedMinuteIsNotResent() {
+        List<String> received = new ArrayList<>();
+        streamService.subscribe((sequence, json) -> received.add(json));
+
+        streamService.tick(info(10, 0, 9.26));
+        streamService.tick(info(10, 0, 9.26));
+        dispatcher.runAll();
+
+        assertEquals(1, received.size());
+        assertEquals(2, streamService.getStats().getTicks());
+    }
+
+    @Test
+    void testBusySubscriberIsSkippedAndResynced() throws Exception {
+        List<String> fast = new ArrayList<>();
+        List<String> slow = new ArrayList<>();
+        streamService.subscribe((sequence, json) -> fast.add(json));
+        streamService.subscribe((sequence, json) -> slow.add(json));
+
+        streamService.tick(info(10, 0, 9.26));
+        dispatcher.runAll();
+
+        // Andra tidssteget: den långsamma klientens sändning fastnar i kön
+        streamService.tick(info(10, 15, 10.0));
+        dispatcher.runOnly(1);
+        streamService.tick(info(10, 30, 11.0));
+        dispatcher.runAll();
+
+        assertEquals(1, streamService.getStats().getDropped());
+        assertEquals(3, fast.size());
+        assertEquals(StationStreamEvent.DELTA, parse(fast.get(2)).getType());
+
+        // Fick sekvens 2 sent och missade 3, så nästa blir en full snapshot
+        streamService.tick(info(10, 45, 12.0));
+        dispatcher.runAll();
+        assertEquals(3, slow.size());
+        assertEquals(StationStreamEvent.SNAPSHOT, parse(slow.get(2)).getType());
+        assertEquals(1, streamService.getStats().getResyncs());
+    }
+
+    @Test
+    void testFailingSubscriberIsRemoved() {
+        streamService.subscribe((sequence, json) -> {
+            throw new java.io.IOException("Broken pipe");
+        });
+        assertEquals(1, streamService.getStats().getSubscribers());
+
+        streamService.tick(info(10, 0, 9.26));
+        dispatcher.runAll();
+
+        assertEquals(0, streamService.getStats().getSubscribers());
+        assertEquals(0, streamService.getStats().getEventsSent());
+    }
+
+    /**
+     * Exekverare som kör uppgifter först när testet ber om det
+     */
+    private static final class ManualExecutor extends AbstractExecutorService {
+        private final List<Runnable> queue = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            queue.add(command);
+        }
+
+        void runAll() {
+            runOnly(queue.size());
+        }
+
+        void runOnly(int count) {
+            for (int i = 0; i < count && !queue.isEmpty(); i++) {
+                queue.remove(0).run();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return new ArrayList<>(queue);
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
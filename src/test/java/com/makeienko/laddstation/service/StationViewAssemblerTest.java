@@ -0,0 +1,44 @@
+package com.makeienko.laddstation.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.dto.DashboardResponse;
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.dto.InfoResponse;
+
+public class StationViewAssemblerTest {
+
+    @Test
+    void testDashboardIsBuiltFromOneSnapshotWithoutUpstreamCalls() {
+        LaddstationApiClient apiClient = mock(LaddstationApiClient.class);
+        StationViewAssembler assembler = new StationViewAssembler(
+            new HomeBatteryManager(apiClient), new SolarPanelManager(apiClient));
+
+        InfoResponse info = new InfoResponse();
+        info.setSimTimeHour(26); // Simulatorn kan rapportera timmar efter midnatt som 24+
+        info.setSimTimeMin(15);
+        info.setBatteryEnergyKwh(9.26);
+        info.setEvBattMaxCapacityKwh(46.3);
+        info.setHomeBattCapacityKwh(5.4);
+        info.setHomeBattMaxCapacityKwh(13.5);
+        info.setHomeBattCapacityPercent(40.0);
+        info.setSolarMaxCapacityKwh(10.0);
+        HourlySeries prices = HourlySeries.of(85.28, 70.86, 68.01, 72.9);
+
+        DashboardResponse dashboard = assembler.toDashboard(info, prices);
+
+        assertEquals(15.0, dashboard.getTime().getMinute());
+        assertEquals(20.0, dashboard.getBattery().getPercentage());
+        assertEquals(2, dashboard.getCurrentPrice().getCurrentHour());
+        assertEquals(68.01, dashboard.getCurrentPrice().getCurrentPrice());
+        assertSame(prices, dashboard.getCurrentPrice().getHourlyPrices());
+        assertEquals(5.4, dashboard.getHomeBattery().getCapacityKwh());
+        assertEquals(0.0, dashboard.getSolarPanel().getCurrentProductionKwh());
+        verifyNoInteractions(apiClient);
+    }
+}
@@ -0,0 +1,145 @@
+package com.makeienko.laddstation.service.backtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.dto.HistorySampleResponse;
+import com.makeienko.laddstation.dto.HourMask;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+
+public class BacktestEngineTest {
+
+    private final BacktestEngine engine = new BacktestEngine(4, 24, 7, SimulatorEngine.MAX_POWER_RESIDENTIAL);
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    @Test
+    void testStrategiesOnSimulatorDay() {
+        BacktestReport report = engine.run(List.of(BacktestDays.simulatorDay()), BacktestStrategy.defaults());
+        assertEquals(4, report.getResults().size());
+
+        for (BacktestResult result : report.getResults()) {
+            assertEquals(0, result.getFuseViolations(), result.getStrategy());
+            assertTrue(result.getPeakLoadKw() <= SimulatorEngine.MAX_POWER_RESIDENTIAL, result.getStrategy());
+            if (!result.getStrategy().equals("rolling-horizon")) {
+                // 20 % -> 80 % av 46,3 kWh i hela kvartar om 1,85 kWh
+                assertTrue(result.isReachedTarget(), result.getStrategy());
+                assertEquals(16 * 1.85, result.getChargedKwh(), 1e-6, result.getStrategy());
+            }
+        }
+
+        // Flerdygnsplanens sista lucka flyttas med horisonten, så den blir inte klar inom dygnet
+        BacktestResult rolling = result(report, "rolling-horizon");
+        assertFalse(rolling.isReachedTarget());
+        assertTrue(Double.isNaN(rolling.getHoursToTarget()));
+        assertTrue(rolling.getChargedKwh() > 0);
+
+        BacktestResult price = result(report, "price");
+        BacktestResult costOptimal = result(report, "cost-optimal");
+        // Prisstrategin väntar på kvällens billiga timmar, det kostnadsoptimala schemat är klart till 07:00
+        assertFalse(price.isReadyByDeparture());
+        assertTrue(costOptimal.isReadyByDeparture());
+        assertTrue(price.getEvCost() < costOptimal.getEvCost());
+        assertTrue(costOptimal.getEvCost() < result(report, "consumption").getEvCost());
+    }
+
+    @Test
+    void testParallelRunMatchesSequentialReplay() throws Exception {
+        List<BacktestDay> days = BacktestDays.synthetic(6, 99);
+        List<BacktestStrategy> strategies = BacktestStrategy.defaults();
+        BacktestReport report = engine.run(days, strategies);
+
+        int i = 0;
+        for (BacktestStrategy strategy : strategies) {
+            double evCost = 0;
+            for (BacktestDay day : days) {
+                BacktestResult expected = engine.replay(day, strategy);
+                BacktestResult actual = report.getResults().get(i++);
+                assertEquals(strategy.getName(), actual.getStrategy());
+                assertEquals(day.getLabel(), actual.getDay());
+                assertEquals(expected.getEvCost(), actual.getEvCost());
+                assertEquals(expected.getGridCost(), actual.getGridCost());
+                assertEquals(expected.getFuseViolations(), actual.getFuseViolations());
+                evCost += actual.getEvCost();
+            }
+            BacktestSummary summary = report.getSummaries().get(strategies.indexOf(strategy));
+            assertEquals(days.size(), summary.getDays());
+            assertEquals(evCost, summary.getEvCost(), 1e-6);
+        }
+    }
+
+    @Test
+    void testFuseViolationsAreCounted() {
+        // En strategi som laddar direkt och hela tiden, på ett dygn där hushållet drar 5 kW
+        double[] flat = new double[24];
+        java.util.Arrays.fill(flat, 5.0);
+        BacktestDay heavyLoad = new BacktestDay("heavy", new SimulatorEngine().getHourlyPrices(), flat, new double[24]);
+        BacktestStrategy always = new BacktestStrategy("always", (apiClient, seriesStore) -> () -> HourMask.of(0, 1, 2, 3));
+
+        BacktestResult result = engine.run(List.of(heavyLoad), List.of(always)).getResults().get(0);
+        assertTrue(result.isReachedTarget());
+        assertEquals(16, result.getFuseViolations());
+        assertEquals(12.4, result.getPeakLoadKw(), 1e-6);
+        assertEquals(4.0, result.getHoursToTarget());
+        assertEquals(2, result.getSwitches());
+    }
+
+    @Test
+    void testSyntheticAndRecordedDays() {
+        List<BacktestDay> first = BacktestDays.synthetic(5, 7);
+        List<BacktestDay> longer = BacktestDays.synthetic(8, 7);
+        // Samma seed ger samma dygn oavsett antal
+        for (int hour = 0; hour < 24; hour++) {
+            assertEquals(first.get(4).getPrice(hour), longer.get(4).getPrice(hour));
+            assertEquals(first.get(4).getBaseload(hour), longer.get(4).getBaseload(hour));
+        }
+
+        // Ett halvt dygn, ett helt och ett halvt: bara det hela blir ett dygn
+        List<HistorySampleResponse> samples = new ArrayList<>();
+        long timestamp = 0;
+        for (int hour = 12; hour < 24; hour++) {
+            samples.add(sample(timestamp++, hour, 0, 9.0));
+        }
+        for (int hour = 0; hour < 24; hour++) {
+            samples.add(sample(timestamp++, hour, 0, 1.0 + hour));
+            samples.add(sample(timestamp++, hour, 30, 2.0 + hour));
+        }
+        for (int hour = 0; hour < 6; hour++) {
+            samples.add(sample(timestamp++, hour, 0, 9.0));
+        }
+
+        double[] prices = new SimulatorEngine().getHourlyPrices();
+        List<BacktestDay> recorded = BacktestDays.fromHistory(samples, prices);
+        assertEquals(1, recorded.size());
+        assertEquals(1.5, recorded.get(0).getBaseload(0));
+        assertEquals(24.5, recorded.get(0).getBaseload(23));
+        assertEquals(prices[7], recorded.get(0).getPrice(7));
+
+        assertThrows(IllegalArgumentException.class, () -> BacktestDays.synthetic(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> engine.run(List.of(), BacktestStrategy.defaults()));
+    }
+
+    private static BacktestResult result(BacktestReport report, String strategy) {
+        return report.getResults().stream().filter(r -> r.getStrategy().equals(strategy)).findFirst().orElseThrow();
+    }
+
+    private static HistorySampleResponse sample(long timestamp, int hour, int minute, double load) {
+        InfoResponse info = new InfoResponse();
+        info.setSimTimeHour(hour);
+        info.setSimTimeMin(minute);
+        info.setHouseholdLoadKwh(load);
+        return new HistorySampleResponse(timestamp, info);
+    }
+}
@@ -0,0 +1,80 @@
+package com.makeienko.laddstation.service.clock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class AdaptivePollingPolicyTest {
+
+    // 7,4 kW i en simulerad kvart
+    private static final double STEP_KWH = 1.85;
+    private static final double TARGET_KWH = 46.3 * 0.8;
+    private static final double TOLERANCE_KWH = 2.0;
+
+    /**
+     * Stegvis laddning som simulatorn: energin ökar ett steg per kvart (stepMillis väggtid)
+     */
+    private static double energyAt(long millis, long stepMillis, double startKwh) {
+        return startKwh + STEP_KWH * (millis / stepMillis);
+    }
+
+    private record Outcome(int polls, double overshootKwh) {
+    }
+
+    private static Outcome run(AdaptivePollingPolicy policy, long stepMillis, double startKwh, long startOffsetMillis) {
+        long now = startOffsetMillis;
+        int polls = 0;
+        while (true) {
+            double energy = energyAt(now, stepMillis, startKwh);
+            policy.observe(now * 1_000_000L, energy);
+            polls++;
+            if (energy >= TARGET_KWH) {
+                return new Outcome(polls, energy - TARGET_KWH);
+            }
+            now += policy.nextDelayMillis(TARGET_KWH);
+        }
+    }
+
+    @Test
+    void testSimulatorSpeedNeedsFewerPollsThanFixedPolling() {
+        // 0 -> 80 % på 7,4 kW tar 21 kvartar; tidigare en läsning per sekund (= per kvart)
+        long stepMillis = 1000;
+        for (long offset = 0; offset < stepMillis; offset += 97) {
+            Outcome outcome = run(new AdaptivePollingPolicy(stepMillis, 100, 30_000, TOLERANCE_KWH, 2), stepMillis, 0.0, offset);
+            assertTrue(outcome.overshootKwh() <= TOLERANCE_KWH, "overshoot " + outcome.overshootKwh());
+            assertTrue(outcome.polls() <= 8, "polls " + outcome.polls());
+        }
+    }
+
+    @Test
+    void testRealTimeSimulationReducesPollsByAnOrderOfMagnitude() {
+        // Med seconds_per_hour = 3600 är en kvart 15 minuter; fast läsning varje sekund gav 18 900 läsningar
+        long stepMillis = 15 * 60 * 1000;
+        long fixedPolls = 21 * stepMillis / 1000;
+        Outcome outcome = run(new AdaptivePollingPolicy(stepMillis, 1000, 60 * 60 * 1000, TOLERANCE_KWH, 2), stepMillis, 0.0, 5_000);
+
+        assertTrue(outcome.polls() * 10 <= fixedPolls, "polls " + outcome.polls() + " vs fixed " + fixedPolls);
+        assertTrue(outcome.overshootKwh() <= TOLERANCE_KWH);
+    }
+
+    @Test
+    void testStalledChargingFallsBackToFixedPolling() {
+        long stepMillis = 1000;
+        AdaptivePollingPolicy policy = new AdaptivePollingPolicy(stepMillis, 100, 30_000, TOLERANCE_KWH, 2);
+        policy.observe(0, 10.0);
+        policy.observe(1_000_000_000L, 10.0 + STEP_KWH);
+        policy.observe(2_000_000_000L, 10.0 + 2 * STEP_KWH);
+        assertTrue(policy.nextDelayMillis(TARGET_KWH) > stepMillis);
+
+        // Laddningen stoppas: energin står still i mer än tre steg
+        long now = 2_000_000_000L;
+        for (int i = 0; i < 4; i++) {
+            now += 1_000_000_000L;
+            policy.observe(now, 10.0 + 2 * STEP_KWH);
+        }
+        assertTrue(policy.isFallback());
+        assertEquals(stepMillis, policy.nextDelayMillis(TARGET_KWH));
+        assertEquals(1, policy.getAnomalies());
+    }
+}
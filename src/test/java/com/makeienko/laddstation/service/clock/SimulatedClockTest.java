@@ -0,0 +1,138 @@
+package com.makeienko.laddstation.service.clock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.service.LaddstationApiClient;
+import com.makeienko.laddstation.service.SimulatorSeriesStore;
+
+public class SimulatedClockTest {
+
+    private LaddstationApiClient apiClient;
+    private ScheduledExecutorService scheduler;
+    private SimulatedClock clock;
+
+    @BeforeEach
+    void setUp() {
+        apiClient = mock(LaddstationApiClient.class);
+        // Schemaläggaren kör aldrig något; testerna driver tick() själva
+        scheduler = mock(ScheduledExecutorService.class);
+        doReturn(mock(ScheduledFuture.class)).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        clock = new SimulatedClock(apiClient, new SimulatorSeriesStore(apiClient), new LaddstationProperties.Clock(),
+            new LaddstationProperties.Polling(), scheduler);
+    }
+
+    private static InfoResponse info(double hour, double minute, double evEnergyKwh) {
+        InfoResponse info = new InfoResponse();
+        info.setSimTimeHour(hour);
+        info.setSimTimeMin(minute);
+        info.setBatteryEnergyKwh(evEnergyKwh);
+        return info;
+    }
+
+    @Test
+    void testQuarterAndHourCallbacksFireOnBoundaries() {
+        List<String> events = new ArrayList<>();
+        clock.onQuarterHour(info -> events.add("q" + (int) info.getSimTimeHour() + ":" + (int) info.getSimTimeMin()));
+        clock.onHour(info -> events.add("h" + (int) info.getSimTimeHour()));
+        when(apiClient.getInfo(any(Duration.class))).thenReturn(info(10, 0, 0), info(10, 0, 0), info(10, 15, 0), info(11, 0, 0));
+
+        clock.tick(); // Utgångsläge, inget byte än
+        clock.tick();
+        clock.tick();
+        clock.tick();
+
+        assertEquals(List.of("q10:15", "q11:0", "h11"), events);
+        assertEquals(4, clock.getStats().getPolls());
+        assertEquals(1, clock.getStats().getHourEvents());
+    }
+
+    @Test
+    void testNextReadingIsTimedFromTheLastQuarterChange() {
+        clock.onQuarterHour(info -> { });
+        when(apiClient.getInfo(any(Duration.class))).thenReturn(info(10, 0, 0), info(10, 0, 0), info(10, 15, 0));
+        clearInvocations(scheduler);
+
+        clock.tick();
+        clock.tick();
+        verify(scheduler, never()).schedule(any(Runnable.class), eq(500L), any(TimeUnit.class));
+        // Efter ett kvartsbyte väntar klockan en halv kvart (500 ms) innan nästa läsning
+        clock.tick();
+        verify(scheduler).schedule(any(Runnable.class), eq(500L), any(TimeUnit.class));
+
+        assertEquals(Duration.ofSeconds(4), clock.toWallTime(60));
+    }
+
+    @Test
+    void testThresholdFuturesCompleteOnceAndClockGoesIdle() {
+        List<Double> crossings = new ArrayList<>();
+        SimulatedClock.Registration registration = clock.onThreshold(info -> info.getBatteryEnergyKwh() >= 37.0,
+            info -> crossings.add(info.getBatteryEnergyKwh()));
+        CompletableFuture<InfoResponse> reached = clock.whenThreshold(info -> info.getBatteryEnergyKwh() >= 37.0);
+        when(apiClient.getInfo(any(Duration.class))).thenReturn(info(1, 0, 35.0), info(1, 15, 37.0), info(1, 30, 38.0),
+            info(1, 45, 30.0), info(2, 0, 37.5));
+
+        clock.tick();
+        assertFalse(reached.isDone());
+        clock.tick();
+        assertTrue(reached.isDone());
+        assertEquals(37.0, reached.join().getBatteryEnergyKwh());
+        clock.tick();
+        clock.tick();
+        clock.tick();
+
+        // Bara övergångar från under till över gränsen räknas
+        assertEquals(List.of(37.0, 37.5), crossings);
+        assertEquals(1, clock.getStats().getListeners());
+
+        registration.cancel();
+        clearInvocations(scheduler);
+        clock.tick();
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        assertEquals(0, clock.getStats().getListeners());
+    }
+
+    @Test
+    void testPredictiveWaitCompletesAndRecordsOvershoot() {
+        CompletableFuture<InfoResponse> reached = clock.whenReaching(InfoResponse::getBatteryEnergyKwh, 37.04,
+            info -> !info.isEvBatteryChargeStartStopp());
+        InfoResponse charging = info(1, 0, 35.0);
+        charging.setEvBatteryChargeStartStopp(true);
+        InfoResponse done = info(1, 15, 37.5);
+        done.setEvBatteryChargeStartStopp(true);
+        when(apiClient.getInfo(any(Duration.class))).thenReturn(charging, done);
+
+        clock.tick();
+        assertFalse(reached.isDone());
+        clock.tick();
+
+        assertTrue(reached.isDone());
+        assertEquals(1, clock.getAdaptivePollingStats().getCompletedWaits());
+        assertEquals(2, clock.getAdaptivePollingStats().getPolls());
+        assertEquals(0.46, clock.getAdaptivePollingStats().getMaxOvershoot(), 1e-9);
+        assertEquals(0, clock.getAdaptivePollingStats().getActiveWaits());
+    }
+}
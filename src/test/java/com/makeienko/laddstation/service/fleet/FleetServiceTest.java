@@ -0,0 +1,82 @@
+package com.makeienko.laddstation.service.fleet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.FleetStatusResponse;
+import com.makeienko.laddstation.dto.FleetVehicleRequest;
+import com.makeienko.laddstation.dto.FleetVehicleResponse;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.service.LaddstationApiClient;
+import com.makeienko.laddstation.service.SimulatorSeriesStore;
+import com.makeienko.laddstation.service.clock.SimulatedClock;
+
+public class FleetServiceTest {
+
+    private SimulatedClock clock;
+    private FleetService fleetService;
+
+    @BeforeEach
+    void setUp() {
+        LaddstationApiClient apiClient = mock(LaddstationApiClient.class);
+        InfoResponse info = new InfoResponse();
+        info.setSimTimeHour(10);
+        info.setSimTimeMin(0);
+        when(apiClient.getInfo()).thenReturn(info);
+
+        LaddstationProperties.Fleet config = new LaddstationProperties.Fleet();
+        config.setSiteLimitKw(20.0);
+        // Klockan anropar aldrig tjänsten i testet; tidsstegen drivs för hand
+        clock = mock(SimulatedClock.class);
+        doReturn(mock(SimulatedClock.Registration.class)).when(clock).onQuarterHour(any(), eq(true));
+        fleetService = new FleetService(apiClient, new SimulatorSeriesStore(apiClient), clock, config);
+    }
+
+    @Test
+    void testTickChargesVehiclesWithinSiteBudget() {
+        fleetService.register(new FleetVehicleRequest("a", 50.0, 10.0, 80.0, 11.0, 4.0));
+        fleetService.register(new FleetVehicleRequest("b", 50.0, 10.0, 80.0, 11.0, 8.0));
+        verify(clock, times(1)).onQuarterHour(any(), eq(true));
+
+        // Slot 40 = 10:00, basförbrukning 4 kW lämnar 16 kW
+        fleetService.tick(40, 4.0);
+        FleetStatusResponse status = fleetService.getStatus();
+        assertEquals(16.0, status.getBudgetKw());
+        assertEquals(16.0, status.getAllocatedKw());
+        assertEquals(11.0, fleetService.getVehicle("a").getAllocatedKw());
+
+        // Samma kvart igen ändrar ingenting, nästa kvart lägger på energin
+        fleetService.tick(40, 4.0);
+        fleetService.tick(41, 4.0);
+        assertEquals(12.75, fleetService.getVehicle("a").getEnergyKwh());
+        assertEquals(11.25, fleetService.getVehicle("b").getEnergyKwh());
+        assertEquals(2, fleetService.getStatus().getTicks());
+    }
+
+    @Test
+    void testRegisterRejectsInvalidVehicleAndDeregisterRemovesIt() {
+        assertThrows(IllegalArgumentException.class,
+            () -> fleetService.register(new FleetVehicleRequest("x", 50.0, 60.0, 80.0, 11.0, 4.0)));
+
+        FleetVehicleResponse registered = fleetService.register(new FleetVehicleRequest("ev", null, null, null, null, 2.0));
+        assertEquals(37.04, registered.getTargetKwh());
+        assertEquals(2.0, registered.getHoursUntilDeparture());
+
+        assertTrue(fleetService.deregister("ev"));
+        assertFalse(fleetService.deregister("ev"));
+        assertEquals(0, fleetService.getStatus().getVehicles());
+    }
+}
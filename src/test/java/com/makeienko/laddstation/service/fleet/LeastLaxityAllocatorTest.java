@@ -0,0 +1,112 @@
+package com.makeienko.laddstation.service.fleet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class LeastLaxityAllocatorTest {
+
+    private static final double TICK_HOURS = 0.25;
+
+    @Test
+    void testTightestDeadlineIsServedFirst() {
+        FleetRegistry registry = new FleetRegistry(4);
+        // Samma energibehov (20 kWh på 11 kW), olika avgång: 2 h, 8 h och 4 h
+        registry.register("late", 50, 10, 30, 11, 32);
+        registry.register("urgent", 50, 10, 30, 11, 8);
+        registry.register("middle", 50, 10, 30, 11, 16);
+
+        double allocated = new LeastLaxityAllocator().allocate(registry, 0, 15.0, TICK_HOURS);
+
+        assertEquals(15.0, allocated, 1e-9);
+        assertEquals(11.0, registry.allocatedKwAt(registry.indexOf("urgent")));
+        assertEquals(4.0, registry.allocatedKwAt(registry.indexOf("middle")), 1e-9);
+        assertEquals(0.0, registry.allocatedKwAt(registry.indexOf("late")));
+    }
+
+    @Test
+    void testAllocationStopsAtTargetAndSkipsFullVehicles() {
+        FleetRegistry registry = new FleetRegistry(4);
+        registry.register("almost", 50, 39, 40, 11, 8); // 1 kWh kvar = 4 kW under en kvart
+        registry.register("full", 50, 40, 40, 11, 4);
+
+        double allocated = new LeastLaxityAllocator().allocate(registry, 0, 100.0, TICK_HOURS);
+
+        assertEquals(4.0, allocated, 1e-9);
+        assertEquals(0.0, registry.allocatedKwAt(registry.indexOf("full")));
+
+        registry.applyAllocation(0, 1, TICK_HOURS);
+        assertEquals(40.0, registry.energyKwhAt(registry.indexOf("almost")), 1e-9);
+    }
+
+    @Test
+    void testDeregisterMovesLastVehicleIntoFreedRow() {
+        FleetRegistry registry = new FleetRegistry(2);
+        registry.register("a", 50, 0, 40, 11, 10);
+        registry.register("b", 60, 5, 40, 7.4, 20);
+        registry.register("c", 70, 9, 40, 22, 30);
+
+        assertTrue(registry.deregister("a"));
+
+        assertEquals(2, registry.size());
+        assertEquals(-1, registry.indexOf("a"));
+        int c = registry.indexOf("c");
+        assertEquals("c", registry.idAt(c));
+        assertEquals(70.0, registry.capacityKwhAt(c));
+        assertEquals(22.0, registry.maxPowerKwAt(c));
+        assertEquals(30L, registry.departureSlotAt(c));
+    }
+
+    @Test
+    void testAllocationFor10kVehiclesSpendsBudget() {
+        int vehicles = 10_000;
+        FleetRegistry registry = new FleetRegistry(vehicles);
+        Random random = new Random(42);
+        for (int i = 0; i < vehicles; i++) {
+            double capacity = 40 + random.nextInt(60);
+            registry.register("ev-" + i, capacity, random.nextDouble() * capacity * 0.5, capacity * 0.8,
+                7.4 + random.nextInt(3) * 3.6, 4 + random.nextInt(96));
+        }
+        double budgetKw = vehicles * 3.0;
+
+        double allocated = new LeastLaxityAllocator().allocate(registry, 0, budgetKw, TICK_HOURS);
+
+        double sum = 0;
+        for (int i = 0; i < vehicles; i++) {
+            assertTrue(registry.allocatedKwAt(i) <= registry.maxPowerKwAt(i) + 1e-9);
+            sum += registry.allocatedKwAt(i);
+        }
+        assertEquals(budgetKw, allocated, 1e-6);
+        assertEquals(allocated, sum, 1e-6);
+    }
+
+    @Test
+    void testDepartedVehiclesAreIgnored() {
+        FleetRegistry registry = new FleetRegistry(4);
+        registry.register("gone", 50, 10, 40, 11, 4);
+        registry.register("staying", 50, 10, 40, 11, 40);
+
+        double allocated = new LeastLaxityAllocator().allocate(registry, 4, 100.0, TICK_HOURS);
+
+        assertEquals(11.0, allocated, 1e-9);
+        assertEquals(0.0, registry.allocatedKwAt(registry.indexOf("gone")));
+    }
+
+    @Test
+    void testEnergyStopsAtTargetAndDeparture() {
+        FleetRegistry registry = new FleetRegistry(4);
+        registry.register("target", 50, 38, 40, 11, 40);
+        registry.register("leaving", 50, 10, 40, 11, 2);
+        registry.allocatedKw[registry.indexOf("target")] = 11.0;
+        registry.allocatedKw[registry.indexOf("leaving")] = 11.0;
+
+        // Fyra kvartar passerar: 11 kWh erbjuds men målet är 40 kWh, och "leaving" åkte efter två
+        registry.applyAllocation(0, 4, TICK_HOURS);
+
+        assertEquals(40.0, registry.energyKwhAt(registry.indexOf("target")), 1e-9);
+        assertEquals(15.5, registry.energyKwhAt(registry.indexOf("leaving")), 1e-9);
+    }
+}
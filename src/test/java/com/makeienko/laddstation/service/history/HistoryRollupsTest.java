@@ -0,0 +1,92 @@
+package com.makeienko.laddstation.service.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.dto.RollupPointResponse;
+
+public class HistoryRollupsTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long DAY = 24 * 60 * MINUTE;
+
+    @Test
+    void testPlanPicksCoarsestLevelWithEnoughPoints() {
+        HistoryRollups rollups = new HistoryRollups();
+
+        assertEquals(RollupResolution.ONE_HOUR, rollups.plan(0, DAY, 20));
+        assertEquals(RollupResolution.FIFTEEN_MINUTES, rollups.plan(0, DAY, 90));
+        assertEquals(RollupResolution.ONE_MINUTE, rollups.plan(0, DAY, 1000));
+        // Under en minut per punkt finns bara rådata
+        assertNull(rollups.plan(0, DAY, 10_000));
+    }
+
+    @Test
+    void testAggregatesUpdateIncrementally() {
+        HistoryRollups rollups = new HistoryRollups();
+        for (int second = 0; second < 180; second++) {
+            rollups.add(second * 1000L, values(second));
+        }
+
+        List<RollupPointResponse> minutes = collect(rollups, RollupResolution.ONE_MINUTE, 0, 180_000, MINUTE);
+        assertEquals(3, minutes.size());
+        RollupPointResponse first = minutes.get(0);
+        assertEquals(60, first.getSamples());
+        assertEquals(0.0, first.getBatteryEnergyKwh().getMin());
+        assertEquals(59.0, first.getBatteryEnergyKwh().getMax());
+        assertEquals(29.5, first.getBatteryEnergyKwh().getAvg());
+        assertEquals(59.0, first.getBatteryEnergyKwh().getLast());
+        assertEquals(-59.0, first.getNetHouseholdLoadKwh().getMin());
+
+        // Två minutintervall slås ihop till en punkt med viktat medel
+        List<RollupPointResponse> merged = collect(rollups, RollupResolution.ONE_MINUTE, 0, 180_000, 2 * MINUTE);
+        assertEquals(2, merged.size());
+        assertEquals(120, merged.get(0).getSamples());
+        assertEquals(59.5, merged.get(0).getBatteryEnergyKwh().getAvg());
+        assertEquals(119.0, merged.get(0).getBatteryEnergyKwh().getLast());
+
+        List<RollupPointResponse> hours = collect(rollups, RollupResolution.ONE_HOUR, 0, 180_000, 60 * MINUTE);
+        assertEquals(1, hours.size());
+        assertEquals(180, hours.get(0).getSamples());
+        assertEquals(89.5, hours.get(0).getBatteryEnergyKwh().getAvg());
+    }
+
+    @Test
+    void testEvictedLevelFallsBackToCoarserLevel() {
+        HistoryRollups rollups = new HistoryRollups(
+            new RollupSeries(RollupResolution.ONE_MINUTE, 10),
+            new RollupSeries(RollupResolution.FIFTEEN_MINUTES, 10),
+            new RollupSeries(RollupResolution.ONE_HOUR, 10));
+        for (int minute = 0; minute < 60; minute++) {
+            rollups.add(minute * MINUTE, values(minute));
+        }
+
+        // Minutnivån har bara kvar de sista tio minuterna
+        assertEquals(RollupResolution.FIFTEEN_MINUTES, rollups.plan(0, 60 * MINUTE, 60));
+        assertEquals(RollupResolution.ONE_MINUTE, rollups.plan(50 * MINUTE, 60 * MINUTE, 10));
+
+        List<RollupPointResponse> recent = collect(rollups, RollupResolution.ONE_MINUTE, 0, 60 * MINUTE, MINUTE);
+        assertEquals(10, recent.size());
+        assertEquals(50 * MINUTE, recent.get(0).getBucketStart());
+    }
+
+    private static List<RollupPointResponse> collect(HistoryRollups rollups, RollupResolution resolution, long from, long to, long step) {
+        List<RollupPointResponse> points = new ArrayList<>();
+        rollups.collect(resolution, from, to, step, points);
+        return points;
+    }
+
+    private static double[] values(double value) {
+        double[] values = new double[RollupMetric.VALUES.length];
+        values[RollupMetric.BATTERY_ENERGY_KWH.ordinal()] = value;
+        values[RollupMetric.HOUSEHOLD_LOAD_KWH.ordinal()] = 2.0;
+        values[RollupMetric.NET_HOUSEHOLD_LOAD_KWH.ordinal()] = -value;
+        values[RollupMetric.SOLAR_PRODUCTION_KWH.ordinal()] = 1.0;
+        return values;
+    }
+}
@@ -0,0 +1,223 @@
+package com.makeienko.laddstation.service.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.HistoryBucketResponse;
+import com.makeienko.laddstation.dto.HistorySampleResponse;
+import com.makeienko.laddstation.dto.HistoryStatsResponse;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.dto.RollupSeriesResponse;
+
+public class InfoHistoryStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private InfoHistoryStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void testRangeSpansSegments() throws Exception {
+        store = newStore(4);
+        for (int i = 0; i < 10; i++) {
+            store.append(1000L * i, info(i, i % 2 == 0, "idle"));
+        }
+
+        // 10 rader med 4 per segment ger 3 filer
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count());
+        }
+
+        List<HistorySampleResponse> samples = store.range(2500, 8000, 100);
+        assertEquals(5, samples.size());
+        assertEquals(3000, samples.get(0).getTimestamp());
+        assertEquals(7000, samples.get(4).getTimestamp());
+        assertEquals(3.0, samples.get(0).getInfo().getBatteryEnergyKwh());
+        assertEquals(false, samples.get(0).getInfo().isEvBatteryChargeStartStopp());
+
+        assertEquals(2, store.range(0, 100_000, 2).size());
+        assertTrue(store.range(20_000, 30_000, 10).isEmpty());
+    }
+
+    @Test
+    void testReopenKeepsRowsAndModes() {
+        store = newStore(3);
+        store.append(100, info(1, true, "charging"));
+        store.append(200, info(2, false, null));
+        store.append(300, info(3, false, "discharging"));
+        store.append(400, info(4, true, "charging"));
+        store.close();
+
+        store = newStore(3);
+        List<HistorySampleResponse> samples = store.range(0, 1000, 10);
+        assertEquals(4, samples.size());
+        assertEquals("charging", samples.get(0).getInfo().getHomeBatteryMode());
+        assertNull(samples.get(1).getInfo().getHomeBatteryMode());
+        assertEquals("discharging", samples.get(2).getInfo().getHomeBatteryMode());
+        assertEquals(4.0, samples.get(3).getInfo().getBatteryEnergyKwh());
+
+        // Nya rader hamnar i det påbörjade sista segmentet
+        store.append(500, info(5, false, "idle"));
+        HistoryStatsResponse stats = store.getStats();
+        assertEquals(2, stats.getSegments());
+        assertEquals(5, stats.getRows());
+        assertEquals(100L, stats.getFirstTimestamp());
+        assertEquals(500L, stats.getLastTimestamp());
+    }
+
+    @Test
+    void testDownsampleAveragesPerBucket() {
+        store = newStore(5);
+        for (int i = 0; i < 12; i++) {
+            store.append(10_000 + 1000L * i, info(i, i < 3, i < 6 ? "idle" : "charging"));
+        }
+
+        List<HistoryBucketResponse> buckets = store.downsample(10_000, 22_000, 6000);
+        assertEquals(2, buckets.size());
+
+        HistoryBucketResponse first = buckets.get(0);
+        assertEquals(10_000, first.getBucketStart());
+        assertEquals(6, first.getSamples());
+        assertEquals(2.5, first.getBatteryEnergyKwh());
+        assertEquals(0.0, first.getMinBatteryEnergyKwh());
+        assertEquals(5.0, first.getMaxBatteryEnergyKwh());
+        assertEquals(0.5, first.getChargingShare());
+        assertEquals("idle", first.getHomeBatteryMode());
+
+        HistoryBucketResponse second = buckets.get(1);
+        assertEquals(16_000, second.getBucketStart());
+        assertEquals(8.5, second.getBatteryEnergyKwh());
+        assertEquals(0.0, second.getChargingShare());
+        assertEquals("charging", second.getHomeBatteryMode());
+
+        assertThrows(IllegalArgumentException.class, () -> store.downsample(0, 1_000_000, 1));
+        assertThrows(IllegalArgumentException.class, () -> store.downsample(500, 100, 10));
+    }
+
+    @Test
+    void testRollupChoosesSourceAndSurvivesReopen() {
+        store = newStore(1000);
+        long hour = 3_600_000;
+        // Två timmar med en snapshot var tionde sekund
+        for (int i = 0; i < 720; i++) {
+            store.append(10_000L * i, info(i % 7, false, "idle"));
+        }
+
+        RollupSeriesResponse hourly = store.rollup(0, 2 * hour, 2);
+        assertEquals("1h", hourly.getSource());
+        assertEquals(2, hourly.getPoints().size());
+        assertEquals(360, hourly.getPoints().get(0).getSamples());
+        assertEquals(6.0, hourly.getPoints().get(0).getBatteryEnergyKwh().getMax());
+
+        RollupSeriesResponse quarters = store.rollup(0, 2 * hour, 8);
+        assertEquals("15m", quarters.getSource());
+        assertEquals(8, quarters.getPoints().size());
+
+        // Under en minut per punkt läses rådata
+        RollupSeriesResponse raw = store.rollup(0, hour, 100);
+        assertEquals("raw", raw.getSource());
+        assertTrue(raw.getPoints().size() <= 100);
+        assertEquals(360, raw.getPoints().stream().mapToLong(p -> p.getSamples()).sum());
+
+        store.close();
+        store = newStore(1000);
+        RollupSeriesResponse rebuilt = store.rollup(0, 2 * hour, 2);
+        assertEquals(hourly, rebuilt);
+        assertEquals(hourly.getPoints().get(1).getBatteryEnergyKwh(), store.rollup(hour, 2 * hour, 1).getPoints().get(0).getBatteryEnergyKwh());
+
+        assertThrows(IllegalArgumentException.class, () -> store.rollup(0, hour, 0));
+        assertThrows(IllegalArgumentException.class, () -> store.rollup(0, hour, 1000));
+    }
+
+    @Test
+    void testOutOfOrderTimestampsAreClamped() {
+        store = newStore(10);
+        store.append(5000, info(1, false, "idle"));
+        store.append(4000, info(2, false, "idle"));
+
+        List<HistorySampleResponse> samples = store.range(0, 10_000, 10);
+        assertEquals(2, samples.size());
+        assertEquals(5000, samples.get(1).getTimestamp());
+        assertEquals(2.0, samples.get(1).getInfo().getBatteryEnergyKwh());
+    }
+
+    @Test
+    void testDisabledStoreWritesNothing() throws Exception {
+        LaddstationProperties.History history = history(10);
+        history.setEnabled(false);
+        store = new InfoHistoryStore(history);
+        store.open();
+        store.append(1000, info(1, false, "idle"));
+
+        assertEquals(0, store.getStats().getRows());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testRecordStampsSimulatedTime() {
+        long[] day = {3};
+        store = new InfoHistoryStore(null, () -> day[0], history(10));
+        store.open();
+        InfoResponse info = info(1, false, "idle");
+        info.setSimTimeMin(15);
+        store.record(info);
+        day[0] = 4;
+        info.setSimTimeHour(0);
+        info.setSimTimeMin(0);
+        store.record(info);
+
+        List<HistorySampleResponse> samples = store.range(0, Long.MAX_VALUE, 10);
+        assertEquals(2, samples.size());
+        // Dygn 3 kl 12:15 och dygn 4 kl 00:00 i simulerade millisekunder
+        assertEquals((3 * 1440 + 12 * 60 + 15) * 60_000L, samples.get(0).getTimestamp());
+        assertEquals(4 * 1440 * 60_000L, samples.get(1).getTimestamp());
+        assertEquals(4 * 1440 * 60_000L, store.getLatestTimestamp());
+    }
+
+    private InfoHistoryStore newStore(int segmentRows) {
+        InfoHistoryStore opened = new InfoHistoryStore(history(segmentRows));
+        opened.open();
+        return opened;
+    }
+
+    private LaddstationProperties.History history(int segmentRows) {
+        LaddstationProperties.History history = new LaddstationProperties.History();
+        history.setEnabled(true);
+        history.setDirectory(directory.toString());
+        history.setSegmentRows(segmentRows);
+        history.setMaxBuckets(100);
+        return history;
+    }
+
+    private static InfoResponse info(double batteryEnergy, boolean charging, String mode) {
+        InfoResponse info = new InfoResponse();
+        info.setSimTimeHour(12);
+        info.setBatteryEnergyKwh(batteryEnergy);
+        info.setEvBattMaxCapacityKwh(46.3);
+        info.setEvBatteryChargeStartStopp(charging);
+        info.setHomeBatteryMode(mode);
+        info.setSolarProductionKwh(2.0);
+        return info;
+    }
+}
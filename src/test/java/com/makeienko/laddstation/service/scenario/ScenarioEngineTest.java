@@ -0,0 +1,146 @@
+package com.makeienko.laddstation.service.scenario;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.dto.ScenarioMatrixResponse;
+import com.makeienko.laddstation.dto.ScenarioRequest;
+import com.makeienko.laddstation.service.schedule.ChargeSchedule;
+import com.makeienko.laddstation.service.schedule.CostMinimizingScheduler;
+
+public class ScenarioEngineTest {
+
+    private final ScenarioEngine engine = new ScenarioEngine(4);
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    @Test
+    void testMatchesSchedulerForEveryCombination() {
+        Random random = new Random(7);
+        HourlySeries[] prices = {randomSeries(random, 20, 150), randomSeries(random, 40, 60), randomSeries(random, 0, 300)};
+        HourlySeries baseload = randomSeries(random, 1, 8);
+        double[] fuses = {8.0, 11.0, 16.0, 24.0};
+        double[] chargers = {3.7, 7.4, 11.0};
+        double[] batteries = {30.0, 46.3, 60.0, 77.0, 100.0};
+        // 18:00 till 07:00, från 20 % till 80 %
+        ScenarioGrid grid = new ScenarioGrid(new String[] {"a", "b", "c"}, prices, fuses, chargers, batteries,
+            baseload, 18 * ChargeSchedule.SLOTS_PER_HOUR, 13 * ChargeSchedule.SLOTS_PER_HOUR, 20, 80);
+
+        ScenarioMatrix matrix = engine.evaluate(grid);
+        assertEquals(3 * 4 * 3 * 5, matrix.size());
+
+        for (int p = 0; p < prices.length; p++) {
+            for (int f = 0; f < fuses.length; f++) {
+                for (int c = 0; c < chargers.length; c++) {
+                    for (int b = 0; b < batteries.length; b++) {
+                        ChargeSchedule expected = new CostMinimizingScheduler(chargers[c], fuses[f]).solve(prices[p], baseload,
+                            grid.getStartSlotOfDay(), grid.getHorizonSlots(), batteries[b] * 0.6);
+                        int index = grid.index(p, f, c, b);
+                        assertEquals(expected.getTotalCost(), matrix.getCost(index), 1e-9, "scenario " + index);
+                        assertEquals(expected.isFeasible(), matrix.isFeasible(index), "scenario " + index);
+                        assertEquals(expected.getPlannedEnergyKwh(), matrix.getPlannedEnergyKwh(index), 1e-9, "scenario " + index);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testParallelResultEqualsSequential() {
+        Random random = new Random(11);
+        HourlySeries[] prices = new HourlySeries[20];
+        String[] names = new String[prices.length];
+        for (int p = 0; p < prices.length; p++) {
+            prices[p] = randomSeries(random, 10, 200);
+            names[p] = "p" + p;
+        }
+        double[] fuses = {9.0, 11.0, 13.8, 17.3};
+        double[] chargers = {3.7, 7.4, 11.0, 22.0};
+        double[] batteries = new double[10];
+        for (int b = 0; b < batteries.length; b++) {
+            batteries[b] = 30 + 8 * b;
+        }
+        ScenarioGrid grid = new ScenarioGrid(names, prices, fuses, chargers, batteries,
+            randomSeries(random, 1, 6), 0, ChargeSchedule.SLOTS_PER_DAY, 10, 90);
+
+        // Fler scenarier än en bit, så poolen delar upp arbetet
+        assertTrue(grid.size() > 4 * ScenarioEngine.LEAF_SCENARIOS);
+        ScenarioMatrix parallel = engine.evaluate(grid);
+
+        double[] cost = new double[grid.size()];
+        boolean[] feasible = new boolean[grid.size()];
+        double[] planned = new double[grid.size()];
+        ScenarioEngine.evaluateRange(grid, cost, feasible, planned, 0, grid.size());
+        for (int i = 0; i < grid.size(); i++) {
+            assertEquals(cost[i], parallel.getCost(i), "scenario " + i);
+            assertEquals(feasible[i], parallel.isFeasible(i), "scenario " + i);
+            assertEquals(planned[i], parallel.getPlannedEnergyKwh(i), "scenario " + i);
+        }
+    }
+
+    @Test
+    void testLargerFuseOpensBlockedHours() {
+        // Hushållet drar 5 kW hela natten: 7,4 kW ryms inte under 11 kW men under 16 kW
+        HourlySeries flat = HourlySeries.of(50.0);
+        ScenarioGrid grid = new ScenarioGrid(new String[] {"flat"}, new HourlySeries[] {flat}, new double[] {11.0, 16.0},
+            new double[] {7.4}, new double[] {46.3}, HourlySeries.of(5.0), 22 * ChargeSchedule.SLOTS_PER_HOUR,
+            9 * ChargeSchedule.SLOTS_PER_HOUR, 20, 80);
+
+        ScenarioMatrix matrix = engine.evaluate(grid);
+        assertFalse(matrix.isFeasible(grid.index(0, 0, 0, 0)));
+        assertEquals(0.0, matrix.getPlannedEnergyKwh(grid.index(0, 0, 0, 0)));
+        assertTrue(matrix.isFeasible(grid.index(0, 1, 0, 0)));
+        assertEquals(46.3 * 0.6 * 50.0, matrix.getCost(grid.index(0, 1, 0, 0)), 1e-6);
+        assertEquals(1, matrix.getFeasibleCount());
+    }
+
+    @Test
+    void testServiceUsesRequestValuesAndRejectsOversizedGrids() {
+        LaddstationProperties.Scenario config = new LaddstationProperties.Scenario();
+        config.setParallelism(2);
+        config.setMaxScenarios(10);
+        // Inga anrop mot simulatorn när förfrågan innehåller allt
+        ScenarioService service = new ScenarioService(null, null, config);
+        try {
+            ScenarioRequest request = new ScenarioRequest(Map.of("cheap", List.of(10.0), "dear", List.of(100.0)),
+                List.of(11.0, 16.0), List.of(7.4), List.of(46.3), List.of(2.0), 22, 6, 20.0, 80.0);
+            ScenarioMatrixResponse response = service.evaluate(request);
+
+            assertEquals(4, response.getScenarios());
+            assertEquals(4, response.getFeasibleScenarios());
+            assertEquals("22:00", response.getStartTime());
+            assertEquals("06:00", response.getDepartureTime());
+            assertEquals(List.of(11.0, 16.0), response.getFuseKw());
+
+            request.setBatteryKwh(List.of(30.0, 40.0, 50.0));
+            assertThrows(IllegalArgumentException.class, () -> service.evaluate(request));
+
+            request.setBatteryKwh(List.of(-1.0));
+            assertThrows(IllegalArgumentException.class, () -> service.evaluate(request));
+        } finally {
+            service.close();
+        }
+    }
+
+    private static HourlySeries randomSeries(Random random, double min, double max) {
+        double[] values = new double[24];
+        for (int hour = 0; hour < values.length; hour++) {
+            values[hour] = min + random.nextDouble() * (max - min);
+        }
+        return HourlySeries.of(values);
+    }
+}
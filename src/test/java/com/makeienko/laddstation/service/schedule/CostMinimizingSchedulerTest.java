@@ -0,0 +1,161 @@
+package com.makeienko.laddstation.service.schedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.dto.HourMask;
+import com.makeienko.laddstation.dto.HourlySeries;
+
+public class CostMinimizingSchedulerTest {
+
+    private static final double CHARGING_POWER = 7.4;
+    private static final double MAX_TOTAL_LOAD = 11.0;
+
+    private final CostMinimizingScheduler scheduler = new CostMinimizingScheduler(CHARGING_POWER, MAX_TOTAL_LOAD);
+
+    private static HourlySeries constant(double value) {
+        double[] values = new double[24];
+        java.util.Arrays.fill(values, value);
+        return HourlySeries.of(values);
+    }
+
+    @Test
+    void testMatchesBruteForceOnSmallInstances() {
+        Random random = new Random(42);
+        double slotEnergy = scheduler.getSlotEnergyKwh();
+
+        for (int round = 0; round < 200; round++) {
+            double[] prices = new double[24];
+            double[] baseload = new double[24];
+            for (int hour = 0; hour < 24; hour++) {
+                prices[hour] = 20 + random.nextInt(100);
+                baseload[hour] = random.nextInt(5) == 0 ? 4.5 : 2.0; // Ibland spärrar säkringen timmen
+            }
+            int start = random.nextInt(ChargeSchedule.SLOTS_PER_DAY);
+            int horizon = 1 + random.nextInt(12);
+            double energy = random.nextDouble() * 5 * slotEnergy;
+
+            ChargeSchedule schedule = scheduler.solve(HourlySeries.of(prices), HourlySeries.of(baseload), start, horizon, energy);
+            double expected = bruteForce(prices, baseload, start, horizon, energy, slotEnergy);
+
+            if (Double.isInfinite(expected)) {
+                assertFalse(schedule.isFeasible(), "round " + round);
+            } else {
+                assertTrue(schedule.isFeasible(), "round " + round);
+                assertEquals(expected, schedule.getTotalCost(), 1e-6, "round " + round);
+                assertEquals(expected, costOf(schedule, prices, energy, slotEnergy), 1e-6, "round " + round);
+            }
+        }
+    }
+
+    @Test
+    void testFinalPartialSlotIsPricedExactly() {
+        // 2.0 kWh = en hel lucka (1.85) plus 0.15 kWh i den sista
+        ChargeSchedule schedule = scheduler.solve(constant(100.0), constant(1.0), 0, 8, 2.0);
+
+        assertEquals(2, schedule.getChargingSlotCount());
+        assertEquals(200.0, schedule.getTotalCost(), 1e-9);
+        assertEquals(2.0, schedule.getPlannedEnergyKwh(), 1e-9);
+    }
+
+    @Test
+    void testFuseLimitBlocksHours() {
+        double[] baseload = new double[24];
+        java.util.Arrays.fill(baseload, 2.0);
+        baseload[1] = 4.0; // 4.0 + 7.4 > 11 kW
+        double[] prices = new double[24];
+        java.util.Arrays.fill(prices, 100.0);
+        prices[1] = 1.0; // Billigast, men otillåten
+
+        ChargeSchedule schedule = scheduler.solve(HourlySeries.of(prices), HourlySeries.of(baseload), 0, 3 * 4, 3.0);
+
+        assertTrue(schedule.isFeasible());
+        assertFalse(schedule.getChargingHourMask().contains(1));
+    }
+
+    @Test
+    void testHorizonWrapsPastMidnight() {
+        double[] prices = new double[24];
+        java.util.Arrays.fill(prices, 100.0);
+        prices[2] = 10.0;
+
+        // Start 22:00, avgång 07:00 = 36 luckor
+        ChargeSchedule schedule = scheduler.solve(HourlySeries.of(prices), constant(2.0), 22 * 4, 36, 4 * scheduler.getSlotEnergyKwh());
+
+        // Kl 02 är fjärde timmen efter starten kl 22
+        assertEquals(HourMask.of(4), schedule.getChargingHourMask());
+        assertEquals(List.of(8, 9, 10, 11), schedule.getChargingSlotsOfDay());
+    }
+
+    @Test
+    void testHourMaskKeepsSameClockHourOnDifferentDaysApart() {
+        // Start 22:00 och två dygns horisont; kvarten 02:15 är billig båda nätterna
+        int horizonSlots = 48 * ChargeSchedule.SLOTS_PER_HOUR;
+        double[] slotPrices = new double[horizonSlots];
+        java.util.Arrays.fill(slotPrices, 100.0);
+        slotPrices[17] = 10.0;
+        slotPrices[17 + ChargeSchedule.SLOTS_PER_DAY] = 10.0;
+
+        ChargeSchedule schedule = scheduler.solve(slotPrices, 22 * 4, horizonSlots, 2 * scheduler.getSlotEnergyKwh());
+
+        HourMask expected = new HourMask.Builder(HourMask.TWO_DAYS).set(4).set(28).build();
+        assertEquals(expected, schedule.getChargingHourMask());
+
+        // 02:00 är inte planerad men 02:15 i samma timme är det; 02:30 har inget kvar i timmen
+        assertFalse(schedule.isChargingAt(16));
+        assertTrue(schedule.isChargingLaterInHour(16));
+        assertFalse(schedule.isChargingLaterInHour(18));
+    }
+
+    @Test
+    void testInfeasibleDeadlineChargesAsMuchAsPossible() {
+        ChargeSchedule schedule = scheduler.solve(constant(50.0), constant(2.0), 0, 3, 20.0);
+
+        assertFalse(schedule.isFeasible());
+        assertEquals(3, schedule.getChargingSlotCount());
+        assertEquals(3 * scheduler.getSlotEnergyKwh(), schedule.getPlannedEnergyKwh(), 1e-9);
+    }
+
+    private static double bruteForce(double[] prices, double[] baseload, int start, int horizon, double energy, double slotEnergy) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int mask = 0; mask < (1 << horizon); mask++) {
+            double remaining = energy;
+            double total = 0;
+            boolean valid = true;
+            for (int t = 0; t < horizon && remaining > 1e-9; t++) {
+                if ((mask & (1 << t)) == 0) {
+                    continue;
+                }
+                int hour = (start + t) % ChargeSchedule.SLOTS_PER_DAY / 4;
+                if (baseload[hour] + CHARGING_POWER > MAX_TOTAL_LOAD) {
+                    valid = false;
+                    break;
+                }
+                double delivered = Math.min(slotEnergy, remaining);
+                total += prices[hour] * delivered;
+                remaining -= delivered;
+            }
+            if (valid && remaining <= 1e-9) {
+                best = Math.min(best, total);
+            }
+        }
+        return best;
+    }
+
+    private static double costOf(ChargeSchedule schedule, double[] prices, double energy, double slotEnergy) {
+        double remaining = energy;
+        double total = 0;
+        for (int slot : schedule.getChargingSlotsOfDay()) {
+            double delivered = Math.min(slotEnergy, remaining);
+            total += prices[slot / 4] * delivered;
+            remaining -= delivered;
+        }
+        return total;
+    }
+}
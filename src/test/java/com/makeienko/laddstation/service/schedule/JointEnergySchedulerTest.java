@@ -0,0 +1,145 @@
+package com.makeienko.laddstation.service.schedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.service.JointPlanService;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+
+public class JointEnergySchedulerTest {
+
+    private static final double EPSILON = 1e-6;
+
+    // Verkningsgrad 1 och 5 kW ger 1,25 kWh per lucka åt vardera hållet
+    private final JointEnergyScheduler scheduler = new JointEnergyScheduler(7.4, 11.0, 5.0, 1.0, 0.25);
+
+    @Test
+    void testWithoutHomeBatteryMatchesEvOnlyScheduler() {
+        Random random = new Random(42);
+        int horizon = 40;
+        double[] prices = new double[horizon];
+        for (int t = 0; t < horizon; t++) {
+            prices[t] = 20 + random.nextInt(200);
+        }
+        double[] load = filled(horizon, 2.0);
+        double[] solar = filled(horizon, 0.0);
+
+        JointSchedule joint = scheduler.solve(prices, load, solar, 0, horizon, 10.0, 0.0, 0.0, 0.0);
+        ChargeSchedule evOnly = new CostMinimizingScheduler(7.4, 11.0).solve(prices, 0, horizon, 10.0);
+
+        // Hushållets köp är detsamma oavsett plan och läggs till elbilens kostnad
+        double householdCost = Arrays.stream(prices).map(price -> price * 2.0 * 0.25).sum();
+        assertTrue(joint.isFeasible());
+        assertEquals(evOnly.getTotalCost() + householdCost, joint.getTotalCost(), EPSILON);
+        assertEquals(10.0, joint.getPlannedEvEnergyKwh(), EPSILON);
+    }
+
+    @Test
+    void testHomeBatteryOffsetsEvLoadInExpensiveSlots() {
+        double[] prices = {10, 10, 10, 10, 100, 100, 100, 100};
+        // Åtta luckor behövs, så elbilen måste ladda även när det är dyrt
+        JointSchedule schedule = scheduler.solve(prices, filled(8, 2.0), filled(8, 0.0), 0, 8, 8 * 1.85, 5.0, 0.0, 5.0);
+
+        assertTrue(schedule.isFeasible());
+        double expensiveDischarge = 0;
+        for (int t = 4; t < 8; t++) {
+            assertTrue(schedule.isEvChargingAt(t));
+            expensiveDischarge += schedule.getHomeBattDischargeKwh(t);
+        }
+        assertEquals(5.0, expensiveDischarge, EPSILON);
+        // 4 * 2,35 kWh à 10 öre + 4 * 2,35 kWh à 100 öre - 5 kWh från batteriet à 100 öre
+        assertEquals(94.0 + 940.0 - 500.0, schedule.getTotalCost(), EPSILON);
+        assertEquals(0.0, schedule.getHomeBattEndKwh(), EPSILON);
+    }
+
+    @Test
+    void testSolarSurplusIsStoredForLaterSlots() {
+        double[] prices = {50, 50, 50, 50, 100, 100, 100, 100};
+        double[] solar = {8, 8, 8, 8, 0, 0, 0, 0};
+        JointSchedule schedule = scheduler.solve(prices, filled(8, 2.0), solar, 0, 8, 0.0, 0.0, 0.0, 5.0);
+
+        double toBattery = 0;
+        double toGrid = 0;
+        for (int t = 0; t < 4; t++) {
+            toBattery += schedule.getSolarToHomeBattKwh(t);
+            toGrid += schedule.getSolarToGridKwh(t);
+            assertEquals(0.0, schedule.getGridImportKwh(t), EPSILON);
+        }
+        // 1,5 kWh överskott per lucka men batteriet tar högst 1,25
+        assertEquals(5.0, toBattery, EPSILON);
+        assertEquals(1.0, toGrid, EPSILON);
+        for (int t = 4; t < 8; t++) {
+            assertEquals(0.0, schedule.getGridImportKwh(t), EPSILON);
+        }
+        assertEquals(0.0, schedule.getTotalCost(), EPSILON);
+    }
+
+    @Test
+    void testHomeBatteryMakesChargingPossibleUnderFuseLimit() {
+        double[] prices = filled(8, 50.0);
+        double[] load = filled(8, 8.0);
+
+        // 8 kW hushåll + 7,4 kW laddning går inte under 11 kW utan husbatteriet
+        ChargeSchedule evOnly = new CostMinimizingScheduler(7.4, 11.0).solve(HourlySeries.of(50, 50), HourlySeries.of(8, 8), 0, 8, 3.7);
+        assertFalse(evOnly.isFeasible());
+
+        JointSchedule joint = scheduler.solve(prices, load, filled(8, 0.0), 0, 8, 3.7, 5.0, 0.0, 5.0);
+        assertTrue(joint.isFeasible());
+        for (int t = 0; t < 8; t++) {
+            assertTrue(joint.getGridImportKwh(t) <= 11.0 * 0.25 + EPSILON);
+        }
+    }
+
+    @Test
+    void testParallelPlansMatchSequentialPlans() {
+        SimulatorEngine engine = new SimulatorEngine();
+        HourlySeries prices = HourlySeries.of(engine.getHourlyPrices());
+        HourlySeries baseload = HourlySeries.of(engine.getBaseload());
+        HourlySeries solar = HourlySeries.of(engine.getSolarProduction());
+        JointPlanService service = new JointPlanService(null, null);
+
+        List<InfoResponse> sites = IntStream.range(0, 64).mapToObj(JointEnergySchedulerTest::site).toList();
+        double[] sequential = sites.stream()
+            .mapToDouble(info -> service.plan(info, prices, baseload, solar, 7).getTotalCost())
+            .toArray();
+        double[] parallel = sites.parallelStream()
+            .mapToDouble(info -> service.plan(info, prices, baseload, solar, 7).getTotalCost())
+            .toArray();
+
+        assertEquals(sequential.length, parallel.length);
+        for (int i = 0; i < sequential.length; i++) {
+            assertEquals(sequential[i], parallel[i], EPSILON);
+        }
+    }
+
+    /**
+     * Anläggningar med olika starttid, elbilsnivå och husbatterinivå
+     */
+    private static InfoResponse site(int index) {
+        InfoResponse info = new InfoResponse();
+        info.setSimTimeHour(index % 24);
+        info.setSimTimeMin(15 * (index % 4));
+        info.setBatteryEnergyKwh(5.0 + index % 20);
+        info.setEvBattMaxCapacityKwh(46.3);
+        info.setHomeBattCapacityKwh(1.35 + index % 12);
+        info.setHomeBattMinCapacityKwh(1.35);
+        info.setHomeBattMaxCapacityKwh(13.5);
+        return info;
+    }
+
+    private static double[] filled(int length, double value) {
+        double[] values = new double[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+}
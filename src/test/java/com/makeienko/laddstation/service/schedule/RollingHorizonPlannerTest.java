@@ -0,0 +1,164 @@
+package com.makeienko.laddstation.service.schedule;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.dto.HourMask;
+import com.makeienko.laddstation.dto.HourlySeries;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+
+public class RollingHorizonPlannerTest {
+
+    private final RollingHorizonPlanner planner = new RollingHorizonPlanner(7.4, 11.0, 0.25);
+
+    private static HourlySeries series(double value, int cheapHour, double cheapValue) {
+        double[] values = new double[24];
+        Arrays.fill(values, value);
+        if (cheapHour >= 0) {
+            values[cheapHour] = cheapValue;
+        }
+        return HourlySeries.of(values);
+    }
+
+    @Test
+    void testUsesCheapHourOnFollowingDay() {
+        // Klockan 10:00 dag 0; billigast kl 03 som redan passerats idag
+        long now = RollingPlan.absoluteSlot(0, 10, 0);
+        RollingPlan plan = planner.plan(now, 48, 7.4, series(100, 3, 10), series(2.0, -1, 0), null);
+
+        long tomorrowAtThree = RollingPlan.absoluteSlot(1, 3, 0);
+        assertArrayEquals(new long[] {tomorrowAtThree, tomorrowAtThree + 1, tomorrowAtThree + 2, tomorrowAtThree + 3},
+            plan.getChargingSlots());
+        assertFalse(plan.isChargingNow());
+        assertTrue(plan.isChargingAt(tomorrowAtThree + 2));
+        assertTrue(plan.isFeasible());
+    }
+
+    @Test
+    void testHourMaskSpansWholeHorizon() {
+        // Klockan 10:00 dag 0 med två dygns horisont: kl 03 dag 1 och dag 2 är båda billiga
+        long now = RollingPlan.absoluteSlot(0, 10, 0);
+        RollingPlan plan = planner.plan(now, 48, 8 * 1.85, series(100, 3, 10), series(2.0, -1, 0), null);
+
+        // Timmarna räknas från planens start, så de två nätterna hålls isär
+        HourMask expected = new HourMask.Builder(HourMask.TWO_DAYS).set(17).set(41).build();
+        assertEquals(expected, plan.getChargingHourMask());
+        assertFalse(plan.isChargingLaterThisHour());
+
+        RollingPlan atThree = planner.plan(RollingPlan.absoluteSlot(1, 3, 0), 48, 8 * 1.85, series(100, 3, 10), series(2.0, -1, 0), null);
+        assertTrue(atThree.isChargingNow());
+        assertTrue(atThree.isChargingLaterThisHour());
+    }
+
+    @Test
+    void testPlanIsReusedWhileBatteryFollowsIt() {
+        long now = RollingPlan.absoluteSlot(0, 2, 0);
+        HourlySeries prices = series(100, 2, 10);
+        HourlySeries baseload = series(2.0, -1, 0);
+
+        RollingPlan first = planner.plan(now, 48, 5.0, prices, baseload, null);
+        assertTrue(first.isChargingNow());
+
+        // Två luckor senare har 2 x 1.85 kWh levererats enligt planen
+        RollingPlan onTrack = planner.plan(now + 2, 48, 5.0 - 2 * 1.85, prices, baseload, null);
+        assertTrue(onTrack.isReused());
+        assertEquals(1, planner.getSolveCount());
+        assertEquals(5.0 - 2 * 1.85, onTrack.getEnergyNeededKwh(), 1e-9);
+
+        // Bilen laddades inte som planerat: planen löses om
+        RollingPlan deviated = planner.plan(now + 4, 48, 5.0, prices, baseload, null);
+        assertFalse(deviated.isReused());
+        assertEquals(2, planner.getSolveCount());
+    }
+
+    @Test
+    void testHorizonEndRollsWithEachSlot() {
+        long now = RollingPlan.absoluteSlot(0, 2, 0);
+        HourlySeries prices = series(100, 2, 10);
+        HourlySeries baseload = series(2.0, -1, 0);
+
+        RollingPlan first = planner.plan(now, 48, 5.0, prices, baseload, null);
+        assertEquals(now + 48 * ChargeSchedule.SLOTS_PER_HOUR, first.getDeadlineSlot());
+
+        // Luckan som tillkommer i slutet kostar lika mycket som planens dyraste, så planen står sig
+        RollingPlan next = planner.plan(now + 1, 48, 5.0 - 1.85, prices, baseload, null);
+        assertTrue(next.isReused());
+        assertEquals(now + 1 + 48 * ChargeSchedule.SLOTS_PER_HOUR, next.getDeadlineSlot());
+    }
+
+    @Test
+    void testNewTailSlotCanTakeOverPartialSlot() {
+        // Simulatorns egna kurvor. En ny lucka i slutet kan ta över delluckan så att den tidigare
+        // delluckan blir hel, även när den nya luckan inte är billigare än planens dyraste lucka
+        SimulatorEngine engine = new SimulatorEngine();
+        HourlySeries prices = HourlySeries.of(engine.getHourlyPrices());
+        HourlySeries baseload = HourlySeries.of(engine.getBaseload());
+
+        RollingPlan first = planner.plan(0, 48, 39.35, prices, baseload, null);
+        double remaining = 39.35 - (first.isChargingNow() ? 1.85 : 0.0);
+        RollingPlan rolled = planner.plan(1, 48, remaining, prices, baseload, null);
+
+        RollingPlan fresh = new RollingHorizonPlanner(7.4, 11.0, 0.25).plan(1, 48, remaining, prices, baseload, null);
+        assertEquals(fresh.getTotalCost(), rolled.getTotalCost(), 1e-6);
+    }
+
+    @Test
+    void testRolledPlanCostsAsMuchAsFreshPlanEverySlot() {
+        SimulatorEngine engine = new SimulatorEngine();
+        HourlySeries prices = HourlySeries.of(engine.getHourlyPrices());
+        HourlySeries baseload = HourlySeries.of(engine.getBaseload());
+
+        double remaining = 39.35;
+        for (long now = 0; now < ChargeSchedule.SLOTS_PER_DAY; now++) {
+            RollingPlan rolled = planner.plan(now, 48, remaining, prices, baseload, null);
+            RollingPlan fresh = new RollingHorizonPlanner(7.4, 11.0, 0.25).plan(now, 48, remaining, prices, baseload, null);
+            assertEquals(fresh.getTotalCost(), rolled.getTotalCost(), 1e-6, "slot " + now);
+            if (rolled.isChargingNow()) {
+                remaining -= Math.min(1.85, remaining);
+            }
+        }
+        // Genvägen används fortfarande för de flesta tidsstegen
+        assertTrue(planner.getReuseCount() > planner.getSolveCount(),
+            "solves " + planner.getSolveCount() + ", reuses " + planner.getReuseCount());
+    }
+
+    @Test
+    void testInfeasiblePlanIsSolvedAgainWhenHorizonGrows() {
+        // Hushållet tar hela säkringen utom kl 03, så bara fyra luckor per dygn går att ladda
+        HourlySeries baseload = series(10.0, 3, 2.0);
+        HourlySeries prices = series(100, -1, 0);
+        long now = RollingPlan.absoluteSlot(0, 4, 0);
+
+        RollingPlan first = planner.plan(now, 48, 20.0, prices, baseload, null);
+        assertFalse(first.isFeasible());
+        assertEquals(8, first.getChargingSlots().length);
+
+        RollingPlan next = planner.plan(now + 1, 48, 20.0, prices, baseload, null);
+        assertFalse(next.isReused());
+        assertEquals(2, planner.getSolveCount());
+    }
+
+    @Test
+    void testSolarSurplusMakesChargingFree() {
+        long now = RollingPlan.absoluteSlot(0, 0, 0);
+        // Natt billigast på nätet, men kl 12 täcker solen både hushållet och laddaren
+        RollingPlan plan = planner.plan(now, 48, 1.85, series(100, 1, 20), series(2.0, -1, 0), series(0.0, 12, 10.0));
+
+        assertArrayEquals(new long[] {RollingPlan.absoluteSlot(0, 12, 0)}, plan.getChargingSlots());
+        assertEquals(0.0, plan.getTotalCost(), 1e-9);
+    }
+
+    @Test
+    void testHorizonMustBeWithinBounds() {
+        HourlySeries flat = series(100, -1, 0);
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(0, 24, 1.0, flat, flat, null));
+        assertThrows(IllegalArgumentException.class, () -> planner.plan(0, 169, 1.0, flat, flat, null));
+    }
+}
@@ -0,0 +1,188 @@
+package com.makeienko.laddstation.service.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.dto.SessionStatusResponse;
+import com.makeienko.laddstation.exception.ChargingServiceException;
+import com.makeienko.laddstation.service.BatteryManager;
+import com.makeienko.laddstation.service.ChargingService;
+
+public class ChargingSessionManagerTest {
+
+    private ChargingService chargingService;
+    private BatteryManager batteryManager;
+    private ChargingSessionManager sessionManager;
+
+    @BeforeEach
+    void setUp() {
+        chargingService = mock(ChargingService.class);
+        batteryManager = mock(BatteryManager.class);
+        // Sessionens tråd har startat laddningen och håller laddaren tills den stoppas
+        when(batteryManager.holdsCharger()).thenReturn(true);
+        sessionManager = new ChargingSessionManager(chargingService, batteryManager, 10_000, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sessionManager.shutdown();
+    }
+
+    @Test
+    void testCompletedSessionDoesNotStopChargingAgain() throws Exception {
+        SessionStatusResponse started = sessionManager.start(SessionMode.DIRECT);
+
+        awaitState(started.getId(), SessionState.COMPLETED);
+        verify(chargingService).chargeBatteryDirect();
+        verify(batteryManager, never()).stopChargingApi();
+        assertEquals(1, sessionManager.getStats().getCompleted());
+    }
+
+    @Test
+    void testStopInterruptsSessionAndStopsCharging() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        // Som performSmartChargingSession: sover, och sätter tillbaka avbrottsflaggan när den väcks
+        doAnswer(invocation -> {
+            running.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }).when(chargingService).chargingSessionOnOptimalChargingHoursPrice();
+        // Stopp-anropet får inte se avbrottsflaggan, annars avbryts HTTP-anropet
+        doAnswer(invocation -> {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new ChargingServiceException("interrupted");
+            }
+            return null;
+        }).when(batteryManager).stopChargingApi();
+
+        String id = sessionManager.start(SessionMode.PRICE).getId();
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        sessionManager.stop(id);
+
+        awaitState(id, SessionState.CANCELLED);
+        verify(batteryManager, times(1)).stopChargingApi();
+        assertEquals(0, sessionManager.getStats().getStopFailures());
+    }
+
+    @Test
+    void testFailedSessionRetriesStopAndReportsError() throws Exception {
+        doThrow(new ChargingServiceException("simulator down")).when(chargingService).chargingSessionOnCostOptimalSchedule();
+        doThrow(new ChargingServiceException("still down")).when(batteryManager).stopChargingApi();
+
+        String id = sessionManager.start(SessionMode.COST_OPTIMAL).getId();
+
+        SessionStatusResponse status = awaitState(id, SessionState.FAILED);
+        assertEquals("simulator down", status.getError());
+        verify(batteryManager, times(3)).stopChargingApi();
+        assertEquals(1, sessionManager.getStats().getStopFailures());
+        assertNull(sessionManager.getStatus("s-unknown"));
+    }
+
+    @Test
+    void testSessionThatStoppedChargingItselfIsNotStoppedAgain() throws Exception {
+        // Som ChargingServiceImpl: felet fångas efter att laddningen redan stoppats och laddaren släppts
+        when(batteryManager.holdsCharger()).thenReturn(false);
+        doThrow(new ChargingServiceException("simulator down")).when(chargingService).chargingSessionOnCostOptimalSchedule();
+
+        String id = sessionManager.start(SessionMode.COST_OPTIMAL).getId();
+
+        awaitState(id, SessionState.FAILED);
+        verify(batteryManager, never()).stopChargingApi();
+    }
+
+    @Test
+    void testStopBeforeTaskStartsFinishesSession() throws Exception {
+        // En enda tråd som är upptagen, så sessionens uppgift hinner aldrig starta
+        ExecutorService busyExecutor = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        busyExecutor.submit(() -> {
+            release.await();
+            return null;
+        });
+        ChargingSessionManager queued = new ChargingSessionManager(chargingService, batteryManager, 10_000, 3, busyExecutor);
+        try {
+            String id = queued.start(SessionMode.DIRECT).getId();
+
+            SessionStatusResponse status = queued.stop(id);
+
+            assertEquals(SessionState.CANCELLED.name(), status.getState());
+            assertEquals(0, queued.getStats().getActive());
+            assertEquals(1, queued.getStats().getCancelled());
+            verify(batteryManager, times(1)).stopChargingApi();
+        } finally {
+            release.countDown();
+            queued.shutdown();
+        }
+        verify(chargingService, never()).chargeBatteryDirect();
+    }
+
+    /**
+     * Tusentals sessioner som samtidigt väntar i sleep ska inte kräva lika många plattformstrådar
+     */
+    @Test
+    void testThousandsOfConcurrentSessions() throws Exception {
+        int count = 5_000;
+        CountDownLatch allRunning = new CountDownLatch(count);
+        doAnswer(invocation -> {
+            allRunning.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }).when(chargingService).chargingSessionOnRollingHorizonPlan();
+
+        int platformThreadsBefore = Thread.activeCount();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(sessionManager.start(SessionMode.ROLLING_HORIZON).getId());
+        }
+        assertTrue(allRunning.await(20, TimeUnit.SECONDS), "All sessions should be running concurrently");
+        assertEquals(count, sessionManager.getStats().getActive());
+        // activeCount räknar bara plattformstrådar; bärartrådarna är högst en per kärna
+        assertTrue(Thread.activeCount() - platformThreadsBefore <= Runtime.getRuntime().availableProcessors() + 4);
+
+        for (String id : ids) {
+            sessionManager.stop(id);
+        }
+        for (String id : ids) {
+            awaitState(id, SessionState.CANCELLED);
+        }
+        verify(batteryManager, times(count)).stopChargingApi();
+    }
+
+    private SessionStatusResponse awaitState(String id, SessionState expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        SessionStatusResponse status = sessionManager.getStatus(id);
+        while (!expected.name().equals(status.getState()) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+            status = sessionManager.getStatus(id);
+        }
+        assertEquals(expected.name(), status.getState());
+        return status;
+    }
+}
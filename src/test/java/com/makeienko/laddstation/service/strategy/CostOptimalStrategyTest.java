@@ -0,0 +1,52 @@
+package com.makeienko.laddstation.service.strategy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.config.LaddstationProperties;
+import com.makeienko.laddstation.dto.HourMask;
+import com.makeienko.laddstation.dto.InfoResponse;
+import com.makeienko.laddstation.service.ChargingHourOptimizer;
+import com.makeienko.laddstation.service.InMemorySimulatorPort;
+import com.makeienko.laddstation.service.LaddstationApiClient;
+import com.makeienko.laddstation.service.SimulatorMetrics;
+import com.makeienko.laddstation.service.SimulatorSeriesStore;
+import com.makeienko.laddstation.service.schedule.ChargeSchedule;
+import com.makeienko.laddstation.simulator.SimulatorEngine;
+
+public class CostOptimalStrategyTest {
+
+    @Test
+    void testFollowsScheduleSlotBySlot() throws Exception {
+        SimulatorEngine engine = new SimulatorEngine();
+        LaddstationProperties properties = new LaddstationProperties();
+        properties.getInfoCache().setStaleness(Duration.ZERO);
+        LaddstationApiClient apiClient = new LaddstationApiClient(new InMemorySimulatorPort(engine), properties, SimulatorMetrics.standalone());
+        ChargingHourOptimizer optimizer = new ChargingHourOptimizer(apiClient, new SimulatorSeriesStore(apiClient));
+        CostOptimalStrategy strategy = new CostOptimalStrategy(optimizer);
+
+        ChargeSchedule schedule = optimizer.findCostOptimalSchedule();
+        HourMask optimalHours = strategy.findOptimalHourMask();
+        assertEquals(schedule.getChargingHourMask(), optimalHours);
+
+        // Klockan stegas utan att ladda, så schemat gäller hela horisonten
+        int chargingSlots = 0;
+        for (int offset = 0; offset < schedule.getHorizonSlots(); offset++) {
+            InfoResponse info = apiClient.getInfo();
+            boolean charge = strategy.shouldChargeNow(info, optimalHours);
+            assertEquals(schedule.isChargingAt(offset), charge, "slot offset " + offset);
+            assertEquals(schedule.isChargingLaterInHour(offset), strategy.mayChargeLaterThisHour(info, optimalHours), "slot offset " + offset);
+            if (charge) {
+                chargingSlots++;
+                // Masken räknas från schemats start
+                assertTrue(optimalHours.contains(offset / ChargeSchedule.SLOTS_PER_HOUR));
+            }
+            engine.step();
+        }
+        assertEquals(schedule.getChargingSlotCount(), chargingSlots);
+    }
+}
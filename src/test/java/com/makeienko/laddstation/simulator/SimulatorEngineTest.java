@@ -0,0 +1,100 @@
+package com.makeienko.laddstation.simulator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.makeienko.laddstation.dto.InfoResponse;
+
+public class SimulatorEngineTest {
+
+    @Test
+    void testInitialStateMatchesPythonScript() {
+        InfoResponse info = new SimulatorEngine().snapshot();
+
+        assertEquals(0, info.getSimTimeHour());
+        assertEquals(0, info.getSimTimeMin());
+        assertEquals(1.98, info.getHouseholdLoadKwh());
+        assertEquals(9.26, info.getBatteryEnergyKwh(), 1e-9);
+        assertFalse(info.isEvBatteryChargeStartStopp());
+        assertEquals(5.4, info.getHomeBattCapacityKwh(), 1e-9);
+        assertEquals(1.35, info.getHomeBattMinCapacityKwh(), 1e-9);
+        assertEquals(40.0, info.getHomeBattCapacityPercent());
+        assertEquals("idle", info.getHomeBatteryMode());
+        assertEquals(1.98, info.getNetHouseholdLoadKwh());
+    }
+
+    @Test
+    void testSeriesMatchPythonScript() {
+        SimulatorEngine engine = new SimulatorEngine();
+
+        // Samma avrundade värden som Flask-servern skickar (procent * 11 kW resp. 10 kW)
+        assertArrayEquals(new double[] {1.98, 1.76, 1.65, 1.65, 1.76, 2.2, 3.85, 4.95, 4.4, 2.75, 3.3, 3.85,
+            5.5, 3.3, 2.75, 3.3, 3.85, 6.6, 7.7, 4.95, 3.85, 3.3, 2.75, 2.2}, engine.getBaseload());
+        assertEquals(10.0, engine.getSolarProduction()[12]);
+        assertEquals(32.00, engine.getHourlyPrices()[22]);
+        assertNotSame(engine.getBaseload(), engine.getBaseload());
+    }
+
+    @Test
+    void testChargingAddsOneQuarterOfChargerPowerPerStep() {
+        SimulatorEngine engine = new SimulatorEngine();
+        engine.setCharging(true);
+
+        engine.step();
+        assertEquals(11.11, engine.snapshot().getBatteryEnergyKwh());
+        assertEquals(15, engine.snapshot().getSimTimeMin());
+
+        engine.advance(3);
+        assertEquals(16.66, engine.snapshot().getBatteryEnergyKwh());
+        assertEquals(1, engine.snapshot().getSimTimeHour());
+        assertEquals(0, engine.snapshot().getSimTimeMin());
+        assertEquals(1.76, engine.snapshot().getHouseholdLoadKwh());
+    }
+
+    @Test
+    void testChargingStopsOncePastHundredTenPercent() {
+        SimulatorEngine engine = new SimulatorEngine();
+        engine.setCharging(true);
+        engine.advance(100);
+
+        double energy = engine.snapshot().getBatteryEnergyKwh();
+        assertTrue(energy >= 46.3 * 1.1 && energy < 46.3 * 1.1 + 1.85, "Charging should stop just past 110 %: " + energy);
+        engine.advance(10);
+        assertEquals(energy, engine.snapshot().getBatteryEnergyKwh());
+    }
+
+    @Test
+    void testDayRolloverAndSolarFollowHour() {
+        SimulatorEngine engine = new SimulatorEngine();
+        engine.advance(12 * 4);
+
+        assertEquals(12, engine.snapshot().getSimTimeHour());
+        assertEquals(10.0, engine.snapshot().getSolarProductionKwh());
+        assertEquals(-4.5, engine.snapshot().getNetHouseholdLoadKwh());
+
+        engine.advanceDays(1000);
+        assertEquals(12, engine.snapshot().getSimTimeHour());
+        assertEquals(1000, engine.getSimulatedDay());
+        assertEquals(1 + 12 * 4 + 1000 * 96, engine.getTotalSteps());
+    }
+
+    @Test
+    void testDischargeEndpointsResetState() {
+        SimulatorEngine engine = new SimulatorEngine();
+        engine.setCharging(true);
+        engine.advance(10);
+
+        engine.resetEvBattery();
+        assertFalse(engine.snapshot().isEvBatteryChargeStartStopp());
+        assertEquals(9.26, engine.snapshot().getBatteryEnergyKwh(), 1e-9);
+        assertEquals(0, engine.snapshot().getSimTimeHour());
+
+        assertEquals(10.0, engine.dischargeHomeBattery());
+        assertEquals(1.35, engine.snapshot().getHomeBattCapacityKwh(), 1e-9);
+    }
+}